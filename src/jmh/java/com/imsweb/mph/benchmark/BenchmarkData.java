@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.apache.commons.lang3.Range;
+
+import au.com.bytecode.opencsv.CSVReader;
+
+import com.imsweb.mph.MphGroup;
+import com.imsweb.mph.MphInput;
+import com.imsweb.mph.MphUtils;
+import com.imsweb.mph.mpgroups.GroupUtility;
+
+/**
+ * Generates the inputs used by the benchmarks; the data is random but always the same for a given seed, so results can be compared across versions.
+ * <br/><br/>
+ * The values follow the distributions seen in registry data: the two tumors of a pair are usually diagnosed within a few years and often share their site
+ * or histology, the common histologies are much more frequent than the other ones, and some months, days, lateralities and treatment statuses are unknown.
+ */
+public final class BenchmarkData {
+
+    public static final long SEED = 20170101L;
+
+    // the most frequent solid tumor histologies, used for most of the generated tumors
+    private static final int[] _COMMON_HISTOLOGIES = {8000, 8010, 8020, 8041, 8046, 8070, 8071, 8072, 8090, 8120, 8130, 8140, 8144, 8170, 8211, 8255, 8260, 8310, 8380,
+            8441, 8480, 8500, 8520, 8522, 8523, 8720, 8721, 8742, 8743, 8772, 9380, 9400, 9440, 9530};
+
+    private static final String[] _HEMATO_RESOURCES = {"Hematopoietic2010SamePrimaryPairs.csv", "Hematopoietic2010TransformToPairs.csv",
+            "Hematopoietic2010TransformFromPairs.csv"};
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Returns pairs of tumors (two inputs per pair) that all belong to the requested group.
+     */
+    public static MphInput[][] createPairs(String groupId, int numPairs, long seed) {
+        MphUtils utils = MphUtils.getInstance();
+        MphGroup group = findGroup(groupId);
+        Random random = new Random(seed);
+
+        int[] sites = computeValues(group.getSiteInclusions(), group.getSiteExclusions(), true, 0, 809);
+        int[] hists = computeHistologies(group);
+        int[] behaviors = computeValues(group.getBehavInclusions(), null, false, 0, 6);
+        int[] years = computeValues(group.getYearInclusions(), null, false, 1990, 2016);
+
+        MphInput[][] pairs = new MphInput[numPairs][];
+        int numPairsCreated = 0, attempts = 0;
+        while (numPairsCreated < numPairs) {
+            if (++attempts > numPairs * 1000)
+                throw new IllegalStateException("Unable to generate tumors for " + groupId);
+            int site1 = pick(random, sites), hist1 = pick(random, hists), year1 = pick(random, years);
+            int site2 = random.nextInt(10) < 6 ? site1 : pick(random, sites);
+            int hist2 = random.nextInt(10) < 5 ? hist1 : pick(random, hists);
+            int year2 = Math.min(year1 + (random.nextInt(10) < 4 ? 0 : random.nextInt(8)), years[years.length - 1]);
+            MphInput input1 = createInput(random, site1, hist1, pick(random, behaviors), year1);
+            MphInput input2 = createInput(random, site2, hist2, pick(random, behaviors), year2);
+            if (isInGroup(utils, input1, group) && isInGroup(utils, input2, group))
+                pairs[numPairsCreated++] = new MphInput[] {input1, input2};
+        }
+        return pairs;
+    }
+
+    /**
+     * Returns pairs of tumors (two inputs per pair) distributed over all the groups the way they are in registry data (mostly 2007+ solid tumors).
+     */
+    public static MphInput[][] createMixedPairs(int numPairs, long seed) {
+        Random random = new Random(seed);
+        List<MphGroup> groups = MphUtils.getInstance().getAllGroups();
+        List<MphInput[]> pairs = new ArrayList<>();
+        for (MphGroup group : groups) {
+            int weight = group.getYearInclusions().startsWith("2007") ? 8 : 1;
+            for (MphInput[] pair : createPairs(group.getId(), Math.max(1, numPairs * weight / (groups.size() * 5)), random.nextLong()))
+                pairs.add(pair);
+        }
+        MphInput[][] result = new MphInput[numPairs][];
+        for (int i = 0; i < numPairs; i++)
+            result[i] = pairs.get(random.nextInt(pairs.size()));
+        return result;
+    }
+
+    /**
+     * Returns the morphologies (like 9590/3) found in the Hematopoietic database, in order.
+     */
+    public static String[] getHematoMorphologies() {
+        TreeSet<String> morphologies = new TreeSet<>();
+        for (String[] row : readHematoPairs())
+            for (String value : new String[] {row[0], row[3]})
+                if (value.matches("\\d{4}/\\d"))
+                    morphologies.add(value);
+        return morphologies.toArray(new String[morphologies.size()]);
+    }
+
+    /**
+     * Returns the rows of the three Hematopoietic database files (morphology, start year, end year, other morphology).
+     */
+    public static List<String[]> readHematoPairs() {
+        List<String[]> rows = new ArrayList<>();
+        for (String resource : _HEMATO_RESOURCES)
+            try (InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream(resource)) {
+                rows.addAll(new CSVReader(new InputStreamReader(is, StandardCharsets.US_ASCII), ',', '\"', 1).readAll());
+            }
+            catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        return rows;
+    }
+
+    private static MphInput createInput(Random random, int site, int hist, int behavior, int year) {
+        MphInput input = new MphInput();
+        input.setPrimarySite(String.format("C%03d", site));
+        input.setHistologyIcdO3(String.valueOf(hist));
+        input.setHistologyIcdO2(String.valueOf(hist));
+        input.setBehaviorIcdO3(String.valueOf(behavior));
+        input.setBehaviorIcdO2(String.valueOf(behavior));
+        input.setDateOfDiagnosisYear(String.valueOf(year));
+        input.setDateOfDiagnosisMonth(random.nextInt(100) < 5 ? "99" : String.valueOf(random.nextInt(12) + 1));
+        input.setDateOfDiagnosisDay(random.nextInt(100) < 15 ? "99" : String.valueOf(random.nextInt(28) + 1));
+        int laterality = random.nextInt(100);
+        input.setLaterality(laterality < 50 ? "0" : laterality < 70 ? "1" : laterality < 90 ? "2" : laterality < 93 ? "4" : "9");
+        int treatment = random.nextInt(100);
+        input.setTxStatus(treatment < 50 ? "1" : treatment < 90 ? "0" : "9");
+        return input;
+    }
+
+    private static boolean isInGroup(MphUtils utils, MphInput input, MphGroup group) {
+        return group == utils.findCancerGroup(input.getPrimarySite(), input.getHistology(), input.getBehavior(), Integer.parseInt(input.getDateOfDiagnosisYear()));
+    }
+
+    private static MphGroup findGroup(String groupId) {
+        for (MphGroup group : MphUtils.getInstance().getAllGroups())
+            if (group.getId().equals(groupId))
+                return group;
+        throw new IllegalArgumentException("Unknown group: " + groupId);
+    }
+
+    // the hemato groups use the morphologies of the database, the other ones mostly use the common histologies
+    private static int[] computeHistologies(MphGroup group) {
+        int[] allHists = computeValues(group.getHistInclusions(), group.getHistExclusions(), false, 8000, 9989);
+        List<Integer> hists = new ArrayList<>();
+        if (allHists[0] >= 9590) {
+            for (String morphology : getHematoMorphologies()) {
+                int hist = Integer.parseInt(morphology.substring(0, 4));
+                if (!hists.contains(hist))
+                    hists.add(hist);
+            }
+        }
+        else {
+            for (int hist : _COMMON_HISTOLOGIES)
+                if (contains(allHists, hist))
+                    for (int i = 0; i < 10; i++)
+                        hists.add(hist);
+            for (int hist : allHists)
+                hists.add(hist);
+        }
+        return hists.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] computeValues(String inclusions, String exclusions, boolean isSite, int min, int max) {
+        List<Range<Integer>> incRanges = GroupUtility.computeRange(inclusions, isSite), excRanges = GroupUtility.computeRange(exclusions, isSite);
+        List<Integer> values = new ArrayList<>();
+        for (int value = min; value <= max; value++)
+            if ((incRanges == null || GroupUtility.isContained(incRanges, value)) && !GroupUtility.isContained(excRanges, value))
+                values.add(value);
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values)
+            if (v == value)
+                return true;
+        return false;
+    }
+
+    private static int pick(Random random, int[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
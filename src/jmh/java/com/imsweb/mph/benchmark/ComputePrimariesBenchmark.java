@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.imsweb.mph.MphComputeOptions;
+import com.imsweb.mph.MphConstants;
+import com.imsweb.mph.MphInput;
+import com.imsweb.mph.MphOutput;
+import com.imsweb.mph.MphUtils;
+
+/**
+ * Measures the computation of a pair of tumors, for each group of rules; the new tumor benchmarks compare a new tumor with the existing tumors
+ * of a patient (pair by pair, and with a single call).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ComputePrimariesBenchmark {
+
+    private static final int _NUM_PAIRS = 4096;
+
+    private static final int _NUM_EXISTING_TUMORS = 8;
+
+    private static final int _NUM_PATIENTS = _NUM_PAIRS / _NUM_EXISTING_TUMORS;
+
+    @Param({MphConstants.MP_1998_HEMATO_GROUP_ID, MphConstants.MP_2001_HEMATO_GROUP_ID, MphConstants.MP_2010_HEMATO_GROUP_ID, MphConstants.MP_2004_BENIGN_BRAIN_GROUP_ID,
+            MphConstants.MP_2004_SOLID_MALIGNANT_GROUP_ID, MphConstants.MP_2007_HEAD_AND_NECK_GROUP_ID, MphConstants.MP_2007_COLON_GROUP_ID, MphConstants.MP_2007_LUNG_GROUP_ID,
+            MphConstants.MP_2007_MELANOMA_GROUP_ID, MphConstants.MP_2007_BREAST_GROUP_ID, MphConstants.MP_2007_KIDNEY_GROUP_ID, MphConstants.MP_2007_URINARY_GROUP_ID,
+            MphConstants.MP_2007_BENIGN_BRAIN_GROUP_ID, MphConstants.MP_2007_MALIGNANT_BRAIN_GROUP_ID, MphConstants.MP_2007_OTHER_SITES_GROUP_ID})
+    public String groupId;
+
+    private MphUtils _utils;
+
+    private MphComputeOptions _options;
+
+    private MphInput[][] _pairs;
+
+    private MphInput[] _newTumors;
+
+    private List<List<MphInput>> _existingTumors;
+
+    @Setup
+    public void setup() {
+        _utils = MphUtils.getInstance();
+        _options = new MphComputeOptions();
+        _pairs = BenchmarkData.createPairs(groupId, _NUM_PAIRS, BenchmarkData.SEED);
+
+        // the new tumor of a patient is the latest tumor of its first pair, the existing tumors are the earliest tumors of the next pairs
+        _newTumors = new MphInput[_NUM_PATIENTS];
+        _existingTumors = new ArrayList<>();
+        for (int i = 0; i < _NUM_PATIENTS; i++) {
+            _newTumors[i] = _pairs[i * _NUM_EXISTING_TUMORS][1];
+            List<MphInput> existingTumors = new ArrayList<>();
+            for (int j = 0; j < _NUM_EXISTING_TUMORS; j++)
+                existingTumors.add(_pairs[i * _NUM_EXISTING_TUMORS + j][0]);
+            _existingTumors.add(existingTumors);
+        }
+    }
+
+    @Benchmark
+    public MphOutput computePrimaries(Cursor cursor) {
+        MphInput[] pair = _pairs[cursor.next(_NUM_PAIRS)];
+        return _utils.computePrimaries(pair[0], pair[1], _options);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(_NUM_EXISTING_TUMORS)
+    public void computePrimariesPairByPair(Cursor cursor, Blackhole blackhole) {
+        int idx = cursor.next(_NUM_PATIENTS);
+        for (MphInput existingTumor : _existingTumors.get(idx))
+            blackhole.consume(_utils.computePrimaries(_newTumors[idx], existingTumor, _options));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(_NUM_EXISTING_TUMORS)
+    public List<MphOutput> computePrimariesForNewTumor(Cursor cursor) {
+        int idx = cursor.next(_NUM_PATIENTS);
+        return _utils.computePrimariesForNewTumor(_newTumors[idx], _existingTumors.get(idx), _options);
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The position of a benchmark thread in the shared data; each thread starts at a random position so the threads don't all read the same values.
+ */
+@State(Scope.Thread)
+public class Cursor {
+
+    private int _position;
+
+    @Setup
+    public void setup() {
+        _position = ThreadLocalRandom.current().nextInt(1 << 20);
+    }
+
+    /**
+     * Returns the next index, the size must be a power of two.
+     */
+    public int next(int size) {
+        return _position++ & (size - 1);
+    }
+}
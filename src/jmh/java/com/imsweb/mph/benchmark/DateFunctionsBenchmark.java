@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.imsweb.mph.MphInput;
+import com.imsweb.mph.mpgroups.GroupUtility;
+
+/**
+ * Measures the date functions used by the rules, for pairs of tumors distributed over all the groups.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateFunctionsBenchmark {
+
+    private static final int _NUM_PAIRS = 4096;
+
+    private MphInput[][] _pairs;
+
+    @Setup
+    public void setup() {
+        _pairs = BenchmarkData.createMixedPairs(_NUM_PAIRS, BenchmarkData.SEED);
+    }
+
+    @Benchmark
+    public int compareDxDate(Cursor cursor) {
+        MphInput[] pair = _pairs[cursor.next(_NUM_PAIRS)];
+        return GroupUtility.compareDxDate(pair[0], pair[1]);
+    }
+
+    @Benchmark
+    public int verifyYearsApart(Cursor cursor) {
+        MphInput[] pair = _pairs[cursor.next(_NUM_PAIRS)];
+        return GroupUtility.verifyYearsApart(pair[0], pair[1], 3);
+    }
+
+    @Benchmark
+    public int verifyDaysApart(Cursor cursor) {
+        MphInput[] pair = _pairs[cursor.next(_NUM_PAIRS)];
+        return GroupUtility.verifyDaysApart(pair[0], pair[1], 60);
+    }
+}
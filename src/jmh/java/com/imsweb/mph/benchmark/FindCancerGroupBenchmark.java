@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.imsweb.mph.MphGroup;
+import com.imsweb.mph.MphInput;
+import com.imsweb.mph.MphUtils;
+import com.imsweb.mph.mpgroups.GroupUtility;
+
+/**
+ * Measures the selection of the group of rules of a tumor, for tumors distributed over all the groups.
+ * <br/><br/>
+ * The batch benchmark classifies all the tumors in each invocation (the score is still per tumor) with the numeric findCancerGroup; like
+ * findCancerGroups, it reads the current year once per invocation and writes the group of each tumor into an output column owned by the benchmark thread.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FindCancerGroupBenchmark {
+
+    private static final int _NUM_TUMORS = 8192;
+
+    private MphUtils _utils;
+
+    private String[] _sites;
+
+    private String[] _hists;
+
+    private String[] _behaviors;
+
+    private int[] _years;
+
+    private int[] _siteValues;
+
+    private int[] _histValues;
+
+    private int[] _behaviorValues;
+
+    /**
+     * The output column of a benchmark thread; sharing it between the threads would mostly measure the contention on its cache lines.
+     */
+    @State(Scope.Thread)
+    public static class Output {
+
+        private MphGroup[] _groups = new MphGroup[_NUM_TUMORS];
+    }
+
+    @Setup
+    public void setup() {
+        _utils = MphUtils.getInstance();
+        MphInput[][] pairs = BenchmarkData.createMixedPairs(_NUM_TUMORS / 2, BenchmarkData.SEED);
+        _sites = new String[_NUM_TUMORS];
+        _hists = new String[_NUM_TUMORS];
+        _behaviors = new String[_NUM_TUMORS];
+        _years = new int[_NUM_TUMORS];
+        for (int i = 0; i < _NUM_TUMORS; i++) {
+            MphInput input = pairs[i / 2][i % 2];
+            _sites[i] = input.getPrimarySite();
+            _hists[i] = input.getHistology();
+            _behaviors[i] = input.getBehavior();
+            _years[i] = Integer.parseInt(input.getDateOfDiagnosisYear());
+        }
+        _siteValues = new int[_NUM_TUMORS];
+        _histValues = new int[_NUM_TUMORS];
+        _behaviorValues = new int[_NUM_TUMORS];
+        for (int i = 0; i < _NUM_TUMORS; i++) {
+            _siteValues[i] = GroupUtility.parseSite(_sites[i]);
+            _histValues[i] = GroupUtility.parseHistology(_hists[i]);
+            _behaviorValues[i] = GroupUtility.parseBehavior(_behaviors[i]);
+        }
+    }
+
+    @Benchmark
+    public MphGroup findCancerGroup(Cursor cursor) {
+        int idx = cursor.next(_NUM_TUMORS);
+        return _utils.findCancerGroup(_sites[idx], _hists[idx], _behaviors[idx], _years[idx]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(_NUM_TUMORS)
+    public MphGroup[] findCancerGroupBatch(Output output) {
+        int maxYear = GroupUtility.getCurrentYear();
+        MphGroup[] groups = output._groups;
+        for (int i = 0; i < _NUM_TUMORS; i++)
+            groups[i] = _utils.findCancerGroup(_siteValues[i], _histValues[i], _behaviorValues[i], _years[i], maxYear);
+        return groups;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.imsweb.mph.DefaultHematoDbUtilsProvider;
+import com.imsweb.mph.HematoDbUtilsProvider;
+
+/**
+ * Measures the lookups of the default Hematopoietic database provider; half of the requested pairs come from the database, the other half are random
+ * pairs of morphologies from the database (most of them are not found).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HematoDbBenchmark {
+
+    private static final int _NUM_PAIRS = 4096;
+
+    private HematoDbUtilsProvider _provider;
+
+    private String[] _leftCodes;
+
+    private String[] _rightCodes;
+
+    private int[] _years;
+
+    @Setup
+    public void setup() {
+        _provider = new DefaultHematoDbUtilsProvider();
+        Random random = new Random(BenchmarkData.SEED);
+        List<String[]> rows = BenchmarkData.readHematoPairs();
+        String[] morphologies = BenchmarkData.getHematoMorphologies();
+        _leftCodes = new String[_NUM_PAIRS];
+        _rightCodes = new String[_NUM_PAIRS];
+        _years = new int[_NUM_PAIRS];
+        for (int i = 0; i < _NUM_PAIRS; i++) {
+            if (random.nextBoolean()) {
+                String[] row = rows.get(random.nextInt(rows.size()));
+                _leftCodes[i] = row[0];
+                _rightCodes[i] = row[3];
+            }
+            else {
+                _leftCodes[i] = morphologies[random.nextInt(morphologies.length)];
+                _rightCodes[i] = morphologies[random.nextInt(morphologies.length)];
+            }
+            _years[i] = 2010 + random.nextInt(7);
+        }
+    }
+
+    @Benchmark
+    public boolean isSamePrimary(Cursor cursor) {
+        int idx = cursor.next(_NUM_PAIRS);
+        return _provider.isSamePrimary(_leftCodes[idx], _rightCodes[idx], _years[idx]);
+    }
+
+    @Benchmark
+    public boolean isAcuteTransformation(Cursor cursor) {
+        int idx = cursor.next(_NUM_PAIRS);
+        return _provider.isAcuteTransformation(_leftCodes[idx], _rightCodes[idx], _years[idx]);
+    }
+
+    @Benchmark
+    public boolean isChronicTransformation(Cursor cursor) {
+        int idx = cursor.next(_NUM_PAIRS);
+        return _provider.isChronicTransformation(_leftCodes[idx], _rightCodes[idx], _years[idx]);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with a single thread and then with one thread per processor, and writes all the results into a single JSON file (the standard JMH
+ * format, the number of threads of each result is in its "threads" property).
+ * <br/><br/>
+ * Arguments: the path of the JSON file, and optionally a regular expression limiting the benchmarks to run (for example "HematoDb").
+ */
+public final class MphBenchmarks {
+
+    private MphBenchmarks() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        if (args.length == 0)
+            throw new IllegalArgumentException("The path of the result file is required.");
+        File resultFile = new File(args[0]);
+        String include = MphBenchmarks.class.getPackage().getName() + "\\..*" + (args.length > 1 ? args[1] : "");
+
+        int numProcessors = Runtime.getRuntime().availableProcessors();
+        List<RunResult> results = new ArrayList<>();
+        results.addAll(new Runner(new OptionsBuilder().include(include).threads(1).build()).run());
+        if (numProcessors > 1)
+            results.addAll(new Runner(new OptionsBuilder().include(include).threads(numProcessors).build()).run());
+
+        if (resultFile.getParentFile() != null && !resultFile.getParentFile().exists() && !resultFile.getParentFile().mkdirs())
+            throw new IllegalStateException("Unable to create " + resultFile.getParentFile());
+        try (PrintStream out = new PrintStream(resultFile, StandardCharsets.UTF_8.name())) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, out).writeOut(results);
+        }
+    }
+}
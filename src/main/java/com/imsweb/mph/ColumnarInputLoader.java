@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph;
+
+import com.imsweb.mph.internal.DxDateRange;
+import com.imsweb.mph.internal.ValidatedTumor;
+
+/**
+ * Loads the tumors of MphTumorColumns into a reusable MphInput, so a batch can be computed by the regular rules without creating any object per pair.
+ * <br/><br/>
+ * The codes are cached strings, and the parsed properties (ValidatedTumor and DxDateRange) are kept in small direct-mapped caches: the tumors of a
+ * batch usually share a limited number of distinct values. A loader is not thread-safe.
+ */
+final class ColumnarInputLoader {
+
+    // the cached codes, shared by all the loaders (several threads might create the same value, that's fine since they are all equal)
+    private static final String[] _SITES = new String[1000];
+
+    private static final String[] _HISTOLOGIES = new String[10000];
+
+    private static final String[] _YEARS = new String[10000];
+
+    private static final String[] _DIGITS = new String[10];
+
+    private static final String[] _TWO_DIGITS = new String[100];
+
+    // the number of entries of the caches (must be a power of two)
+    private static final int _CACHE_SIZE = 1 << 12;
+
+    private final long[] _tumorKeys = new long[_CACHE_SIZE];
+
+    private final ValidatedTumor[] _tumors = new ValidatedTumor[_CACHE_SIZE];
+
+    private final long[] _dateKeys = new long[_CACHE_SIZE];
+
+    private final DxDateRange[] _dates = new DxDateRange[_CACHE_SIZE];
+
+    /**
+     * Loads the requested tumor into the input.
+     */
+    void load(MphTumorColumns columns, int idx, MphInput input) {
+        int site = columns.getPrimarySite(idx), hist = columns.getHistology(idx), beh = columns.getBehavior(idx), lat = columns.getLaterality(idx);
+        int year = columns.getDxYear(idx), month = columns.getDxMonth(idx), day = columns.getDxDay(idx);
+
+        String siteCode = code(_SITES, site, "C", 3), histCode = code(_HISTOLOGIES, hist, "", 4), behCode = code(_DIGITS, beh, "", 1);
+        String latCode = code(_DIGITS, lat, "", 1), yearCode = code(_YEARS, year, "", 4), monthCode = code(_TWO_DIGITS, month, "", 2);
+        String dayCode = code(_TWO_DIGITS, day, "", 2);
+
+        // the keys are the values plus one (so -1 is 0), a value that doesn't fit in its bits is never cached
+        ValidatedTumor tumor;
+        if (site >= -1 && site < 1023 && hist >= -1 && hist < 16383 && beh >= -1 && beh < 15 && lat >= -1 && lat < 15 && year >= -1 && year < 16383) {
+            long key = (((((long)(site + 1) << 14 | (hist + 1)) << 4 | (beh + 1)) << 4 | (lat + 1)) << 14) | (year + 1);
+            int slot = slot(key);
+            tumor = _tumors[slot];
+            if (tumor == null || _tumorKeys[slot] != key) {
+                tumor = new ValidatedTumor(siteCode, histCode, behCode, null, null, latCode, yearCode);
+                _tumors[slot] = tumor;
+                _tumorKeys[slot] = key;
+            }
+        }
+        else
+            tumor = new ValidatedTumor(siteCode, histCode, behCode, null, null, latCode, yearCode);
+
+        DxDateRange date;
+        if (year >= -1 && year < 16383 && month >= -1 && month < 127 && day >= -1 && day < 127) {
+            long key = ((long)(year + 1) << 7 | (month + 1)) << 7 | (day + 1);
+            int slot = slot(key);
+            date = _dates[slot];
+            if (date == null || _dateKeys[slot] != key) {
+                date = new DxDateRange(yearCode, monthCode, dayCode);
+                _dates[slot] = date;
+                _dateKeys[slot] = key;
+            }
+        }
+        else
+            date = new DxDateRange(yearCode, monthCode, dayCode);
+
+        input.load(siteCode, histCode, behCode, latCode, yearCode, monthCode, dayCode, tumor, date);
+    }
+
+    private static int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int)(hash >>> 40) & (_CACHE_SIZE - 1);
+    }
+
+    // returns the code of the value (zero-padded to the number of digits), null if the value is -1
+    private static String code(String[] cache, int value, String prefix, int numDigits) {
+        if (value == -1)
+            return null;
+        if (value < 0 || value >= cache.length)
+            return prefix + value;
+        String code = cache[value];
+        if (code == null) {
+            StringBuilder buf = new StringBuilder(prefix);
+            String digits = String.valueOf(value);
+            for (int i = digits.length(); i < numDigits; i++)
+                buf.append('0');
+            code = buf.append(digits).toString();
+            cache[value] = code;
+        }
+        return code;
+    }
+}
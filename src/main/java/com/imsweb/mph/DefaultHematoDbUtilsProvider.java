@@ -3,19 +3,11 @@
  */
 package com.imsweb.mph;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.regex.Pattern;
 
-import au.com.bytecode.opencsv.CSVReader;
-
-import com.imsweb.mph.internal.HematoDbDTO;
+import com.imsweb.mph.internal.CsvResources;
+import com.imsweb.mph.internal.HematoDbTable;
+import com.imsweb.mph.internal.StartupRecorder;
 
 /**
  * This is a default hemato db utils provider which uses seer-api to determine whether two morphologies are same primary, transform to or transform from according to
@@ -23,103 +15,48 @@ import com.imsweb.mph.internal.HematoDbDTO;
  */
 public class DefaultHematoDbUtilsProvider implements HematoDbUtilsProvider {
 
-    private Map<String, List<HematoDbDTO>> _samePrimaryDto;
-    private Map<String, List<HematoDbDTO>> _transformToDto;
-    private Map<String, List<HematoDbDTO>> _transformFromDto;
-    private static Pattern _MORPHOLOGY = Pattern.compile("^(\\d{4}/\\d)");
+    // the tables are immutable, they are loaded once (the first time a provider needs them) and shared by all the providers
+    private static final class TablesHolder {
 
-    public DefaultHematoDbUtilsProvider() {
-        _samePrimaryDto = new HashMap<>();
-        try (InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream("Hematopoietic2010SamePrimaryPairs.csv")) {
-            Reader reader = new InputStreamReader(is, "US-ASCII");
-            for (String[] row : new CSVReader(reader, ',', '\"', 1).readAll()) {
-                if (_samePrimaryDto.containsKey(row[0]))
-                    _samePrimaryDto.get(row[0]).add(new HematoDbDTO(Short.valueOf(row[1]), Short.valueOf(row[2]), row[3]));
-                else {
-                    List<HematoDbDTO> list = new ArrayList<>();
-                    list.add(new HematoDbDTO(Short.valueOf(row[1]), Short.valueOf(row[2]), row[3]));
-                    _samePrimaryDto.put(row[0], list);
-                }
-            }
-        }
-        catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-        _transformToDto = new HashMap<>();
-        try (InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream("Hematopoietic2010TransformToPairs.csv")) {
-            Reader reader = new InputStreamReader(is, "US-ASCII");
-            for (String[] row : new CSVReader(reader, ',', '\"', 1).readAll()) {
-                if (_transformToDto.containsKey(row[0]))
-                    _transformToDto.get(row[0]).add(new HematoDbDTO(Short.valueOf(row[1]), Short.valueOf(row[2]), row[3]));
-                else {
-                    List<HematoDbDTO> list = new ArrayList<>();
-                    list.add(new HematoDbDTO(Short.valueOf(row[1]), Short.valueOf(row[2]), row[3]));
-                    _transformToDto.put(row[0], list);
-                }
-            }
-        }
-        catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-        _transformFromDto = new HashMap<>();
-        try (InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream("Hematopoietic2010TransformFromPairs.csv")) {
-            Reader reader = new InputStreamReader(is, "US-ASCII");
-            for (String[] row : new CSVReader(reader, ',', '\"', 1).readAll()) {
-                if (_transformFromDto.containsKey(row[0]))
-                    _transformFromDto.get(row[0]).add(new HematoDbDTO(Short.valueOf(row[1]), Short.valueOf(row[2]), row[3]));
-                else {
-                    List<HematoDbDTO> list = new ArrayList<>();
-                    list.add(new HematoDbDTO(Short.valueOf(row[1]), Short.valueOf(row[2]), row[3]));
-                    _transformFromDto.put(row[0], list);
-                }
-            }
-        }
-        catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        private static final HematoDbTable[] _TABLES = loadTables();
+        private static final HematoDbTable _SAME_PRIMARY = _TABLES[0];
+        private static final HematoDbTable _TRANSFORM_TO = _TABLES[1];
+        private static final HematoDbTable _TRANSFORM_FROM = _TABLES[2];
+    }
 
+    private static HematoDbTable[] loadTables() {
+        return StartupRecorder.record("Hematopoietic 2010 tables", () -> {
+            List<List<String[]>> rows = CsvResources.readAll("Hematopoietic2010SamePrimaryPairs.csv", "Hematopoietic2010TransformToPairs.csv",
+                    "Hematopoietic2010TransformFromPairs.csv");
+            HematoDbTable[] tables = new HematoDbTable[rows.size()];
+            for (int i = 0; i < tables.length; i++)
+                tables[i] = new HematoDbTable(rows.get(i));
+            return tables;
+        });
     }
 
     @Override
     public boolean isSamePrimary(String leftCode, String rightCode, int year) {
-        if (leftCode == null || rightCode == null || !_MORPHOLOGY.matcher(leftCode).matches() || !_MORPHOLOGY.matcher(rightCode).matches())
+        int left = HematoDbTable.parseMorphology(leftCode), right = HematoDbTable.parseMorphology(rightCode);
+        if (left == -1 || right == -1)
             return false;
-        else if (leftCode.equals(rightCode))
+        else if (left == right)
             return true;
-        else if (_samePrimaryDto.containsKey(leftCode)) {
-            for (HematoDbDTO dto : _samePrimaryDto.get(leftCode))
-                if (dto.matches(rightCode, year))
-                    return true;
-        }
-        else if (_samePrimaryDto.containsKey(rightCode)) {
-            for (HematoDbDTO dto : _samePrimaryDto.get(rightCode))
-                if (dto.matches(leftCode, year))
-                    return true;
-        }
-        return false;
+        else if (TablesHolder._SAME_PRIMARY.containsLeft(left))
+            return TablesHolder._SAME_PRIMARY.matches(left, right, year);
+        else
+            return TablesHolder._SAME_PRIMARY.matches(right, left, year);
     }
 
     @Override
     public boolean isAcuteTransformation(String leftCode, String rightCode, int year) {
-        if (leftCode == null || rightCode == null || !_MORPHOLOGY.matcher(leftCode).matches() || !_MORPHOLOGY.matcher(rightCode).matches())
-            return false;
-        else if (_transformToDto.containsKey(leftCode)) {
-            for (HematoDbDTO dto : _transformToDto.get(leftCode))
-                if (dto.matches(rightCode, year))
-                    return true;
-        }
-        return false;
+        int left = HematoDbTable.parseMorphology(leftCode), right = HematoDbTable.parseMorphology(rightCode);
+        return left != -1 && right != -1 && TablesHolder._TRANSFORM_TO.matches(left, right, year);
     }
 
     @Override
     public boolean isChronicTransformation(String leftCode, String rightCode, int year) {
-        if (leftCode == null || rightCode == null || !_MORPHOLOGY.matcher(leftCode).matches() || !_MORPHOLOGY.matcher(rightCode).matches())
-            return false;
-        else if (_transformFromDto.containsKey(leftCode)) {
-            for (HematoDbDTO dto : _transformFromDto.get(leftCode))
-                if (dto.matches(rightCode, year))
-                    return true;
-        }
-        return false;
+        int left = HematoDbTable.parseMorphology(leftCode), right = HematoDbTable.parseMorphology(rightCode);
+        return left != -1 && right != -1 && TablesHolder._TRANSFORM_FROM.matches(left, right, year);
     }
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * The result of an asynchronous computation started by one of the MphUtils.computePrimariesAsync methods.
+ * <br/><br/>
+ * Cancelling the call cancels the underlying task: a call that hasn't started yet is never computed and a running call is interrupted (which lets a
+ * blocking HematoDbUtilsProvider give up). As for any CompletableFuture, cancelling a dependent stage (thenApply, etc...) doesn't cancel this call.
+ * <br/><br/>
+ * The call also records its timing: how long it waited in the executor queue and how long the computation took.
+ */
+public class MphAsyncCall<T> extends CompletableFuture<T> {
+
+    private final long _submittedNanos;
+
+    private volatile long _startedNanos = -1;
+
+    private volatile long _completedNanos = -1;
+
+    // the task computing the result, null until it's been submitted
+    private volatile Future<?> _task;
+
+    private MphAsyncCall() {
+        _submittedNanos = System.nanoTime();
+    }
+
+    static <T> MphAsyncCall<T> submit(ExecutorService executor, Callable<T> computation) {
+        MphAsyncCall<T> call = new MphAsyncCall<>();
+        call._task = executor.submit(() -> {
+            if (call.isDone())
+                return;
+            call._startedNanos = System.nanoTime();
+            try {
+                T result = computation.call();
+                call._completedNanos = System.nanoTime();
+                call.complete(result);
+            }
+            catch (Throwable t) {
+                call._completedNanos = System.nanoTime();
+                call.completeExceptionally(t);
+            }
+        });
+        // the call might have been cancelled before the task was known
+        if (call.isCancelled())
+            call._task.cancel(true);
+        return call;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        Future<?> task = _task;
+        if (cancelled && task != null)
+            task.cancel(true);
+        return cancelled;
+    }
+
+    /**
+     * Returns the time the call waited before being computed, in nanoseconds; -1 if the computation hasn't started.
+     */
+    public long getQueueNanos() {
+        long started = _startedNanos;
+        return started == -1 ? -1 : started - _submittedNanos;
+    }
+
+    /**
+     * Returns the time the computation took, in nanoseconds; -1 if the computation hasn't completed.
+     */
+    public long getComputeNanos() {
+        long started = _startedNanos, completed = _completedNanos;
+        return started == -1 || completed == -1 ? -1 : completed - started;
+    }
+}
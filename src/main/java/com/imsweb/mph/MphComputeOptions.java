@@ -15,11 +15,30 @@ public class MphComputeOptions {
         LENIENT
     }
 
+    /**
+     * What is recorded about the rules applied to a pair. With the full trace, the output keeps a compact trace and builds the applied rules, the
+     * reason, the group ID and the step from it when they are requested. Without trace, only the result is available for the pairs decided by the
+     * rules of a group (the reason is still available when the tumors can't be compared); that's enough for jobs that only count the results,
+     * but the links of MphPatientPrimaries don't have any rule then. The trace is still recorded when a metrics listener is registered (see
+     * MphUtils.setMetricsListener()), since the metrics are counted by group and step.
+     */
+    public enum MpTraceMode {
+        FULL,
+        NONE
+    }
+
     // Histology matching mode, default mode is strict
     private MpHistologyMatching _histologyMatchingMode;
 
+    // Trace mode, default mode is full
+    private MpTraceMode _traceMode;
+
+    // Cache of the computed pairs, no cache by default
+    private MphPairCache _pairCache;
+
     public MphComputeOptions() {
         _histologyMatchingMode = MpHistologyMatching.STRICT;
+        _traceMode = MpTraceMode.FULL;
     }
 
     public MpHistologyMatching getHistologyMatchingMode() {
@@ -29,4 +48,23 @@ public class MphComputeOptions {
     public void setHistologyMatchingMode(MpHistologyMatching histologyMatchingMode) {
         _histologyMatchingMode = histologyMatchingMode;
     }
+
+    public MpTraceMode getTraceMode() {
+        return _traceMode;
+    }
+
+    public void setTraceMode(MpTraceMode traceMode) {
+        _traceMode = traceMode;
+    }
+
+    public MphPairCache getPairCache() {
+        return _pairCache;
+    }
+
+    /**
+     * Sets the cache used to look up the pairs before computing them (and to store the computed ones); the same cache can be shared by several threads.
+     */
+    public void setPairCache(MphPairCache pairCache) {
+        _pairCache = pairCache;
+    }
 }
@@ -3,13 +3,12 @@
  */
 package com.imsweb.mph;
 
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
-import com.imsweb.mph.mpgroups.GroupUtility;
+import com.imsweb.mph.internal.CodeSet;
+import com.imsweb.mph.internal.StartupRecorder;
 
 public class MphConstants {
 
@@ -60,32 +59,35 @@ public class MphConstants {
     public static final String URETHRA = "C680";
     public static final String THYROID = "C739";
     public static final String LYMPH_NODE = "C77";
-   
-    public static final List<String> EXACT_MATCH_SITES = Collections.unmodifiableList(Arrays.asList("C18", "C21", "C38", "C40", "C41", "C44", "C47", "C49"));
-    public static final List<String> TONGUE = Collections.unmodifiableList(Arrays.asList("C01", "C02"));
-    public static final List<String> MOUTH = Collections.unmodifiableList(Arrays.asList("C05", "C06"));
-    public static final List<String> SALIVARY = Collections.unmodifiableList(Arrays.asList("C07", "C08"));
-    public static final List<String> OROPHARYNX = Collections.unmodifiableList(Arrays.asList("C09", "C10"));
-    public static final List<String> HYPOPHARYNX = Collections.unmodifiableList(Arrays.asList("C12", "C13"));
-    public static final List<String> BILIARY = Collections.unmodifiableList(Arrays.asList("C23", "C24"));
-    public static final List<String> SINUS = Collections.unmodifiableList(Arrays.asList("C30", "C31"));
-    public static final List<String> LUNG = Collections.unmodifiableList(Arrays.asList("C33", "C34"));
+
+    // used to record the initialization of the code sets (see the last static block)
+    private static final long _INIT_START_NANOS = System.nanoTime();
+    private static final long _INIT_START_BYTES = StartupRecorder.getAllocatedBytes();
+
+    public static final CodeSet EXACT_MATCH_SITES = CodeSet.ofSites("C18,C21,C38,C40,C41,C44,C47,C49");
+    public static final CodeSet TONGUE = CodeSet.ofSites("C01,C02");
+    public static final CodeSet MOUTH = CodeSet.ofSites("C05,C06");
+    public static final CodeSet SALIVARY = CodeSet.ofSites("C07,C08");
+    public static final CodeSet OROPHARYNX = CodeSet.ofSites("C09,C10");
+    public static final CodeSet HYPOPHARYNX = CodeSet.ofSites("C12,C13");
+    public static final CodeSet BILIARY = CodeSet.ofSites("C23,C24");
+    public static final CodeSet SINUS = CodeSet.ofSites("C30,C31");
+    public static final CodeSet LUNG = CodeSet.ofSites("C33,C34");
     
-    public static final String MEDIASTINUM = "C370-C383,C388";
-    public static final String FEMALE_GENITAL = "C510-C529,C577-C579";
-    public static final String OVARY_OR_FEMALE_GENITAL = "C569-C574";
+    public static final CodeSet MEDIASTINUM = CodeSet.ofSites("C370-C383,C388");
+    public static final CodeSet FEMALE_GENITAL = CodeSet.ofSites("C510-C529,C577-C579");
+    public static final CodeSet OVARY_OR_FEMALE_GENITAL = CodeSet.ofSites("C569-C574");
     
-    public static final List<String> MALE_GENITAL = Collections.unmodifiableList(Arrays.asList("C60", "C63"));
-    public static final List<String> KIDNEY_OR_URINARY = Collections.unmodifiableList(Arrays.asList("C64", "C65", "C66", "C68"));
-    public static final List<String> ENDOCRINE = Collections.unmodifiableList(Arrays.asList("C74", "C75"));
-    public static final List<String> UPPER_LIP =Collections.unmodifiableList( Arrays.asList("C000", "C003"));
-    public static final List<String> LOWER_LIP = Collections.unmodifiableList(Arrays.asList("C001", "C004"));
-    public static final List<String> UPPER_GUM = Collections.unmodifiableList(Collections.singletonList("C030"));
-    public static final List<String> LOWER_GUM = Collections.unmodifiableList(Collections.singletonList("C031"));
-    public static final List<String> NASAL_CAVITY = Collections.unmodifiableList(Collections.singletonList("C300"));
-    public static final List<String> MIDDLE_EAR = Collections.unmodifiableList(Collections.singletonList("C301"));
-    public static final String ALL_PAIRED_SITES =
-            "C079,C080-C081,C090-C099,C300-C301,C310,C312,C340-C349,C384,C400-C403,C413-C414,C441-C443,C445-C447,C471-C472,C491-C492,C500-C509,C569,C570,C620-C629,C630-C631,C649,C659,C669,C690-C699,C700,C710-C714,C722-C725,C740-C749,C754";
+    public static final CodeSet MALE_GENITAL = CodeSet.ofSites("C60,C63");
+    public static final CodeSet KIDNEY_OR_URINARY = CodeSet.ofSites("C64,C65,C66,C68");
+    public static final CodeSet ENDOCRINE = CodeSet.ofSites("C74,C75");
+    public static final CodeSet UPPER_LIP = CodeSet.ofSites("C000,C003");
+    public static final CodeSet LOWER_LIP = CodeSet.ofSites("C001,C004");
+    public static final CodeSet UPPER_GUM = CodeSet.ofSites("C030");
+    public static final CodeSet LOWER_GUM = CodeSet.ofSites("C031");
+    public static final CodeSet NASAL_CAVITY = CodeSet.ofSites("C300");
+    public static final CodeSet MIDDLE_EAR = CodeSet.ofSites("C301");
+    public static final CodeSet ALL_PAIRED_SITES = CodeSet.ofSites("C079,C080-C081,C090-C099,C300-C301,C310,C312,C340-C349,C384,C400-C403,C413-C414,C441-C443,C445-C447,C471-C472,C491-C492,C500-C509,C569,C570,C620-C629,C630-C631,C649,C659,C669,C690-C699,C700,C710-C714,C722-C725,C740-C749,C754");
 
     //Behavior
     public static final String BENIGN = "0";
@@ -103,75 +105,75 @@ public class MphConstants {
     public static final String MID_LINE = "5";
 
     //Histologies
-    public static final List<String> CARCINOMA_NOS = GroupUtility.expandList("8010");
-    public static final List<String> CARCINOMA_SPECIFIC = GroupUtility.expandList(
+    public static final CodeSet CARCINOMA_NOS = CodeSet.ofHistologies("8010");
+    public static final CodeSet CARCINOMA_SPECIFIC = CodeSet.ofHistologies(
             "8000-8005,8011-8015,8020-8022,8030-8035,8041-8046,8050-8052,8070-8078,8080-8084,8090-8098,8102,8110,8120-8124,8130-8131,8140-8148,8150-8157,8160-8162,8170-8175,"
                     + "8180,8190,8200-8201,8210-8211,8214-8215,8220-8221,8230-8231,8240-8247,8249,8250-8256,8260-8263,8270-8272,8280-8281,8290,8300,8310,8312-8319,8320-8323,"
                     + "8330-8333,8335,8337,8340-8347,8350,8370,8380-8384,8390,8400-8403,8407-8410,8413,8420,8430,8440-8442,8450-8453,8460-8462,"
                     + "8470-8473,8480-8482,8490,8500-8504,8507-8508,8510,8512-8514,8520-8525,8530,8540-8543,8550-8551,8560-8562,8570-8576,8580-8586,8588-8589,9070,9100,9110");
-    public static final List<String> NON_SMALL_CELL_CARCINOMA = GroupUtility.expandList("8046");
-    public static final List<String> SPECIFIC_NON_SMALL_CELL_CARCINOMA = GroupUtility.expandList(
+    public static final CodeSet NON_SMALL_CELL_CARCINOMA = CodeSet.ofHistologies("8046");
+    public static final CodeSet SPECIFIC_NON_SMALL_CELL_CARCINOMA = CodeSet.ofHistologies(
             "8012-8014,8022,8031-8033,8052,8070-8073,8082-8084,8123,8140,8200,8230,8250-8255,8260,8310,8333,8430,8470,8480-8481,8490,8550,8560,8972,8980");
-    public static final List<String> SMALL_CELL_CARCINOMA = GroupUtility.expandList("8041-8045");
+    public static final CodeSet SMALL_CELL_CARCINOMA = CodeSet.ofHistologies("8041-8045");
     public static final String INFLAMMATORY_CARCINOMA = "8530";
-    public static final List<String> ADENOCARCINOMA_NOS = GroupUtility.expandList("8140");
-    public static final List<String> ADENOCARCINOMA_SPECIFIC = GroupUtility.expandList("8000-8005,8010-8011,8020-8022,8046,8141-8148,8154,8160-8162,8190,"
+    public static final CodeSet ADENOCARCINOMA_NOS = CodeSet.ofHistologies("8140");
+    public static final CodeSet ADENOCARCINOMA_SPECIFIC = CodeSet.ofHistologies("8000-8005,8010-8011,8020-8022,8046,8141-8148,8154,8160-8162,8190,"
             + "8200-8201,8210-8211,8214-8215,8220-8221,8230-8231,8244-8245,8250-8255,8260-8263,8270-8272,8280-8281,8290,8300,8310,8312-8320,8322-8323,8330-8333,8335,8337,8350,"
             + "8370,8380-8384,8390,8400-8403,8407-8409,8410,8413,8420,8440-8442,8450-8453,8460-8462,8470-8473,8480-8482,8490,8500-8504,8507-8508,8510,8512-8514,8520-8525,8530,"
             + "8540-8543,8550-8551,8561-8562,8570-8576");
-    public static final List<String> ADENOCARCINOMA_WITH_MIXED_SUBTYPES = GroupUtility.expandList("8255");
-    public static final List<String> BRONCHIOALVEOLAR = GroupUtility.expandList("8250-8254");
-    public static final List<String> MELANOMA_NOS = GroupUtility.expandList("8720");
-    public static final List<String> MELANOMA_SPECIFIC = GroupUtility.expandList("8000-8005,8721-8790");
-    public static final List<String> SARCOMA_NOS = GroupUtility.expandList("8800");
-    public static final List<String> SARCOMA_SPECIFIC = GroupUtility.expandList("8000-8005,8801-8806,8810-8815,8830,8832-8833,8840,8842,8850-8855,8857-8858,8890-8891,"
+    public static final CodeSet ADENOCARCINOMA_WITH_MIXED_SUBTYPES = CodeSet.ofHistologies("8255");
+    public static final CodeSet BRONCHIOALVEOLAR = CodeSet.ofHistologies("8250-8254");
+    public static final CodeSet MELANOMA_NOS = CodeSet.ofHistologies("8720");
+    public static final CodeSet MELANOMA_SPECIFIC = CodeSet.ofHistologies("8000-8005,8721-8790");
+    public static final CodeSet SARCOMA_NOS = CodeSet.ofHistologies("8800");
+    public static final CodeSet SARCOMA_SPECIFIC = CodeSet.ofHistologies("8000-8005,8801-8806,8810-8815,8830,8832-8833,8840,8842,8850-8855,8857-8858,8890-8891,"
             + "8894-8896,8900-8902,8910,8912,8920-8921,8930-8931,8933,8935-8936,8990-8991,9040-9044,9180-9243,9260-9261");
-    public static final List<String> FOLLICULAR = GroupUtility.expandList("8290,8330-8332,8335,8340,8346");
-    public static final List<String> PAPILLARY = GroupUtility.expandList("8050,8052,8260,8340-8343,8344,8347");
+    public static final CodeSet FOLLICULAR = CodeSet.ofHistologies("8290,8330-8332,8335,8340,8346");
+    public static final CodeSet PAPILLARY = CodeSet.ofHistologies("8050,8052,8260,8340-8343,8344,8347");
     public static final String PAPILLARY_CARCINOMA = "8050";
     public static final String KAPOSI_SARCOMA = "9140";
-    public static final List<String> TRANSITIONAL_CELL_CARCINOMA = GroupUtility.expandList("8120-8124");
-    public static final List<String> PAPILLARY_TRANSITIONAL_CELL_CARCINOMA = GroupUtility.expandList("8130-8131");
-    public static final List<String> PAGET_DISEASE = GroupUtility.expandList("8540-8543");
-    public static final List<String> INTRADUCTAL_CARCINOMA = GroupUtility.expandList("8201,8230,8401,8500-8501,8503-8504,8507");
-    public static final List<String> DUCT_CARCINOMA = GroupUtility.expandList("8022,8035,8500-8503,8508");
-    public static final List<String> LOBULAR_CARCINOMA = GroupUtility.expandList("8520,8522,8524");
-    public static final List<String> LYMPHOMA_NOS_AND_NON_HODGKIN_LYMPHOMA = GroupUtility.expandList("9590-9591,9670-9729");
-    public static final List<String> NON_HODGKIN_LYMPHOMA = GroupUtility.expandList("9591,9670-9729");
-    public static final List<String> HODGKIN_LYMPHOMA = GroupUtility.expandList("9596,9650-9667");
-    public static final List<String> HEMATOPOIETIC_NOS_HISTOLOGIES = GroupUtility.expandList("9591,9670,9702,9729,9760,9800,9808,9809,9811,9820,9832,9835,9860,9861,9863,9960,9964,9987");
-    public static final List<String> POLYP = GroupUtility.expandList("8210-8211,8213,8220-8221,8261-8263");
-    public static final List<String> FAMILLIAL_POLYPOSIS = GroupUtility.expandList("8220-8221");
-    public static final List<String> FAMILIAL_ADENOMATOUS_POLYPOSIS = GroupUtility.expandList("8220");
-    public static final List<String> PTLD = GroupUtility.expandList("9971"); // post-transplant lymphoproliferative disorder
-    public static final List<String> BCELL = GroupUtility.expandList("9680,9684");
-    public static final List<String> TCELL = GroupUtility.expandList("9702,9705,9708,9709,9716-9719,9724,9726,9729,9827,9831,9834,9837");
-    public static final List<String> PLASMACYTOMA = GroupUtility.expandList("9731-9732,9734");
-    public static final List<String> MAST_CELL_SARCOMA = GroupUtility.expandList("9740");
-    public static final List<String> MAST_CELL_LEUKEMIA = GroupUtility.expandList("9742");
-    public static final List<String> MYELOID_SARCOMA = GroupUtility.expandList("9930");
-    public static final List<String> MYELOID_LEUKEMIA = GroupUtility.expandList("9840,9861,9865-9867,9869-9874,9891,9895-9898,9910-9911,9931");
-    public static final List<String> RETINO_BLASTOMA = GroupUtility.expandList("9510-9513");
+    public static final CodeSet TRANSITIONAL_CELL_CARCINOMA = CodeSet.ofHistologies("8120-8124");
+    public static final CodeSet PAPILLARY_TRANSITIONAL_CELL_CARCINOMA = CodeSet.ofHistologies("8130-8131");
+    public static final CodeSet PAGET_DISEASE = CodeSet.ofHistologies("8540-8543");
+    public static final CodeSet INTRADUCTAL_CARCINOMA = CodeSet.ofHistologies("8201,8230,8401,8500-8501,8503-8504,8507");
+    public static final CodeSet DUCT_CARCINOMA = CodeSet.ofHistologies("8022,8035,8500-8503,8508");
+    public static final CodeSet LOBULAR_CARCINOMA = CodeSet.ofHistologies("8520,8522,8524");
+    public static final CodeSet LYMPHOMA_NOS_AND_NON_HODGKIN_LYMPHOMA = CodeSet.ofHistologies("9590-9591,9670-9729");
+    public static final CodeSet NON_HODGKIN_LYMPHOMA = CodeSet.ofHistologies("9591,9670-9729");
+    public static final CodeSet HODGKIN_LYMPHOMA = CodeSet.ofHistologies("9596,9650-9667");
+    public static final CodeSet HEMATOPOIETIC_NOS_HISTOLOGIES = CodeSet.ofHistologies("9591,9670,9702,9729,9760,9800,9808,9809,9811,9820,9832,9835,9860,9861,9863,9960,9964,9987");
+    public static final CodeSet POLYP = CodeSet.ofHistologies("8210-8211,8213,8220-8221,8261-8263");
+    public static final CodeSet FAMILLIAL_POLYPOSIS = CodeSet.ofHistologies("8220-8221");
+    public static final CodeSet FAMILIAL_ADENOMATOUS_POLYPOSIS = CodeSet.ofHistologies("8220");
+    public static final CodeSet PTLD = CodeSet.ofHistologies("9971"); // post-transplant lymphoproliferative disorder
+    public static final CodeSet BCELL = CodeSet.ofHistologies("9680,9684");
+    public static final CodeSet TCELL = CodeSet.ofHistologies("9702,9705,9708,9709,9716-9719,9724,9726,9729,9827,9831,9834,9837");
+    public static final CodeSet PLASMACYTOMA = CodeSet.ofHistologies("9731-9732,9734");
+    public static final CodeSet MAST_CELL_SARCOMA = CodeSet.ofHistologies("9740");
+    public static final CodeSet MAST_CELL_LEUKEMIA = CodeSet.ofHistologies("9742");
+    public static final CodeSet MYELOID_SARCOMA = CodeSet.ofHistologies("9930");
+    public static final CodeSet MYELOID_LEUKEMIA = CodeSet.ofHistologies("9840,9861,9865-9867,9869-9874,9891,9895-9898,9910-9911,9931");
+    public static final CodeSet RETINO_BLASTOMA = CodeSet.ofHistologies("9510-9513");
     public static final String WILMS = "8960";
     public static final String PAPILLOMA = "9390";
     public static final String NEUROFIBROMATOSIS = "9540";
-    public static final List<String> SPECIFIC_RENAL_CELL_HISTOLOGIES = GroupUtility.expandList("8260,8310,8316-8320,8510,8959");
+    public static final CodeSet SPECIFIC_RENAL_CELL_HISTOLOGIES = CodeSet.ofHistologies("8260,8310,8316-8320,8510,8959");
     public static final String GLIOBLASTOMA_NOS_AND_MULTIFORME = "9440";
-    public static final List<String> GLIAL_TUMOR = GroupUtility.expandList("9380-9382,9400-9401,9410-9411,9420-9421,9423-9424,9430,9440-9442");
-    public static final List<String> UROTHELIAL = GroupUtility.expandList("8120,8130,8131,8082,8122,8031,8020");
+    public static final CodeSet GLIAL_TUMOR = CodeSet.ofHistologies("9380-9382,9400-9401,9410-9411,9420-9421,9423-9424,9430,9440-9442");
+    public static final CodeSet UROTHELIAL = CodeSet.ofHistologies("8120,8130,8131,8082,8122,8031,8020");
 
     //Histology Charts
-    public static final Map<String, List<String>> NOS_VS_SPECIFIC;
+    public static final Map<String, CodeSet> NOS_VS_SPECIFIC;
 
     static {
-        Map<String, List<String>> content = new HashMap<>();
-        content.put("8000", GroupUtility.expandList("8001-9999")); //Cancer/malignant neoplasm, NOS
-        content.put("8010", GroupUtility.expandList("8011-8015")); //Carcinoma, NOS
-        content.put("8140", GroupUtility.expandList("8141-8145,8147-8148")); //Adenocarcinoma, NOS
-        content.put("8070", GroupUtility.expandList("8071-8078,8080-8084,8094,8323")); //Squamous cell carcinoma, NOS
-        content.put("8720", GroupUtility.expandList("8721-8723,8726,8728,8730,8740,8741-8746,8761,8770-8774,8780")); //Melanoma, NOS
-        content.put("8800", GroupUtility.expandList("8801-8806")); //Sarcoma, NOS
-        content.put("8312", GroupUtility.expandList("8313-8320")); //Renal cell carcinoma, NOS
+        Map<String, CodeSet> content = new HashMap<>();
+        content.put("8000", CodeSet.ofHistologies("8001-9999")); //Cancer/malignant neoplasm, NOS
+        content.put("8010", CodeSet.ofHistologies("8011-8015")); //Carcinoma, NOS
+        content.put("8140", CodeSet.ofHistologies("8141-8145,8147-8148")); //Adenocarcinoma, NOS
+        content.put("8070", CodeSet.ofHistologies("8071-8078,8080-8084,8094,8323")); //Squamous cell carcinoma, NOS
+        content.put("8720", CodeSet.ofHistologies("8721-8723,8726,8728,8730,8740,8741-8746,8761,8770-8774,8780")); //Melanoma, NOS
+        content.put("8800", CodeSet.ofHistologies("8801-8806")); //Sarcoma, NOS
+        content.put("8312", CodeSet.ofHistologies("8313-8320")); //Renal cell carcinoma, NOS
         NOS_VS_SPECIFIC = Collections.unmodifiableMap(content);
     }
 
@@ -289,5 +291,7 @@ public class MphConstants {
         content.put("9539", "Meningioma, malignant"); //Meningeal sarcomatosis
         content.put("9538", "Meningioma, malignant"); //Papillary meningioma, rhadboid meningioma
         MALIGNANT_BRAIN_2007_CHART2 = Collections.unmodifiableMap(content);
+
+        StartupRecorder.record("MphConstants", _INIT_START_NANOS, _INIT_START_BYTES);
     }
 }
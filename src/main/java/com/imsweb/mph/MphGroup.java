@@ -4,11 +4,13 @@
 package com.imsweb.mph;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.lang3.Range;
 
+import com.imsweb.mph.internal.PairFeatures;
+import com.imsweb.mph.internal.StartupRecorder;
 import com.imsweb.mph.internal.TempRuleResult;
 import com.imsweb.mph.mpgroups.GroupUtility;
 
@@ -44,6 +46,16 @@ public abstract class MphGroup {
 
     private List<Range<Integer>> _yearIncRanges;
 
+    // the indexes of the rules to apply for each combination of pair features, null until the rules are initialized (volatile so the rules can be
+    // read without any lock once they are)
+    private volatile int[][] _compiledRules;
+
+    // the position of the group in the groups of the library, -1 until the group is indexed
+    private int _index = -1;
+
+    // the list recording the initialization of the rules, the shared one if the group doesn't belong to an MphUtils instance
+    private List<MphStartupReport.Component> _startupComponents;
+
     public MphGroup(String id, String name, String siteInclusions, String siteExclusions, String histInclusions, String histExclusions, String behavInclusions, String yearInclusions) {
         _id = id;
         _name = name;
@@ -68,6 +80,18 @@ public abstract class MphGroup {
         return _id;
     }
 
+    int getIndex() {
+        return _index;
+    }
+
+    void setIndex(int index) {
+        _index = index;
+    }
+
+    void setStartupComponents(List<MphStartupReport.Component> startupComponents) {
+        _startupComponents = startupComponents;
+    }
+
     public String getName() {
         return _name;
     }
@@ -96,10 +120,64 @@ public abstract class MphGroup {
         return _yearInclusions;
     }
 
+    /**
+     * Returns the rules of the group, in the order they are applied; the rules are initialized the first time they are requested.
+     */
     public List<MphRule> getRules() {
+        if (_compiledRules == null)
+            initializeRulesOnce();
         return _rules;
     }
 
+    /**
+     * Adds the rules of the group; called once, the first time the rules are needed, so the groups that are never used don't pay for creating them.
+     * <br/><br/>
+     * Rules added by the constructor of a sub-class are kept, the default implementation doesn't add any rule.
+     */
+    protected void initializeRules() {
+    }
+
+    private synchronized void initializeRulesOnce() {
+        if (_compiledRules == null) {
+            Runnable initializer = () -> {
+                initializeRules();
+                compileRules();
+            };
+            if (_startupComponents == null)
+                StartupRecorder.recordTask("Rules of " + _name, initializer);
+            else
+                StartupRecorder.recordTask(_startupComponents, "Rules of " + _name, initializer);
+        }
+    }
+
+    // compiles the rules into a table giving, for each combination of pair features, the indexes of the rules whose guard is satisfied
+    private void compileRules() {
+        int[][] compiledRules = new int[1 << PairFeatures.NUM_FEATURES][];
+        int[] indexes = new int[_rules.size()];
+        for (int features = 0; features < compiledRules.length; features++) {
+            int count = 0;
+            for (int i = 0; i < _rules.size(); i++) {
+                int guard = _rules.get(i).getGuard();
+                if ((features & guard) == guard)
+                    indexes[count++] = i;
+            }
+            compiledRules[features] = Arrays.copyOf(indexes, count);
+        }
+        _compiledRules = compiledRules;
+    }
+
+    /**
+     * Returns the indexes of the rules to apply (in order) for a pair with the given features.
+     */
+    int[] getCompiledRules(int features) {
+        int[][] compiledRules = _compiledRules;
+        if (compiledRules == null) {
+            initializeRulesOnce();
+            compiledRules = _compiledRules;
+        }
+        return compiledRules[features];
+    }
+
     public boolean isApplicable(String primarySite, String histology, String behavior, int year) {
         if (!GroupUtility.validateProperties(primarySite, histology, behavior, year))
             return false;
@@ -155,18 +233,19 @@ public abstract class MphGroup {
             super(groupId, step);
             setQuestion("Do the tumors have ICD-O-3 histology codes that are different at the first (?xxx), second (x?xx) or third (xx?x) number?");
             setReason("Tumors with ICD-O-3 histology codes that are different at the first (?xxx), second (x?xx) or third (xx?x) number are multiple primaries.");
+            setGuard(PairFeatures.DIFFERENT_HISTOLOGY_PREFIX);
         }
 
         @Override
         public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-            TempRuleResult result = new TempRuleResult();
-            String hist1 = i1.getHistology(), hist2 = i2.getHistology();
+            TempRuleResult result = TempRuleResult.NO_RESULT;
+            int hist1 = i1.getValidatedTumor().getHistology(), hist2 = i2.getValidatedTumor().getHistology();
             //If lenient mode is on 8000 is considered as same histology as 8nnn histologies
-            if (MphComputeOptions.MpHistologyMatching.LENIENT.equals(options.getHistologyMatchingMode()) && (("8000".equals(hist1) && hist2.startsWith("8")) || ("8000".equals(hist2) && hist1
-                    .startsWith("8"))))
+            if (MphComputeOptions.MpHistologyMatching.LENIENT.equals(options.getHistologyMatchingMode()) && ((hist1 == 8000 && hist2 / 1000 == 8) || (hist2 == 8000 && hist1 / 1000 == 8)))
                 return result;
-            if (!hist1.substring(0, 3).equals(hist2.substring(0, 3)))
-                result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+            //the first three numbers are different
+            if (hist1 / 10 != hist2 / 10)
+                result = TempRuleResult.MULTIPLE_PRIMARIES;
             return result;
         }
 
@@ -178,44 +257,50 @@ public abstract class MphGroup {
             super(groupId, step);
             setQuestion("Are there tumors in sites with ICD-O-3 topography codes that are different at the second (C?xx) and/or third character (Cx?x)?");
             setReason("Tumors in sites with ICD-O-3 topography codes that are different at the second (C?xx) and/or third (Cx?x) character are multiple primaries.");
+            setGuard(PairFeatures.DIFFERENT_SITE_PREFIX);
         }
 
         @Override
         public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-            TempRuleResult result = new TempRuleResult();
-            if (!i1.getPrimarySite().substring(1, 3).equals(i2.getPrimarySite().substring(1, 3)))
-                result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+            TempRuleResult result = TempRuleResult.NO_RESULT;
+            //the second and third characters are different (C509 is 509)
+            if (i1.getValidatedTumor().getPrimarySite() / 10 != i2.getValidatedTumor().getPrimarySite() / 10)
+                result = TempRuleResult.MULTIPLE_PRIMARIES;
             return result;
         }
     }
 
     public static class MphRuleBehavior extends MphRule {
 
+        private static final int _INSITU = Integer.parseInt(MphConstants.INSITU);
+
+        private static final int _MALIGNANT = Integer.parseInt(MphConstants.MALIGNANT);
+
         public MphRuleBehavior(String groupId, String step) {
             super(groupId, step);
             setQuestion("Is there an invasive tumor following an in situ tumor more than 60 days after diagnosis?");
             setReason("An invasive tumor following an in situ tumor more than 60 days after diagnosis are multiple primaries.");
+            setGuard(PairFeatures.INSITU_AND_MALIGNANT);
             getNotes().add("The purpose of this rule is to ensure that the case is counted as an incident (invasive) case when incidence data are analyzed.");
             getNotes().add("Abstract as multiple primaries even if the medical record/physician states it is recurrence or progression of disease.");
         }
 
         @Override
         public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-            TempRuleResult result = new TempRuleResult();
-            String beh1 = i1.getBehavior(), beh2 = i2.getBehavior();
-            if (GroupUtility.differentCategory(beh1, beh2, Collections.singletonList(MphConstants.INSITU), Collections.singletonList(MphConstants.MALIGNANT))) {
+            TempRuleResult result = TempRuleResult.NO_RESULT;
+            int beh1 = i1.getValidatedTumor().getBehavior(), beh2 = i2.getValidatedTumor().getBehavior();
+            if ((beh1 == _INSITU && beh2 == _MALIGNANT) || (beh2 == _INSITU && beh1 == _MALIGNANT)) {
                 int latestDx = GroupUtility.compareDxDate(i1, i2);
                 //If they are diagnosed at same date or invasive is not following insitu
-                if (0 == latestDx || (1 == latestDx && !"3".equals(beh1)) || (2 == latestDx && !"3".equals(beh2)))
+                if (0 == latestDx || (1 == latestDx && beh1 != _MALIGNANT) || (2 == latestDx && beh2 != _MALIGNANT))
                     return result;
                 else {
                     int sixtyDaysApart = GroupUtility.verifyDaysApart(i1, i2, 60);
                     if (-1 == sixtyDaysApart) {
-                        result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
-                        result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". There is no enough diagnosis date information.");
+                        result = potentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES, "There is no enough diagnosis date information.");
                     }
                     else if (1 == sixtyDaysApart)
-                        result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                        result = TempRuleResult.MULTIPLE_PRIMARIES;
                 }
             }
             return result;
@@ -233,14 +318,13 @@ public abstract class MphGroup {
 
         @Override
         public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-            TempRuleResult result = new TempRuleResult();
+            TempRuleResult result = TempRuleResult.NO_RESULT;
             int diff = GroupUtility.verifyYearsApart(i1, i2, 5);
             if (-1 == diff) {
-                result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
-                result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". There is no enough diagnosis date information.");
+                result = potentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES, "There is no enough diagnosis date information.");
             }
             else if (1 == diff)
-                result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                result = TempRuleResult.MULTIPLE_PRIMARIES;
 
             return result;
         }
@@ -256,9 +340,7 @@ public abstract class MphGroup {
 
         @Override
         public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-            TempRuleResult result = new TempRuleResult();
-            result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
-            return result;
+            return TempRuleResult.SINGLE_PRIMARY;
         }
     }
 }
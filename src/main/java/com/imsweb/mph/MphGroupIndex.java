@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph;
+
+import java.util.List;
+import java.util.TreeSet;
+
+import org.apache.commons.lang3.Range;
+
+import com.imsweb.mph.mpgroups.GroupUtility;
+
+/**
+ * A compiled version of the cancer group selection (see MphUtils.findCancerGroup).
+ * <br/><br/>
+ * The site, histology and year domains are split into classes of values that can't be distinguished by any of the groups (their boundaries
+ * come from the inclusions and exclusions of the groups). The group of every combination of classes (and behavior) is computed once by
+ * calling isApplicable on a representative value of each class, so the index always returns the same group as a scan of the groups would.
+ */
+class MphGroupIndex {
+
+    private static final int _MAX_SITE = 999;
+
+    private static final int _MIN_HIST = 8000;
+
+    private static final int _MAX_HIST = 9999;
+
+    private static final int _MAX_YEAR = 9999;
+
+    private static final String[] _BEHAVIORS = {"0", "1", "2", "3", "6"};
+
+    // behavior code to behavior index, -1 for the invalid codes
+    private static final int[] _BEHAVIOR_INDEXES = {0, 1, 2, 3, -1, -1, 4};
+
+    private MphGroup[] _groups;
+
+    private byte[] _siteClasses;
+
+    private byte[] _histClasses;
+
+    private byte[] _yearClasses;
+
+    private int _numSiteClasses;
+
+    private int _numHistClasses;
+
+    // index (plus one) of the group for each year class, behavior, site class and histology class, 0 if there is no group
+    private byte[] _table;
+
+    MphGroupIndex(List<MphGroup> groups) {
+        if (groups.size() >= Byte.MAX_VALUE)
+            throw new IllegalStateException("Too many groups to build the index.");
+        _groups = groups.toArray(new MphGroup[groups.size()]);
+        for (int i = 0; i < _groups.length; i++)
+            _groups[i].setIndex(i);
+
+        TreeSet<Integer> siteBoundaries = new TreeSet<>(), histBoundaries = new TreeSet<>(), yearBoundaries = new TreeSet<>();
+        for (MphGroup group : groups) {
+            addBoundaries(siteBoundaries, GroupUtility.computeRange(group.getSiteInclusions(), true));
+            addBoundaries(siteBoundaries, GroupUtility.computeRange(group.getSiteExclusions(), true));
+            addBoundaries(histBoundaries, GroupUtility.computeRange(group.getHistInclusions(), false));
+            addBoundaries(histBoundaries, GroupUtility.computeRange(group.getHistExclusions(), false));
+            addBoundaries(yearBoundaries, GroupUtility.computeRange(group.getYearInclusions(), false));
+        }
+
+        _siteClasses = computeClasses(siteBoundaries, 0, _MAX_SITE);
+        _histClasses = computeClasses(histBoundaries, _MIN_HIST, _MAX_HIST);
+        _yearClasses = computeClasses(yearBoundaries, 0, _MAX_YEAR);
+        _numSiteClasses = _siteClasses[_MAX_SITE] + 1;
+        _numHistClasses = _histClasses[_MAX_HIST - _MIN_HIST] + 1;
+
+        // the representative of a class is its first value (C809 is not a valid site, so it can't be used unless it is alone in its class)
+        String[] siteValues = new String[_numSiteClasses], histValues = new String[_numHistClasses];
+        int[] yearValues = new int[_yearClasses[_MAX_YEAR] + 1];
+        for (int site = _MAX_SITE; site >= 0; site--)
+            if (site != 809 || siteValues[_siteClasses[site]] == null)
+                siteValues[_siteClasses[site]] = String.format("C%03d", site);
+        for (int hist = _MAX_HIST; hist >= _MIN_HIST; hist--)
+            histValues[_histClasses[hist - _MIN_HIST]] = String.valueOf(hist);
+        for (int year = _MAX_YEAR; year >= 0; year--)
+            yearValues[_yearClasses[year]] = year;
+
+        _table = new byte[yearValues.length * _BEHAVIORS.length * _numSiteClasses * _numHistClasses];
+        int idx = 0;
+        for (int year : yearValues)
+            for (String behavior : _BEHAVIORS)
+                for (String site : siteValues)
+                    for (String hist : histValues)
+                        _table[idx++] = (byte)(findGroupIndex(site, hist, behavior, year) + 1);
+    }
+
+    /**
+     * Returns the group for the provided values, which must be valid (see GroupUtility.parseSite, parseHistology, parseBehavior and validateYear).
+     * @param site numeric part of the primary site (for example 509 for C509)
+     * @param hist histology
+     * @param behavior behavior
+     * @param year diagnosis year
+     * @return the group, null if none applies
+     */
+    MphGroup find(int site, int hist, int behavior, int year) {
+        int idx = ((_yearClasses[year] * _BEHAVIORS.length + _BEHAVIOR_INDEXES[behavior]) * _numSiteClasses + _siteClasses[site]) * _numHistClasses + _histClasses[hist - _MIN_HIST];
+        int groupIdx = _table[idx];
+        return groupIdx == 0 ? null : _groups[groupIdx - 1];
+    }
+
+    /**
+     * Returns the group for the provided values, null if they are not valid or no group applies.
+     * @param site numeric part of the primary site (for example 509 for C509)
+     * @param hist histology
+     * @param behavior behavior
+     * @param year diagnosis year
+     * @param maxYear the latest valid year of diagnosis (see GroupUtility.validateYear)
+     * @return the group, null if the values are not valid or no group applies
+     */
+    MphGroup find(int site, int hist, int behavior, int year, int maxYear) {
+        if (site < 0 || site > _MAX_SITE || site == 809 || hist < _MIN_HIST || hist > _MAX_HIST || year < 0 || year > maxYear)
+            return null;
+        if (behavior < 0 || behavior >= _BEHAVIOR_INDEXES.length || _BEHAVIOR_INDEXES[behavior] == -1)
+            return null;
+        return find(site, hist, behavior, year);
+    }
+
+    private int findGroupIndex(String site, String hist, String behavior, int year) {
+        for (int i = 0; i < _groups.length; i++)
+            if (_groups[i].isApplicable(site, hist, behavior, year))
+                return i;
+        return -1;
+    }
+
+    private static void addBoundaries(TreeSet<Integer> boundaries, List<Range<Integer>> ranges) {
+        if (ranges != null)
+            for (Range<Integer> range : ranges) {
+                boundaries.add(range.getMinimum());
+                boundaries.add(range.getMaximum() + 1);
+            }
+    }
+
+    private static byte[] computeClasses(TreeSet<Integer> boundaries, int min, int max) {
+        byte[] classes = new byte[max - min + 1];
+        int currentClass = 0;
+        for (int value = min + 1; value <= max; value++) {
+            if (boundaries.contains(value))
+                currentClass++;
+            classes[value - min] = (byte)currentClass;
+        }
+        if (currentClass >= Byte.MAX_VALUE)
+            throw new IllegalStateException("Too many distinct values to build the index.");
+        return classes;
+    }
+}
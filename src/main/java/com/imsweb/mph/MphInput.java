@@ -3,9 +3,8 @@
  */
 package com.imsweb.mph;
 
-import org.apache.commons.lang3.math.NumberUtils;
-
-import com.imsweb.mph.mpgroups.GroupUtility;
+import com.imsweb.mph.internal.DxDateRange;
+import com.imsweb.mph.internal.ValidatedTumor;
 
 public class MphInput {
 
@@ -29,39 +28,48 @@ public class MphInput {
 
     private String _txStatus;
 
+    // the parsed diagnosis date, computed when first requested
+    private DxDateRange _dxDateRange;
+
+    // the parsed and validated properties, computed when first requested
+    private ValidatedTumor _validatedTumor;
+
     public String getPrimarySite() {
         return _primarySite;
     }
 
     public void setPrimarySite(String primarySite) {
         _primarySite = primarySite;
+        _validatedTumor = null;
     }
 
 
     public void setHistologyIcdO3(String histologyIcdO3) {
         _histologyIcdO3 = histologyIcdO3;
+        _validatedTumor = null;
     }
 
     public void setBehaviorIcdO3(String behaviorIcdO3) {
         _behaviorIcdO3 = behaviorIcdO3;
+        _validatedTumor = null;
     }
 
     public void setHistologyIcdO2(String histologyIcdO2) {
         _histologyIcdO2 = histologyIcdO2;
+        _validatedTumor = null;
     }
 
     public void setBehaviorIcdO2(String behaviorIcdO2) {
         _behaviorIcdO2 = behaviorIcdO2;
+        _validatedTumor = null;
     }
 
     public String getHistology() {
-        int year = NumberUtils.isDigits(_dateOfDiagnosisYear) ? Integer.parseInt(_dateOfDiagnosisYear) : 9999;
-        return year < 2001 && GroupUtility.validateHistology(_histologyIcdO2) ? _histologyIcdO2 : _histologyIcdO3;
+        return getValidatedTumor().getHistologyCode();
     }
 
     public String getBehavior() {
-        int year = NumberUtils.isDigits(_dateOfDiagnosisYear) ? Integer.parseInt(_dateOfDiagnosisYear) : 9999;
-        return year < 2001 && GroupUtility.validateBehavior(_behaviorIcdO2) ? _behaviorIcdO2 : _behaviorIcdO3;
+        return getValidatedTumor().getBehaviorCode();
     }
 
     public String getLaterality() {
@@ -70,6 +78,7 @@ public class MphInput {
 
     public void setLaterality(String laterality) {
         _laterality = laterality;
+        _validatedTumor = null;
     }
 
     public String getDateOfDiagnosisYear() {
@@ -78,6 +87,8 @@ public class MphInput {
 
     public void setDateOfDiagnosisYear(String dateOfDiagnosisYear) {
         _dateOfDiagnosisYear = dateOfDiagnosisYear;
+        _dxDateRange = null;
+        _validatedTumor = null;
     }
 
     public String getDateOfDiagnosisMonth() {
@@ -86,6 +97,7 @@ public class MphInput {
 
     public void setDateOfDiagnosisMonth(String dateOfDiagnosisMonth) {
         _dateOfDiagnosisMonth = dateOfDiagnosisMonth;
+        _dxDateRange = null;
     }
 
     public String getDateOfDiagnosisDay() {
@@ -94,6 +106,36 @@ public class MphInput {
 
     public void setDateOfDiagnosisDay(String dateOfDiagnosisDay) {
         _dateOfDiagnosisDay = dateOfDiagnosisDay;
+        _dxDateRange = null;
+    }
+
+    /**
+     * Returns the parsed diagnosis date; the returned object is immutable, a new one is created when the date changes.
+     * <br/><br/>
+     * This method is used by the rules (which live in another package) and is not meant to be called by the users of the library: the returned type
+     * belongs to the internal package and can change in any version.
+     */
+    public DxDateRange getDxDateRange() {
+        DxDateRange dxDateRange = _dxDateRange;
+        if (dxDateRange == null) {
+            dxDateRange = new DxDateRange(_dateOfDiagnosisYear, _dateOfDiagnosisMonth, _dateOfDiagnosisDay);
+            _dxDateRange = dxDateRange;
+        }
+        return dxDateRange;
+    }
+
+    /**
+     * Returns the parsed and validated properties; the returned object is immutable, a new one is created when one of the properties changes.
+     * <br/><br/>
+     * Like getDxDateRange, this method is only public so the rules can use it; the returned type is internal and can change in any version.
+     */
+    public ValidatedTumor getValidatedTumor() {
+        ValidatedTumor validatedTumor = _validatedTumor;
+        if (validatedTumor == null) {
+            validatedTumor = new ValidatedTumor(_primarySite, _histologyIcdO3, _behaviorIcdO3, _histologyIcdO2, _behaviorIcdO2, _laterality, _dateOfDiagnosisYear);
+            _validatedTumor = validatedTumor;
+        }
+        return validatedTumor;
     }
 
     public String getTxStatus() {
@@ -103,4 +145,23 @@ public class MphInput {
     public void setTxStatus(String txStatus) {
         _txStatus = txStatus;
     }
+
+    /**
+     * Replaces all the properties of the input, along with their parsed values (used to reuse the same input for the tumors of a batch).
+     */
+    void load(String primarySite, String histologyIcdO3, String behaviorIcdO3, String laterality, String dateOfDiagnosisYear, String dateOfDiagnosisMonth,
+            String dateOfDiagnosisDay, ValidatedTumor validatedTumor, DxDateRange dxDateRange) {
+        _primarySite = primarySite;
+        _histologyIcdO3 = histologyIcdO3;
+        _behaviorIcdO3 = behaviorIcdO3;
+        _histologyIcdO2 = null;
+        _behaviorIcdO2 = null;
+        _laterality = laterality;
+        _dateOfDiagnosisYear = dateOfDiagnosisYear;
+        _dateOfDiagnosisMonth = dateOfDiagnosisMonth;
+        _dateOfDiagnosisDay = dateOfDiagnosisDay;
+        _txStatus = null;
+        _validatedTumor = validatedTumor;
+        _dxDateRange = dxDateRange;
+    }
 }
@@ -0,0 +1,21 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph;
+
+/**
+ * A listener notified every time a pair of tumors is computed by MphUtils, see MphUtils.setMetricsListener().
+ * <br/><br/>
+ * The listener is called from the thread that computed the pair, so an implementation shared by several threads must be thread-safe; it should also be
+ * fast since it is called for every pair. MphRuleMetrics is a ready to use implementation.
+ */
+public interface MphMetricsListener {
+
+    /**
+     * Called after a pair of tumors was computed (including the pairs returned by a pair cache).
+     * @param output the output of the pair; its group ID and step are null if no rule decided the pair (for example when the tumors are not valid or belong to
+     * different groups). The trace of the output is always recorded when a listener is registered, even if the options don't request it
+     * @param elapsedNanos the time it took to compute the pair, in nanoseconds
+     */
+    void pairComputed(MphOutput output, long elapsedNanos);
+}
@@ -0,0 +1,414 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Computes the primaries of all the patients of a NAACCR fixed-width (flat) file.
+ * <br/><br/>
+ * The file is memory-mapped (in windows of 256 MB, so files larger than 2 GB are supported) and the fields used by the rules are read directly from
+ * the mapped bytes: patient ID number (#20), date of diagnosis (#390), primary site (#400), laterality (#410), histology and behavior ICD-O-2
+ * (#420, #430), histology and behavior ICD-O-3 (#522, #523) and treatment status (#1285). No string is created for the lines or the fields: the codes
+ * are returned from tables of cached values, only unexpected values (letters, partial codes, etc...) are copied.
+ * <br/><br/>
+ * Contiguous records with the same patient ID number are considered as the same patient (the file is expected to be sorted by patient); the tumors
+ * of each patient are computed with MphUtils.computePrimaries(List, MphComputeOptions, ExecutorService) and given to the provided handler.
+ * <br/><br/>
+ * The default columns are the ones of the NAACCR 16 and 18 layouts; they can be changed for other versions. Records can be terminated by LF or CRLF,
+ * and the records made only of blanks (like the padded lines sometimes found at the end of a file) are ignored.
+ */
+public class MphNaaccrFileProcessor {
+
+    // the default mapped window size
+    private static final int _DEFAULT_WINDOW_SIZE = 1 << 28;
+
+    private static final int _PATIENT_ID_NUMBER_LENGTH = 8;
+
+    // the cached codes, shared by all the processors (several threads might create the same value, that's fine since they are all equal)
+    private static final CodeTable _SITES = new CodeTable("C", 3);
+
+    private static final CodeTable _ONE_DIGIT_CODES = new CodeTable("", 1);
+
+    private static final CodeTable _TWO_DIGIT_CODES = new CodeTable("", 2);
+
+    private static final CodeTable _FOUR_DIGIT_CODES = new CodeTable("", 4);
+
+    private final MphUtils _utils;
+
+    private int _patientIdNumberColumn = 42;
+
+    private int _dateOfDiagnosisColumn = 530;
+
+    private int _primarySiteColumn = 540;
+
+    private int _lateralityColumn = 544;
+
+    private int _histologyIcdO2Column = 545;
+
+    private int _behaviorIcdO2Column = 549;
+
+    private int _histologyIcdO3Column = 550;
+
+    private int _behaviorIcdO3Column = 554;
+
+    private int _txStatusColumn = 1974;
+
+    private int _windowSize = _DEFAULT_WINDOW_SIZE;
+
+    /**
+     * Constructor.
+     * @param utils the instance used to compute the primaries
+     */
+    public MphNaaccrFileProcessor(MphUtils utils) {
+        if (utils == null)
+            throw new NullPointerException("Utils cannot be null.");
+        _utils = utils;
+    }
+
+    public int getPatientIdNumberColumn() {
+        return _patientIdNumberColumn;
+    }
+
+    /**
+     * Sets the first column (starting at 1) of the patient ID number (#20, 8 characters).
+     */
+    public void setPatientIdNumberColumn(int patientIdNumberColumn) {
+        _patientIdNumberColumn = validateColumn(patientIdNumberColumn);
+    }
+
+    public int getDateOfDiagnosisColumn() {
+        return _dateOfDiagnosisColumn;
+    }
+
+    /**
+     * Sets the first column (starting at 1) of the date of diagnosis (#390, 8 characters, YYYYMMDD).
+     */
+    public void setDateOfDiagnosisColumn(int dateOfDiagnosisColumn) {
+        _dateOfDiagnosisColumn = validateColumn(dateOfDiagnosisColumn);
+    }
+
+    public int getPrimarySiteColumn() {
+        return _primarySiteColumn;
+    }
+
+    /**
+     * Sets the first column (starting at 1) of the primary site (#400, 4 characters).
+     */
+    public void setPrimarySiteColumn(int primarySiteColumn) {
+        _primarySiteColumn = validateColumn(primarySiteColumn);
+    }
+
+    public int getLateralityColumn() {
+        return _lateralityColumn;
+    }
+
+    /**
+     * Sets the column (starting at 1) of the laterality (#410, 1 character).
+     */
+    public void setLateralityColumn(int lateralityColumn) {
+        _lateralityColumn = validateColumn(lateralityColumn);
+    }
+
+    public int getHistologyIcdO2Column() {
+        return _histologyIcdO2Column;
+    }
+
+    /**
+     * Sets the first column (starting at 1) of the histology ICD-O-2 (#420, 4 characters).
+     */
+    public void setHistologyIcdO2Column(int histologyIcdO2Column) {
+        _histologyIcdO2Column = validateColumn(histologyIcdO2Column);
+    }
+
+    public int getBehaviorIcdO2Column() {
+        return _behaviorIcdO2Column;
+    }
+
+    /**
+     * Sets the column (starting at 1) of the behavior ICD-O-2 (#430, 1 character).
+     */
+    public void setBehaviorIcdO2Column(int behaviorIcdO2Column) {
+        _behaviorIcdO2Column = validateColumn(behaviorIcdO2Column);
+    }
+
+    public int getHistologyIcdO3Column() {
+        return _histologyIcdO3Column;
+    }
+
+    /**
+     * Sets the first column (starting at 1) of the histology ICD-O-3 (#522, 4 characters).
+     */
+    public void setHistologyIcdO3Column(int histologyIcdO3Column) {
+        _histologyIcdO3Column = validateColumn(histologyIcdO3Column);
+    }
+
+    public int getBehaviorIcdO3Column() {
+        return _behaviorIcdO3Column;
+    }
+
+    /**
+     * Sets the column (starting at 1) of the behavior ICD-O-3 (#523, 1 character).
+     */
+    public void setBehaviorIcdO3Column(int behaviorIcdO3Column) {
+        _behaviorIcdO3Column = validateColumn(behaviorIcdO3Column);
+    }
+
+    public int getTxStatusColumn() {
+        return _txStatusColumn;
+    }
+
+    /**
+     * Sets the column (starting at 1) of the treatment status (#1285, 1 character).
+     */
+    public void setTxStatusColumn(int txStatusColumn) {
+        _txStatusColumn = validateColumn(txStatusColumn);
+    }
+
+    // the size of the mapped windows, a record must fit in a single window
+    void setWindowSize(int windowSize) {
+        _windowSize = windowSize;
+    }
+
+    /**
+     * Computes the primaries of all the patients of the file.
+     * @param file the NAACCR flat file
+     * @param options set of options to compute the results
+     * @param executor executor used to compute the pairs of each patient, if null the pairs are computed in the current thread
+     * @param handler the handler receiving the output of each patient, in the order of the file
+     * @return the statistics of the processing (number of records, patients and pairs, throughput)
+     * @throws IOException if the file can't be read
+     */
+    public Statistics process(Path file, MphComputeOptions options, ExecutorService executor, PatientHandler handler) throws IOException {
+        if (handler == null)
+            throw new NullPointerException("Handler cannot be null.");
+
+        long startTime = System.nanoTime();
+        Statistics stats = new Statistics();
+        Patient patient = new Patient();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size(), position = 0;
+            while (position < size) {
+                int windowSize = (int)Math.min(_windowSize, size - position);
+                boolean lastWindow = position + windowSize == size;
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+
+                int lineStart = 0;
+                while (lineStart < windowSize) {
+                    int lineEnd = lineStart;
+                    while (lineEnd < windowSize && buffer.get(lineEnd) != '\n')
+                        lineEnd++;
+                    // a record that doesn't end in this window is read again from the next one
+                    if (lineEnd == windowSize && !lastWindow)
+                        break;
+                    int recordEnd = lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                    if (!isBlank(buffer, lineStart, recordEnd))
+                        processRecord(buffer, lineStart, recordEnd, patient, options, executor, handler, stats);
+                    lineStart = lineEnd + 1;
+                }
+                if (lineStart == 0)
+                    throw new IOException("Record starting at position " + position + " is longer than the mapped window.");
+                position += Math.min(lineStart, windowSize);
+            }
+        }
+        computePatient(patient, options, executor, handler, stats);
+        stats._elapsedNanos = System.nanoTime() - startTime;
+        return stats;
+    }
+
+    private void processRecord(MappedByteBuffer buffer, int start, int end, Patient patient, MphComputeOptions options, ExecutorService executor, PatientHandler handler,
+            Statistics stats) {
+        int idStart = start + _patientIdNumberColumn - 1;
+        if (!patient._tumors.isEmpty() && !patient.hasId(buffer, idStart, end)) {
+            computePatient(patient, options, executor, handler, stats);
+            patient.setId(buffer, idStart, end);
+        }
+        else if (patient._tumors.isEmpty())
+            patient.setId(buffer, idStart, end);
+
+        MphInput input = new MphInput();
+        input.setPrimarySite(_SITES.get(buffer, start + _primarySiteColumn - 1, end));
+        input.setLaterality(_ONE_DIGIT_CODES.get(buffer, start + _lateralityColumn - 1, end));
+        input.setHistologyIcdO2(_FOUR_DIGIT_CODES.get(buffer, start + _histologyIcdO2Column - 1, end));
+        input.setBehaviorIcdO2(_ONE_DIGIT_CODES.get(buffer, start + _behaviorIcdO2Column - 1, end));
+        input.setHistologyIcdO3(_FOUR_DIGIT_CODES.get(buffer, start + _histologyIcdO3Column - 1, end));
+        input.setBehaviorIcdO3(_ONE_DIGIT_CODES.get(buffer, start + _behaviorIcdO3Column - 1, end));
+        int dateStart = start + _dateOfDiagnosisColumn - 1;
+        input.setDateOfDiagnosisYear(_FOUR_DIGIT_CODES.get(buffer, dateStart, end));
+        input.setDateOfDiagnosisMonth(_TWO_DIGIT_CODES.get(buffer, dateStart + 4, end));
+        input.setDateOfDiagnosisDay(_TWO_DIGIT_CODES.get(buffer, dateStart + 6, end));
+        input.setTxStatus(_ONE_DIGIT_CODES.get(buffer, start + _txStatusColumn - 1, end));
+        patient._tumors.add(input);
+        stats._recordCount++;
+    }
+
+    private void computePatient(Patient patient, MphComputeOptions options, ExecutorService executor, PatientHandler handler, Statistics stats) {
+        if (patient._tumors.isEmpty())
+            return;
+        MphPatientOutput output = _utils.computePrimaries(patient._tumors, options, executor);
+        stats._patientCount++;
+        stats._pairCount += output.getPairCount();
+        handler.patientComputed(patient.getIdAsString(), output);
+        patient._tumors = new ArrayList<>();
+    }
+
+    // returns true if the record is empty or only contains spaces and tabs
+    private static boolean isBlank(MappedByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b != ' ' && b != '\t')
+                return false;
+        }
+        return true;
+    }
+
+    private static int validateColumn(int column) {
+        if (column < 1)
+            throw new IllegalArgumentException("Columns start at 1.");
+        return column;
+    }
+
+    /**
+     * Receives the output of each patient of the file.
+     */
+    @FunctionalInterface
+    public interface PatientHandler {
+
+        /**
+         * Called once per patient, in the order of the file.
+         * @param patientIdNumber the patient ID number (trimmed)
+         * @param output the output of the tumors of the patient
+         */
+        void patientComputed(String patientIdNumber, MphPatientOutput output);
+    }
+
+    /**
+     * The statistics of the processing of a file.
+     */
+    public static class Statistics {
+
+        private long _recordCount;
+
+        private long _patientCount;
+
+        private long _pairCount;
+
+        private long _elapsedNanos;
+
+        public long getRecordCount() {
+            return _recordCount;
+        }
+
+        public long getPatientCount() {
+            return _patientCount;
+        }
+
+        public long getPairCount() {
+            return _pairCount;
+        }
+
+        public long getElapsedNanos() {
+            return _elapsedNanos;
+        }
+
+        /**
+         * Returns the throughput, in records per second (including the computation of the primaries and the handler).
+         */
+        public double getRecordsPerSecond() {
+            return _elapsedNanos == 0 ? 0 : _recordCount * 1_000_000_000D / _elapsedNanos;
+        }
+    }
+
+    // the tumors of the current patient, and its ID as bytes (the ID is only converted to a string once per patient)
+    private static final class Patient {
+
+        private final byte[] _id = new byte[_PATIENT_ID_NUMBER_LENGTH];
+
+        private int _idLength;
+
+        private List<MphInput> _tumors = new ArrayList<>();
+
+        private boolean hasId(MappedByteBuffer buffer, int start, int recordEnd) {
+            int length = Math.max(0, Math.min(_PATIENT_ID_NUMBER_LENGTH, recordEnd - start));
+            if (length != _idLength)
+                return false;
+            for (int i = 0; i < length; i++)
+                if (buffer.get(start + i) != _id[i])
+                    return false;
+            return true;
+        }
+
+        private void setId(MappedByteBuffer buffer, int start, int recordEnd) {
+            _idLength = Math.max(0, Math.min(_PATIENT_ID_NUMBER_LENGTH, recordEnd - start));
+            for (int i = 0; i < _idLength; i++)
+                _id[i] = buffer.get(start + i);
+        }
+
+        private String getIdAsString() {
+            return new String(_id, 0, _idLength, StandardCharsets.US_ASCII).trim();
+        }
+    }
+
+    // the values of a numeric code (with an optional prefix), created the first time they are read
+    private static final class CodeTable {
+
+        private final String _prefix;
+
+        private final int _numDigits;
+
+        private final String[] _values;
+
+        private CodeTable(String prefix, int numDigits) {
+            _prefix = prefix;
+            _numDigits = numDigits;
+            _values = new String[(int)Math.pow(10, numDigits)];
+        }
+
+        // returns the code starting at the requested index, null if it's blank or outside the record
+        private String get(MappedByteBuffer buffer, int start, int recordEnd) {
+            int length = _prefix.length() + _numDigits, end = Math.min(start + length, recordEnd);
+            if (start >= end)
+                return null;
+
+            boolean blank = true, valid = end - start == length;
+            int value = 0;
+            for (int i = start; i < end; i++) {
+                byte b = buffer.get(i);
+                blank &= b == ' ';
+                if (i - start < _prefix.length())
+                    valid &= b == _prefix.charAt(i - start);
+                else if (b >= '0' && b <= '9')
+                    value = value * 10 + (b - '0');
+                else
+                    valid = false;
+            }
+            if (blank)
+                return null;
+            if (!valid)
+                return copy(buffer, start, end);
+
+            String code = _values[value];
+            if (code == null) {
+                code = copy(buffer, start, end);
+                _values[value] = code;
+            }
+            return code;
+        }
+
+        private static String copy(MappedByteBuffer buffer, int start, int end) {
+            byte[] bytes = new byte[end - start];
+            for (int i = start; i < end; i++)
+                bytes[i - start] = buffer.get(i);
+            return new String(bytes, StandardCharsets.US_ASCII).trim();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Reads the patients of a NAACCR XML file one at a time, using the StAX parser of the JDK.
+ * <br/><br/>
+ * Only the current patient is kept in memory, so the memory used doesn't depend on the size of the file. The following items are read
+ * (any other item is ignored): patientIdNumber, primarySite, laterality, histologyIcdO2, behaviorIcdO2, histologicTypeIcdO3, behaviorCodeIcdO3,
+ * dateOfDiagnosis and rxSummTreatmentStatus.
+ * <br/><br/>
+ * Typical usage:
+ * <pre>
+ *     try (MphNaaccrXmlReader reader = new MphNaaccrXmlReader(Files.newInputStream(path))) {
+ *         MphNaaccrXmlReader.Patient patient;
+ *         while ((patient = reader.readPatient()) != null) {
+ *             MphPatientPrimaries primaries = utils.consolidatePrimaries(patient.getTumors(), options);
+ *             ...
+ *         }
+ *     }
+ * </pre>
+ * The patients can also be streamed into MphUtils.computePrimaries(Stream, MphComputeOptions, ExecutorService) using patients(), which returns
+ * the patients themselves and must therefore be mapped to their tumors:
+ * <pre>
+ *     try (MphNaaccrXmlReader reader = new MphNaaccrXmlReader(Files.newInputStream(path))) {
+ *         utils.computePrimaries(reader.patients().map(MphNaaccrXmlReader.Patient::getTumors), options, null).forEach(output -&gt; ...);
+ *     }
+ * </pre>
+ */
+public class MphNaaccrXmlReader implements Closeable {
+
+    private static final String _PATIENT_TAG = "Patient";
+
+    private static final String _TUMOR_TAG = "Tumor";
+
+    private static final String _ITEM_TAG = "Item";
+
+    private static final String _ITEM_ID_ATTRIBUTE = "naaccrId";
+
+    private final XMLStreamReader _reader;
+
+    private final Closeable _source;
+
+    /**
+     * Constructor; the encoding is the one declared by the XML document.
+     * @param input the NAACCR XML data, closed when this reader is closed
+     * @throws IOException if the XML parser can't be created
+     */
+    public MphNaaccrXmlReader(InputStream input) throws IOException {
+        _source = input;
+        try {
+            _reader = createFactory().createXMLStreamReader(input);
+        }
+        catch (XMLStreamException e) {
+            throw new IOException("Unable to read NAACCR XML data", e);
+        }
+    }
+
+    /**
+     * Constructor.
+     * @param input the NAACCR XML data, closed when this reader is closed
+     * @throws IOException if the XML parser can't be created
+     */
+    public MphNaaccrXmlReader(Reader input) throws IOException {
+        _source = input;
+        try {
+            _reader = createFactory().createXMLStreamReader(input);
+        }
+        catch (XMLStreamException e) {
+            throw new IOException("Unable to read NAACCR XML data", e);
+        }
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // NAACCR XML files don't use DTDs, don't resolve any external entity
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        return factory;
+    }
+
+    /**
+     * Reads the next patient.
+     * @return the next patient, null if there are no more patients
+     * @throws IOException if the XML data is not well-formed
+     */
+    public Patient readPatient() throws IOException {
+        try {
+            while (_reader.hasNext())
+                if (_reader.next() == XMLStreamConstants.START_ELEMENT && _PATIENT_TAG.equals(_reader.getLocalName()))
+                    return readPatientElement();
+            return null;
+        }
+        catch (XMLStreamException e) {
+            throw new IOException("Unable to read NAACCR XML data", e);
+        }
+    }
+
+    // reads the content of the current Patient element, up to its end tag
+    private Patient readPatientElement() throws XMLStreamException {
+        String patientIdNumber = null;
+        List<MphInput> tumors = new ArrayList<>();
+        MphInput tumor = null;
+        while (_reader.hasNext()) {
+            int event = _reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String tag = _reader.getLocalName();
+                if (_TUMOR_TAG.equals(tag))
+                    tumor = new MphInput();
+                else if (_ITEM_TAG.equals(tag)) {
+                    String id = _reader.getAttributeValue(null, _ITEM_ID_ATTRIBUTE);
+                    if (tumor != null)
+                        readTumorItem(id, tumor);
+                    else if ("patientIdNumber".equals(id))
+                        patientIdNumber = StringUtils.trimToNull(_reader.getElementText());
+                }
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT) {
+                String tag = _reader.getLocalName();
+                if (_TUMOR_TAG.equals(tag)) {
+                    tumors.add(tumor);
+                    tumor = null;
+                }
+                else if (_PATIENT_TAG.equals(tag))
+                    break;
+            }
+        }
+        return new Patient(patientIdNumber, tumors);
+    }
+
+    private void readTumorItem(String id, MphInput tumor) throws XMLStreamException {
+        if (id == null)
+            return;
+        switch (id) {
+            case "primarySite":
+                tumor.setPrimarySite(StringUtils.trimToNull(_reader.getElementText()));
+                break;
+            case "laterality":
+                tumor.setLaterality(StringUtils.trimToNull(_reader.getElementText()));
+                break;
+            case "histologyIcdO2":
+                tumor.setHistologyIcdO2(StringUtils.trimToNull(_reader.getElementText()));
+                break;
+            case "behaviorIcdO2":
+                tumor.setBehaviorIcdO2(StringUtils.trimToNull(_reader.getElementText()));
+                break;
+            case "histologicTypeIcdO3":
+                tumor.setHistologyIcdO3(StringUtils.trimToNull(_reader.getElementText()));
+                break;
+            case "behaviorCodeIcdO3":
+                tumor.setBehaviorIcdO3(StringUtils.trimToNull(_reader.getElementText()));
+                break;
+            case "rxSummTreatmentStatus":
+                tumor.setTxStatus(StringUtils.trimToNull(_reader.getElementText()));
+                break;
+            case "dateOfDiagnosis":
+                // YYYYMMDD, the month and day can be missing
+                String date = StringUtils.trimToNull(_reader.getElementText());
+                if (date != null) {
+                    tumor.setDateOfDiagnosisYear(StringUtils.trimToNull(date.substring(0, Math.min(4, date.length()))));
+                    if (date.length() >= 6)
+                        tumor.setDateOfDiagnosisMonth(StringUtils.trimToNull(date.substring(4, 6)));
+                    if (date.length() >= 8)
+                        tumor.setDateOfDiagnosisDay(StringUtils.trimToNull(date.substring(6, 8)));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Returns the remaining patients as a sequential stream; the patients are read as the stream is consumed. A problem reading the data is reported
+     * as an UncheckedIOException.
+     */
+    public Stream<Patient> patients() {
+        Spliterator<Patient> spliterator = new Spliterators.AbstractSpliterator<Patient>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Patient> action) {
+                Patient patient;
+                try {
+                    patient = readPatient();
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (patient == null)
+                    return false;
+                action.accept(patient);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            _reader.close();
+        }
+        catch (XMLStreamException e) {
+            throw new IOException("Unable to close NAACCR XML data", e);
+        }
+        finally {
+            _source.close();
+        }
+    }
+
+    /**
+     * A patient read from the XML data.
+     */
+    public static class Patient {
+
+        private final String _patientIdNumber;
+
+        private final List<MphInput> _tumors;
+
+        public Patient(String patientIdNumber, List<MphInput> tumors) {
+            _patientIdNumber = patientIdNumber;
+            _tumors = Collections.unmodifiableList(tumors);
+        }
+
+        /**
+         * Returns the patient ID number (#20), null if it's not provided.
+         */
+        public String getPatientIdNumber() {
+            return _patientIdNumber;
+        }
+
+        /**
+         * Returns the tumors of the patient, in the order of the XML data.
+         */
+        public List<MphInput> getTumors() {
+            return _tumors;
+        }
+    }
+}
@@ -6,20 +6,44 @@ package com.imsweb.mph;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.imsweb.mph.internal.TempRuleResult;
+
+/**
+ * The result of the computation of a pair of tumors.
+ * <br/><br/>
+ * When the result is decided by the rules of a group, the output only keeps a compact trace (the group, the number of applied rules and the index of the
+ * rule that decided the result); the applied rules, the reason, the group ID and the step are built from it the first time they are requested. So
+ * an output that is only used for its result never creates them. See MphComputeOptions.setTraceMode() to not record the trace at all.
+ */
 public class MphOutput {
 
+    // the properties that were materialized from the trace (or explicitly set)
+    private static final int _REASON = 1, _GROUP_ID = 1 << 1, _STEP = 1 << 2, _APPLIED_RULES = 1 << 3;
+
     private MphUtils.MpResult _result;
 
     private String _reason;
-    
+
     private List<MphRule> _appliedRules;
 
     private String _groupId;
 
     private String _step;
 
+    // the group whose rules were applied, null if there is no trace
+    private MphGroup _traceGroup;
+
+    // the number of applied rules (always the first rules of the group) and the index of the rule that decided the result, -1 if none
+    private short _numAppliedRules;
+
+    private short _stepIndex = -1;
+
+    // the result providing the reason, null if the reason is the one of the rule that decided the result
+    private TempRuleResult _reasonResult;
+
+    private int _materialized;
+
     public MphOutput() {
-        _appliedRules = new ArrayList<>();
     }
 
     public MphUtils.MpResult getResult() {
@@ -31,30 +55,101 @@ public class MphOutput {
     }
 
     public String getReason() {
+        if ((_materialized & _REASON) == 0 && _traceGroup != null && _stepIndex != -1)
+            setReason(_reasonResult != null ? _reasonResult.getMessage() : _traceGroup.getRules().get(_stepIndex).getReason());
         return _reason;
     }
 
     public void setReason(String reason) {
         _reason = reason;
+        _materialized |= _REASON;
     }
 
     public List<MphRule> getAppliedRules() {
+        if ((_materialized & _APPLIED_RULES) == 0) {
+            _appliedRules = new ArrayList<>();
+            if (_traceGroup != null)
+                _appliedRules.addAll(_traceGroup.getRules().subList(0, _numAppliedRules));
+            _materialized |= _APPLIED_RULES;
+        }
         return _appliedRules;
     }
 
     public String getGroupId() {
+        if ((_materialized & _GROUP_ID) == 0 && _traceGroup != null && _stepIndex != -1)
+            setGroupId(_traceGroup.getRules().get(_stepIndex).getGroupId());
         return _groupId;
     }
 
     public void setGroupId(String groupId) {
         _groupId = groupId;
+        _materialized |= _GROUP_ID;
     }
 
     public String getStep() {
+        if ((_materialized & _STEP) == 0 && _traceGroup != null && _stepIndex != -1)
+            setStep(_traceGroup.getRules().get(_stepIndex).getStep());
         return _step;
     }
 
     public void setStep(String step) {
         _step = step;
+        _materialized |= _STEP;
+    }
+
+    /**
+     * Records the compact trace of the rules applied to the pair.
+     * @param group the group whose rules were applied
+     * @param numAppliedRules the number of applied rules
+     * @param stepIndex the index of the rule that decided the result, -1 if no rule decided it
+     * @param reasonResult the result whose message is the reason, null if the reason is the one of the rule that decided the result
+     */
+    void setTrace(MphGroup group, int numAppliedRules, int stepIndex, TempRuleResult reasonResult) {
+        _traceGroup = group;
+        _numAppliedRules = (short)numAppliedRules;
+        _stepIndex = (short)stepIndex;
+        _reasonResult = reasonResult;
+    }
+
+    MphGroup getTraceGroup() {
+        return _traceGroup;
+    }
+
+    int getTraceStepIndex() {
+        return _stepIndex;
+    }
+
+    /**
+     * Clears the output so it can be reused.
+     */
+    void reset() {
+        _result = null;
+        _reason = null;
+        _appliedRules = null;
+        _groupId = null;
+        _step = null;
+        _traceGroup = null;
+        _numAppliedRules = 0;
+        _stepIndex = -1;
+        _reasonResult = null;
+        _materialized = 0;
+    }
+
+    /**
+     * Returns a copy of this output; the trace is copied as it is, without materializing anything (so an output shared by several threads can be copied).
+     */
+    MphOutput copy() {
+        MphOutput copy = new MphOutput();
+        copy._result = _result;
+        copy._reason = _reason;
+        copy._appliedRules = _appliedRules == null ? null : new ArrayList<>(_appliedRules);
+        copy._groupId = _groupId;
+        copy._step = _step;
+        copy._traceGroup = _traceGroup;
+        copy._numAppliedRules = _numAppliedRules;
+        copy._stepIndex = _stepIndex;
+        copy._reasonResult = _reasonResult;
+        copy._materialized = _materialized;
+        return copy;
     }
 }
@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.imsweb.mph.internal.DxDateRange;
+import com.imsweb.mph.mpgroups.GroupUtility;
+
+/**
+ * A bounded cache of computed pairs of tumors, see MphComputeOptions.setPairCache().
+ * <br/><br/>
+ * A pair is cached under a key made of the values the rules actually read: the primary site, histology and behavior (as returned by the input),
+ * the laterality (only right, left, both and mid-line are distinguished, every other value being considered the same), whether treatment was given,
+ * and the diagnosis date normalized the same way the rules do it (invalid or missing months and days are unknown). Two pairs having the same key always
+ * have the same output, so they share a single entry. The order of the two tumors is part of the key.
+ * <br/><br/>
+ * The cache is split into segments, each of them being an LRU map protected by its own lock, so it can be shared by several threads. The entries
+ * are only valid for a single MphUtils instance (and its Hematopoietic provider); a cache should not be shared between instances.
+ */
+public class MphPairCache {
+
+    private static final int _NUM_SEGMENTS = 16;
+
+    // the normalized values of an input with a missing or invalid year: only the sign bit is set, so it can't be confused with -1 (an input that
+    // can't be normalized) or with a packed value (a valid year is at most the current year, so a packed value always fits in the 31 lower bits)
+    private static final int _UNKNOWN_YEAR_VALUES = Integer.MIN_VALUE;
+
+    private final Segment[] _segments;
+
+    private final int _maximumSize;
+
+    private final LongAdder _hitCount = new LongAdder();
+
+    private final LongAdder _missCount = new LongAdder();
+
+    private final LongAdder _evictionCount = new LongAdder();
+
+    /**
+     * Constructor.
+     * @param maximumSize maximum number of pairs kept in the cache, the least recently used pairs are evicted first
+     */
+    public MphPairCache(int maximumSize) {
+        if (maximumSize <= 0)
+            throw new IllegalArgumentException("Maximum size must be positive.");
+        _maximumSize = maximumSize;
+        int numSegments = Math.min(_NUM_SEGMENTS, maximumSize);
+        _segments = new Segment[numSegments];
+        for (int i = 0; i < numSegments; i++)
+            _segments[i] = new Segment(maximumSize / numSegments + (i < maximumSize % numSegments ? 1 : 0));
+    }
+
+    public int getMaximumSize() {
+        return _maximumSize;
+    }
+
+    /**
+     * Returns the number of pairs currently in the cache.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : _segments)
+            synchronized (segment) {
+                size += segment.size();
+            }
+        return size;
+    }
+
+    /**
+     * Removes all the pairs from the cache; the statistics are not reset.
+     */
+    public void clear() {
+        for (Segment segment : _segments)
+            synchronized (segment) {
+                segment.clear();
+            }
+    }
+
+    public long getHitCount() {
+        return _hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return _missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return _evictionCount.sum();
+    }
+
+    /**
+     * Returns the ratio of requests that were found in the cache, 0 if there was no request.
+     */
+    public double getHitRate() {
+        long hits = getHitCount(), requests = hits + getMissCount();
+        return requests == 0 ? 0 : (double)hits / requests;
+    }
+
+    /**
+     * Returns the output of the requested pair, computing it and adding it to the cache if needed.
+     */
+    MphOutput get(MphInput input1, MphInput input2, MphComputeOptions options, boolean trace, MphUtils utils) {
+        Key key = createKey(input1, input2, options, trace);
+        // some invalid values can't be normalized without changing the behavior of the computation, those pairs are not cached
+        if (key == null)
+            return utils.computePrimariesWithoutCache(input1, input2, options, trace);
+
+        Segment segment = _segments[(key.hashCode() & Integer.MAX_VALUE) % _segments.length];
+        MphOutput cached;
+        synchronized (segment) {
+            cached = segment.get(key);
+        }
+        if (cached != null) {
+            _hitCount.increment();
+            return cached.copy();
+        }
+
+        _missCount.increment();
+        MphOutput output = utils.computePrimariesWithoutCache(input1, input2, options, trace);
+        synchronized (segment) {
+            segment.put(key, output.copy());
+        }
+        return output;
+    }
+
+    static Key createKey(MphInput input1, MphInput input2, MphComputeOptions options, boolean trace) {
+        int currentYear = GroupUtility.getCurrentYear();
+        int values1 = normalize(input1, currentYear), values2 = normalize(input2, currentYear);
+        if (values1 == -1 || values2 == -1)
+            return null;
+        return new Key(input1.getPrimarySite(), input1.getHistology(), input1.getBehavior(), input2.getPrimarySite(), input2.getHistology(), input2.getBehavior(),
+                ((long)values1 << 32) | (values2 & 0xFFFFFFFFL), currentYear, options.getHistologyMatchingMode(), trace);
+    }
+
+    /**
+     * Packs the normalized laterality, treatment status and diagnosis date of the input into an integer, returns -1 if the input can't be normalized.
+     */
+    private static int normalize(MphInput input, int currentYear) {
+        int year = parse(input.getDateOfDiagnosisYear());
+        if (year == -2)
+            return -1;
+
+        // if the year is not valid, the pair is questionable without looking at any other value
+        if (!GroupUtility.validateYear(year))
+            return _UNKNOWN_YEAR_VALUES;
+
+        DxDateRange date = input.getDxDateRange();
+        int month = date.getMonth(), day = date.getDay();
+
+        int laterality;
+        String lat = input.getLaterality();
+        if (MphConstants.RIGHT.equals(lat))
+            laterality = 1;
+        else if (MphConstants.LEFT.equals(lat))
+            laterality = 2;
+        else if (MphConstants.BOTH.equals(lat))
+            laterality = 3;
+        else if (MphConstants.MID_LINE.equals(lat))
+            laterality = 4;
+        else
+            laterality = 0;
+        int treatment = MphConstants.TREATMENT_GIVEN.equals(input.getTxStatus()) ? 1 : 0;
+
+        return (((year << 7 | month) << 7 | day) << 3 | laterality) << 1 | treatment;
+    }
+
+    /**
+     * Parses the year the same way the computation does it: -1 if it's not made of digits, -2 if it's too long to be parsed as an integer.
+     */
+    private static int parse(String value) {
+        if (value == null || value.isEmpty())
+            return -1;
+        int result = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!Character.isDigit(c))
+                return -1;
+            result = result * 10 + Character.digit(c, 10);
+        }
+        return value.length() > 9 ? -2 : result;
+    }
+
+    static final class Key {
+
+        private final String _site1;
+
+        private final String _hist1;
+
+        private final String _beh1;
+
+        private final String _site2;
+
+        private final String _hist2;
+
+        private final String _beh2;
+
+        // the normalized values of both inputs (see normalize())
+        private final long _values;
+
+        private final int _currentYear;
+
+        private final MphComputeOptions.MpHistologyMatching _histologyMatching;
+
+        // an output computed without trace can't be returned to a computation requesting the trace
+        private final boolean _trace;
+
+        private final int _hashCode;
+
+        private Key(String site1, String hist1, String beh1, String site2, String hist2, String beh2, long values, int currentYear,
+                MphComputeOptions.MpHistologyMatching histologyMatching, boolean trace) {
+            _site1 = site1;
+            _hist1 = hist1;
+            _beh1 = beh1;
+            _site2 = site2;
+            _hist2 = hist2;
+            _beh2 = beh2;
+            _values = values;
+            _currentYear = currentYear;
+            _histologyMatching = histologyMatching;
+            _trace = trace;
+
+            int hash = Long.hashCode(values);
+            hash = 31 * hash + hashCode(site1);
+            hash = 31 * hash + hashCode(hist1);
+            hash = 31 * hash + hashCode(beh1);
+            hash = 31 * hash + hashCode(site2);
+            hash = 31 * hash + hashCode(hist2);
+            hash = 31 * hash + hashCode(beh2);
+            hash = 31 * hash + histologyMatching.hashCode();
+            hash = 31 * hash + Boolean.hashCode(trace);
+            _hashCode = 31 * hash + currentYear;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key key = (Key)o;
+            return _values == key._values && _currentYear == key._currentYear && _histologyMatching == key._histologyMatching && _trace == key._trace
+                    && equals(_site1, key._site1) && equals(_hist1, key._hist1) && equals(_beh1, key._beh1) && equals(_site2, key._site2) && equals(_hist2, key._hist2)
+                    && equals(_beh2, key._beh2);
+        }
+
+        @Override
+        public int hashCode() {
+            return _hashCode;
+        }
+
+        private static boolean equals(String s1, String s2) {
+            return s1 == null ? s2 == null : s1.equals(s2);
+        }
+
+        private static int hashCode(String s) {
+            return s == null ? 0 : s.hashCode();
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class Segment extends LinkedHashMap<Key, MphOutput> {
+
+        private final int _capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            _capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, MphOutput> eldest) {
+            if (size() <= _capacity)
+                return false;
+            _evictionCount.increment();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of comparing every pair of tumors of a single patient.
+ * <br/><br/>
+ * For two tumor indexes i &lt; j, the pair is always computed with tumor i as the first input and tumor j as the second one;
+ * the output of that pair is returned for both getOutput(i, j) and getOutput(j, i).
+ */
+public class MphPatientOutput {
+
+    private List<MphInput> _tumors;
+
+    // outputs of the pairs, stored as a lower triangular matrix (see getPairIndex)
+    private MphOutput[] _outputs;
+
+    public MphPatientOutput(List<MphInput> tumors) {
+        _tumors = Collections.unmodifiableList(tumors);
+        _outputs = new MphOutput[getPairCount(tumors.size())];
+    }
+
+    public List<MphInput> getTumors() {
+        return _tumors;
+    }
+
+    public int getTumorCount() {
+        return _tumors.size();
+    }
+
+    public int getPairCount() {
+        return _outputs.length;
+    }
+
+    /**
+     * Returns the output computed for the two tumors at the requested indexes.
+     * @param tumorIdx1 index of the first tumor
+     * @param tumorIdx2 index of the second tumor, must be different than the first one
+     * @return the computed output
+     */
+    public MphOutput getOutput(int tumorIdx1, int tumorIdx2) {
+        if (tumorIdx1 == tumorIdx2)
+            throw new IllegalArgumentException("A tumor cannot be compared to itself.");
+        if (tumorIdx1 < 0 || tumorIdx2 < 0 || tumorIdx1 >= _tumors.size() || tumorIdx2 >= _tumors.size())
+            throw new IndexOutOfBoundsException("Invalid tumor index.");
+        return _outputs[getPairIndex(tumorIdx1, tumorIdx2)];
+    }
+
+    void setOutput(int pairIdx, MphOutput output) {
+        _outputs[pairIdx] = output;
+    }
+
+    static int getPairCount(int numTumors) {
+        return numTumors * (numTumors - 1) / 2;
+    }
+
+    static int getPairIndex(int tumorIdx1, int tumorIdx2) {
+        int low = Math.min(tumorIdx1, tumorIdx2), high = Math.max(tumorIdx1, tumorIdx2);
+        return high * (high - 1) / 2 + low;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Consolidates the primaries of a continuous feed of patients, with back-pressure.
+ * <br/><br/>
+ * The patients are read from the source by the calling thread, consolidated (see MphUtils.consolidatePrimaries()) by a pool of worker threads and given to the
+ * consumer, always from the calling thread (so the consumer doesn't need to be thread-safe). At most "max in flight" patients are read ahead of the consumer:
+ * a slow consumer throttles the reading of the source instead of letting the results pile up in memory.
+ * <br/><br/>
+ * The results are given to the consumer in the order of the source by default; in unordered mode they are given as soon as they are available, which
+ * keeps the workers busy when some patients take much longer than others (the tumors of MphPatientPrimaries can be used to identify the patient).
+ */
+public class MphPatientPipeline {
+
+    private final MphUtils _utils;
+
+    private MphComputeOptions _options;
+
+    private int _parallelism = Runtime.getRuntime().availableProcessors();
+
+    private int _maxInFlight = 4 * Runtime.getRuntime().availableProcessors();
+
+    private boolean _ordered = true;
+
+    /**
+     * Constructor.
+     * @param utils the instance used to consolidate the patients
+     */
+    public MphPatientPipeline(MphUtils utils) {
+        if (utils == null)
+            throw new NullPointerException("Utils cannot be null.");
+        _utils = utils;
+    }
+
+    public MphComputeOptions getOptions() {
+        return _options;
+    }
+
+    /**
+     * Sets the options used to compute the pairs, the default options are used if null.
+     */
+    public void setOptions(MphComputeOptions options) {
+        _options = options;
+    }
+
+    public int getParallelism() {
+        return _parallelism;
+    }
+
+    /**
+     * Sets the number of worker threads (the number of available processors by default).
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1.");
+        _parallelism = parallelism;
+    }
+
+    public int getMaxInFlight() {
+        return _maxInFlight;
+    }
+
+    /**
+     * Sets the maximum number of patients read from the source but not given to the consumer yet (4 times the number of available processors by default).
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        if (maxInFlight < 1)
+            throw new IllegalArgumentException("Max in flight must be at least 1.");
+        _maxInFlight = maxInFlight;
+    }
+
+    public boolean isOrdered() {
+        return _ordered;
+    }
+
+    /**
+     * Sets whether the results are given to the consumer in the order of the source (true by default).
+     */
+    public void setOrdered(boolean ordered) {
+        _ordered = ordered;
+    }
+
+    /**
+     * Consolidates all the patients of the stream; see process(Iterator, Consumer).
+     */
+    public long process(Stream<? extends List<MphInput>> patients, Consumer<? super MphPatientPrimaries> consumer) {
+        return process(patients.iterator(), consumer);
+    }
+
+    /**
+     * Consolidates all the patients of the source and gives the results to the consumer; the method returns once all of them were consumed.
+     * <br/><br/>
+     * If a patient fails, or if the consumer throws an exception, the remaining patients are cancelled and the exception is re-thrown.
+     * @param patients the source of patients, each of them being represented by its list of tumors
+     * @param consumer the consumer of the results, called from the current thread
+     * @return the number of processed patients
+     */
+    public long process(Iterator<? extends List<MphInput>> patients, Consumer<? super MphPatientPrimaries> consumer) {
+        if (patients == null || consumer == null)
+            throw new NullPointerException("Patients and consumer cannot be null.");
+        MphComputeOptions options = _options == null ? new MphComputeOptions() : _options;
+
+        ExecutorService executor = Executors.newFixedThreadPool(_parallelism);
+        CompletionService<MphPatientPrimaries> completionService = new ExecutorCompletionService<>(executor);
+        // the futures not consumed yet, in the order of the source
+        Deque<Future<MphPatientPrimaries>> inFlight = new ArrayDeque<>();
+        long count = 0;
+        try {
+            while (patients.hasNext()) {
+                // back-pressure: don't read the next patient until there is room for it
+                while (inFlight.size() >= _maxInFlight)
+                    count += consume(inFlight, completionService, consumer, true);
+                List<MphInput> tumors = patients.next();
+                Callable<MphPatientPrimaries> task = () -> _utils.consolidatePrimaries(tumors, options);
+                // in ordered mode the results are taken from the futures directly, the completion queue would never be emptied
+                inFlight.addLast(_ordered ? executor.submit(task) : completionService.submit(task));
+                while (!inFlight.isEmpty() && consume(inFlight, completionService, consumer, false) > 0)
+                    count++;
+            }
+            while (!inFlight.isEmpty())
+                count += consume(inFlight, completionService, consumer, true);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException)e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+        finally {
+            for (Future<MphPatientPrimaries> future : inFlight)
+                future.cancel(true);
+            executor.shutdownNow();
+        }
+
+        return count;
+    }
+
+    // gives the next available result to the consumer, returns the number of consumed results (0 or 1)
+    private int consume(Deque<Future<MphPatientPrimaries>> inFlight, CompletionService<MphPatientPrimaries> completionService, Consumer<? super MphPatientPrimaries> consumer,
+            boolean wait) throws InterruptedException, ExecutionException {
+        Future<MphPatientPrimaries> future;
+        if (_ordered) {
+            future = inFlight.peekFirst();
+            if (!wait && !future.isDone())
+                return 0;
+            inFlight.removeFirst();
+        }
+        else {
+            future = wait ? completionService.take() : completionService.poll();
+            if (future == null)
+                return 0;
+            inFlight.remove(future);
+        }
+        consumer.accept(future.get());
+        return 1;
+    }
+}
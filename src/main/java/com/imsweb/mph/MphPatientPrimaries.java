@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The tumors of a single patient, consolidated into distinct primaries.
+ * <br/><br/>
+ * Two tumors belong to the same primary if they are linked by a chain of pairs computed as a single primary. Questionable pairs don't link tumors.
+ */
+public class MphPatientPrimaries {
+
+    /**
+     * A pair of tumors that was computed while consolidating the tumors, along with its output.
+     */
+    public static class ComputedPair {
+
+        private int _tumorIdx1;
+
+        private int _tumorIdx2;
+
+        private MphOutput _output;
+
+        public ComputedPair(int tumorIdx1, int tumorIdx2, MphOutput output) {
+            _tumorIdx1 = tumorIdx1;
+            _tumorIdx2 = tumorIdx2;
+            _output = output;
+        }
+
+        public int getTumorIdx1() {
+            return _tumorIdx1;
+        }
+
+        public int getTumorIdx2() {
+            return _tumorIdx2;
+        }
+
+        public MphOutput getOutput() {
+            return _output;
+        }
+
+        /**
+         * Returns the rule that decided the result of the pair.
+         */
+        public MphRule getRule() {
+            List<MphRule> rules = _output.getAppliedRules();
+            return rules.isEmpty() ? null : rules.get(rules.size() - 1);
+        }
+    }
+
+    /**
+     * A pair of tumors that was computed as a single primary, and which linked two different primaries at the time it was computed.
+     */
+    public static class Link extends ComputedPair {
+
+        public Link(int tumorIdx1, int tumorIdx2, MphOutput output) {
+            super(tumorIdx1, tumorIdx2, output);
+        }
+    }
+
+    private List<MphInput> _tumors;
+
+    // for each tumor, the index of its primary
+    private int[] _primaryIndexes;
+
+    private List<List<Integer>> _primaries;
+
+    private List<Link> _links;
+
+    private List<ComputedPair> _questionablePairs;
+
+    private int _numComputedPairs;
+
+    public MphPatientPrimaries(List<MphInput> tumors, int[] primaryIndexes, List<Link> links, List<ComputedPair> questionablePairs, int numComputedPairs) {
+        _tumors = Collections.unmodifiableList(tumors);
+        _primaryIndexes = primaryIndexes;
+        _links = Collections.unmodifiableList(links);
+        _questionablePairs = Collections.unmodifiableList(questionablePairs);
+        _numComputedPairs = numComputedPairs;
+
+        List<List<Integer>> primaries = new ArrayList<>();
+        for (int tumorIdx = 0; tumorIdx < primaryIndexes.length; tumorIdx++) {
+            if (primaryIndexes[tumorIdx] == primaries.size())
+                primaries.add(new ArrayList<>());
+            primaries.get(primaryIndexes[tumorIdx]).add(tumorIdx);
+        }
+        for (int i = 0; i < primaries.size(); i++)
+            primaries.set(i, Collections.unmodifiableList(primaries.get(i)));
+        _primaries = Collections.unmodifiableList(primaries);
+    }
+
+    public List<MphInput> getTumors() {
+        return _tumors;
+    }
+
+    public int getNumPrimaries() {
+        return _primaries.size();
+    }
+
+    /**
+     * Returns the index of the primary the requested tumor belongs to; primaries are numbered in the order of their first tumor.
+     */
+    public int getPrimaryIndex(int tumorIdx) {
+        return _primaryIndexes[tumorIdx];
+    }
+
+    /**
+     * Returns the tumor indexes of each primary.
+     */
+    public List<List<Integer>> getPrimaries() {
+        return _primaries;
+    }
+
+    /**
+     * Returns the links that were used to consolidate the tumors, in the order they were computed.
+     */
+    public List<Link> getLinks() {
+        return _links;
+    }
+
+    /**
+     * Returns the computed pairs that were questionable, in the order they were computed; those pairs were not linked and might need a manual review.
+     */
+    public List<ComputedPair> getQuestionablePairs() {
+        return _questionablePairs;
+    }
+
+    /**
+     * Returns the number of pairs that had to be computed; pairs of tumors already belonging to the same primary are not computed.
+     */
+    public int getNumComputedPairs() {
+        return _numComputedPairs;
+    }
+}
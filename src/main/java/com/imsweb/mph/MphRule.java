@@ -22,6 +22,12 @@ public abstract class MphRule {
 
     private List<String> _examples;
 
+    // the pair features required for this rule to return a result (see PairFeatures), 0 if the rule must always be applied
+    private int _guard;
+
+    // the results with a message returned by this rule, created the first time they are needed (copy-on-write, so reading never locks)
+    private volatile TempRuleResult[] _resultsWithMessage = new TempRuleResult[0];
+
     public MphRule(String groupId, String step) {
         _groupId = groupId;
         _step = step;
@@ -61,5 +67,57 @@ public abstract class MphRule {
         return _examples;
     }
 
+    public int getGuard() {
+        return _guard;
+    }
+
+    /**
+     * Sets the pair features (see PairFeatures) that are all required for this rule to return a result; the rule is skipped for the pairs that don't have all
+     * of them, so a guard must only be set when the rule returns NO_RESULT for any other pair.
+     */
+    public void setGuard(int guard) {
+        _guard = guard;
+    }
+
+    /**
+     * Applies the rule to the pair of tumors; the returned result must be one of the shared results (see TempRuleResult) so applying a rule doesn't allocate anything.
+     */
     public abstract TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options);
+
+    /**
+     * Returns the potential result used when the rule can't be applied because some information is missing; the result is created once per rule and message.
+     * @param result the potential result
+     * @param missingInformation the sentence describing the missing information, for example "Known diagnosis date should be provided."
+     */
+    protected TempRuleResult potentialResult(MphUtils.MpResult result, String missingInformation) {
+        return getResultWithMessage(result, false, missingInformation);
+    }
+
+    /**
+     * Returns the final questionable result used when the rule can't be applied because some information is missing; the result is created once per rule and message.
+     * @param missingInformation the sentence describing the missing information, for example "Known diagnosis date should be provided."
+     */
+    protected TempRuleResult questionableResult(String missingInformation) {
+        return getResultWithMessage(MphUtils.MpResult.QUESTIONABLE, true, missingInformation);
+    }
+
+    private TempRuleResult getResultWithMessage(MphUtils.MpResult result, boolean isFinal, String missingInformation) {
+        TempRuleResult[] results = _resultsWithMessage;
+        for (TempRuleResult existing : results)
+            if (existing.matches(result, isFinal, missingInformation))
+                return existing;
+
+        synchronized (this) {
+            results = _resultsWithMessage;
+            for (TempRuleResult existing : results)
+                if (existing.matches(result, isFinal, missingInformation))
+                    return existing;
+            TempRuleResult created = isFinal ? TempRuleResult.questionableResult(this, missingInformation) : TempRuleResult.potentialResult(this, result, missingInformation);
+            TempRuleResult[] newResults = new TempRuleResult[results.length + 1];
+            System.arraycopy(results, 0, newResults, 0, results.length);
+            newResults[results.length] = created;
+            _resultsWithMessage = newResults;
+            return created;
+        }
+    }
 }
@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.imsweb.mph.MphUtils.MpResult;
+
+/**
+ * A metrics listener that counts the pairs decided by each step of each group (per result), and keeps a latency histogram for each group.
+ * <br/><br/>
+ * The counters are LongAdder objects, so recording a pair never blocks and scales with the number of threads. The latencies are recorded in buckets
+ * of powers of two (a pair taking 1500 nanoseconds is counted in the 1024-2047 bucket), so percentiles are approximations within a factor of two.
+ * <br/><br/>
+ * Pairs decided before applying any rule (invalid values, tumors without group or in two different groups) are counted with a null group ID and step.
+ */
+public class MphRuleMetrics implements MphMetricsListener {
+
+    // the number of latency buckets, bucket i contains the values with i significant bits
+    private static final int _NUM_BUCKETS = 64;
+
+    // the key used for the pairs without group or step (the concurrent maps don't support null keys)
+    private static final String _NONE = "";
+
+    private final Map<String, GroupMetrics> _groups = new ConcurrentHashMap<>();
+
+    @Override
+    public void pairComputed(MphOutput output, long elapsedNanos) {
+        String groupId = output.getGroupId() == null ? _NONE : output.getGroupId();
+        GroupMetrics group = _groups.get(groupId);
+        if (group == null)
+            group = _groups.computeIfAbsent(groupId, GroupMetrics::new);
+        group.record(output, Math.max(0, elapsedNanos));
+    }
+
+    /**
+     * Returns the current values of the counters; pairs computed while the snapshot is taken may or may not be included.
+     */
+    public Snapshot getSnapshot() {
+        List<StepCounts> steps = new ArrayList<>();
+        List<LatencyHistogram> latencies = new ArrayList<>();
+        for (GroupMetrics group : _groups.values()) {
+            for (StepMetrics step : group._steps.values())
+                steps.add(new StepCounts(toId(group._groupId), toId(step._step), step._counts[0].sum(), step._counts[1].sum(), step._counts[2].sum()));
+            long[] buckets = new long[_NUM_BUCKETS];
+            for (int i = 0; i < _NUM_BUCKETS; i++)
+                buckets[i] = group._buckets[i].sum();
+            latencies.add(new LatencyHistogram(toId(group._groupId), buckets, group._totalNanos.sum(), group._maxNanos.get()));
+        }
+        return new Snapshot(steps, latencies);
+    }
+
+    /**
+     * Resets all the counters.
+     */
+    public void reset() {
+        _groups.clear();
+    }
+
+    private static String toId(String key) {
+        return _NONE.equals(key) ? null : key;
+    }
+
+    private static int getBucket(long nanos) {
+        return _NUM_BUCKETS - Long.numberOfLeadingZeros(nanos);
+    }
+
+    private static final class GroupMetrics {
+
+        private final String _groupId;
+
+        private final Map<String, StepMetrics> _steps = new ConcurrentHashMap<>();
+
+        private final LongAdder[] _buckets = new LongAdder[_NUM_BUCKETS];
+
+        private final LongAdder _totalNanos = new LongAdder();
+
+        private final LongAccumulator _maxNanos = new LongAccumulator(Math::max, 0);
+
+        private GroupMetrics(String groupId) {
+            _groupId = groupId;
+            for (int i = 0; i < _NUM_BUCKETS; i++)
+                _buckets[i] = new LongAdder();
+        }
+
+        private void record(MphOutput output, long elapsedNanos) {
+            String stepId = output.getStep() == null ? _NONE : output.getStep();
+            StepMetrics step = _steps.get(stepId);
+            if (step == null)
+                step = _steps.computeIfAbsent(stepId, StepMetrics::new);
+            step.record(output.getResult());
+
+            _buckets[getBucket(elapsedNanos)].increment();
+            _totalNanos.add(elapsedNanos);
+            _maxNanos.accumulate(elapsedNanos);
+        }
+    }
+
+    private static final class StepMetrics {
+
+        private final String _step;
+
+        // the counts of single primary, multiple primaries and questionable pairs
+        private final LongAdder[] _counts = {new LongAdder(), new LongAdder(), new LongAdder()};
+
+        private StepMetrics(String step) {
+            _step = step;
+        }
+
+        private void record(MpResult result) {
+            if (MpResult.SINGLE_PRIMARY.equals(result))
+                _counts[0].increment();
+            else if (MpResult.MULTIPLE_PRIMARIES.equals(result))
+                _counts[1].increment();
+            else
+                _counts[2].increment();
+        }
+    }
+
+    /**
+     * The values of all the counters at a given time.
+     */
+    public static class Snapshot {
+
+        private List<StepCounts> _stepCounts;
+
+        private List<LatencyHistogram> _latencies;
+
+        private Snapshot(List<StepCounts> stepCounts, List<LatencyHistogram> latencies) {
+            stepCounts.sort((c1, c2) -> Long.compare(c2.getTotal(), c1.getTotal()));
+            _stepCounts = Collections.unmodifiableList(stepCounts);
+            _latencies = Collections.unmodifiableList(latencies);
+        }
+
+        /**
+         * Returns the counts of each step that decided at least one pair, the steps deciding the most pairs first.
+         */
+        public List<StepCounts> getStepCounts() {
+            return _stepCounts;
+        }
+
+        /**
+         * Returns the counts of the requested step, null if it didn't decide any pair.
+         */
+        public StepCounts getStepCounts(String groupId, String step) {
+            for (StepCounts counts : _stepCounts)
+                if (equals(groupId, counts.getGroupId()) && equals(step, counts.getStep()))
+                    return counts;
+            return null;
+        }
+
+        /**
+         * Returns the latency histogram of each group that computed at least one pair.
+         */
+        public List<LatencyHistogram> getLatencies() {
+            return _latencies;
+        }
+
+        /**
+         * Returns the latency histogram of the requested group, null if it didn't compute any pair.
+         */
+        public LatencyHistogram getLatency(String groupId) {
+            for (LatencyHistogram latency : _latencies)
+                if (equals(groupId, latency.getGroupId()))
+                    return latency;
+            return null;
+        }
+
+        /**
+         * Returns the total number of pairs.
+         */
+        public long getTotalCount() {
+            long total = 0;
+            for (StepCounts counts : _stepCounts)
+                total += counts.getTotal();
+            return total;
+        }
+
+        private static boolean equals(String s1, String s2) {
+            return s1 == null ? s2 == null : s1.equals(s2);
+        }
+    }
+
+    /**
+     * The number of pairs decided by a given step of a given group, per result.
+     */
+    public static class StepCounts {
+
+        private String _groupId;
+
+        private String _step;
+
+        private long _singlePrimaryCount;
+
+        private long _multiplePrimariesCount;
+
+        private long _questionableCount;
+
+        private StepCounts(String groupId, String step, long singlePrimaryCount, long multiplePrimariesCount, long questionableCount) {
+            _groupId = groupId;
+            _step = step;
+            _singlePrimaryCount = singlePrimaryCount;
+            _multiplePrimariesCount = multiplePrimariesCount;
+            _questionableCount = questionableCount;
+        }
+
+        public String getGroupId() {
+            return _groupId;
+        }
+
+        public String getStep() {
+            return _step;
+        }
+
+        public long getSinglePrimaryCount() {
+            return _singlePrimaryCount;
+        }
+
+        public long getMultiplePrimariesCount() {
+            return _multiplePrimariesCount;
+        }
+
+        public long getQuestionableCount() {
+            return _questionableCount;
+        }
+
+        public long getTotal() {
+            return _singlePrimaryCount + _multiplePrimariesCount + _questionableCount;
+        }
+    }
+
+    /**
+     * The distribution of the time it took to compute the pairs of a given group.
+     */
+    public static class LatencyHistogram {
+
+        private String _groupId;
+
+        private long[] _buckets;
+
+        private long _count;
+
+        private long _totalNanos;
+
+        private long _maxNanos;
+
+        private LatencyHistogram(String groupId, long[] buckets, long totalNanos, long maxNanos) {
+            _groupId = groupId;
+            _buckets = buckets;
+            _totalNanos = totalNanos;
+            _maxNanos = maxNanos;
+            for (long bucket : buckets)
+                _count += bucket;
+        }
+
+        public String getGroupId() {
+            return _groupId;
+        }
+
+        public long getCount() {
+            return _count;
+        }
+
+        public long getTotalNanos() {
+            return _totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return _maxNanos;
+        }
+
+        public double getMeanNanos() {
+            return _count == 0 ? 0 : (double)_totalNanos / _count;
+        }
+
+        /**
+         * Returns the number of pairs in each bucket; bucket 0 contains the pairs that took no measurable time, bucket i (i > 0) contains the pairs that
+         * took from 2^(i-1) to 2^i - 1 nanoseconds.
+         */
+        public long[] getBuckets() {
+            return _buckets.clone();
+        }
+
+        /**
+         * Returns an approximation of the requested percentile (for example 0.99), in nanoseconds: the upper bound of the bucket containing it.
+         */
+        public long getPercentileNanos(double percentile) {
+            if (percentile < 0 || percentile > 1)
+                throw new IllegalArgumentException("Percentile must be between 0 and 1.");
+            if (_count == 0)
+                return 0;
+            long rank = Math.max(1, (long)Math.ceil(percentile * _count)), seen = 0;
+            for (int i = 0; i < _buckets.length; i++) {
+                seen += _buckets[i];
+                if (seen >= rank)
+                    return i == 0 ? 0 : Math.min(_maxNanos, i == 63 ? Long.MAX_VALUE : (1L << i) - 1);
+            }
+            return _maxNanos;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The time and memory spent initializing the components of the library (see MphUtils.getStartupReport()).
+ * <br/><br/>
+ * The components are initialized the first time they are needed: the rules of a group when a pair of that group is computed for the first time,
+ * the Hematopoietic tables when a Hematopoietic pair is computed, etc... So the report only contains the components used so far. Each component
+ * is initialized by the thread that first needs it, so different components can be initialized by different threads; the total time is therefore
+ * the sum of the time spent by all the threads, not the elapsed time.
+ */
+public final class MphStartupReport {
+
+    private final List<Component> _components;
+
+    MphStartupReport(List<Component> components) {
+        _components = Collections.unmodifiableList(components);
+    }
+
+    /**
+     * Returns the initialized components, the shared ones then the ones of the MphUtils instance, each in the order they completed; a component
+     * containing other ones (a table built from a resource for example) completes after them and includes their time and memory, since its
+     * contained components are always initialized by the same thread (the memory is the one allocated by the initializing thread).
+     */
+    public List<Component> getComponents() {
+        return _components;
+    }
+
+    /**
+     * Returns the component with the given name, null if it hasn't been initialized.
+     */
+    public Component getComponent(String name) {
+        for (Component component : _components)
+            if (component.getName().equals(name))
+                return component;
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        for (Component component : _components) {
+            buf.append(String.format("%-50s %10.3f ms", component.getName(), component.getElapsedNanos() / 1000000.0));
+            if (component.getAllocatedBytes() != -1)
+                buf.append(String.format(" %12d bytes", component.getAllocatedBytes()));
+            buf.append("  [").append(component.getThreadName()).append("]").append(System.lineSeparator());
+        }
+        return buf.toString();
+    }
+
+    /**
+     * A single initialized component.
+     */
+    public static final class Component {
+
+        private final String _name;
+
+        private final long _elapsedNanos;
+
+        private final long _allocatedBytes;
+
+        private final String _threadName;
+
+        public Component(String name, long elapsedNanos, long allocatedBytes, String threadName) {
+            _name = name;
+            _elapsedNanos = elapsedNanos;
+            _allocatedBytes = allocatedBytes;
+            _threadName = threadName;
+        }
+
+        public String getName() {
+            return _name;
+        }
+
+        public long getElapsedNanos() {
+            return _elapsedNanos;
+        }
+
+        /**
+         * Returns the number of bytes allocated by the initialization (including the garbage), -1 if the JVM can't report it.
+         */
+        public long getAllocatedBytes() {
+            return _allocatedBytes;
+        }
+
+        public String getThreadName() {
+            return _threadName;
+        }
+
+        @Override
+        public String toString() {
+            return _name + ": " + _elapsedNanos + " ns, " + _allocatedBytes + " bytes";
+        }
+    }
+}
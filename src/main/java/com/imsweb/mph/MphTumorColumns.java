@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * A set of tumors stored in columns of integers, used to compute pairs in batch (see MphUtils.computePrimaries(MphTumorColumns, MphTumorColumns, ...)).
+ * <br/><br/>
+ * The columns are (in that order): the primary site without its "C" (509 for C509), the ICD-O-3 histology, the ICD-O-3 behavior, the laterality, and the
+ * year, month and day of diagnosis. A missing value is represented by -1 (for example an unknown day of diagnosis), the month and day can also be 99.
+ * <br/><br/>
+ * There is no treatment status column: every tumor is computed as if no treatment was given (MphInput.getTxStatus() returns null). This only matters
+ * for the 2010+ Hematopoietic rules M12 and M13, which look at the treatment of an acute neoplasm that reverts to a chronic one: such a pair is always
+ * computed as a single primary by M12, even when the acute neoplasm was treated. Use computePrimaries(MphInput, MphInput) for those pairs when the
+ * treatment status is known.
+ * <br/><br/>
+ * The columns are not copied: they can be arrays or views of a (possibly direct) ByteBuffer, so the tumors can be kept off-heap.
+ */
+public final class MphTumorColumns {
+
+    // the number of columns
+    static final int NUM_COLUMNS = 7;
+
+    private final int _size;
+
+    private final IntBuffer _primarySites;
+
+    private final IntBuffer _histologies;
+
+    private final IntBuffer _behaviors;
+
+    private final IntBuffer _lateralities;
+
+    private final IntBuffer _dxYears;
+
+    private final IntBuffer _dxMonths;
+
+    private final IntBuffer _dxDays;
+
+    /**
+     * Creates the columns from arrays, which must all have the same length; the months and days can be null if they are unknown for all the tumors.
+     */
+    public MphTumorColumns(int[] primarySites, int[] histologies, int[] behaviors, int[] lateralities, int[] dxYears, int[] dxMonths, int[] dxDays) {
+        this(primarySites.length, IntBuffer.wrap(primarySites), IntBuffer.wrap(histologies), IntBuffer.wrap(behaviors), IntBuffer.wrap(lateralities), IntBuffer.wrap(dxYears),
+                dxMonths == null ? null : IntBuffer.wrap(dxMonths), dxDays == null ? null : IntBuffer.wrap(dxDays));
+    }
+
+    private MphTumorColumns(int size, IntBuffer primarySites, IntBuffer histologies, IntBuffer behaviors, IntBuffer lateralities, IntBuffer dxYears, IntBuffer dxMonths,
+            IntBuffer dxDays) {
+        for (IntBuffer column : new IntBuffer[] {primarySites, histologies, behaviors, lateralities, dxYears, dxMonths, dxDays})
+            if (column != null && column.remaining() != size)
+                throw new IllegalArgumentException("All the columns must contain " + size + " tumors.");
+        _size = size;
+        _primarySites = primarySites;
+        _histologies = histologies;
+        _behaviors = behaviors;
+        _lateralities = lateralities;
+        _dxYears = dxYears;
+        _dxMonths = dxMonths;
+        _dxDays = dxDays;
+    }
+
+    /**
+     * Creates the columns from a buffer containing the seven columns one after the other (starting at the position of the buffer), each of them being
+     * made of numTumors integers in the byte order of the buffer. The buffer is not copied and its position is not modified.
+     */
+    public static MphTumorColumns wrap(ByteBuffer buffer, int numTumors) {
+        if (numTumors < 0 || (long)numTumors * 4 * NUM_COLUMNS > buffer.remaining())
+            throw new IllegalArgumentException("The buffer doesn't contain " + numTumors + " tumors.");
+        IntBuffer[] columns = new IntBuffer[NUM_COLUMNS];
+        for (int i = 0; i < NUM_COLUMNS; i++) {
+            ByteBuffer column = buffer.duplicate();
+            column.position(buffer.position() + i * numTumors * 4);
+            column.limit(column.position() + numTumors * 4);
+            columns[i] = column.slice().order(buffer.order()).asIntBuffer();
+        }
+        return new MphTumorColumns(numTumors, columns[0], columns[1], columns[2], columns[3], columns[4], columns[5], columns[6]);
+    }
+
+    /**
+     * Returns the number of tumors.
+     */
+    public int size() {
+        return _size;
+    }
+
+    int getPrimarySite(int idx) {
+        return _primarySites.get(idx);
+    }
+
+    int getHistology(int idx) {
+        return _histologies.get(idx);
+    }
+
+    int getBehavior(int idx) {
+        return _behaviors.get(idx);
+    }
+
+    int getLaterality(int idx) {
+        return _lateralities.get(idx);
+    }
+
+    int getDxYear(int idx) {
+        return _dxYears.get(idx);
+    }
+
+    int getDxMonth(int idx) {
+        return _dxMonths == null ? -1 : _dxMonths.get(idx);
+    }
+
+    int getDxDay(int idx) {
+        return _dxDays == null ? -1 : _dxDays.get(idx);
+    }
+}
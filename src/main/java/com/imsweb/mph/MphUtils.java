@@ -6,10 +6,20 @@ package com.imsweb.mph;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
-import org.apache.commons.lang3.math.NumberUtils;
-
+import com.imsweb.mph.internal.PairFeatures;
+import com.imsweb.mph.internal.StartupRecorder;
 import com.imsweb.mph.internal.TempRuleResult;
+import com.imsweb.mph.internal.ValidatedTumor;
 import com.imsweb.mph.mpgroups.GroupUtility;
 import com.imsweb.mph.mpgroups.Mp1998HematopoieticGroup;
 import com.imsweb.mph.mpgroups.Mp2001HematopoieticGroup;
@@ -56,8 +66,11 @@ public final class MphUtils {
         QUESTIONABLE
     }
 
-    // the unique instance of this utility class
-    private static MphUtils _INSTANCE = null;
+    // the number of pairs computed by a single task when a patient is computed with an executor
+    private static final int _PAIRS_PER_TASK = 64;
+
+    // the unique instance of this utility class (volatile so it can be read without any lock once initialized)
+    private static volatile MphUtils _INSTANCE = null;
 
     // the Hematopoietic diseases provider used by the instance
     private HematoDbUtilsProvider _provider = null;
@@ -65,6 +78,18 @@ public final class MphUtils {
     // the cached groups of rules used by the instance
     private List<MphGroup> _groups = new ArrayList<>();
 
+    // the components initialized by the instance (its groups and their rules)
+    private List<MphStartupReport.Component> _startupComponents = new CopyOnWriteArrayList<>();
+
+    // the compiled index used to find the group of a tumor
+    private MphGroupIndex _groupIndex;
+
+    // the listener notified of every computed pair, null if none (volatile so it can be changed while pairs are computed)
+    private volatile MphMetricsListener _metricsListener;
+
+    // the executor used by the asynchronous methods, null to use the default one
+    private volatile ExecutorService _asyncExecutor;
+
     /**
      * Initialized the instance with the given provider; this allows to use a customized provider instead of the default one.
      * This method must be called before trying to get an instance, of the default provider will be used instead.
@@ -77,17 +102,23 @@ public final class MphUtils {
     /**
      * Returns true if the instance has been initialized, false otherwise.
      */
-    public static synchronized boolean isInitialized() {
+    public static boolean isInitialized() {
         return _INSTANCE != null;
     }
 
     /**
      * Returns the instance of MPH utils.
      */
-    public static synchronized MphUtils getInstance() {
-        if (!isInitialized())
-            initialize(new DefaultHematoDbUtilsProvider());
-        return _INSTANCE;
+    public static MphUtils getInstance() {
+        MphUtils instance = _INSTANCE;
+        if (instance == null) {
+            synchronized (MphUtils.class) {
+                if (_INSTANCE == null)
+                    initialize(new DefaultHematoDbUtilsProvider());
+                instance = _INSTANCE;
+            }
+        }
+        return instance;
     }
 
     /**
@@ -99,6 +130,9 @@ public final class MphUtils {
             throw new NullPointerException("Hemato DB Utils provider cannot be null.");
         _provider = provider;
 
+        // the groups only define their cancer sites here, their rules are created the first time they are needed
+        long start = System.nanoTime(), startBytes = StartupRecorder.getAllocatedBytes();
+
         // 1998 Hematopoietic rules
         _groups.add(new Mp1998HematopoieticGroup());
 
@@ -106,7 +140,7 @@ public final class MphUtils {
         _groups.add(new Mp2001HematopoieticGroup());
 
         // 2010 Hematopoietic rules
-        _groups.add(new Mp2010HematopoieticGroup());
+        _groups.add(new Mp2010HematopoieticGroup(provider));
 
         // 2004 solid tumor rules 
         _groups.add(new Mp2004BenignBrainGroup());
@@ -123,6 +157,28 @@ public final class MphUtils {
         _groups.add(new Mp2007BenignBrainGroup());
         _groups.add(new Mp2007MalignantBrainGroup());
         _groups.add(new Mp2007OtherSitesGroup());
+
+        for (MphGroup group : _groups)
+            group.setStartupComponents(_startupComponents);
+
+        StartupRecorder.record(_startupComponents, "Cancer groups", start, startBytes);
+
+        _groupIndex = StartupRecorder.record(_startupComponents, "Cancer group index", () -> new MphGroupIndex(_groups));
+    }
+
+    /**
+     * Returns the time and memory spent so far initializing the components of the library (the resources, the rules of each group, etc...).
+     * <br/><br/>
+     * The components are initialized the first time they are needed, so the report grows as new kinds of tumors are computed. The report contains
+     * the components shared by all the instances (resources, tables, etc...) followed by the ones of the current instance (its groups and their
+     * rules); the components of the instances replaced by a call to initialize() are not reported.
+     */
+    public static MphStartupReport getStartupReport() {
+        List<MphStartupReport.Component> components = StartupRecorder.getComponents();
+        MphUtils instance = _INSTANCE;
+        if (instance != null)
+            components.addAll(instance._startupComponents);
+        return new MphStartupReport(components);
     }
 
     /**
@@ -147,37 +203,64 @@ public final class MphUtils {
      * <br/><br/>
      * @param input1 an input dto which has a list of parameters used in the calculation.
      * @param input2 an input dto which has a list of parameters used in the calculation.
-     * @param options set of options to compute the results, histologyMatchingMode option for example is used to consider 8000 a match to 8nnn histologies or not.
+     * @param options set of options to compute the results, histologyMatchingMode option for example is used to consider 8000 a match to 8nnn histologies or not;
+     * if a pair cache is set on the options, the output is returned from the cache when an equivalent pair was already computed.
      * @return the computed output which is an object which has result (Single Primary, Multiple Primaries or Questionable), reason and rules applied to make a decision.
      */
     public MphOutput computePrimaries(MphInput input1, MphInput input2, MphComputeOptions options) {
-        MphOutput output = new MphOutput();
         if (options == null)
             options = new MphComputeOptions();
 
-        int year1 = NumberUtils.isDigits(input1.getDateOfDiagnosisYear()) ? Integer.parseInt(input1.getDateOfDiagnosisYear()) : -1;
-        int year2 = NumberUtils.isDigits(input2.getDateOfDiagnosisYear()) ? Integer.parseInt(input2.getDateOfDiagnosisYear()) : -1;
-        String site1 = input1.getPrimarySite(), site2 = input2.getPrimarySite(), hist1 = input1.getHistology(), hist2 = input2.getHistology();
-        String beh1 = input1.getBehavior(), beh2 = input2.getBehavior();
+        MphMetricsListener listener = _metricsListener;
+        if (listener == null)
+            return computePrimariesFromCache(input1, input2, options, options.getTraceMode() != MphComputeOptions.MpTraceMode.NONE);
 
-        if (!GroupUtility.validateProperties(site1, hist1, beh1, year1)) {
+        // the metrics are counted by group and step, so the trace is recorded even if the options don't request it
+        long start = System.nanoTime();
+        MphOutput output = computePrimariesFromCache(input1, input2, options, true);
+        listener.pairComputed(output, System.nanoTime() - start);
+        return output;
+    }
+
+    private MphOutput computePrimariesFromCache(MphInput input1, MphInput input2, MphComputeOptions options, boolean trace) {
+        if (options.getPairCache() != null)
+            return options.getPairCache().get(input1, input2, options, trace, this);
+        return computePrimariesWithoutCache(input1, input2, options, trace);
+    }
+
+    MphOutput computePrimariesWithoutCache(MphInput input1, MphInput input2, MphComputeOptions options, boolean trace) {
+        MphOutput output = new MphOutput();
+        computePrimaries(input1, input2, options, trace, output);
+        return output;
+    }
+
+    // computes the pair into the given (empty) output, the trace is recorded only if requested
+    private void computePrimaries(MphInput input1, MphInput input2, MphComputeOptions options, boolean trace, MphOutput output) {
+        // the properties are parsed and validated once per input, the groups and rules use the parsed values
+        ValidatedTumor tumor1 = input1.getValidatedTumor(), tumor2 = input2.getValidatedTumor();
+
+        if (!tumor1.hasValidProperties()) {
             output.setResult(MpResult.QUESTIONABLE);
             output.setReason(
                     "Unable to identify cancer group for first set of parameters. Valid primary site (C000-C999 excluding C809), histology (8000-9999), behavior (0-3, 6) and diagnosis year are required.");
-            return output;
+            return;
         }
-        else if (!GroupUtility.validateProperties(site2, hist2, beh2, year2)) {
+        else if (!tumor2.hasValidProperties()) {
             output.setResult(MpResult.QUESTIONABLE);
             output.setReason(
                     "Unable to identify cancer group for second set of parameters. Valid primary site (C000-C999 excluding C809), histology (8000-9999), behavior (0-3, 6) and diagnosis year are required.");
-            return output;
+            return;
         }
 
         //calculate cancer group based on latest year
-        int latestYear = year1 > year2 ? year1 : year2;
-        MphGroup group1 = findCancerGroup(site1, hist1, beh1, latestYear);
-        MphGroup group2 = findCancerGroup(site2, hist2, beh2, latestYear);
+        int latestYear = Math.max(tumor1.getYear(), tumor2.getYear());
+        MphGroup group1 = _groupIndex.find(tumor1.getPrimarySite(), tumor1.getHistology(), tumor1.getBehavior(), latestYear);
+        MphGroup group2 = _groupIndex.find(tumor2.getPrimarySite(), tumor2.getHistology(), tumor2.getBehavior(), latestYear);
+        computePrimaries(input1, input2, group1, group2, options, trace, output);
+    }
 
+    // computes the pair of valid tumors into the given (empty) output, using the groups of the tumors for the latest year of diagnosis of the pair
+    private void computePrimaries(MphInput input1, MphInput input2, MphGroup group1, MphGroup group2, MphComputeOptions options, boolean trace, MphOutput output) {
         if (group1 == null) {
             output.setResult(MpResult.QUESTIONABLE);
             output.setReason("The first tumor provided does not belong to any of the cancer groups.");
@@ -191,46 +274,47 @@ public final class MphUtils {
             output.setReason("The two sets of parameters belong to two different cancer groups.");
         }
         else {
-            TempRuleResult potentialResult = null;
-            List<MphRule> rulesAppliedAfterQuestionable = new ArrayList<>();
-            for (MphRule rule : group1.getRules()) {
+            // the rules are applied in order, so the applied rules are always the first ones of the group; the rules whose guard is not satisfied by
+            // the pair are skipped since they can't return any result, but they still count as applied
+            List<MphRule> rules = group1.getRules();
+            int[] compiledRules = group1.getCompiledRules(PairFeatures.compute(input1.getValidatedTumor(), input2.getValidatedTumor()));
+            TempRuleResult potentialResult = null, reasonResult = null;
+            int numAppliedRules = 0, stepIndex = -1;
+            for (int idx = 0; idx < compiledRules.length && stepIndex == -1; idx++) {
+                int i = compiledRules[idx];
+                MphRule rule = rules.get(i);
                 if (potentialResult == null)
-                    output.getAppliedRules().add(rule);
-                else
-                    rulesAppliedAfterQuestionable.add(rule);
+                    numAppliedRules = i + 1;
                 TempRuleResult result = rule.apply(input1, input2, options);
                 if (result.getPotentialResult() != null) {
                     if (potentialResult == null)
                         potentialResult = result;
                     else if (!result.getPotentialResult().equals(potentialResult.getPotentialResult())) {
                         output.setResult(MpResult.QUESTIONABLE);
-                        output.setGroupId(rule.getGroupId());
-                        output.setStep(output.getAppliedRules().get(output.getAppliedRules().size() - 1).getStep());
-                        output.setReason(potentialResult.getMessage());
-                        break;
+                        stepIndex = numAppliedRules - 1;
+                        reasonResult = potentialResult;
                     }
                 }
                 else if (result.getFinalResult() != null) {
                     if (potentialResult == null || potentialResult.getPotentialResult().equals(result.getFinalResult())) {
                         output.setResult(result.getFinalResult());
-                        output.setGroupId(rule.getGroupId());
-                        output.setStep(rule.getStep());
-                        output.setReason(MpResult.QUESTIONABLE.equals(result.getFinalResult()) ? result.getMessage() : rule.getReason());
-                        if (potentialResult != null && potentialResult.getPotentialResult().equals(result.getFinalResult()))
-                            output.getAppliedRules().addAll(rulesAppliedAfterQuestionable);
+                        stepIndex = i;
+                        reasonResult = MpResult.QUESTIONABLE.equals(result.getFinalResult()) ? result : null;
+                        numAppliedRules = i + 1;
                     }
                     else {
                         output.setResult(MpResult.QUESTIONABLE);
-                        output.setGroupId(rule.getGroupId());
-                        output.setStep(output.getAppliedRules().get(output.getAppliedRules().size() - 1).getStep());
-                        output.setReason(potentialResult.getMessage());
+                        stepIndex = numAppliedRules - 1;
+                        reasonResult = potentialResult;
                     }
-                    break;
                 }
             }
+            if (stepIndex == -1 && potentialResult == null)
+                numAppliedRules = rules.size();
+            // the applied rules, reason, group and step are built from the trace when they are requested
+            if (trace)
+                output.setTrace(group1, numAppliedRules, stepIndex, reasonResult);
         }
-
-        return output;
     }
 
     /**
@@ -262,6 +346,371 @@ public final class MphUtils {
         return computePrimaries(input1, input2, null);
     }
 
+    /**
+     * Computes the pairs of tumors stored in columns: the pair i is made of the tumor i of the first columns and the tumor i of the second ones.
+     * <br/><br/>
+     * No object is created per pair; the result of the pair i is written in results[i] (the ordinal of its MpResult, -1 if there is no result) and
+     * the rule that made the decision in decidingRules[i] (see getDecidingRule(short), -1 if no rule made the decision). The pair cache, the trace
+     * mode of the options and the metrics listener are ignored.
+     * <br/><br/>
+     * The columns don't contain any treatment status, so the tumors are always computed as not treated; a Hematopoietic acute to chronic transformation
+     * is therefore a single primary (M12) even if the acute neoplasm was treated, where computePrimaries(MphInput, MphInput) would return multiple
+     * primaries (M13). See MphTumorColumns.
+     * <br/><br/>
+     * A deciding rule packs the index of the group in its high byte and the index of the rule in its low byte, so it can only be returned for
+     * fewer than 127 groups (enforced when the groups are indexed) and 256 rules per group (an IllegalStateException is thrown otherwise).
+     * @param tumors1 the first tumors of the pairs
+     * @param tumors2 the second tumors of the pairs
+     * @param options set of options to compute the results
+     * @param results the result column, must contain at least one element per pair
+     * @param decidingRules the deciding rule column, must contain at least one element per pair; can be null if the rules are not needed
+     */
+    public void computePrimaries(MphTumorColumns tumors1, MphTumorColumns tumors2, MphComputeOptions options, byte[] results, short[] decidingRules) {
+        if (tumors1.size() != tumors2.size())
+            throw new IllegalArgumentException("Both columns must contain the same number of tumors.");
+        computePrimaries(tumors1, tumors2, options, results, decidingRules, 0, tumors1.size());
+    }
+
+    /**
+     * Computes the pairs from (inclusive) to (exclusive) of tumors stored in columns, so a batch can be split between several threads; see
+     * computePrimaries(MphTumorColumns, MphTumorColumns, MphComputeOptions, byte[], short[]) for more information.
+     */
+    public void computePrimaries(MphTumorColumns tumors1, MphTumorColumns tumors2, MphComputeOptions options, byte[] results, short[] decidingRules, int from,
+            int to) {
+        if (from < 0 || from > to || to > tumors1.size() || to > tumors2.size())
+            throw new IllegalArgumentException("Invalid range of pairs: " + from + "-" + to);
+        if (results.length < to || (decidingRules != null && decidingRules.length < to))
+            throw new IllegalArgumentException("The result columns must contain at least " + to + " elements.");
+        if (options == null)
+            options = new MphComputeOptions();
+
+        // the inputs and output are reused for all the pairs
+        ColumnarInputLoader loader = new ColumnarInputLoader();
+        MphInput input1 = new MphInput(), input2 = new MphInput();
+        MphOutput output = new MphOutput();
+        for (int i = from; i < to; i++) {
+            loader.load(tumors1, i, input1);
+            loader.load(tumors2, i, input2);
+            output.reset();
+            computePrimaries(input1, input2, options, true, output);
+            results[i] = output.getResult() == null ? -1 : (byte)output.getResult().ordinal();
+            if (decidingRules != null) {
+                MphGroup group = output.getTraceGroup();
+                int stepIndex = output.getTraceStepIndex();
+                if (group == null || stepIndex == -1)
+                    decidingRules[i] = -1;
+                else {
+                    if (stepIndex > 0xFF)
+                        throw new IllegalStateException("Group " + group.getId() + " has too many rules to be returned as a deciding rule.");
+                    decidingRules[i] = (short)(group.getIndex() << 8 | stepIndex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the rule corresponding to a deciding rule returned by computePrimaries(MphTumorColumns, MphTumorColumns, ...), null for -1.
+     */
+    public MphRule getDecidingRule(short decidingRule) {
+        if (decidingRule == -1)
+            return null;
+        return _groups.get(decidingRule >>> 8).getRules().get(decidingRule & 0xFF);
+    }
+
+    /**
+     * Determines whether a new tumor is single or multiple primary with each of the existing tumors of the same patient.
+     * <br/><br/>
+     * The output at a given index is the same as computePrimaries(newTumor, existingTumors.get(index), options); the cancer group of the new tumor is
+     * found once for all the existing tumors diagnosed the same year or before it. The metrics listener is notified of each pair.
+     * If a pair cache is set on the options, each pair is looked up in the cache on its own.
+     * @param newTumor the new tumor, used as the first tumor of every pair
+     * @param existingTumors the tumors already on file for the patient, each of them used as the second tumor of a pair
+     * @param options set of options to compute the results, the default options are used if null
+     * @return the outputs, in the same order as the existing tumors
+     */
+    public List<MphOutput> computePrimariesForNewTumor(MphInput newTumor, List<MphInput> existingTumors, MphComputeOptions options) {
+        if (existingTumors == null)
+            throw new NullPointerException("Existing tumors cannot be null.");
+        if (options == null)
+            options = new MphComputeOptions();
+
+        List<MphOutput> outputs = new ArrayList<>(existingTumors.size());
+        if (options.getPairCache() != null) {
+            for (MphInput existingTumor : existingTumors)
+                outputs.add(computePrimaries(newTumor, existingTumor, options));
+            return outputs;
+        }
+
+        MphMetricsListener listener = _metricsListener;
+        boolean trace = options.getTraceMode() != MphComputeOptions.MpTraceMode.NONE || listener != null;
+        ValidatedTumor tumor = newTumor.getValidatedTumor();
+        boolean valid = tumor.hasValidProperties();
+        // the group of the new tumor only has to be found again for the existing tumors diagnosed after it
+        MphGroup group = valid ? _groupIndex.find(tumor.getPrimarySite(), tumor.getHistology(), tumor.getBehavior(), tumor.getYear()) : null;
+        for (MphInput existingTumor : existingTumors) {
+            long start = listener == null ? 0L : System.nanoTime();
+            MphOutput output = new MphOutput();
+            ValidatedTumor other = existingTumor.getValidatedTumor();
+            if (valid && other.hasValidProperties() && other.getYear() <= tumor.getYear())
+                computePrimaries(newTumor, existingTumor, group, _groupIndex.find(other.getPrimarySite(), other.getHistology(), other.getBehavior(), tumor.getYear()),
+                        options, trace, output);
+            else
+                computePrimaries(newTumor, existingTumor, options, trace, output);
+            if (listener != null)
+                listener.pairComputed(output, System.nanoTime() - start);
+            outputs.add(output);
+        }
+        return outputs;
+    }
+
+    /**
+     * Determines whether each pair of tumors of a single patient are single or multiple primaries.
+     * <br/><br/>
+     * The pairs are computed in the current thread; see computePrimaries(List, MphComputeOptions, ExecutorService) for more information.
+     * @param tumors the tumors of the patient
+     * @param options set of options to compute the results
+     * @return the outputs of all the pairs of tumors
+     */
+    public MphPatientOutput computePrimaries(List<MphInput> tumors, MphComputeOptions options) {
+        return computePrimaries(tumors, options, null);
+    }
+
+    /**
+     * Determines whether each pair of tumors of a single patient are single or multiple primaries.
+     * <br/><br/>
+     * Every pair (i, j) with i &lt; j is computed exactly once, using tumor i as the first input and tumor j as the second one. Since the
+     * computation of a pair doesn't depend on any other pair, the returned outputs are the same regardless of the executor (and its number of threads).
+     * <br/><br/>
+     * The pairs are split into tasks that are submitted to the provided executor (a ForkJoinPool can be used); the method blocks until all of them are done.
+     * @param tumors the tumors of the patient
+     * @param options set of options to compute the results
+     * @param executor executor used to compute the pairs, if null the pairs are computed in the current thread
+     * @return the outputs of all the pairs of tumors
+     */
+    public MphPatientOutput computePrimaries(List<MphInput> tumors, MphComputeOptions options, ExecutorService executor) {
+        if (tumors == null)
+            throw new NullPointerException("Tumors cannot be null.");
+        MphComputeOptions computeOptions = options == null ? new MphComputeOptions() : options;
+
+        MphPatientOutput output = new MphPatientOutput(new ArrayList<>(tumors));
+        int numPairs = output.getPairCount();
+        if (executor == null || numPairs <= _PAIRS_PER_TASK)
+            computePairs(output, 0, numPairs, computeOptions);
+        else {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int start = 0; start < numPairs; start += _PAIRS_PER_TASK) {
+                int taskStart = start, taskEnd = Math.min(start + _PAIRS_PER_TASK, numPairs);
+                tasks.add(() -> {
+                    computePairs(output, taskStart, taskEnd, computeOptions);
+                    return null;
+                });
+            }
+            try {
+                for (Future<Void> future : executor.invokeAll(tasks))
+                    future.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException)e.getCause();
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Determines whether each pair of tumors are single or multiple primaries, for a stream of patients.
+     * <br/><br/>
+     * The stream is lazy, a patient is computed only when its output is consumed. The pairs of each patient are computed using the provided executor;
+     * a parallel stream can be used to compute several patients at the same time. The outputs are returned in the same order as the patients.
+     * @param patients stream of patients, each of them being represented by its list of tumors
+     * @param options set of options to compute the results
+     * @param executor executor used to compute the pairs of each patient, if null the pairs are computed in the thread consuming the stream
+     * @return a stream of patient outputs
+     */
+    public Stream<MphPatientOutput> computePrimaries(Stream<List<MphInput>> patients, MphComputeOptions options, ExecutorService executor) {
+        MphComputeOptions computeOptions = options == null ? new MphComputeOptions() : options;
+        return patients.map(tumors -> computePrimaries(tumors, computeOptions, executor));
+    }
+
+    /**
+     * Asynchronously determines whether two tumors are single or multiple primaries; see computePrimaries(MphInput, MphInput, MphComputeOptions).
+     * <br/><br/>
+     * The pair is computed by the executor set with setAsyncExecutor(), or by the default one (virtual threads when running on Java 21 or later,
+     * otherwise an unbounded pool of daemon threads so a blocking HematoDbUtilsProvider doesn't prevent other calls from running).
+     * @param input1 the first tumor
+     * @param input2 the second tumor
+     * @param options set of options to compute the results
+     * @return the call, completed with the output of the pair
+     */
+    public MphAsyncCall<MphOutput> computePrimariesAsync(MphInput input1, MphInput input2, MphComputeOptions options) {
+        return MphAsyncCall.submit(getAsyncExecutor(), () -> computePrimaries(input1, input2, options));
+    }
+
+    /**
+     * Asynchronously determines whether each pair of tumors of a single patient are single or multiple primaries; see
+     * computePrimaries(List, MphComputeOptions, ExecutorService).
+     * <br/><br/>
+     * The pairs are computed by a single task of the asynchronous executor; cancelling the call stops the computation of the remaining pairs.
+     * @param tumors the tumors of the patient
+     * @param options set of options to compute the results
+     * @return the call, completed with the outputs of all the pairs of tumors
+     */
+    public MphAsyncCall<MphPatientOutput> computePrimariesAsync(List<MphInput> tumors, MphComputeOptions options) {
+        if (tumors == null)
+            throw new NullPointerException("Tumors cannot be null.");
+        MphComputeOptions computeOptions = options == null ? new MphComputeOptions() : options;
+
+        MphPatientOutput output = new MphPatientOutput(new ArrayList<>(tumors));
+        return MphAsyncCall.submit(getAsyncExecutor(), () -> {
+            int numPairs = output.getPairCount();
+            for (int start = 0; start < numPairs; start += _PAIRS_PER_TASK) {
+                if (Thread.currentThread().isInterrupted())
+                    throw new CancellationException();
+                computePairs(output, start, Math.min(start + _PAIRS_PER_TASK, numPairs), computeOptions);
+            }
+            return output;
+        });
+    }
+
+    /**
+     * Returns the executor used by the asynchronous methods.
+     */
+    public ExecutorService getAsyncExecutor() {
+        ExecutorService executor = _asyncExecutor;
+        return executor == null ? DefaultAsyncExecutorHolder._EXECUTOR : executor;
+    }
+
+    /**
+     * Sets the executor used by the asynchronous methods; use null to go back to the default executor. The executor is not shut down by this class.
+     */
+    public void setAsyncExecutor(ExecutorService asyncExecutor) {
+        _asyncExecutor = asyncExecutor;
+    }
+
+    // the default asynchronous executor, created the first time it's needed
+    private static final class DefaultAsyncExecutorHolder {
+
+        private static final ExecutorService _EXECUTOR = createDefaultAsyncExecutor();
+
+        private static ExecutorService createDefaultAsyncExecutor() {
+            // virtual threads are only available on Java 21 and later
+            try {
+                return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            }
+            catch (ReflectiveOperationException | RuntimeException e) {
+                AtomicInteger count = new AtomicInteger();
+                return Executors.newCachedThreadPool(r -> {
+                    Thread thread = new Thread(r, "mph-async-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+    }
+
+    /**
+     * Consolidates the tumors of a single patient into distinct primaries.
+     * <br/><br/>
+     * Tumors are processed in order; each tumor is compared to the previous ones and linked to their primary when the pair is a single primary.
+     * A pair is not computed if its two tumors already belong to the same primary, so patients with many tumors of the same primary only
+     * require a fraction of all the pairs. Questionable pairs don't link their tumors.
+     * @param tumors the tumors of the patient
+     * @param options set of options to compute the results
+     * @return the consolidated primaries
+     */
+    public MphPatientPrimaries consolidatePrimaries(List<MphInput> tumors, MphComputeOptions options) {
+        if (tumors == null)
+            throw new NullPointerException("Tumors cannot be null.");
+        if (options == null)
+            options = new MphComputeOptions();
+
+        List<MphInput> copy = new ArrayList<>(tumors);
+        int[] parents = new int[copy.size()];
+        for (int i = 0; i < parents.length; i++)
+            parents[i] = i;
+
+        List<MphPatientPrimaries.Link> links = new ArrayList<>();
+        List<MphPatientPrimaries.ComputedPair> questionablePairs = new ArrayList<>();
+        int numComputedPairs = 0;
+        for (int j = 1; j < copy.size(); j++) {
+            for (int i = 0; i < j; i++) {
+                int rootI = findRoot(parents, i), rootJ = findRoot(parents, j);
+                if (rootI == rootJ)
+                    continue;
+                MphOutput output = computePrimaries(copy.get(i), copy.get(j), options);
+                numComputedPairs++;
+                if (MpResult.SINGLE_PRIMARY.equals(output.getResult())) {
+                    parents[Math.max(rootI, rootJ)] = Math.min(rootI, rootJ);
+                    links.add(new MphPatientPrimaries.Link(i, j, output));
+                }
+                else if (MpResult.QUESTIONABLE.equals(output.getResult()))
+                    questionablePairs.add(new MphPatientPrimaries.ComputedPair(i, j, output));
+            }
+        }
+
+        // primaries are numbered in the order of their first tumor, which is always the root of the primary
+        int[] primaryIndexes = new int[copy.size()];
+        int numPrimaries = 0;
+        for (int i = 0; i < primaryIndexes.length; i++) {
+            int root = findRoot(parents, i);
+            primaryIndexes[i] = root == i ? numPrimaries++ : primaryIndexes[root];
+        }
+
+        return new MphPatientPrimaries(copy, primaryIndexes, links, questionablePairs, numComputedPairs);
+    }
+
+    private static int findRoot(int[] parents, int idx) {
+        int root = idx;
+        while (parents[root] != root)
+            root = parents[root];
+        while (parents[idx] != root) {
+            int next = parents[idx];
+            parents[idx] = root;
+            idx = next;
+        }
+        return root;
+    }
+
+    private void computePairs(MphPatientOutput output, int startPairIdx, int endPairIdx, MphComputeOptions options) {
+        List<MphInput> tumors = output.getTumors();
+
+        // find the tumors corresponding to the first pair, pairs are ordered by higher index, then by lower index
+        int high = 1;
+        while (MphPatientOutput.getPairCount(high + 1) <= startPairIdx)
+            high++;
+        int low = startPairIdx - MphPatientOutput.getPairCount(high);
+
+        for (int pairIdx = startPairIdx; pairIdx < endPairIdx; pairIdx++) {
+            output.setOutput(pairIdx, computePrimaries(tumors.get(low), tumors.get(high), options));
+            if (++low == high) {
+                low = 0;
+                high++;
+            }
+        }
+    }
+
+    /**
+     * Returns the listener notified of every computed pair, null if none was registered.
+     */
+    public MphMetricsListener getMetricsListener() {
+        return _metricsListener;
+    }
+
+    /**
+     * Registers a listener notified of every pair computed by this instance (see MphRuleMetrics); use null to remove the current listener.
+     * <br/><br/>
+     * Computing a pair doesn't involve any timing or extra work when no listener is registered.
+     */
+    public void setMetricsListener(MphMetricsListener listener) {
+        _metricsListener = listener;
+    }
+
     /**
      * Returns the HematoDB provider that was registered with the instance.
      */
@@ -277,14 +726,49 @@ public final class MphUtils {
      * @return the corresponding cancer group, null if not found
      */
     public MphGroup findCancerGroup(String primarySite, String histology, String behavior, int year) {
-        if (!GroupUtility.validateProperties(primarySite, histology, behavior, year))
-            return null;
+        return findCancerGroup(GroupUtility.parseSite(primarySite), GroupUtility.parseHistology(histology), GroupUtility.parseBehavior(behavior), year);
+    }
 
-        for (MphGroup group : getAllGroups())
-            if (group.isApplicable(primarySite, histology, behavior, year))
-                return group;
+    /**
+     * Calculates the cancer group for the provided naaccr properties, provided as numbers.
+     * @param primarySite numeric part of the primary site (for example 509 for C509)
+     * @param histology histology ICD-O-3
+     * @param behavior behavior ICD-O-3
+     * @return the corresponding cancer group, null if not found
+     */
+    public MphGroup findCancerGroup(int primarySite, int histology, int behavior, int year) {
+        return findCancerGroup(primarySite, histology, behavior, year, GroupUtility.getCurrentYear());
+    }
 
-        return null;
+    /**
+     * Calculates the cancer group for the provided naaccr properties, provided as numbers, using the provided latest valid year of diagnosis instead
+     * of the current year; a caller classifying many tumors can read GroupUtility.getCurrentYear() once and pass it to every call.
+     * @param primarySite numeric part of the primary site (for example 509 for C509)
+     * @param histology histology ICD-O-3
+     * @param behavior behavior ICD-O-3
+     * @param maxYear the latest valid year of diagnosis (usually GroupUtility.getCurrentYear())
+     * @return the corresponding cancer group, null if not found
+     */
+    public MphGroup findCancerGroup(int primarySite, int histology, int behavior, int year, int maxYear) {
+        return _groupIndex.find(primarySite, histology, behavior, year, maxYear);
+    }
+
+    /**
+     * Calculates the cancer group of each tumor stored in columns; groupIndexes[i] is set to the index of the group of the tumor i in getAllGroups(),
+     * -1 if the tumor is not valid or doesn't belong to any group.
+     * <br/><br/>
+     * The groups are the ones returned by findCancerGroup(int, int, int, int); the current year is only read once for all the tumors.
+     * @param tumors the tumors
+     * @param groupIndexes the result column, must contain at least one element per tumor
+     */
+    public void findCancerGroups(MphTumorColumns tumors, byte[] groupIndexes) {
+        if (groupIndexes.length < tumors.size())
+            throw new IllegalArgumentException("The result column must contain at least " + tumors.size() + " elements.");
+        int maxYear = GroupUtility.getCurrentYear();
+        for (int i = 0; i < tumors.size(); i++) {
+            MphGroup group = _groupIndex.find(tumors.getPrimarySite(i), tumors.getHistology(i), tumors.getBehavior(i), tumors.getDxYear(i), maxYear);
+            groupIndexes[i] = group == null ? -1 : (byte)group.getIndex();
+        }
     }
 
     /**
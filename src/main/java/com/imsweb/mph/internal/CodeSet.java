@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * An immutable set of histology codes (like 8140) or primary site codes (like C509), backed by a bitset.
+ * <br/><br/>
+ * Membership is tested in constant time, either with the numeric value of the code (8140 or 509) or with the code itself. A code provided as a string
+ * must have the exact format of the codes in the set (four digits for histologies, C followed by three digits for sites), anything else is never contained.
+ */
+public final class CodeSet {
+
+    // whether the set contains primary sites (C000-C999) or histologies
+    private final boolean _sites;
+
+    // the value of the first bit of the bitset
+    private final int _offset;
+
+    private final long[] _words;
+
+    private final int _size;
+
+    private CodeSet(boolean sites, int offset, long[] words) {
+        _sites = sites;
+        _offset = offset;
+        _words = words;
+        int size = 0;
+        for (long word : words)
+            size += Long.bitCount(word);
+        _size = size;
+    }
+
+    /**
+     * Creates a set of histologies from comma-separated values and ranges, for example "8000-8005,8010".
+     */
+    public static CodeSet ofHistologies(String rawValue) {
+        return create(false, parse(rawValue, false));
+    }
+
+    /**
+     * Creates a set of primary sites from comma-separated values and ranges, for example "C370-C383,C388". A three-character value (like C18) represents
+     * the ten sites starting with it (C180-C189).
+     */
+    public static CodeSet ofSites(String rawValue) {
+        return create(true, parse(rawValue, true));
+    }
+
+    /**
+     * Returns true if the set contains the requested value (for sites, the numeric part of the code, 509 for C509).
+     */
+    public boolean contains(int value) {
+        int idx = value - _offset;
+        return idx >= 0 && (idx >> 6) < _words.length && (_words[idx >> 6] & (1L << idx)) != 0;
+    }
+
+    /**
+     * Returns true if the set contains the requested code; this method never allocates any object.
+     */
+    public boolean contains(String code) {
+        int value = parseCode(code, _sites);
+        return value != -1 && contains(value);
+    }
+
+    /**
+     * Returns the numeric value of a code with the exact format of the codes of the sets (509 for C509, 8140 for 8140), -1 if it doesn't have that format.
+     */
+    public static int parseCode(String code, boolean site) {
+        if (code == null || code.length() != 4)
+            return -1;
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            char c = code.charAt(i);
+            if (i == 0 && site) {
+                if (c != 'C')
+                    return -1;
+            }
+            else if (c >= '0' && c <= '9')
+                value = value * 10 + (c - '0');
+            else
+                return -1;
+        }
+        return value;
+    }
+
+    /**
+     * Returns a new set containing the codes that are in this set or in the other one.
+     */
+    public CodeSet union(CodeSet other) {
+        checkCompatible(other);
+        if (other.isEmpty())
+            return this;
+        if (isEmpty())
+            return other;
+        int min = Math.min(_offset, other._offset);
+        int max = Math.max(_offset + (_words.length << 6), other._offset + (other._words.length << 6));
+        long[] words = new long[((max - min) >> 6) + 1];
+        copyBits(this, words, min);
+        copyBits(other, words, min);
+        return new CodeSet(_sites, min, trim(words));
+    }
+
+    /**
+     * Returns a new set containing the codes that are in both this set and the other one.
+     */
+    public CodeSet intersection(CodeSet other) {
+        checkCompatible(other);
+        List<Integer> values = new ArrayList<>();
+        for (int value : getValues())
+            if (other.contains(value))
+                values.add(value);
+        return create(_sites, values);
+    }
+
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    public boolean isSites() {
+        return _sites;
+    }
+
+    /**
+     * Returns the values of the set, in order.
+     */
+    public int[] getValues() {
+        int[] values = new int[_size];
+        int idx = 0;
+        for (int i = 0; i < _words.length; i++) {
+            long word = _words[i];
+            while (word != 0) {
+                values[idx++] = _offset + (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        for (int value : getValues()) {
+            if (buf.length() > 0)
+                buf.append(',');
+            buf.append(_sites ? String.format("C%03d", value) : String.format("%04d", value));
+        }
+        return buf.toString();
+    }
+
+    private void checkCompatible(CodeSet other) {
+        if (_sites != other._sites && !isEmpty() && !other.isEmpty())
+            throw new IllegalArgumentException("Can't combine a set of sites with a set of histologies.");
+    }
+
+    private static void copyBits(CodeSet set, long[] words, int offset) {
+        for (int value : set.getValues()) {
+            int idx = value - offset;
+            words[idx >> 6] |= 1L << idx;
+        }
+    }
+
+    private static long[] trim(long[] words) {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0)
+            length--;
+        if (length == words.length)
+            return words;
+        long[] result = new long[length];
+        System.arraycopy(words, 0, result, 0, length);
+        return result;
+    }
+
+    private static CodeSet create(boolean sites, List<Integer> values) {
+        if (values.isEmpty())
+            return new CodeSet(sites, 0, new long[0]);
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for (Integer value : values) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        long[] words = new long[((max - min) >> 6) + 1];
+        for (Integer value : values)
+            words[(value - min) >> 6] |= 1L << (value - min);
+        return new CodeSet(sites, min, words);
+    }
+
+    private static List<Integer> parse(String rawValue, boolean sites) {
+        List<Integer> values = new ArrayList<>();
+        if (rawValue == null)
+            return values;
+        for (String item : StringUtils.split(rawValue, ',')) {
+            String[] parts = StringUtils.split(item.trim(), '-');
+            int start = parseValue(parts[0], sites, false), end = parseValue(parts[parts.length - 1], sites, true);
+            if (start > end)
+                throw new IllegalArgumentException("Invalid range: " + item);
+            for (int value = start; value <= end; value++)
+                values.add(value);
+        }
+        return values;
+    }
+
+    private static int parseValue(String value, boolean sites, boolean upperBound) {
+        value = value.trim();
+        if (!sites)
+            return Integer.parseInt(value);
+        if (!value.startsWith("C") || (value.length() != 3 && value.length() != 4))
+            throw new IllegalArgumentException("Invalid site: " + value);
+        int result = Integer.parseInt(value.substring(1));
+        if (value.length() == 3)
+            result = result * 10 + (upperBound ? 9 : 0);
+        return result;
+    }
+}
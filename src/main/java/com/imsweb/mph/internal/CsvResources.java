@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import au.com.bytecode.opencsv.CSVReader;
+
+/**
+ * Reads the CSV resources of the library (their first line is a header and is skipped).
+ * <br/><br/>
+ * The resources are found using the context class loader of the calling thread.
+ */
+public final class CsvResources {
+
+    private CsvResources() {
+    }
+
+    /**
+     * Reads a single resource.
+     */
+    public static List<String[]> read(String name) {
+        return read(Thread.currentThread().getContextClassLoader(), name);
+    }
+
+    /**
+     * Reads several resources; the rows are returned in the order of the names.
+     * <br/><br/>
+     * The resources are read one after the other by the calling thread: this method is called from static initializers, and waiting on tasks
+     * of a shared pool (the common ForkJoinPool for example) from a static initializer deadlocks when the threads of that pool are themselves
+     * waiting for the class to be initialized (which is what happens when the first pairs are computed by a parallel stream).
+     */
+    public static List<List<String[]>> readAll(String... names) {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        List<List<String[]>> result = new ArrayList<>(names.length);
+        for (String name : names)
+            result.add(read(loader, name));
+        return result;
+    }
+
+    private static List<String[]> read(ClassLoader loader, String name) {
+        return StartupRecorder.record("Resource " + name, () -> {
+            try (InputStream is = loader.getResourceAsStream(name)) {
+                if (is == null)
+                    throw new IllegalStateException("Unable to find resource " + name);
+                Reader reader = new InputStreamReader(is, "US-ASCII");
+                return new CSVReader(reader, ',', '\"', 1).readAll();
+            }
+            catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph.internal;
+
+/**
+ * The diagnosis date of a tumor, parsed once and normalized the way the date rules expect it.
+ * <br/><br/>
+ * A missing year is 9999; a missing or invalid month is 99, and so is the day if the month is unknown or if the day is missing or not valid for the month.
+ * The date is also represented as the range of possible days (in epoch days) according to its precision: a single day, a whole month or a whole year.
+ */
+public final class DxDateRange {
+
+    public static final int UNKNOWN_YEAR = 9999;
+
+    public static final int UNKNOWN = 99;
+
+    private static final int[] _DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private final int _year;
+
+    private final int _month;
+
+    private final int _day;
+
+    private final long _minEpochDay;
+
+    private final long _maxEpochDay;
+
+    public DxDateRange(String year, String month, String day) {
+        int y = parse(year, UNKNOWN_YEAR), m = parse(month, UNKNOWN), d = parse(day, UNKNOWN);
+        if (m < 1 || m > 12)
+            m = d = UNKNOWN;
+        else if (d < 1 || d > lengthOfMonth(y, m))
+            d = UNKNOWN;
+        _year = y;
+        _month = m;
+        _day = d;
+
+        if (d != UNKNOWN)
+            _minEpochDay = _maxEpochDay = toEpochDay(y, m, d);
+        else if (m != UNKNOWN) {
+            _minEpochDay = toEpochDay(y, m, 1);
+            _maxEpochDay = toEpochDay(y, m, lengthOfMonth(y, m));
+        }
+        else {
+            _minEpochDay = toEpochDay(y, 1, 1);
+            _maxEpochDay = toEpochDay(y, 12, 31);
+        }
+    }
+
+    public int getYear() {
+        return _year;
+    }
+
+    public int getMonth() {
+        return _month;
+    }
+
+    public int getDay() {
+        return _day;
+    }
+
+    public boolean isMonthKnown() {
+        return _month != UNKNOWN;
+    }
+
+    public boolean isDayKnown() {
+        return _day != UNKNOWN;
+    }
+
+    /**
+     * Returns the first possible day of the date (as an epoch day).
+     */
+    public long getMinEpochDay() {
+        return _minEpochDay;
+    }
+
+    /**
+     * Returns the last possible day of the date (as an epoch day).
+     */
+    public long getMaxEpochDay() {
+        return _maxEpochDay;
+    }
+
+    /**
+     * Returns the number of complete years between the two dates (like ChronoUnit.YEARS.between()), both dates must have a known day.
+     */
+    public static long yearsBetween(DxDateRange start, DxDateRange end) {
+        long startMonths = start._year * 12L + start._month - 1, endMonths = end._year * 12L + end._month - 1;
+        return ((endMonths * 32L + end._day) - (startMonths * 32L + start._day)) / 32L / 12L;
+    }
+
+    // same as Integer.parseInt for a string of digits (NumberUtils.isDigits), but values too big for an integer are considered unknown
+    private static int parse(String value, int unknownValue) {
+        if (value == null || value.isEmpty())
+            return unknownValue;
+        int result = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!Character.isDigit(c))
+                return unknownValue;
+            int digit = Character.digit(c, 10);
+            if (result > (Integer.MAX_VALUE - digit) / 10)
+                return unknownValue;
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    private static boolean isLeapYear(long year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return month == 2 && isLeapYear(year) ? 29 : _DAYS_IN_MONTH[month - 1];
+    }
+
+    // same computation as LocalDate.toEpochDay(), for a valid date
+    private static long toEpochDay(long year, int month, int day) {
+        long total = 365 * year;
+        if (year >= 0)
+            total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        else
+            total -= year / -4 - year / -100 + year / -400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year))
+                total--;
+        }
+        return total - 719528;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph.internal;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compiled table of pairs of hematopoietic morphologies, each pair being valid for a range of diagnosis years.
+ * <br/><br/>
+ * Morphologies are stored as integers (histology * 10 + behavior, so 9590/3 is 95903); the pairs are kept in a sorted array of keys that is
+ * searched with a binary search, along with the start and end years of each pair.
+ */
+public final class HematoDbTable {
+
+    // a morphology is at most 99999, so a key is left * 100000 + right
+    private static final long _KEY_FACTOR = 100000L;
+
+    // each row is packed into a single long (34 bits for the key, 14 bits for each year) so the rows can be sorted as primitives
+    private static final int _YEAR_BITS = 14;
+
+    private static final int _YEAR_MASK = (1 << _YEAR_BITS) - 1;
+
+    private final long[] _keys;
+
+    private final short[] _startYears;
+
+    private final short[] _endYears;
+
+    /**
+     * Creates a table from rows having the format of the hematopoietic CSV files (left morphology, start year, end year, right morphology); rows with an
+     * invalid morphology are ignored.
+     */
+    public HematoDbTable(List<String[]> rows) {
+        long[] packed = new long[rows.size()];
+        int size = 0;
+        for (String[] row : rows) {
+            int left = parseMorphology(row[0]), right = parseMorphology(row[3]);
+            // a pair with an invalid morphology can never be matched
+            if (left == -1 || right == -1)
+                continue;
+            int startYear = Integer.parseInt(row[1].trim()), endYear = Integer.parseInt(row[2].trim());
+            if (startYear < 0 || endYear > _YEAR_MASK || startYear > endYear)
+                throw new IllegalArgumentException("Invalid row: " + Arrays.toString(row));
+            packed[size++] = (((left * _KEY_FACTOR + right) << _YEAR_BITS | startYear) << _YEAR_BITS) | endYear;
+        }
+        Arrays.sort(packed, 0, size);
+
+        _keys = new long[size];
+        _startYears = new short[size];
+        _endYears = new short[size];
+        for (int i = 0; i < size; i++) {
+            _keys[i] = packed[i] >>> (2 * _YEAR_BITS);
+            _startYears[i] = (short)((packed[i] >>> _YEAR_BITS) & _YEAR_MASK);
+            _endYears[i] = (short)(packed[i] & _YEAR_MASK);
+        }
+    }
+
+    /**
+     * Returns the number of pairs in the table.
+     */
+    public int size() {
+        return _keys.length;
+    }
+
+    /**
+     * Returns true if the table contains at least one pair for the requested left morphology.
+     */
+    public boolean containsLeft(int left) {
+        int idx = lowerBound(left * _KEY_FACTOR);
+        return idx < _keys.length && _keys[idx] / _KEY_FACTOR == left;
+    }
+
+    /**
+     * Returns true if the table contains the requested pair for the requested year.
+     */
+    public boolean matches(int left, int right, int year) {
+        long key = left * _KEY_FACTOR + right;
+        for (int idx = lowerBound(key); idx < _keys.length && _keys[idx] == key; idx++)
+            if (year >= _startYears[idx] && year <= _endYears[idx])
+                return true;
+        return false;
+    }
+
+    /**
+     * Parses a morphology with the format "9999/9" (histology and behavior) into an integer (histology * 10 + behavior).
+     * @param morphology morphology to parse
+     * @return the parsed value, -1 if the morphology doesn't have the expected format
+     */
+    public static int parseMorphology(String morphology) {
+        if (morphology == null || morphology.length() != 6 || morphology.charAt(4) != '/')
+            return -1;
+        int value = 0;
+        for (int i = 0; i < 6; i++) {
+            if (i == 4)
+                continue;
+            char c = morphology.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // returns the index of the first key greater than or equal to the requested one
+    private int lowerBound(long key) {
+        int low = 0, high = _keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (_keys[mid] < key)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+}
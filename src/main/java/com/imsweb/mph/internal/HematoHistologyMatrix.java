@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph.internal;
+
+/**
+ * A dense bit matrix of pairs of Hematopoietic histologies (9590-9989) used by the 1998 and 2001 Hematopoietic rules.
+ * <br/><br/>
+ * The matrix is immutable (it's created with a Builder), so it can be shared by several threads.
+ */
+public final class HematoHistologyMatrix {
+
+    public static final int MIN_HISTOLOGY = 9590;
+
+    public static final int MAX_HISTOLOGY = 9989;
+
+    private static final int _SIZE = MAX_HISTOLOGY - MIN_HISTOLOGY + 1;
+
+    // the number of longs used by a row of the matrix
+    private static final int _ROW_LENGTH = (_SIZE + 63) >>> 6;
+
+    private final long[] _bits;
+
+    private HematoHistologyMatrix(long[] bits) {
+        _bits = bits;
+    }
+
+    /**
+     * Returns true if the histology is in the domain of the matrix.
+     */
+    public static boolean isInDomain(int histology) {
+        return histology >= MIN_HISTOLOGY && histology <= MAX_HISTOLOGY;
+    }
+
+    /**
+     * Returns true if the pair is in the matrix, false if it isn't or if one of the histologies is not in the domain.
+     */
+    public boolean get(int first, int second) {
+        if (!isInDomain(first) || !isInDomain(second))
+            return false;
+        int col = second - MIN_HISTOLOGY;
+        return (_bits[(first - MIN_HISTOLOGY) * _ROW_LENGTH + (col >>> 6)] & (1L << col)) != 0;
+    }
+
+    /**
+     * Returns the sorted second histologies of the pairs starting with the given first histology.
+     */
+    public int[] getRow(int first) {
+        if (!isInDomain(first))
+            return new int[0];
+        int offset = (first - MIN_HISTOLOGY) * _ROW_LENGTH, count = 0;
+        for (int i = 0; i < _ROW_LENGTH; i++)
+            count += Long.bitCount(_bits[offset + i]);
+        int[] row = new int[count];
+        int idx = 0;
+        for (int i = 0; i < _ROW_LENGTH; i++) {
+            long word = _bits[offset + i];
+            while (word != 0) {
+                row[idx++] = MIN_HISTOLOGY + (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Collects the pairs of a matrix.
+     */
+    public static final class Builder {
+
+        private final long[] _bits = new long[_SIZE * _ROW_LENGTH];
+
+        /**
+         * Adds the pair to the matrix; both histologies must be in the domain.
+         */
+        public Builder set(int first, int second) {
+            if (!isInDomain(first) || !isInDomain(second))
+                throw new IllegalArgumentException("Histologies must be between " + MIN_HISTOLOGY + " and " + MAX_HISTOLOGY + ".");
+            int col = second - MIN_HISTOLOGY;
+            _bits[(first - MIN_HISTOLOGY) * _ROW_LENGTH + (col >>> 6)] |= 1L << col;
+            return this;
+        }
+
+        public HematoHistologyMatrix build() {
+            return new HematoHistologyMatrix(_bits.clone());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph.internal;
+
+/**
+ * The cheap features of a pair of tumors used to skip the rules that can't apply to the pair (see MphRule.setGuard()).
+ * <br/><br/>
+ * The features are computed once per pair from the validated properties and combined into a bitmask of at most NUM_FEATURES bits. The codes of valid
+ * properties have a single format (see GroupUtility.parseSite, parseHistology and parseBehavior), so comparing their values gives the same features as
+ * comparing the codes the rules read.
+ */
+public final class PairFeatures {
+
+    // the two primary sites are the same (C509 and C509)
+    public static final int SAME_SITE = 1;
+
+    // the two primary sites are different (C509 and C504)
+    public static final int DIFFERENT_SITE = 1 << 1;
+
+    // the two primary sites are different at the second or third character (C509 and C499)
+    public static final int DIFFERENT_SITE_PREFIX = 1 << 2;
+
+    // the two histologies are the same
+    public static final int SAME_HISTOLOGY = 1 << 3;
+
+    // the two histologies are different
+    public static final int DIFFERENT_HISTOLOGY = 1 << 4;
+
+    // the two histologies are different in their first three digits (8140 and 8500)
+    public static final int DIFFERENT_HISTOLOGY_PREFIX = 1 << 5;
+
+    // the two tumors are malignant
+    public static final int BOTH_MALIGNANT = 1 << 6;
+
+    // one tumor is in situ and the other one is malignant
+    public static final int INSITU_AND_MALIGNANT = 1 << 7;
+
+    public static final int NUM_FEATURES = 8;
+
+    private static final int _INSITU = 2;
+
+    private static final int _MALIGNANT = 3;
+
+    private PairFeatures() {
+    }
+
+    /**
+     * Returns the features of the pair; both tumors are expected to have valid properties.
+     */
+    public static int compute(ValidatedTumor tumor1, ValidatedTumor tumor2) {
+        int site1 = tumor1.getPrimarySite(), site2 = tumor2.getPrimarySite();
+        int hist1 = tumor1.getHistology(), hist2 = tumor2.getHistology();
+        int beh1 = tumor1.getBehavior(), beh2 = tumor2.getBehavior();
+
+        int features = site1 == site2 ? SAME_SITE : DIFFERENT_SITE;
+        if (site1 / 10 != site2 / 10)
+            features |= DIFFERENT_SITE_PREFIX;
+        features |= hist1 == hist2 ? SAME_HISTOLOGY : DIFFERENT_HISTOLOGY;
+        if (hist1 / 10 != hist2 / 10)
+            features |= DIFFERENT_HISTOLOGY_PREFIX;
+        if (beh1 == _MALIGNANT && beh2 == _MALIGNANT)
+            features |= BOTH_MALIGNANT;
+        else if ((beh1 == _INSITU && beh2 == _MALIGNANT) || (beh1 == _MALIGNANT && beh2 == _INSITU))
+            features |= INSITU_AND_MALIGNANT;
+        return features;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph.internal;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import com.imsweb.mph.MphStartupReport;
+
+/**
+ * Records the time and memory spent initializing each component of the library (see MphUtils.getStartupReport()).
+ * <br/><br/>
+ * The memory is the number of bytes allocated by the thread initializing the component; it is only available on JVMs that support it (HotSpot does).
+ * A component must therefore initialize the components it contains in its own thread, otherwise their memory is not included in its own.
+ * <br/><br/>
+ * The components shared by all the MphUtils instances (resources, tables, etc...) are recorded in a single list; the components of an instance
+ * (its groups and their rules) are recorded in a list owned by the instance, so initializing a new instance doesn't add to the shared list.
+ */
+public final class StartupRecorder {
+
+    private static final List<MphStartupReport.Component> _COMPONENTS = new CopyOnWriteArrayList<>();
+
+    // null if the JVM can't report the memory allocated by a thread
+    private static final com.sun.management.ThreadMXBean _THREAD_BEAN = getThreadBean();
+
+    private StartupRecorder() {
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadBean() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported()
+                    && ((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemoryEnabled())
+                return (com.sun.management.ThreadMXBean)bean;
+        }
+        catch (LinkageError | RuntimeException e) {
+            // the management classes are not available
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread, -1 if it's not supported.
+     */
+    public static long getAllocatedBytes() {
+        return _THREAD_BEAN == null ? -1 : _THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Initializes a shared component and records the time and memory it took.
+     */
+    public static <T> T record(String name, Supplier<T> initializer) {
+        return record(_COMPONENTS, name, initializer);
+    }
+
+    /**
+     * Initializes a component and records the time and memory it took in the given list.
+     */
+    public static <T> T record(List<MphStartupReport.Component> components, String name, Supplier<T> initializer) {
+        long start = System.nanoTime(), startBytes = getAllocatedBytes();
+        T result = initializer.get();
+        record(components, name, start, startBytes);
+        return result;
+    }
+
+    /**
+     * Initializes a shared component and records the time and memory it took.
+     */
+    public static void recordTask(String name, Runnable initializer) {
+        recordTask(_COMPONENTS, name, initializer);
+    }
+
+    /**
+     * Initializes a component and records the time and memory it took in the given list.
+     */
+    public static void recordTask(List<MphStartupReport.Component> components, String name, Runnable initializer) {
+        long start = System.nanoTime(), startBytes = getAllocatedBytes();
+        initializer.run();
+        record(components, name, start, startBytes);
+    }
+
+    /**
+     * Records a shared component whose initialization started at the given time and allocated bytes (as returned by getAllocatedBytes) and just ended.
+     */
+    public static void record(String name, long startNanos, long startAllocatedBytes) {
+        record(_COMPONENTS, name, startNanos, startAllocatedBytes);
+    }
+
+    /**
+     * Records in the given list a component whose initialization started at the given time and allocated bytes (as returned by getAllocatedBytes)
+     * and just ended.
+     */
+    public static void record(List<MphStartupReport.Component> components, String name, long startNanos, long startAllocatedBytes) {
+        long endBytes = getAllocatedBytes();
+        long bytes = startAllocatedBytes == -1 || endBytes == -1 ? -1 : endBytes - startAllocatedBytes;
+        components.add(new MphStartupReport.Component(name, System.nanoTime() - startNanos, bytes, Thread.currentThread().getName()));
+    }
+
+    /**
+     * Returns the shared components initialized so far, in the order they completed.
+     */
+    public static List<MphStartupReport.Component> getComponents() {
+        return new ArrayList<>(_COMPONENTS);
+    }
+}
@@ -3,40 +3,95 @@
  */
 package com.imsweb.mph.internal;
 
+import com.imsweb.mph.MphRule;
 import com.imsweb.mph.MphUtils;
 
-public class TempRuleResult {
+/**
+ * The outcome of applying a rule to a pair of tumors: no result, a final result, or a potential result (the rule couldn't be applied because some
+ * information is missing, the result is used only if the following rules agree with it).
+ * <br/><br/>
+ * Results are immutable and shared: the results without message are constants, and the results with a message are created once by their rule
+ * (see MphRule.potentialResult and MphRule.questionableResult), so applying a rule never allocates anything. The message is only built when it is requested.
+ */
+public final class TempRuleResult {
+
+    public static final TempRuleResult NO_RESULT = new TempRuleResult(null, null, null, null);
+
+    public static final TempRuleResult SINGLE_PRIMARY = new TempRuleResult(MphUtils.MpResult.SINGLE_PRIMARY, null, null, null);
+
+    public static final TempRuleResult MULTIPLE_PRIMARIES = new TempRuleResult(MphUtils.MpResult.MULTIPLE_PRIMARIES, null, null, null);
+
+    private final MphUtils.MpResult _finalResult;
 
-    private MphUtils.MpResult _finalResult;
+    private final MphUtils.MpResult _potentialResult;
 
-    private MphUtils.MpResult _potentialResult;
+    // the rule that couldn't be applied and the information it was missing, used to build the message
+    private final MphRule _rule;
 
+    private final String _missingInformation;
+
+    // the message, built the first time it's requested (the value is always the same, so it's fine if several threads build it)
     private String _message;
 
-    public TempRuleResult() {
+    private TempRuleResult(MphUtils.MpResult finalResult, MphUtils.MpResult potentialResult, MphRule rule, String missingInformation) {
+        _finalResult = finalResult;
+        _potentialResult = potentialResult;
+        _rule = rule;
+        _missingInformation = missingInformation;
     }
 
-    public MphUtils.MpResult getFinalResult() {
-        return _finalResult;
+    /**
+     * Returns the shared result for the requested final result (single or multiple primaries).
+     */
+    public static TempRuleResult finalResult(MphUtils.MpResult result) {
+        if (MphUtils.MpResult.SINGLE_PRIMARY.equals(result))
+            return SINGLE_PRIMARY;
+        if (MphUtils.MpResult.MULTIPLE_PRIMARIES.equals(result))
+            return MULTIPLE_PRIMARIES;
+        throw new IllegalArgumentException("A questionable result requires a message, use questionableResult().");
     }
 
-    public void setFinalResult(MphUtils.MpResult finalResult) {
-        _finalResult = finalResult;
+    /**
+     * Creates a potential result for a rule that can't be applied because of missing information; the result should be created once and kept by the rule.
+     * @param rule the rule
+     * @param result the potential result
+     * @param missingInformation the sentence describing the missing information, for example "Known diagnosis date should be provided."
+     */
+    public static TempRuleResult potentialResult(MphRule rule, MphUtils.MpResult result, String missingInformation) {
+        return new TempRuleResult(null, result, rule, missingInformation);
+    }
+
+    /**
+     * Creates a final questionable result for a rule that can't be applied because of missing information; the result should be created once and kept by the rule.
+     * @param rule the rule
+     * @param missingInformation the sentence describing the missing information, for example "Known diagnosis date should be provided."
+     */
+    public static TempRuleResult questionableResult(MphRule rule, String missingInformation) {
+        return new TempRuleResult(MphUtils.MpResult.QUESTIONABLE, null, rule, missingInformation);
+    }
+
+    public MphUtils.MpResult getFinalResult() {
+        return _finalResult;
     }
 
     public MphUtils.MpResult getPotentialResult() {
         return _potentialResult;
     }
 
-    public void setPotentialResult(MphUtils.MpResult potentialResult) {
-        _potentialResult = potentialResult;
+    /**
+     * Returns true if this result has the requested values.
+     */
+    public boolean matches(MphUtils.MpResult result, boolean isFinal, String missingInformation) {
+        return (isFinal ? _finalResult : _potentialResult) == result && (isFinal ? _potentialResult : _finalResult) == null && (missingInformation == null
+                ? _missingInformation == null : missingInformation.equals(_missingInformation));
     }
 
     public String getMessage() {
-        return _message;
-    }
-
-    public void setMessage(String message) {
-        _message = message;
+        String message = _message;
+        if (message == null && _missingInformation != null) {
+            message = "Unable to apply Rule " + _rule.getStep() + " of " + _rule.getGroupId() + ". " + _missingInformation;
+            _message = message;
+        }
+        return message;
     }
 }
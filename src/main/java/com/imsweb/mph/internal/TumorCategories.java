@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph.internal;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.imsweb.mph.MphConstants;
+
+/**
+ * The site and histology categories of MphConstants (like HODGKIN_LYMPHOMA or ALL_PAIRED_SITES), each of them represented by a bit of a long.
+ * <br/><br/>
+ * The categories of a tumor are computed once (see ValidatedTumor.getCategories()) with two table lookups, so the rules can test both tumors of a pair
+ * with bitwise operations on masks created once by of(): (c1 & c2 & mask) != 0 if both tumors are in a same category, ((c1 ^ c2) & mask) != 0 if only
+ * one of them is in the category, etc...
+ */
+public final class TumorCategories {
+
+    // the categories, the bit of a category is its index
+    private static final CodeSet[] _CATEGORIES = {MphConstants.EXACT_MATCH_SITES, MphConstants.TONGUE, MphConstants.MOUTH, MphConstants.SALIVARY, MphConstants.OROPHARYNX,
+            MphConstants.HYPOPHARYNX, MphConstants.BILIARY, MphConstants.SINUS, MphConstants.LUNG, MphConstants.MEDIASTINUM, MphConstants.FEMALE_GENITAL,
+            MphConstants.OVARY_OR_FEMALE_GENITAL, MphConstants.MALE_GENITAL, MphConstants.KIDNEY_OR_URINARY, MphConstants.ENDOCRINE, MphConstants.UPPER_LIP,
+            MphConstants.LOWER_LIP, MphConstants.UPPER_GUM, MphConstants.LOWER_GUM, MphConstants.NASAL_CAVITY, MphConstants.MIDDLE_EAR, MphConstants.ALL_PAIRED_SITES,
+            MphConstants.CARCINOMA_NOS, MphConstants.CARCINOMA_SPECIFIC, MphConstants.NON_SMALL_CELL_CARCINOMA, MphConstants.SPECIFIC_NON_SMALL_CELL_CARCINOMA,
+            MphConstants.SMALL_CELL_CARCINOMA, MphConstants.ADENOCARCINOMA_NOS, MphConstants.ADENOCARCINOMA_SPECIFIC, MphConstants.ADENOCARCINOMA_WITH_MIXED_SUBTYPES,
+            MphConstants.BRONCHIOALVEOLAR, MphConstants.MELANOMA_NOS, MphConstants.MELANOMA_SPECIFIC, MphConstants.SARCOMA_NOS, MphConstants.SARCOMA_SPECIFIC,
+            MphConstants.FOLLICULAR, MphConstants.PAPILLARY, MphConstants.TRANSITIONAL_CELL_CARCINOMA, MphConstants.PAPILLARY_TRANSITIONAL_CELL_CARCINOMA,
+            MphConstants.PAGET_DISEASE, MphConstants.INTRADUCTAL_CARCINOMA, MphConstants.DUCT_CARCINOMA, MphConstants.LOBULAR_CARCINOMA,
+            MphConstants.LYMPHOMA_NOS_AND_NON_HODGKIN_LYMPHOMA, MphConstants.NON_HODGKIN_LYMPHOMA, MphConstants.HODGKIN_LYMPHOMA,
+            MphConstants.HEMATOPOIETIC_NOS_HISTOLOGIES, MphConstants.POLYP, MphConstants.FAMILLIAL_POLYPOSIS, MphConstants.FAMILIAL_ADENOMATOUS_POLYPOSIS,
+            MphConstants.PTLD, MphConstants.BCELL, MphConstants.TCELL, MphConstants.PLASMACYTOMA, MphConstants.MAST_CELL_SARCOMA, MphConstants.MAST_CELL_LEUKEMIA,
+            MphConstants.MYELOID_SARCOMA, MphConstants.MYELOID_LEUKEMIA, MphConstants.RETINO_BLASTOMA, MphConstants.SPECIFIC_RENAL_CELL_HISTOLOGIES,
+            MphConstants.GLIAL_TUMOR, MphConstants.UROTHELIAL};
+
+    private static final int _MIN_HIST = 8000;
+
+    private static final int _MAX_HIST = 9999;
+
+    private static final int _MAX_SITE = 999;
+
+    private static final Map<CodeSet, Long> _BITS = new IdentityHashMap<>();
+
+    // the categories of each site (0-999) and histology (8000-9999)
+    private static final long[] _SITE_CATEGORIES = new long[_MAX_SITE + 1];
+
+    private static final long[] _HIST_CATEGORIES = new long[_MAX_HIST - _MIN_HIST + 1];
+
+    static {
+        StartupRecorder.recordTask("Tumor categories", () -> {
+            if (_CATEGORIES.length > Long.SIZE)
+                throw new IllegalStateException("Too many categories for a long.");
+            for (int i = 0; i < _CATEGORIES.length; i++) {
+                long bit = 1L << i;
+                _BITS.put(_CATEGORIES[i], bit);
+                for (int value : _CATEGORIES[i].getValues()) {
+                    if (_CATEGORIES[i].isSites())
+                        _SITE_CATEGORIES[value] |= bit;
+                    else if (value >= _MIN_HIST && value <= _MAX_HIST)
+                        _HIST_CATEGORIES[value - _MIN_HIST] |= bit;
+                    else
+                        throw new IllegalStateException("Histology " + value + " can't be used in a category.");
+                }
+            }
+        });
+    }
+
+    private TumorCategories() {
+    }
+
+    /**
+     * Returns the mask of the requested categories, which must be defined in MphConstants.
+     */
+    public static long of(CodeSet... categories) {
+        long mask = 0;
+        for (CodeSet category : categories) {
+            Long bit = _BITS.get(category);
+            if (bit == null)
+                throw new IllegalArgumentException("Unknown category: " + category);
+            mask |= bit;
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the categories of a primary site and a histology; like with CodeSet.contains(String), a code that doesn't have the exact format of the
+     * codes of the categories is never in any of them.
+     */
+    public static long compute(String primarySite, String histology) {
+        int site = CodeSet.parseCode(primarySite, true), hist = CodeSet.parseCode(histology, false);
+        long categories = site == -1 ? 0 : _SITE_CATEGORIES[site];
+        if (hist >= _MIN_HIST && hist <= _MAX_HIST)
+            categories |= _HIST_CATEGORIES[hist - _MIN_HIST];
+        return categories;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph.internal;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+import com.imsweb.mph.mpgroups.GroupUtility;
+
+/**
+ * The properties of a tumor used to compute the primaries, parsed and validated once.
+ * <br/><br/>
+ * The histology and behavior are resolved between ICD-O-2 and ICD-O-3: the ICD-O-2 code is used for the tumors diagnosed before 2001 when it is valid.
+ * The numeric values are -1 when the corresponding code is not valid.
+ */
+public final class ValidatedTumor {
+
+    // the tumors diagnosed before that year use the ICD-O-2 codes (when they are valid)
+    private static final int _ICD_O_3_FIRST_YEAR = 2001;
+
+    private final int _primarySite;
+
+    private final int _histology;
+
+    private final int _behavior;
+
+    private final int _year;
+
+    private final int _laterality;
+
+    private final String _histologyCode;
+
+    private final String _behaviorCode;
+
+    private final boolean _histologyIcdO2;
+
+    private final boolean _behaviorIcdO2;
+
+    private final long _categories;
+
+    public ValidatedTumor(String primarySite, String histologyIcdO3, String behaviorIcdO3, String histologyIcdO2, String behaviorIcdO2, String laterality, String year) {
+        _year = NumberUtils.isDigits(year) ? Integer.parseInt(year) : -1;
+        boolean beforeIcdO3 = _year != -1 && _year < _ICD_O_3_FIRST_YEAR;
+        _histologyIcdO2 = beforeIcdO3 && GroupUtility.validateHistology(histologyIcdO2);
+        _behaviorIcdO2 = beforeIcdO3 && GroupUtility.validateBehavior(behaviorIcdO2);
+        _histologyCode = _histologyIcdO2 ? histologyIcdO2 : histologyIcdO3;
+        _behaviorCode = _behaviorIcdO2 ? behaviorIcdO2 : behaviorIcdO3;
+        _primarySite = GroupUtility.parseSite(primarySite);
+        _histology = GroupUtility.parseHistology(_histologyCode);
+        _behavior = GroupUtility.parseBehavior(_behaviorCode);
+        _laterality = laterality != null && laterality.length() == 1 && laterality.charAt(0) >= '0' && laterality.charAt(0) <= '9' ? laterality.charAt(0) - '0' : -1;
+        _categories = TumorCategories.compute(primarySite, _histologyCode);
+    }
+
+    /**
+     * Returns the numeric part of the primary site (for example 509 for C509), -1 if the site is not valid.
+     */
+    public int getPrimarySite() {
+        return _primarySite;
+    }
+
+    /**
+     * Returns the resolved histology (8000-9999), -1 if it's not valid.
+     */
+    public int getHistology() {
+        return _histology;
+    }
+
+    /**
+     * Returns the resolved behavior (0, 1, 2, 3 or 6), -1 if it's not valid.
+     */
+    public int getBehavior() {
+        return _behavior;
+    }
+
+    /**
+     * Returns the diagnosis year, -1 if it's not a number.
+     */
+    public int getYear() {
+        return _year;
+    }
+
+    /**
+     * Returns the laterality (0-9), -1 if it's not a single digit.
+     */
+    public int getLaterality() {
+        return _laterality;
+    }
+
+    /**
+     * Returns the resolved histology code, as provided (it might not be valid).
+     */
+    public String getHistologyCode() {
+        return _histologyCode;
+    }
+
+    /**
+     * Returns the resolved behavior code, as provided (it might not be valid).
+     */
+    public String getBehaviorCode() {
+        return _behaviorCode;
+    }
+
+    /**
+     * Returns the categories of the primary site and resolved histology (see TumorCategories).
+     */
+    public long getCategories() {
+        return _categories;
+    }
+
+    public boolean isHistologyIcdO2() {
+        return _histologyIcdO2;
+    }
+
+    public boolean isBehaviorIcdO2() {
+        return _behaviorIcdO2;
+    }
+
+    /**
+     * Returns true if the primary site, histology, behavior and diagnosis year are valid; those are required to determine the cancer group of the tumor.
+     */
+    public boolean hasValidProperties() {
+        return _primarySite != -1 && _histology != -1 && _behavior != -1 && GroupUtility.validateYear(_year);
+    }
+}
@@ -4,22 +4,39 @@
 package com.imsweb.mph.mpgroups;
 
 import java.time.LocalDate;
-import java.time.YearMonth;
-import java.time.temporal.ChronoUnit;
+import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.lang3.Range;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.math.NumberUtils;
 
 import com.imsweb.mph.MphConstants;
 import com.imsweb.mph.MphInput;
+import com.imsweb.mph.internal.CodeSet;
+import com.imsweb.mph.internal.DxDateRange;
 
 public class GroupUtility {
 
+    // the cached current year, see getCurrentYear()
+    private static volatile CurrentYear _CURRENT_YEAR = new CurrentYear();
+
+    // the cached morphologies, see getMorphology()
+    private static final String[] _MORPHOLOGIES = new String[2000 * 10];
+
+    private static final class CurrentYear {
+
+        private final int _year;
+
+        private final long _expiration;
+
+        private CurrentYear() {
+            _year = LocalDate.now().getYear();
+            _expiration = LocalDate.of(_year + 1, 1, 1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+    }
+
     /**
      * Validates the provided input's primary site, histology, behavior and diagnosis year. These properties are required to determine the cancer group and used at least in one of the rules in each group.
      */
@@ -31,28 +48,100 @@ public class GroupUtility {
      * Validates primary site
      */
     public static boolean validateSite(String site) {
-        return site != null && site.length() == 4 && site.startsWith("C") && NumberUtils.isDigits(site.substring(1)) && !"C809".equalsIgnoreCase(site);
+        return parseSite(site) != -1;
     }
 
     /**
      * Validates histology
      */
     public static boolean validateHistology(String hist) {
-        return hist != null && NumberUtils.isDigits(hist) && Integer.parseInt(hist) >= 8000 && Integer.parseInt(hist) <= 9999;
+        return parseHistology(hist) != -1;
     }
 
     /**
      * Validates behavior
      */
     public static boolean validateBehavior(String behavior) {
-        return Arrays.asList("0", "1", "2", "3", "6").contains(behavior);
+        return parseBehavior(behavior) != -1;
     }
 
     /**
      * Validates diagnosis year
      */
     public static boolean validateYear(int year) {
-        return year >= 0 && year <= LocalDate.now().getYear();
+        return year >= 0 && year <= getCurrentYear();
+    }
+
+    /**
+     * Returns the numeric part of a valid primary site (for example 509 for C509), -1 if the site is not valid
+     */
+    public static int parseSite(String site) {
+        if (site == null || site.length() != 4 || site.charAt(0) != 'C')
+            return -1;
+        int value = parseDigits(site, 1, 4);
+        return value == 809 ? -1 : value;
+    }
+
+    /**
+     * Returns the value of a valid histology (four digits, 8000-9999), -1 if the histology is not valid; a zero-padded code (08140) is not valid since
+     * the rules compare the codes
+     */
+    public static int parseHistology(String hist) {
+        if (hist == null || hist.length() != 4)
+            return -1;
+        int value = parseDigits(hist, 0, 4);
+        return value >= 8000 && value <= 9999 ? value : -1;
+    }
+
+    /**
+     * Returns the value of a valid behavior (0, 1, 2, 3 or 6), -1 if the behavior is not valid
+     */
+    public static int parseBehavior(String behavior) {
+        if (behavior == null || behavior.length() != 1)
+            return -1;
+        char c = behavior.charAt(0);
+        return c == '0' || c == '1' || c == '2' || c == '3' || c == '6' ? c - '0' : -1;
+    }
+
+    /**
+     * Returns the morphology (for example 9590/3) of a histology and a behavior; the morphologies of valid codes are cached so this method can be called by the rules.
+     */
+    public static String getMorphology(String hist, String behavior) {
+        int histValue = parseHistology(hist), behaviorValue = behavior != null && behavior.length() == 1 ? parseDigits(behavior, 0, 1) : -1;
+        if (histValue == -1 || behaviorValue == -1)
+            return hist + "/" + behavior;
+        int index = (histValue - 8000) * 10 + behaviorValue;
+        // several threads might create the same value, that's fine since they are all equal
+        String morphology = _MORPHOLOGIES[index];
+        if (morphology == null) {
+            morphology = hist + "/" + behavior;
+            _MORPHOLOGIES[index] = morphology;
+        }
+        return morphology;
+    }
+
+    // returns the value of the (ASCII) digits between the two indexes, -1 if there is any other character
+    private static int parseDigits(String value, int start, int end) {
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    /**
+     * Returns the current year; the value is cached until the end of the year so this method can be called for every tumor.
+     */
+    public static int getCurrentYear() {
+        CurrentYear currentYear = _CURRENT_YEAR;
+        if (System.currentTimeMillis() >= currentYear._expiration) {
+            currentYear = new CurrentYear();
+            _CURRENT_YEAR = currentYear;
+        }
+        return currentYear._year;
     }
 
     /**
@@ -140,6 +229,49 @@ public class GroupUtility {
         return !(cat1 == null || cat2 == null || cat1.isEmpty() || cat2.isEmpty()) && ((cat1.contains(prop1) && cat2.contains(prop2)) || (cat1.contains(prop2) && cat2.contains(prop1)));
     }
 
+    /**
+     * checks if one property belongs to some category and the other to different category
+     */
+    public static boolean differentCategory(String prop1, String prop2, CodeSet cat1, CodeSet cat2) {
+        return !(cat1 == null || cat2 == null || cat1.isEmpty() || cat2.isEmpty()) && ((cat1.contains(prop1) && cat2.contains(prop2)) || (cat1.contains(prop2) && cat2.contains(prop1)));
+    }
+
+    /**
+     * checks if one tumor belongs to some categories and the other to different categories (see TumorCategories.of())
+     */
+    public static boolean differentCategory(MphInput i1, MphInput i2, long cat1, long cat2) {
+        long categories1 = i1.getValidatedTumor().getCategories(), categories2 = i2.getValidatedTumor().getCategories();
+        return ((categories1 & cat1) != 0 && (categories2 & cat2) != 0) || ((categories1 & cat2) != 0 && (categories2 & cat1) != 0);
+    }
+
+    /**
+     * checks if the tumor belongs to one of the categories (see TumorCategories.of())
+     */
+    public static boolean isInCategory(MphInput input, long categories) {
+        return (input.getValidatedTumor().getCategories() & categories) != 0;
+    }
+
+    /**
+     * checks if both tumors belong to one of the categories, not necessarily the same one (see TumorCategories.of())
+     */
+    public static boolean bothInCategory(MphInput i1, MphInput i2, long categories) {
+        return (i1.getValidatedTumor().getCategories() & categories) != 0 && (i2.getValidatedTumor().getCategories() & categories) != 0;
+    }
+
+    /**
+     * checks if only one of the tumors belongs to the category, which must be a single category (see TumorCategories.of())
+     */
+    public static boolean oneInCategory(MphInput i1, MphInput i2, long category) {
+        return ((i1.getValidatedTumor().getCategories() ^ i2.getValidatedTumor().getCategories()) & category) != 0;
+    }
+
+    /**
+     * checks if both tumors belong to a same category among the provided ones (see TumorCategories.of())
+     */
+    public static boolean sameCategory(MphInput i1, MphInput i2, long categories) {
+        return (i1.getValidatedTumor().getCategories() & i2.getValidatedTumor().getCategories() & categories) != 0;
+    }
+
     /**
      * checks if 2 sites are paired
      */
@@ -151,6 +283,17 @@ public class GroupUtility {
         return false;
     }
 
+    /**
+     * checks if 2 sites are paired
+     */
+    public static boolean isPairedSites(String site1, String site2, CodeSet... pairedSites) {
+        if (pairedSites != null)
+            for (CodeSet pairedSite : pairedSites)
+                if (pairedSite.contains(site1) && pairedSite.contains(site2))
+                    return true;
+        return false;
+    }
+
     /**
      * checks if lateralities are valid
      */
@@ -170,56 +313,29 @@ public class GroupUtility {
      * 0 (if the diagnosis takes at the same day) or -1 (if there is insufficient information e.g if both year is 2007, but month and day is unknown)
      */
     public static int compareDxDate(MphInput input1, MphInput input2) {
+        return compareDxDate(input1.getDxDateRange(), input2.getDxDateRange());
+    }
+
+    private static int compareDxDate(DxDateRange date1, DxDateRange date2) {
         int tumor1 = 1, tumor2 = 2, sameDay = 0, unknown = -1;
-        int year1 = NumberUtils.isDigits(input1.getDateOfDiagnosisYear()) ? Integer.parseInt(input1.getDateOfDiagnosisYear()) : 9999;
-        int year2 = NumberUtils.isDigits(input2.getDateOfDiagnosisYear()) ? Integer.parseInt(input2.getDateOfDiagnosisYear()) : 9999;
-        int month1 = NumberUtils.isDigits(input1.getDateOfDiagnosisMonth()) ? Integer.parseInt(input1.getDateOfDiagnosisMonth()) : 99;
-        int month2 = NumberUtils.isDigits(input2.getDateOfDiagnosisMonth()) ? Integer.parseInt(input2.getDateOfDiagnosisMonth()) : 99;
-        int day1 = NumberUtils.isDigits(input1.getDateOfDiagnosisDay()) ? Integer.parseInt(input1.getDateOfDiagnosisDay()) : 99;
-        int day2 = NumberUtils.isDigits(input2.getDateOfDiagnosisDay()) ? Integer.parseInt(input2.getDateOfDiagnosisDay()) : 99;
         //If year is missing or in the future, return unknown
-        int currYear = LocalDate.now().getYear();
-        if (year1 == 9999 || year2 == 9999 || year1 > currYear || year2 > currYear)
+        if (!isYearKnown(date1) || !isYearKnown(date2))
             return unknown;
-        else if (year1 > year2)
+        else if (date1.getYear() > date2.getYear())
             return tumor1;
-        else if (year2 > year1)
+        else if (date2.getYear() > date1.getYear())
             return tumor2;
-
-        if (month1 == 99)
-            day1 = 99;
-        if (month2 == 99)
-            day2 = 99;
-        //if month and day are invalid set them to 99 (Example: if month is 13 or day is 35)
-        try {
-            LocalDate.of(year1, month1 == 99 ? 1 : month1, day1 == 99 ? 1 : day1);
-        }
-        catch (Exception e) {
-            day1 = 99;
-            if (month1 < 1 || month1 > 12)
-                month1 = 99;
-        }
-
-        try {
-            LocalDate.of(year2, month2 == 99 ? 1 : month2, day2 == 99 ? 1 : day2);
-        }
-        catch (Exception e) {
-            day2 = 99;
-            if (month2 < 1 || month2 > 12)
-                month2 = 99;
-        }
-
-        if (month1 == 99 || month2 == 99)
+        else if (!date1.isMonthKnown() || !date2.isMonthKnown())
             return unknown;
-        else if (month1 > month2)
+        else if (date1.getMonth() > date2.getMonth())
             return tumor1;
-        else if (month2 > month1)
+        else if (date2.getMonth() > date1.getMonth())
             return tumor2;
-        else if (day1 == 99 || day2 == 99)
+        else if (!date1.isDayKnown() || !date2.isDayKnown())
             return unknown;
-        else if (day1 > day2)
+        else if (date1.getDay() > date2.getDay())
             return tumor1;
-        else if (day2 > day1)
+        else if (date2.getDay() > date1.getDay())
             return tumor2;
         else
             return sameDay;
@@ -230,56 +346,25 @@ public class GroupUtility {
      */
     public static int verifyYearsApart(MphInput input1, MphInput input2, int yearsApart) {
         int yes = 1, no = 0, unknown = -1;
-        int year1 = NumberUtils.isDigits(input1.getDateOfDiagnosisYear()) ? Integer.parseInt(input1.getDateOfDiagnosisYear()) : 9999;
-        int year2 = NumberUtils.isDigits(input2.getDateOfDiagnosisYear()) ? Integer.parseInt(input2.getDateOfDiagnosisYear()) : 9999;
-        int month1 = NumberUtils.isDigits(input1.getDateOfDiagnosisMonth()) ? Integer.parseInt(input1.getDateOfDiagnosisMonth()) : 99;
-        int month2 = NumberUtils.isDigits(input2.getDateOfDiagnosisMonth()) ? Integer.parseInt(input2.getDateOfDiagnosisMonth()) : 99;
-        int day1 = NumberUtils.isDigits(input1.getDateOfDiagnosisDay()) ? Integer.parseInt(input1.getDateOfDiagnosisDay()) : 99;
-        int day2 = NumberUtils.isDigits(input2.getDateOfDiagnosisDay()) ? Integer.parseInt(input2.getDateOfDiagnosisDay()) : 99;
+        DxDateRange date1 = input1.getDxDateRange(), date2 = input2.getDxDateRange();
         //If year is missing or in the future, return unknown
-        int currYear = LocalDate.now().getYear();
-        if (year1 == 9999 || year2 == 9999 || year1 > currYear || year2 > currYear)
+        if (!isYearKnown(date1) || !isYearKnown(date2))
             return unknown;
-        else if (Math.abs(year1 - year2) > yearsApart)
+        int year1 = date1.getYear(), year2 = date2.getYear(), month1 = date1.getMonth(), month2 = date2.getMonth();
+        if (Math.abs(year1 - year2) > yearsApart)
             return yes;
         else if (Math.abs(year1 - year2) < yearsApart)
             return no;
-        else {
-            //if month is missing, set day to 99
-            if (month1 == 99)
-                day1 = 99;
-            if (month2 == 99)
-                day2 = 99;
-            //if month and day are invalid set them to 99 (Example: if month is 13 or day is 35)
-            try {
-                LocalDate.of(year1, month1 == 99 ? 1 : month1, day1 == 99 ? 1 : day1);
-            }
-            catch (Exception e) {
-                day1 = 99;
-                if (month1 < 1 || month1 > 12)
-                    month1 = 99;
-            }
-
-            try {
-                LocalDate.of(year2, month2 == 99 ? 1 : month2, day2 == 99 ? 1 : day2);
-            }
-            catch (Exception e) {
-                day2 = 99;
-                if (month2 < 1 || month2 > 12)
-                    month2 = 99;
-            }
-
-            if (month1 == 99 || month2 == 99)
-                return unknown;
-            else if ((year1 > year2 && month1 > month2) || (year2 > year1 && month2 > month1))
-                return yes;
-            else if ((year1 > year2 && month1 < month2) || (year2 > year1 && month2 < month1))
-                return no;
-            else if (day1 == 99 || day2 == 99)
-                return unknown;
-            else
-                return Math.abs(ChronoUnit.YEARS.between(LocalDate.of(year1, month1, day1), LocalDate.of(year2, month2, day2))) >= yearsApart ? yes : no;
-        }
+        else if (!date1.isMonthKnown() || !date2.isMonthKnown())
+            return unknown;
+        else if ((year1 > year2 && month1 > month2) || (year2 > year1 && month2 > month1))
+            return yes;
+        else if ((year1 > year2 && month1 < month2) || (year2 > year1 && month2 < month1))
+            return no;
+        else if (!date1.isDayKnown() || !date2.isDayKnown())
+            return unknown;
+        else
+            return Math.abs(DxDateRange.yearsBetween(date1, date2)) >= yearsApart ? yes : no;
     }
 
     /**
@@ -287,56 +372,21 @@ public class GroupUtility {
      */
     public static int verifyDaysApart(MphInput input1, MphInput input2, int days) {
         int unknown = -1, apart = 1, within = 0;
-        int latestDx = compareDxDate(input1, input2);
+        DxDateRange date1 = input1.getDxDateRange(), date2 = input2.getDxDateRange();
+        int latestDx = compareDxDate(date1, date2);
         if (latestDx == 0)
             return within;
-
-        int year1 = NumberUtils.isDigits(input1.getDateOfDiagnosisYear()) ? Integer.parseInt(input1.getDateOfDiagnosisYear()) : 9999;
-        int year2 = NumberUtils.isDigits(input2.getDateOfDiagnosisYear()) ? Integer.parseInt(input2.getDateOfDiagnosisYear()) : 9999;
         //If year is missing or in the future, return unknown
-        int currYear = LocalDate.now().getYear();
-        if (year1 == 9999 || year2 == 9999 || year1 > currYear || year2 > currYear)
+        if (!isYearKnown(date1) || !isYearKnown(date2))
             return unknown;
-        int month1 = NumberUtils.isDigits(input1.getDateOfDiagnosisMonth()) ? Integer.parseInt(input1.getDateOfDiagnosisMonth()) : 99;
-        int month2 = NumberUtils.isDigits(input2.getDateOfDiagnosisMonth()) ? Integer.parseInt(input2.getDateOfDiagnosisMonth()) : 99;
-        int day1 = NumberUtils.isDigits(input1.getDateOfDiagnosisDay()) ? Integer.parseInt(input1.getDateOfDiagnosisDay()) : 99;
-        int day2 = NumberUtils.isDigits(input2.getDateOfDiagnosisDay()) ? Integer.parseInt(input2.getDateOfDiagnosisDay()) : 99;
-
-        //if month is missing, set day to 99
-        if (month1 == 99)
-            day1 = 99;
-        if (month2 == 99)
-            day2 = 99;
-        //if month and day are invalid set them to 99 (Example: if month is 13 or day is 35)
-        try {
-            LocalDate.of(year1, month1 == 99 ? 1 : month1, day1 == 99 ? 1 : day1);
-        }
-        catch (Exception e) {
-            day1 = 99;
-            if (month1 < 1 || month1 > 12)
-                month1 = 99;
-        }
-
-        try {
-            LocalDate.of(year2, month2 == 99 ? 1 : month2, day2 == 99 ? 1 : day2);
-        }
-        catch (Exception e) {
-            day2 = 99;
-            if (month2 < 1 || month2 > 12)
-                month2 = 99;
-        }
 
-        int minDaysInBetween = daysInBetween(year2, month2, day2, year1, month1, day1, true);
-        int maxDaysInBetween = daysInBetween(year2, month2, day2, year1, month1, day1, false);
-        if (latestDx == -1) {
+        //the days between the two dates, from the first diagnosed tumor to the other one (from the second tumor to the first one if that's unknown)
+        DxDateRange start = latestDx == 2 ? date1 : date2, end = latestDx == 2 ? date2 : date1;
+        long minDaysInBetween = end.getMinEpochDay() - start.getMaxEpochDay();
+        long maxDaysInBetween = end.getMaxEpochDay() - start.getMinEpochDay();
+        if (latestDx == -1)
             return Math.max(Math.abs(minDaysInBetween), Math.abs(maxDaysInBetween)) <= days ? within : unknown;
-        }
-        else if (latestDx == 2) {
-            minDaysInBetween = daysInBetween(year1, month1, day1, year2, month2, day2, true);
-            maxDaysInBetween = daysInBetween(year1, month1, day1, year2, month2, day2, false);
-        }
-
-        if (minDaysInBetween > days)
+        else if (minDaysInBetween > days)
             return apart;
         else if (maxDaysInBetween <= days)
             return within;
@@ -344,29 +394,7 @@ public class GroupUtility {
             return unknown;
     }
 
-    //This method is called if one diagnosis is after the other, It returns the minimum or maximum days between two diagnosis dates based on boolean minimum
-    private static int daysInBetween(int startYr, int startMon, int startDay, int endYr, int endMon, int endDay, boolean minimum) {
-        LocalDate startDateMin = LocalDate.of(startYr, 1, 1);
-        LocalDate startDateMax = LocalDate.of(startYr, 12, 31);
-        LocalDate endDateMin = LocalDate.of(endYr, 1, 1);
-        LocalDate endDateMax = LocalDate.of(endYr, 12, 31);
-        if (startDay != 99) {
-            startDateMin = LocalDate.of(startYr, startMon, startDay);
-            startDateMax = LocalDate.of(startYr, startMon, startDay);
-        }
-        else if (startMon != 99) {
-            startDateMin = LocalDate.of(startYr, startMon, 1);
-            startDateMax = LocalDate.of(startYr, startMon, YearMonth.of(startYr, startMon).lengthOfMonth());
-        }
-        if (endDay != 99) {
-            endDateMin = LocalDate.of(endYr, endMon, endDay);
-            endDateMax = LocalDate.of(endYr, endMon, endDay);
-        }
-        else if (endMon != 99) {
-            endDateMin = LocalDate.of(endYr, endMon, 1);
-            endDateMax = LocalDate.of(endYr, endMon, YearMonth.of(endYr, endMon).lengthOfMonth());
-        }
-
-        return minimum ? (int)ChronoUnit.DAYS.between(startDateMax, endDateMin) : (int)ChronoUnit.DAYS.between(startDateMin, endDateMax);
+    private static boolean isYearKnown(DxDateRange date) {
+        return date.getYear() != DxDateRange.UNKNOWN_YEAR && date.getYear() <= getCurrentYear();
     }
 }
@@ -3,67 +3,75 @@
  */
 package com.imsweb.mph.mpgroups;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.util.ArrayList;
-import java.util.List;
-
-import au.com.bytecode.opencsv.CSVReader;
-
 import com.imsweb.mph.MphComputeOptions;
 import com.imsweb.mph.MphConstants;
 import com.imsweb.mph.MphGroup;
 import com.imsweb.mph.MphInput;
 import com.imsweb.mph.MphRule;
-import com.imsweb.mph.MphUtils;
+import com.imsweb.mph.internal.CsvResources;
+import com.imsweb.mph.internal.HematoHistologyMatrix;
+import com.imsweb.mph.internal.StartupRecorder;
 import com.imsweb.mph.internal.TempRuleResult;
 
 public class Mp1998HematopoieticGroup extends MphGroup {
 
-    private static List<String[]> _1998_HEMATOPOIETIC = new ArrayList<>();
-
     public Mp1998HematopoieticGroup() {
         super(MphConstants.MP_1998_HEMATO_GROUP_ID, MphConstants.MP_1998_HEMATO_GROUP_NAME, "C000-C809", null, "9590-9989", null, "2-3,6", "0000-2000");
-        initializeLookup();
+    }
 
+    @Override
+    protected void initializeRules() {
         MphRule rule = new MphRule(MphConstants.MP_1998_HEMATO_GROUP_ID, "M1") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 int laterDx = GroupUtility.compareDxDate(i1, i2);
                 if (laterDx == -1) {
-                    result.setFinalResult(MphUtils.MpResult.QUESTIONABLE);
-                    result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known diagnosis date should be provided.");
+                    result = questionableResult("Valid and known diagnosis date should be provided.");
+                    return result;
+                }
+                int hist1 = i1.getValidatedTumor().getHistology(), hist2 = i2.getValidatedTumor().getHistology();
+                int firstDx = laterDx == 1 ? hist2 : hist1, secondDx = laterDx == 1 ? hist1 : hist2;
+                if (LookupHolder._SAME_PRIMARIES.get(firstDx, secondDx) || (laterDx == 0 && LookupHolder._SAME_PRIMARIES.get(secondDx, firstDx))) {
+                    result = TempRuleResult.SINGLE_PRIMARY;
                     return result;
                 }
-                String firstDx = laterDx == 1 ? i2.getHistology() : i1.getHistology(), secondDx = laterDx == 1 ? i1.getHistology() : i2.getHistology();
-                for (String[] row : _1998_HEMATOPOIETIC)
-                    if ((firstDx.compareTo(row[0]) >= 0 && firstDx.compareTo(row[1]) <= 0 && secondDx.compareTo(row[2]) >= 0 && secondDx.compareTo(row[3]) <= 0) ||
-                            (laterDx == 0 && (secondDx.compareTo(row[0]) >= 0 && secondDx.compareTo(row[1]) <= 0 && firstDx.compareTo(row[2]) >= 0 && firstDx.compareTo(row[3]) <= 0))) {
-                        result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        return result;
-                    }
 
                 //if they don't match
-                result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                result = TempRuleResult.MULTIPLE_PRIMARIES;
                 return result;
             }
         };
         _rules.add(rule);
     }
 
-    private static synchronized void initializeLookup() {
-        if (_1998_HEMATOPOIETIC.isEmpty()) {
-            try (InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream("Hematopoietic1998HistologyPairs.csv")) {
-                Reader reader = new InputStreamReader(is, "US-ASCII");
-                _1998_HEMATOPOIETIC.addAll(new CSVReader(reader, ',', '\"', 1).readAll());
-            }
-            catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-        }
+    // the lookup is loaded the first time it's needed; the class initialization guarantees every thread sees the fully loaded (and immutable) matrix
+    private static final class LookupHolder {
+
+        // the pairs of histologies that are the same primary (first diagnosed histology, then second diagnosed histology), compiled from the ranges of the CSV file
+        private static final HematoHistologyMatrix _SAME_PRIMARIES = StartupRecorder.record("Hematopoietic 1998 lookup", Mp1998HematopoieticGroup::loadSamePrimaries);
+    }
+
+    private static HematoHistologyMatrix loadSamePrimaries() {
+        HematoHistologyMatrix.Builder builder = new HematoHistologyMatrix.Builder();
+        for (String[] row : CsvResources.read("Hematopoietic1998HistologyPairs.csv"))
+            for (int first = Integer.parseInt(row[0].trim()); first <= Integer.parseInt(row[1].trim()); first++)
+                for (int second = Integer.parseInt(row[2].trim()); second <= Integer.parseInt(row[3].trim()); second++)
+                    builder.set(first, second);
+        return builder.build();
     }
 
+    /**
+     * Returns true if a tumor with the second histology diagnosed after a tumor with the first histology is the same primary (1998 Hematopoietic rules).
+     */
+    public static boolean isSamePrimary(int firstDxHistology, int secondDxHistology) {
+        return LookupHolder._SAME_PRIMARIES.get(firstDxHistology, secondDxHistology);
+    }
+
+    /**
+     * Returns the sorted histologies that are the same primary when diagnosed after a tumor with the given histology (1998 Hematopoietic rules).
+     */
+    public static int[] getSamePrimaryHistologies(int firstDxHistology) {
+        return LookupHolder._SAME_PRIMARIES.getRow(firstDxHistology);
+    }
 }
@@ -3,85 +3,123 @@
  */
 package com.imsweb.mph.mpgroups;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-import au.com.bytecode.opencsv.CSVReader;
-
 import com.imsweb.mph.MphComputeOptions;
 import com.imsweb.mph.MphConstants;
 import com.imsweb.mph.MphGroup;
 import com.imsweb.mph.MphInput;
 import com.imsweb.mph.MphRule;
-import com.imsweb.mph.MphUtils;
+import com.imsweb.mph.internal.CsvResources;
+import com.imsweb.mph.internal.HematoHistologyMatrix;
+import com.imsweb.mph.internal.StartupRecorder;
 import com.imsweb.mph.internal.TempRuleResult;
 
 public class Mp2001HematopoieticGroup extends MphGroup {
 
-    private static List<String[]> _2001_HEMATOPOIETIC_GROUPS = new ArrayList<>();
-    private static List<String[]> _2001_HEMATOPOIETIC_GROUP_PAIRS = new ArrayList<>();
-
     public Mp2001HematopoieticGroup() {
         super(MphConstants.MP_2001_HEMATO_GROUP_ID, MphConstants.MP_2001_HEMATO_GROUP_NAME, "C000-C809", null, "9590-9989", null, "2-3,6", "2001-2009");
-        initializeLookups();
+    }
 
+    @Override
+    protected void initializeRules() {
         MphRule rule = new MphRule(MphConstants.MP_2001_HEMATO_GROUP_ID, "M1") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                String hist1 = i1.getHistology(), hist2 = i2.getHistology();
-                //find the group for both histologies
-                String group1 = null, group2 = null;
-                for (String[] row : _2001_HEMATOPOIETIC_GROUPS) {
-                    if (group1 == null && hist1.compareTo(row[1]) >= 0 && hist1.compareTo(row[2]) <= 0)
-                        group1 = row[0];
-                    if (group2 == null && hist2.compareTo(row[1]) >= 0 && hist2.compareTo(row[2]) <= 0)
-                        group2 = row[0];
-                    if (group1 != null && group2 != null)
-                        break;
-                }
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                int hist1 = i1.getValidatedTumor().getHistology(), hist2 = i2.getValidatedTumor().getHistology();
                 //If we found both groups, let's check if they are same primaries
-                if (group1 != null && group2 != null) {
+                if (getHistologyGroup(hist1) != -1 && getHistologyGroup(hist2) != -1) {
                     int laterDx = GroupUtility.compareDxDate(i1, i2);
                     if (laterDx == -1) {
-                        result.setFinalResult(MphUtils.MpResult.QUESTIONABLE);
-                        result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known diagnosis date should be provided.");
+                        result = questionableResult("Valid and known diagnosis date should be provided.");
+                        return result;
+                    }
+                    int firstDx = laterDx == 1 ? hist2 : hist1, secondDx = laterDx == 1 ? hist1 : hist2;
+                    if (LookupHolder._SAME_PRIMARIES.get(firstDx, secondDx) || (laterDx == 0 && LookupHolder._SAME_PRIMARIES.get(secondDx, firstDx))) {
+                        result = TempRuleResult.SINGLE_PRIMARY;
                         return result;
                     }
-                    String firstDx = laterDx == 1 ? group2 : group1, secondDx = laterDx == 1 ? group1 : group2;
-                    for (String[] row : _2001_HEMATOPOIETIC_GROUP_PAIRS)
-                        if ((firstDx.equals(row[0]) && secondDx.equals(row[1])) || (laterDx == 0 && secondDx.equals(row[0]) && firstDx.equals(row[1]))) {
-                            result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                            return result;
-                        }
                 }
-                result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                result = TempRuleResult.MULTIPLE_PRIMARIES;
                 return result;
             }
         };
         _rules.add(rule);
     }
 
-    private static synchronized void initializeLookups() {
-        if (_2001_HEMATOPOIETIC_GROUPS.isEmpty() || _2001_HEMATOPOIETIC_GROUP_PAIRS.isEmpty()) {
-            try (InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream("Hematopoietic2001HistologyGroups.csv")) {
-                Reader reader = new InputStreamReader(is, "US-ASCII");
-                _2001_HEMATOPOIETIC_GROUPS.addAll(new CSVReader(reader, ',', '\"', 1).readAll());
-            }
-            catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-            try (InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream("Hematopoietic2001HistologyGroupPairs.csv")) {
-                Reader reader = new InputStreamReader(is, "US-ASCII");
-                _2001_HEMATOPOIETIC_GROUP_PAIRS.addAll(new CSVReader(reader, ',', '\"', 1).readAll());
-            }
-            catch (IOException e) {
-                throw new RuntimeException(e);
+    // the lookups are loaded the first time they're needed; the class initialization guarantees every thread sees them fully loaded (and they are never modified)
+    private static final class LookupHolder {
+
+        // the histology group number of each histology (indexed by histology - 9590), -1 if the histology doesn't belong to any group
+        private static final int[] _HISTOLOGY_GROUPS;
+
+        // the pairs of histologies that are the same primary (first diagnosed histology, then second diagnosed histology), compiled from the pairs of groups
+        private static final HematoHistologyMatrix _SAME_PRIMARIES;
+
+        static {
+            long start = System.nanoTime(), startBytes = StartupRecorder.getAllocatedBytes();
+            List<List<String[]>> rows = CsvResources.readAll("Hematopoietic2001HistologyGroups.csv", "Hematopoietic2001HistologyGroupPairs.csv");
+            _HISTOLOGY_GROUPS = loadHistologyGroups(rows.get(0));
+            _SAME_PRIMARIES = loadSamePrimaries(_HISTOLOGY_GROUPS, rows.get(1));
+            StartupRecorder.record("Hematopoietic 2001 lookups", start, startBytes);
+        }
+    }
+
+    private static int[] loadHistologyGroups(List<String[]> groups) {
+        // a histology belongs to the first group that contains it
+        int[] histologyGroups = new int[HematoHistologyMatrix.MAX_HISTOLOGY - HematoHistologyMatrix.MIN_HISTOLOGY + 1];
+        Arrays.fill(histologyGroups, -1);
+        for (String[] row : groups) {
+            int group = Integer.parseInt(row[0].trim());
+            for (int hist = Integer.parseInt(row[1].trim()); hist <= Integer.parseInt(row[2].trim()); hist++)
+                if (histologyGroups[hist - HematoHistologyMatrix.MIN_HISTOLOGY] == -1)
+                    histologyGroups[hist - HematoHistologyMatrix.MIN_HISTOLOGY] = group;
+        }
+        return histologyGroups;
+    }
+
+    private static HematoHistologyMatrix loadSamePrimaries(int[] histologyGroups, List<String[]> groupPairs) {
+        int maxGroup = 0;
+        for (int group : histologyGroups)
+            maxGroup = Math.max(maxGroup, group);
+        boolean[][] samePrimaryGroups = new boolean[maxGroup + 1][maxGroup + 1];
+        for (String[] row : groupPairs) {
+            int first = Integer.parseInt(row[0].trim()), second = Integer.parseInt(row[1].trim());
+            if (first <= maxGroup && second <= maxGroup)
+                samePrimaryGroups[first][second] = true;
+        }
+        HematoHistologyMatrix.Builder builder = new HematoHistologyMatrix.Builder();
+        for (int first = HematoHistologyMatrix.MIN_HISTOLOGY; first <= HematoHistologyMatrix.MAX_HISTOLOGY; first++) {
+            int firstGroup = histologyGroups[first - HematoHistologyMatrix.MIN_HISTOLOGY];
+            for (int second = HematoHistologyMatrix.MIN_HISTOLOGY; second <= HematoHistologyMatrix.MAX_HISTOLOGY && firstGroup != -1; second++) {
+                int secondGroup = histologyGroups[second - HematoHistologyMatrix.MIN_HISTOLOGY];
+                if (secondGroup != -1 && samePrimaryGroups[firstGroup][secondGroup])
+                    builder.set(first, second);
             }
         }
+        return builder.build();
+    }
+
+    /**
+     * Returns the 2001 Hematopoietic histology group number of the histology, -1 if it doesn't belong to any group.
+     */
+    public static int getHistologyGroup(int histology) {
+        return HematoHistologyMatrix.isInDomain(histology) ? LookupHolder._HISTOLOGY_GROUPS[histology - HematoHistologyMatrix.MIN_HISTOLOGY] : -1;
+    }
+
+    /**
+     * Returns true if a tumor with the second histology diagnosed after a tumor with the first histology is the same primary (2001 Hematopoietic rules).
+     */
+    public static boolean isSamePrimary(int firstDxHistology, int secondDxHistology) {
+        return LookupHolder._SAME_PRIMARIES.get(firstDxHistology, secondDxHistology);
+    }
+
+    /**
+     * Returns the sorted histologies that are the same primary when diagnosed after a tumor with the given histology (2001 Hematopoietic rules).
+     */
+    public static int[] getSamePrimaryHistologies(int firstDxHistology) {
+        return LookupHolder._SAME_PRIMARIES.getRow(firstDxHistology);
     }
 }
@@ -15,15 +15,18 @@ public class Mp2004BenignBrainGroup extends MphGroup {
 
     public Mp2004BenignBrainGroup() {
         super(MphConstants.MP_2004_BENIGN_BRAIN_GROUP_ID, MphConstants.MP_2004_BENIGN_BRAIN_GROUP_NAME, "C700-C729,C751-C753", null, null, "9590-9989,9140", "0-1", "0000-2006");
+    }
 
+    @Override
+    protected void initializeRules() {
         // Rule 1
         MphRule rule = new MphRule(MphConstants.MP_2004_BENIGN_BRAIN_GROUP_ID, "M1") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 if (isSameSite(i1.getPrimarySite(), i2.getPrimarySite()) && isSameHistology(i1.getHistology(), i1.getBehavior(), i2.getHistology(), i2.getBehavior())
                         && GroupUtility.validLaterality(i1.getLaterality(), i2.getLaterality()) && i1.getLaterality().equals(i2.getLaterality()))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                    result = TempRuleResult.SINGLE_PRIMARY;
                 return result;
             }
         };
@@ -35,10 +38,10 @@ public class Mp2004BenignBrainGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2004_BENIGN_BRAIN_GROUP_ID, "M2") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 if (isSameSite(i1.getPrimarySite(), i2.getPrimarySite()) && isSameHistology(i1.getHistology(), i1.getBehavior(), i2.getHistology(), i2.getBehavior())
                         && !GroupUtility.validLaterality(i1.getLaterality(), i2.getLaterality()))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                    result = TempRuleResult.SINGLE_PRIMARY;
                 return result;
             }
         };
@@ -50,9 +53,9 @@ public class Mp2004BenignBrainGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2004_BENIGN_BRAIN_GROUP_ID, "M3") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 if (!isSameSite(i1.getPrimarySite(), i2.getPrimarySite()) && isSameHistology(i1.getHistology(), i1.getBehavior(), i2.getHistology(), i2.getBehavior()))
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
                 return result;
             }
         };
@@ -63,9 +66,9 @@ public class Mp2004BenignBrainGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2004_BENIGN_BRAIN_GROUP_ID, "M4") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 if (isSameHistology(i1.getHistology(), i1.getBehavior(), i2.getHistology(), i2.getBehavior()) && GroupUtility.areOppositeSides(i1.getLaterality(), i2.getLaterality()))
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
                 return result;
             }
         };
@@ -76,10 +79,8 @@ public class Mp2004BenignBrainGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2004_BENIGN_BRAIN_GROUP_ID, "M5") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                result.setFinalResult(
+                return TempRuleResult.finalResult(
                         !isSameHistology(i1.getHistology(), i1.getBehavior(), i2.getHistology(), i2.getBehavior()) ? MphUtils.MpResult.MULTIPLE_PRIMARIES : MphUtils.MpResult.SINGLE_PRIMARY);
-                return result;
             }
         };
         rule.setReason("Multiple non-malignant tumors of different histologies are separate (multiple) primaries)");
@@ -87,19 +88,19 @@ public class Mp2004BenignBrainGroup extends MphGroup {
     }
 
     private boolean isSameSite(String site1, String site2) {
-        return site1.substring(0, 3).equals(site2.substring(0, 3));
+        return site1.regionMatches(0, site2, 0, 3);
     }
 
     private boolean isSameHistology(String hist1, String beh1, String hist2, String beh2) {
         String group1 = MphConstants.BENIGN_BRAIN_2004_HISTOLOGY_GROUPING.get(hist1);
         if (group1 == null)
-            group1 = MphConstants.BENIGN_BRAIN_2004_HISTOLOGY_GROUPING.get(hist1 + "/" + beh1);
+            group1 = MphConstants.BENIGN_BRAIN_2004_HISTOLOGY_GROUPING.get(GroupUtility.getMorphology(hist1, beh1));
         String group2 = MphConstants.BENIGN_BRAIN_2004_HISTOLOGY_GROUPING.get(hist2);
         if (group2 == null)
-            group2 = MphConstants.BENIGN_BRAIN_2004_HISTOLOGY_GROUPING.get(hist2 + "/" + beh2);
+            group2 = MphConstants.BENIGN_BRAIN_2004_HISTOLOGY_GROUPING.get(GroupUtility.getMorphology(hist2, beh2));
         if (group1 != null && group2 != null)
             return group1.equals(group2);
         else
-            return hist1.substring(0, 3).equals(hist2.substring(0, 3));
+            return hist1.regionMatches(0, hist2, 0, 3);
     }
 }
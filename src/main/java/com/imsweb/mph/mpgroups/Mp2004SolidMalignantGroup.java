@@ -3,10 +3,6 @@
  */
 package com.imsweb.mph.mpgroups;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-
 import com.imsweb.mph.MphComputeOptions;
 import com.imsweb.mph.MphConstants;
 import com.imsweb.mph.MphGroup;
@@ -14,17 +10,65 @@ import com.imsweb.mph.MphInput;
 import com.imsweb.mph.MphRule;
 import com.imsweb.mph.MphUtils;
 import com.imsweb.mph.internal.TempRuleResult;
+import com.imsweb.mph.internal.TumorCategories;
 
 public class Mp2004SolidMalignantGroup extends MphGroup {
 
+    private static final long _ADENOCARCINOMA = TumorCategories.of(MphConstants.ADENOCARCINOMA_SPECIFIC, MphConstants.ADENOCARCINOMA_NOS);
+
+    private static final long _TRANSITIONAL_CARCINOMA = TumorCategories.of(MphConstants.TRANSITIONAL_CELL_CARCINOMA, MphConstants.PAPILLARY_TRANSITIONAL_CELL_CARCINOMA);
+
+    // the groups of sites considered as the same site, see isSameSite()
+    private static final long _SAME_SITE_GROUPS = TumorCategories.of(MphConstants.TONGUE, MphConstants.MOUTH, MphConstants.SALIVARY, MphConstants.OROPHARYNX, MphConstants.HYPOPHARYNX,
+            MphConstants.BILIARY, MphConstants.SINUS, MphConstants.LUNG, MphConstants.MEDIASTINUM, MphConstants.FEMALE_GENITAL, MphConstants.OVARY_OR_FEMALE_GENITAL,
+            MphConstants.MALE_GENITAL, MphConstants.KIDNEY_OR_URINARY, MphConstants.ENDOCRINE);
+
+    private static final long _EXACT_MATCH_SITES = TumorCategories.of(MphConstants.EXACT_MATCH_SITES);
+
+    private static final long _PAIRED_SITES = TumorCategories.of(MphConstants.ALL_PAIRED_SITES);
+
+    private static final long _SMALL_CELL_CARCINOMA = TumorCategories.of(MphConstants.SMALL_CELL_CARCINOMA);
+
+    private static final long _NON_SMALL_CELL_CARCINOMA = TumorCategories.of(MphConstants.NON_SMALL_CELL_CARCINOMA);
+
+    private static final long _RETINO_BLASTOMA = TumorCategories.of(MphConstants.RETINO_BLASTOMA);
+
+    // the histologies of the exceptions of M6
+    private static final long _CARCINOMA_NOS = TumorCategories.of(MphConstants.CARCINOMA_NOS);
+
+    private static final long _CARCINOMA_SPECIFIC = TumorCategories.of(MphConstants.CARCINOMA_SPECIFIC);
+
+    private static final long _ADENOCARCINOMA_NOS = TumorCategories.of(MphConstants.ADENOCARCINOMA_NOS);
+
+    private static final long _ADENOCARCINOMA_SPECIFIC = TumorCategories.of(MphConstants.ADENOCARCINOMA_SPECIFIC);
+
+    private static final long _MELANOMA_NOS = TumorCategories.of(MphConstants.MELANOMA_NOS);
+
+    private static final long _MELANOMA_SPECIFIC = TumorCategories.of(MphConstants.MELANOMA_SPECIFIC);
+
+    private static final long _SARCOMA_NOS = TumorCategories.of(MphConstants.SARCOMA_NOS);
+
+    private static final long _SARCOMA_SPECIFIC = TumorCategories.of(MphConstants.SARCOMA_SPECIFIC);
+
+    private static final long _FAMILIAL_ADENOMATOUS_POLYPOSIS = TumorCategories.of(MphConstants.FAMILIAL_ADENOMATOUS_POLYPOSIS);
+
+    private static final long _FOLLICULAR_OR_PAPILLARY = TumorCategories.of(MphConstants.FOLLICULAR, MphConstants.PAPILLARY);
+
+    private static final long _DUCT_OR_LOBULAR = TumorCategories.of(MphConstants.DUCT_CARCINOMA, MphConstants.LOBULAR_CARCINOMA);
+
+    private static final long _PAGET_DUCT_OR_INTRADUCTAL = TumorCategories.of(MphConstants.PAGET_DISEASE, MphConstants.DUCT_CARCINOMA, MphConstants.INTRADUCTAL_CARCINOMA);
+
     public Mp2004SolidMalignantGroup() {
         super(MphConstants.MP_2004_SOLID_MALIGNANT_GROUP_ID, MphConstants.MP_2004_SOLID_MALIGNANT_GROUP_NAME, null, null, "8000-9589", null, "2-3,6", "0000-2006");
+    }
 
+    @Override
+    protected void initializeRules() {
         // Rule 1
         MphRule rule = new MphRule(MphConstants.MP_2004_SOLID_MALIGNANT_GROUP_ID, "M1") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 //TODO
                 return result;
             }
@@ -38,7 +82,7 @@ public class Mp2004SolidMalignantGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2004_SOLID_MALIGNANT_GROUP_ID, "M2") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 //TODO
                 return result;
             }
@@ -53,28 +97,25 @@ public class Mp2004SolidMalignantGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2004_SOLID_MALIGNANT_GROUP_ID, "M3") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();                
+                TempRuleResult result = TempRuleResult.NO_RESULT;                
                 int daysApart = GroupUtility.verifyDaysApart(i1, i2, 60);
-                if (isSameSite(i1.getPrimarySite(), i2.getPrimarySite()) && isSameHistology(i1.getHistology(), i2.getHistology()) && daysApart != 1) {
-                    if (isPairedSite(i1.getPrimarySite()) && isPairedSite(i2.getPrimarySite())) {
+                if (isSameSite(i1, i2) && isSameHistology(i1, i2) && daysApart != 1) {
+                    if (isPairedSite(i1) && isPairedSite(i2)) {
                         //Each side of a paired organ is considered a separate site.
                         if (GroupUtility.areOppositeSides(i1.getLaterality(), i2.getLaterality()))
                             return result;
                         else if (!GroupUtility.validLaterality(i1.getLaterality(), i2.getLaterality())) {
-                            result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
                             if (daysApart == -1)
-                                result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known laterality and diagnosis date should be provided.");
+                                return potentialResult(MphUtils.MpResult.SINGLE_PRIMARY, "Valid and known laterality and diagnosis date should be provided.");
                             else
-                                result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known laterality for paired sites should be provided.");
-                            return result;
+                                return potentialResult(MphUtils.MpResult.SINGLE_PRIMARY, "Valid and known laterality for paired sites should be provided.");
                         }
                     }
                     if (daysApart == -1) {
-                        result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known diagnosis date should be provided.");
+                        result = potentialResult(MphUtils.MpResult.SINGLE_PRIMARY, "Valid and known diagnosis date should be provided.");
                     }
                     else
-                        result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                        result = TempRuleResult.SINGLE_PRIMARY;
                 }
                 return result;
             }
@@ -92,36 +133,36 @@ public class Mp2004SolidMalignantGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2004_SOLID_MALIGNANT_GROUP_ID, "M4") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();                
+                TempRuleResult result = TempRuleResult.NO_RESULT;                
                 String site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite(), hist1 = i1.getHistology(), hist2 = i2.getHistology(), lat1 = i1.getLaterality(), lat2 = i2.getLaterality();
                 int daysApart = GroupUtility.verifyDaysApart(i1, i2, 60);
-                if (isSameSite(site1, site2) && isSameHistology(hist1, hist2) && isPairedSite(site1) && isPairedSite(site2) && daysApart != 1) {
+                if (isSameSite(i1, i2) && isSameHistology(i1, i2) && isPairedSite(i1) && isPairedSite(i2) && daysApart != 1) {
                     if (!GroupUtility.validLaterality(lat1, lat2)) {
-                        result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                        MphUtils.MpResult potential = MphUtils.MpResult.MULTIPLE_PRIMARIES;
                         //Exceptions
-                        if ((MphConstants.OVARY.equals(site1) && MphConstants.OVARY.equals(site2)) || (MphConstants.RETINO_BLASTOMA.containsAll(Arrays.asList(hist1, hist2))) ||
+                        if ((MphConstants.OVARY.equals(site1) && MphConstants.OVARY.equals(site2)) || GroupUtility.bothInCategory(i1, i2, _RETINO_BLASTOMA) ||
                                 (MphConstants.WILMS.equals(hist1) && MphConstants.WILMS.equals(hist2)))
-                            result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                            potential = MphUtils.MpResult.SINGLE_PRIMARY;
                         if (daysApart == -1)
-                            result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known laterality and diagnosis date should be provided.");
+                            result = potentialResult(potential, "Valid and known laterality and diagnosis date should be provided.");
                         else
-                            result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known laterality for paired sites should be provided.");
+                            result = potentialResult(potential, "Valid and known laterality for paired sites should be provided.");
                     }
                     else if (GroupUtility.areOppositeSides(lat1, lat2)) {
                         if (daysApart == -1) {
-                            result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                            MphUtils.MpResult potential = MphUtils.MpResult.MULTIPLE_PRIMARIES;
                             //Exceptions
-                            if ((MphConstants.OVARY.equals(site1) && MphConstants.OVARY.equals(site2)) || (MphConstants.RETINO_BLASTOMA.containsAll(Arrays.asList(hist1, hist2))) ||
+                            if ((MphConstants.OVARY.equals(site1) && MphConstants.OVARY.equals(site2)) || GroupUtility.bothInCategory(i1, i2, _RETINO_BLASTOMA) ||
                                     (MphConstants.WILMS.equals(hist1) && MphConstants.WILMS.equals(hist2)))
-                                result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                            result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known diagnosis date should be provided.");
+                                potential = MphUtils.MpResult.SINGLE_PRIMARY;
+                            result = potentialResult(potential, "Valid and known diagnosis date should be provided.");
                         }
                         else {
-                            result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                            result = TempRuleResult.MULTIPLE_PRIMARIES;
                             //Exceptions
-                            if ((MphConstants.OVARY.equals(site1) && MphConstants.OVARY.equals(site2)) || (MphConstants.RETINO_BLASTOMA.containsAll(Arrays.asList(hist1, hist2))) ||
+                            if ((MphConstants.OVARY.equals(site1) && MphConstants.OVARY.equals(site2)) || GroupUtility.bothInCategory(i1, i2, _RETINO_BLASTOMA) ||
                                     (MphConstants.WILMS.equals(hist1) && MphConstants.WILMS.equals(hist2)))
-                                result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                                result = TempRuleResult.SINGLE_PRIMARY;
                         }
                     }
                 }
@@ -141,47 +182,39 @@ public class Mp2004SolidMalignantGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2004_SOLID_MALIGNANT_GROUP_ID, "M5") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();                
+                TempRuleResult result = TempRuleResult.NO_RESULT;                
                 String site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite(), hist1 = i1.getHistology(), hist2 = i2.getHistology(), beh1 = i1.getBehavior(), beh2 =
                         i2.getBehavior();
                 int daysApart = GroupUtility.verifyDaysApart(i1, i2, 60);
-                if (isSameSite(site1, site2) && isSameHistology(hist1, hist2) && daysApart != 0) {
+                if (isSameSite(i1, i2) && isSameHistology(i1, i2) && daysApart != 0) {
                     if (daysApart == -1) {
-                        result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                        MphUtils.MpResult potential = MphUtils.MpResult.MULTIPLE_PRIMARIES;
                         //Exceptions
-                        List<String> adenoCarcinoma = new ArrayList<>(MphConstants.ADENOCARCINOMA_SPECIFIC);
-                        adenoCarcinoma.addAll(MphConstants.ADENOCARCINOMA_NOS);
-                        if (MphConstants.PROSTATE.equals(site1) && site1.equals(site2) && MphConstants.MALIGNANT.equals(beh1) && beh1.equals(beh2) && adenoCarcinoma.containsAll(
-                                Arrays.asList(hist1, hist2)))
-                            result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-
-                        List<String> carcinoma = new ArrayList<>(MphConstants.TRANSITIONAL_CELL_CARCINOMA);
-                        carcinoma.addAll(MphConstants.PAPILLARY_TRANSITIONAL_CELL_CARCINOMA);
-                        if (site1.startsWith(MphConstants.BLADDER) && site2.startsWith(MphConstants.BLADDER) && MphConstants.MALIGNANT.equals(beh1) && beh1.equals(beh2) && carcinoma.containsAll(
-                                Arrays.asList(hist1, hist2)))
-                            result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                        if (MphConstants.PROSTATE.equals(site1) && site1.equals(site2) && MphConstants.MALIGNANT.equals(beh1) && beh1.equals(beh2)
+                                && GroupUtility.bothInCategory(i1, i2, _ADENOCARCINOMA))
+                            potential = MphUtils.MpResult.SINGLE_PRIMARY;
+
+                        if (site1.startsWith(MphConstants.BLADDER) && site2.startsWith(MphConstants.BLADDER) && MphConstants.MALIGNANT.equals(beh1) && beh1.equals(beh2)
+                                && GroupUtility.bothInCategory(i1, i2, _TRANSITIONAL_CARCINOMA))
+                            potential = MphUtils.MpResult.SINGLE_PRIMARY;
 
                         if (MphConstants.KAPOSI_SARCOMA.equals(hist1) && hist1.equals(hist2))
-                            result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known diagnosis date should be provided.");
+                            potential = MphUtils.MpResult.SINGLE_PRIMARY;
+                        result = potentialResult(potential, "Valid and known diagnosis date should be provided.");
                     }
                     else {
-                        result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                        result = TempRuleResult.MULTIPLE_PRIMARIES;
                         //Exceptions
-                        List<String> adenoCarcinoma = new ArrayList<>(MphConstants.ADENOCARCINOMA_SPECIFIC);
-                        adenoCarcinoma.addAll(MphConstants.ADENOCARCINOMA_NOS);
-                        if (MphConstants.PROSTATE.equals(site1) && site1.equals(site2) && MphConstants.MALIGNANT.equals(beh1) && beh1.equals(beh2) && adenoCarcinoma.containsAll(
-                                Arrays.asList(hist1, hist2)))
-                            result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
-
-                        List<String> carcinoma = new ArrayList<>(MphConstants.TRANSITIONAL_CELL_CARCINOMA);
-                        carcinoma.addAll(MphConstants.PAPILLARY_TRANSITIONAL_CELL_CARCINOMA);
-                        if (site1.startsWith(MphConstants.BLADDER) && site2.startsWith(MphConstants.BLADDER) && MphConstants.MALIGNANT.equals(beh1) && beh1.equals(beh2) && carcinoma.containsAll(
-                                Arrays.asList(hist1, hist2)))
-                            result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                        if (MphConstants.PROSTATE.equals(site1) && site1.equals(site2) && MphConstants.MALIGNANT.equals(beh1) && beh1.equals(beh2)
+                                && GroupUtility.bothInCategory(i1, i2, _ADENOCARCINOMA))
+                            result = TempRuleResult.SINGLE_PRIMARY;
+
+                        if (site1.startsWith(MphConstants.BLADDER) && site2.startsWith(MphConstants.BLADDER) && MphConstants.MALIGNANT.equals(beh1) && beh1.equals(beh2)
+                                && GroupUtility.bothInCategory(i1, i2, _TRANSITIONAL_CARCINOMA))
+                            result = TempRuleResult.SINGLE_PRIMARY;
 
                         if (MphConstants.KAPOSI_SARCOMA.equals(hist1) && hist1.equals(hist2))
-                            result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                            result = TempRuleResult.SINGLE_PRIMARY;
                     }
                 }
                 return result;
@@ -209,112 +242,97 @@ public class Mp2004SolidMalignantGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2004_SOLID_MALIGNANT_GROUP_ID, "M6") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 String site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite(), hist1 = i1.getHistology(), hist2 = i2.getHistology(), lat1 = i1.getLaterality(), lat2 = i2.getLaterality();
                 int daysApart = GroupUtility.verifyDaysApart(i1, i2, 60);
-                if (isSameSite(site1, site2) && !isSameHistology(hist1, hist2) && daysApart != 1) {
-                    if (isPairedSite(i1.getPrimarySite()) && isPairedSite(i2.getPrimarySite())) {
+                if (isSameSite(i1, i2) && !isSameHistology(i1, i2) && daysApart != 1) {
+                    if (isPairedSite(i1) && isPairedSite(i2)) {
                         //only single paired
                         if (GroupUtility.areOppositeSides(lat1, lat2))
                             return result;
                         else if (!GroupUtility.validLaterality(lat1, lat2)) {
-                            result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                            MphUtils.MpResult potential = MphUtils.MpResult.MULTIPLE_PRIMARIES;
                             //Exceptions
-                            if (GroupUtility.differentCategory(hist1, hist2, MphConstants.CARCINOMA_NOS, MphConstants.CARCINOMA_SPECIFIC))
-                                result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                            else if (GroupUtility.differentCategory(hist1, hist2, MphConstants.ADENOCARCINOMA_NOS, MphConstants.ADENOCARCINOMA_SPECIFIC))
-                                result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                            else if (GroupUtility.differentCategory(hist1, hist2, MphConstants.MELANOMA_NOS, MphConstants.MELANOMA_SPECIFIC))
-                                result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                            else if (GroupUtility.differentCategory(hist1, hist2, MphConstants.SARCOMA_NOS, MphConstants.SARCOMA_SPECIFIC))
-                                result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                            if (GroupUtility.differentCategory(i1, i2, _CARCINOMA_NOS, _CARCINOMA_SPECIFIC))
+                                potential = MphUtils.MpResult.SINGLE_PRIMARY;
+                            else if (GroupUtility.differentCategory(i1, i2, _ADENOCARCINOMA_NOS, _ADENOCARCINOMA_SPECIFIC))
+                                potential = MphUtils.MpResult.SINGLE_PRIMARY;
+                            else if (GroupUtility.differentCategory(i1, i2, _MELANOMA_NOS, _MELANOMA_SPECIFIC))
+                                potential = MphUtils.MpResult.SINGLE_PRIMARY;
+                            else if (GroupUtility.differentCategory(i1, i2, _SARCOMA_NOS, _SARCOMA_SPECIFIC))
+                                potential = MphUtils.MpResult.SINGLE_PRIMARY;
                             else if ((site1.startsWith(MphConstants.COLON) || MphConstants.RECTUM.equals(site1)) && (site2.startsWith(MphConstants.COLON) || MphConstants.RECTUM.equals(site2))
-                                    && MphConstants.FAMILIAL_ADENOMATOUS_POLYPOSIS.containsAll(Arrays.asList(hist1, hist2)))
-                                result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                            else if (MphConstants.THYROID.equals(site1) && MphConstants.THYROID.equals(site2) && (MphConstants.FOLLICULAR.contains(hist1) || MphConstants.PAPILLARY.contains(hist1))
-                                    && (MphConstants.FOLLICULAR.contains(hist2) || MphConstants.PAPILLARY.contains(hist2)))
-                                result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                                    && GroupUtility.bothInCategory(i1, i2, _FAMILIAL_ADENOMATOUS_POLYPOSIS))
+                                potential = MphUtils.MpResult.SINGLE_PRIMARY;
+                            else if (MphConstants.THYROID.equals(site1) && MphConstants.THYROID.equals(site2) && GroupUtility.bothInCategory(i1, i2, _FOLLICULAR_OR_PAPILLARY))
+                                potential = MphUtils.MpResult.SINGLE_PRIMARY;
                             else if (site1.startsWith(MphConstants.BLADDER) && site2.startsWith(MphConstants.BLADDER) && (MphConstants.PAPILLARY_CARCINOMA.equals(hist1)
-                                    || MphConstants.TRANSITIONAL_CELL_CARCINOMA.contains(hist1) || MphConstants.PAPILLARY_TRANSITIONAL_CELL_CARCINOMA.contains(hist1)) && (
-                                    MphConstants.PAPILLARY_CARCINOMA.equals(hist2) || MphConstants.TRANSITIONAL_CELL_CARCINOMA.contains(hist2) || MphConstants.PAPILLARY_TRANSITIONAL_CELL_CARCINOMA
-                                            .contains(hist2)))
-                                result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                                    || GroupUtility.isInCategory(i1, _TRANSITIONAL_CARCINOMA)) && (MphConstants.PAPILLARY_CARCINOMA.equals(hist2) || GroupUtility.isInCategory(i2, _TRANSITIONAL_CARCINOMA)))
+                                potential = MphUtils.MpResult.SINGLE_PRIMARY;
                             else if (site1.startsWith(MphConstants.BREAST) && site2.startsWith(MphConstants.BREAST)) {
-                                if ((MphConstants.DUCT_CARCINOMA.contains(hist1) || MphConstants.LOBULAR_CARCINOMA.contains(hist1)) && (MphConstants.DUCT_CARCINOMA.contains(hist2)
-                                        || MphConstants.LOBULAR_CARCINOMA.contains(hist2)))
-                                    result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                                else if ((MphConstants.PAGET_DISEASE.contains(hist1) || MphConstants.DUCT_CARCINOMA.contains(hist1) || MphConstants.INTRADUCTAL_CARCINOMA.contains(hist1)) && (
-                                        MphConstants.PAGET_DISEASE.contains(hist2) || MphConstants.DUCT_CARCINOMA.contains(hist2) || MphConstants.INTRADUCTAL_CARCINOMA.contains(hist2)))
-                                    result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                                if (GroupUtility.bothInCategory(i1, i2, _DUCT_OR_LOBULAR))
+                                    potential = MphUtils.MpResult.SINGLE_PRIMARY;
+                                else if (GroupUtility.bothInCategory(i1, i2, _PAGET_DUCT_OR_INTRADUCTAL))
+                                    potential = MphUtils.MpResult.SINGLE_PRIMARY;
                             }
                             if (daysApart == -1)
-                                result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known laterality and diagnosis date should be provided.");
+                                result = potentialResult(potential, "Valid and known laterality and diagnosis date should be provided.");
                             else
-                                result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known laterality for paired sites should be provided.");
+                                result = potentialResult(potential, "Valid and known laterality for paired sites should be provided.");
                             return result;
                         }
                     }
                     if (daysApart == -1) {
-                        result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                        MphUtils.MpResult potential = MphUtils.MpResult.MULTIPLE_PRIMARIES;
                         //Exceptions
-                        if (GroupUtility.differentCategory(hist1, hist2, MphConstants.CARCINOMA_NOS, MphConstants.CARCINOMA_SPECIFIC))
-                            result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        else if (GroupUtility.differentCategory(hist1, hist2, MphConstants.ADENOCARCINOMA_NOS, MphConstants.ADENOCARCINOMA_SPECIFIC))
-                            result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        else if (GroupUtility.differentCategory(hist1, hist2, MphConstants.MELANOMA_NOS, MphConstants.MELANOMA_SPECIFIC))
-                            result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        else if (GroupUtility.differentCategory(hist1, hist2, MphConstants.SARCOMA_NOS, MphConstants.SARCOMA_SPECIFIC))
-                            result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                        if (GroupUtility.differentCategory(i1, i2, _CARCINOMA_NOS, _CARCINOMA_SPECIFIC))
+                            potential = MphUtils.MpResult.SINGLE_PRIMARY;
+                        else if (GroupUtility.differentCategory(i1, i2, _ADENOCARCINOMA_NOS, _ADENOCARCINOMA_SPECIFIC))
+                            potential = MphUtils.MpResult.SINGLE_PRIMARY;
+                        else if (GroupUtility.differentCategory(i1, i2, _MELANOMA_NOS, _MELANOMA_SPECIFIC))
+                            potential = MphUtils.MpResult.SINGLE_PRIMARY;
+                        else if (GroupUtility.differentCategory(i1, i2, _SARCOMA_NOS, _SARCOMA_SPECIFIC))
+                            potential = MphUtils.MpResult.SINGLE_PRIMARY;
                         else if ((site1.startsWith(MphConstants.COLON) || MphConstants.RECTUM.equals(site1)) && (site2.startsWith(MphConstants.COLON) || MphConstants.RECTUM.equals(site2))
-                                && MphConstants.FAMILIAL_ADENOMATOUS_POLYPOSIS.containsAll(Arrays.asList(hist1, hist2)))
-                            result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        else if (MphConstants.THYROID.equals(site1) && MphConstants.THYROID.equals(site2) && (MphConstants.FOLLICULAR.contains(hist1) || MphConstants.PAPILLARY.contains(hist1))
-                                && (MphConstants.FOLLICULAR.contains(hist2) || MphConstants.PAPILLARY.contains(hist2)))
-                            result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                                && GroupUtility.bothInCategory(i1, i2, _FAMILIAL_ADENOMATOUS_POLYPOSIS))
+                            potential = MphUtils.MpResult.SINGLE_PRIMARY;
+                        else if (MphConstants.THYROID.equals(site1) && MphConstants.THYROID.equals(site2) && GroupUtility.bothInCategory(i1, i2, _FOLLICULAR_OR_PAPILLARY))
+                            potential = MphUtils.MpResult.SINGLE_PRIMARY;
                         else if (site1.startsWith(MphConstants.BLADDER) && site2.startsWith(MphConstants.BLADDER) && (MphConstants.PAPILLARY_CARCINOMA.equals(hist1)
-                                || MphConstants.TRANSITIONAL_CELL_CARCINOMA.contains(hist1) || MphConstants.PAPILLARY_TRANSITIONAL_CELL_CARCINOMA.contains(hist1)) && (
-                                MphConstants.PAPILLARY_CARCINOMA.equals(hist2) || MphConstants.TRANSITIONAL_CELL_CARCINOMA.contains(hist2) || MphConstants.PAPILLARY_TRANSITIONAL_CELL_CARCINOMA
-                                        .contains(hist2)))
-                            result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                                || GroupUtility.isInCategory(i1, _TRANSITIONAL_CARCINOMA)) && (MphConstants.PAPILLARY_CARCINOMA.equals(hist2) || GroupUtility.isInCategory(i2, _TRANSITIONAL_CARCINOMA)))
+                            potential = MphUtils.MpResult.SINGLE_PRIMARY;
                         else if (site1.startsWith(MphConstants.BREAST) && site2.startsWith(MphConstants.BREAST)) {
-                            if ((MphConstants.DUCT_CARCINOMA.contains(hist1) || MphConstants.LOBULAR_CARCINOMA.contains(hist1)) && (MphConstants.DUCT_CARCINOMA.contains(hist2)
-                                    || MphConstants.LOBULAR_CARCINOMA.contains(hist2)))
-                                result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                            else if ((MphConstants.PAGET_DISEASE.contains(hist1) || MphConstants.DUCT_CARCINOMA.contains(hist1) || MphConstants.INTRADUCTAL_CARCINOMA.contains(hist1)) && (
-                                    MphConstants.PAGET_DISEASE.contains(hist2) || MphConstants.DUCT_CARCINOMA.contains(hist2) || MphConstants.INTRADUCTAL_CARCINOMA.contains(hist2)))
-                                result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                            if (GroupUtility.bothInCategory(i1, i2, _DUCT_OR_LOBULAR))
+                                potential = MphUtils.MpResult.SINGLE_PRIMARY;
+                            else if (GroupUtility.bothInCategory(i1, i2, _PAGET_DUCT_OR_INTRADUCTAL))
+                                potential = MphUtils.MpResult.SINGLE_PRIMARY;
                         }
-                        result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known diagnosis date should be provided.");
+                        result = potentialResult(potential, "Valid and known diagnosis date should be provided.");
                     }
                     else {
-                        result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                        result = TempRuleResult.MULTIPLE_PRIMARIES;
                         //Exceptions
-                        if (GroupUtility.differentCategory(hist1, hist2, MphConstants.CARCINOMA_NOS, MphConstants.CARCINOMA_SPECIFIC))
-                            result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        else if (GroupUtility.differentCategory(hist1, hist2, MphConstants.ADENOCARCINOMA_NOS, MphConstants.ADENOCARCINOMA_SPECIFIC))
-                            result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        else if (GroupUtility.differentCategory(hist1, hist2, MphConstants.MELANOMA_NOS, MphConstants.MELANOMA_SPECIFIC))
-                            result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        else if (GroupUtility.differentCategory(hist1, hist2, MphConstants.SARCOMA_NOS, MphConstants.SARCOMA_SPECIFIC))
-                            result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                        if (GroupUtility.differentCategory(i1, i2, _CARCINOMA_NOS, _CARCINOMA_SPECIFIC))
+                            result = TempRuleResult.SINGLE_PRIMARY;
+                        else if (GroupUtility.differentCategory(i1, i2, _ADENOCARCINOMA_NOS, _ADENOCARCINOMA_SPECIFIC))
+                            result = TempRuleResult.SINGLE_PRIMARY;
+                        else if (GroupUtility.differentCategory(i1, i2, _MELANOMA_NOS, _MELANOMA_SPECIFIC))
+                            result = TempRuleResult.SINGLE_PRIMARY;
+                        else if (GroupUtility.differentCategory(i1, i2, _SARCOMA_NOS, _SARCOMA_SPECIFIC))
+                            result = TempRuleResult.SINGLE_PRIMARY;
                         else if ((site1.startsWith(MphConstants.COLON) || MphConstants.RECTUM.equals(site1)) && (site2.startsWith(MphConstants.COLON) || MphConstants.RECTUM.equals(site2))
-                                && MphConstants.FAMILIAL_ADENOMATOUS_POLYPOSIS.containsAll(Arrays.asList(hist1, hist2)))
-                            result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        else if (MphConstants.THYROID.equals(site1) && MphConstants.THYROID.equals(site2) && (MphConstants.FOLLICULAR.contains(hist1) || MphConstants.PAPILLARY.contains(hist1))
-                                && (MphConstants.FOLLICULAR.contains(hist2) || MphConstants.PAPILLARY.contains(hist2)))
-                            result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                                && GroupUtility.bothInCategory(i1, i2, _FAMILIAL_ADENOMATOUS_POLYPOSIS))
+                            result = TempRuleResult.SINGLE_PRIMARY;
+                        else if (MphConstants.THYROID.equals(site1) && MphConstants.THYROID.equals(site2) && GroupUtility.bothInCategory(i1, i2, _FOLLICULAR_OR_PAPILLARY))
+                            result = TempRuleResult.SINGLE_PRIMARY;
                         else if (site1.startsWith(MphConstants.BLADDER) && site2.startsWith(MphConstants.BLADDER) && (MphConstants.PAPILLARY_CARCINOMA.equals(hist1)
-                                || MphConstants.TRANSITIONAL_CELL_CARCINOMA.contains(hist1) || MphConstants.PAPILLARY_TRANSITIONAL_CELL_CARCINOMA.contains(hist1)) && (
-                                MphConstants.PAPILLARY_CARCINOMA.equals(hist2) || MphConstants.TRANSITIONAL_CELL_CARCINOMA.contains(hist2) || MphConstants.PAPILLARY_TRANSITIONAL_CELL_CARCINOMA
-                                        .contains(hist2)))
-                            result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                                || GroupUtility.isInCategory(i1, _TRANSITIONAL_CARCINOMA)) && (MphConstants.PAPILLARY_CARCINOMA.equals(hist2) || GroupUtility.isInCategory(i2, _TRANSITIONAL_CARCINOMA)))
+                            result = TempRuleResult.SINGLE_PRIMARY;
                         else if (site1.startsWith(MphConstants.BREAST) && site2.startsWith(MphConstants.BREAST)) {
-                            if ((MphConstants.DUCT_CARCINOMA.contains(hist1) || MphConstants.LOBULAR_CARCINOMA.contains(hist1)) && (MphConstants.DUCT_CARCINOMA.contains(hist2)
-                                    || MphConstants.LOBULAR_CARCINOMA.contains(hist2)))
-                                result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                            else if ((MphConstants.PAGET_DISEASE.contains(hist1) || MphConstants.DUCT_CARCINOMA.contains(hist1) || MphConstants.INTRADUCTAL_CARCINOMA.contains(hist1)) && (
-                                    MphConstants.PAGET_DISEASE.contains(hist2) || MphConstants.DUCT_CARCINOMA.contains(hist2) || MphConstants.INTRADUCTAL_CARCINOMA.contains(hist2)))
-                                result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                            if (GroupUtility.bothInCategory(i1, i2, _DUCT_OR_LOBULAR))
+                                result = TempRuleResult.SINGLE_PRIMARY;
+                            else if (GroupUtility.bothInCategory(i1, i2, _PAGET_DUCT_OR_INTRADUCTAL))
+                                result = TempRuleResult.SINGLE_PRIMARY;
                         }
                     }
                 }
@@ -346,23 +364,22 @@ public class Mp2004SolidMalignantGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2004_SOLID_MALIGNANT_GROUP_ID, "M7") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();                
-                String site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite(), hist1 = i1.getHistology(), hist2 = i2.getHistology(), lat1 = i1.getLaterality(), lat2 = i2.getLaterality();
+                TempRuleResult result = TempRuleResult.NO_RESULT;                
+                String lat1 = i1.getLaterality(), lat2 = i2.getLaterality();
                 int daysApart = GroupUtility.verifyDaysApart(i1, i2, 60);
-                if (isSameSite(site1, site2) && !isSameHistology(hist1, hist2) && daysApart != 1 && isPairedSite(site1) && isPairedSite(site2)) {
+                if (isSameSite(i1, i2) && !isSameHistology(i1, i2) && daysApart != 1 && isPairedSite(i1) && isPairedSite(i2)) {
                     if (!GroupUtility.validLaterality(lat1, lat2)) {
-                        result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                        MphUtils.MpResult potential = MphUtils.MpResult.MULTIPLE_PRIMARIES;
                         if (daysApart == -1)
-                            result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known laterality and diagnosis date should be provided.");
+                            result = potentialResult(potential, "Valid and known laterality and diagnosis date should be provided.");
                         else
-                            result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known laterality for paired sites should be provided.");
+                            result = potentialResult(potential, "Valid and known laterality for paired sites should be provided.");
                     }
                     else if (daysApart == -1) {
-                        result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
-                        result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known diagnosis date should be provided.");
+                        result = potentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES, "Valid and known diagnosis date should be provided.");
                     }
                     else if (GroupUtility.areOppositeSides(lat1, lat2))
-                        result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                        result = TempRuleResult.MULTIPLE_PRIMARIES;
                 }
                 return result;
             }
@@ -376,16 +393,14 @@ public class Mp2004SolidMalignantGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2004_SOLID_MALIGNANT_GROUP_ID, "M8") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                String site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite(), hist1 = i1.getHistology(), hist2 = i2.getHistology();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 int daysApart = GroupUtility.verifyDaysApart(i1, i2, 60);
-                if (isSameSite(site1, site2) && !isSameHistology(hist1, hist2) && daysApart != 0) {
+                if (isSameSite(i1, i2) && !isSameHistology(i1, i2) && daysApart != 0) {
                     if (daysApart == -1) {
-                        result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
-                        result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known diagnosis date should be provided.");
+                        result = potentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES, "Valid and known diagnosis date should be provided.");
                     }
                     else
-                        result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                        result = TempRuleResult.MULTIPLE_PRIMARIES;
                 }
                 return result;
             }
@@ -397,10 +412,9 @@ public class Mp2004SolidMalignantGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2004_SOLID_MALIGNANT_GROUP_ID, "M9") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                String site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite(), hist1 = i1.getHistology(), hist2 = i2.getHistology();
-                if (!isSameSite(site1, site2) && !isSameHistology(hist1, hist2))
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if (!isSameSite(i1, i2) && !isSameHistology(i1, i2))
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
                 return result;
             }
         };
@@ -414,9 +428,8 @@ public class Mp2004SolidMalignantGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2004_SOLID_MALIGNANT_GROUP_ID, "M10") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                String site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite(), hist1 = i1.getHistology(), hist2 = i2.getHistology();
-                result.setFinalResult(!isSameSite(site1, site2) && isSameHistology(hist1, hist2) ? MphUtils.MpResult.MULTIPLE_PRIMARIES : MphUtils.MpResult.SINGLE_PRIMARY);
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                result = TempRuleResult.finalResult(!isSameSite(i1, i2) && isSameHistology(i1, i2) ? MphUtils.MpResult.MULTIPLE_PRIMARIES : MphUtils.MpResult.SINGLE_PRIMARY);
                 return result;
             }
         };
@@ -424,24 +437,17 @@ public class Mp2004SolidMalignantGroup extends MphGroup {
         _rules.add(rule);
     }
 
-    private boolean isSameSite(String site1, String site2) {
-
-        String s1 = site1.substring(0, 3), s2 = site2.substring(0, 3);
-        return site1.equals(site2) || (s1.equals(s2) && !MphConstants.EXACT_MATCH_SITES.contains(s1)) || MphConstants.TONGUE.containsAll(Arrays.asList(s1, s2)) || MphConstants.MOUTH.containsAll(
-                Arrays.asList(s1, s2)) || MphConstants.SALIVARY.containsAll(Arrays.asList(s1, s2)) || MphConstants.OROPHARYNX.containsAll(Arrays.asList(s1, s2)) || MphConstants.HYPOPHARYNX
-                .containsAll(Arrays.asList(s1, s2)) || MphConstants.BILIARY.containsAll(Arrays.asList(s1, s2)) || MphConstants.SINUS.containsAll(Arrays.asList(s1, s2)) || MphConstants.LUNG
-                .containsAll(Arrays.asList(s1, s2)) || (GroupUtility.isSiteContained(MphConstants.MEDIASTINUM, site1) && GroupUtility.isSiteContained(MphConstants.MEDIASTINUM, site2)) || (
-                GroupUtility.isSiteContained(MphConstants.FEMALE_GENITAL, site1) && GroupUtility.isSiteContained(MphConstants.FEMALE_GENITAL, site2)) || (GroupUtility.isSiteContained(
-                MphConstants.OVARY_OR_FEMALE_GENITAL, site1) && GroupUtility.isSiteContained(MphConstants.OVARY_OR_FEMALE_GENITAL, site2)) || MphConstants.MALE_GENITAL.containsAll(
-                Arrays.asList(s1, s2)) || MphConstants.KIDNEY_OR_URINARY.containsAll(Arrays.asList(s1, s2)) || MphConstants.ENDOCRINE.containsAll(Arrays.asList(s1, s2));
+    private boolean isSameSite(MphInput i1, MphInput i2) {
+        String site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite();
+        return site1.equals(site2) || (site1.regionMatches(0, site2, 0, 3) && !GroupUtility.isInCategory(i1, _EXACT_MATCH_SITES)) || GroupUtility.sameCategory(i1, i2, _SAME_SITE_GROUPS);
     }
 
-    private boolean isSameHistology(String hist1, String hist2) {
-        return hist1.substring(0, 3).equals(hist2.substring(0, 3)) && !GroupUtility.differentCategory(hist1, hist2, MphConstants.SMALL_CELL_CARCINOMA, MphConstants.NON_SMALL_CELL_CARCINOMA);
+    private boolean isSameHistology(MphInput i1, MphInput i2) {
+        return i1.getHistology().regionMatches(0, i2.getHistology(), 0, 3) && !GroupUtility.differentCategory(i1, i2, _SMALL_CELL_CARCINOMA, _NON_SMALL_CELL_CARCINOMA);
     }
 
-    private boolean isPairedSite(String site) {
-        return GroupUtility.isSiteContained(MphConstants.ALL_PAIRED_SITES, site);
+    private boolean isPairedSite(MphInput input) {
+        return GroupUtility.isInCategory(input, _PAIRED_SITES);
     }
 
 }
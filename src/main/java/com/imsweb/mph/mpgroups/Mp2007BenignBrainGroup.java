@@ -3,28 +3,32 @@
  */
 package com.imsweb.mph.mpgroups;
 
-import java.util.Arrays;
-import java.util.List;
-
 import com.imsweb.mph.MphComputeOptions;
 import com.imsweb.mph.MphConstants;
 import com.imsweb.mph.MphGroup;
 import com.imsweb.mph.MphInput;
 import com.imsweb.mph.MphRule;
 import com.imsweb.mph.MphUtils;
+import com.imsweb.mph.internal.CodeSet;
 import com.imsweb.mph.internal.TempRuleResult;
 
 public class Mp2007BenignBrainGroup extends MphGroup {
 
+    private static final CodeSet[] _PAIRED_SITES = {CodeSet.ofSites("C700"), CodeSet.ofSites("C710"), CodeSet.ofSites("C711"), CodeSet.ofSites("C712"), CodeSet.ofSites("C713"),
+            CodeSet.ofSites("C714"), CodeSet.ofSites("C722"), CodeSet.ofSites("C723"), CodeSet.ofSites("C724"), CodeSet.ofSites("C725")};
+
     public Mp2007BenignBrainGroup() {
         super(MphConstants.MP_2007_BENIGN_BRAIN_GROUP_ID, MphConstants.MP_2007_BENIGN_BRAIN_GROUP_NAME, "C700-C701, C709-C725, C728-C729, C751-C753", null, null, "9590-9989,9140", "0-1", "2007-9999");
+    }
 
+    @Override
+    protected void initializeRules() {
         // M3 - An invasive brain tumor (/3) and either a benign brain tumor (/0) or an uncertain/borderline brain tumor (/1) are always multiple primaries.        
         MphRule rule = new MphRule(MphConstants.MP_2007_BENIGN_BRAIN_GROUP_ID, "M3") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
                 //This will never happen, since the two conditions belong to different cancer group.           
-                return new TempRuleResult();
+                return TempRuleResult.NO_RESULT;
             }
         };
         rule.setQuestion("Is there an invasive tumor (/3) and either a benign brain tumor (/0) or an uncertain/borderline brain tumor (/1)?");
@@ -35,9 +39,9 @@ public class Mp2007BenignBrainGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_BENIGN_BRAIN_GROUP_ID, "M4") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 if (!i1.getPrimarySite().equals(i2.getPrimarySite()))
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
                 return result;
             }
         };
@@ -49,17 +53,14 @@ public class Mp2007BenignBrainGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_BENIGN_BRAIN_GROUP_ID, "M5") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                List<String> pairedSites = Arrays.asList("C700", "C710", "C711", "C712", "C713", "C714", "C722", "C723", "C724", "C725");
-                if (GroupUtility.isPairedSites(i1.getPrimarySite(), i2.getPrimarySite(), pairedSites)) {
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if (GroupUtility.isPairedSites(i1.getPrimarySite(), i2.getPrimarySite(), _PAIRED_SITES)) {
                     if (!GroupUtility.validLaterality(i1.getLaterality(), i2.getLaterality())) {
-                        result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
-                        result.setMessage(
-                                "Unable to apply Rule" + this.getStep() + " of " + this.getGroupId() + ". Valid and known laterality for paired sites of " + this.getGroupId()
-                                        + " should be provided.");
+                        result = potentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES, "Valid and known laterality for paired sites of " + MphConstants.MP_2007_BENIGN_BRAIN_GROUP_ID
+                                + " should be provided.");
                     }
                     else if (GroupUtility.areOppositeSides(i1.getLaterality(), i2.getLaterality()))
-                        result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                        result = TempRuleResult.MULTIPLE_PRIMARIES;
                 }
                 return result;
             }
@@ -72,18 +73,17 @@ public class Mp2007BenignBrainGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_BENIGN_BRAIN_GROUP_ID, "M6") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 if (MphConstants.PAPILLOMA.equals(i1.getHistology()) && MphConstants.PAPILLOMA.equals(i2.getHistology()) && ((MphConstants.UNCERTAIN.equals(i1.getBehavior()) && MphConstants.BENIGN
                         .equals(i2.getBehavior())) || (MphConstants.UNCERTAIN.equals(i2.getBehavior()) && MphConstants.BENIGN.equals(i1.getBehavior())))) {
                     int laterDiagnosedTumor = GroupUtility.compareDxDate(i1, i2);
                     if (-1 == laterDiagnosedTumor) { //If impossible to decide which tumor is diagnosed later
-                        result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        result.setMessage("Unable to apply Rule" + this.getStep() + " of " + this.getGroupId() + ". Known diagnosis date should be provided.");
+                        result = potentialResult(MphUtils.MpResult.SINGLE_PRIMARY, "Known diagnosis date should be provided.");
                     }
                     else if (1 == laterDiagnosedTumor && MphConstants.UNCERTAIN.equals(i1.getBehavior()) && MphConstants.BENIGN.equals(i2.getBehavior()))
-                        result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                        result = TempRuleResult.SINGLE_PRIMARY;
                     else if (2 == laterDiagnosedTumor && MphConstants.UNCERTAIN.equals(i2.getBehavior()) && MphConstants.BENIGN.equals(i1.getBehavior()))
-                        result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                        result = TempRuleResult.SINGLE_PRIMARY;
                 }
                 return result;
             }
@@ -97,18 +97,17 @@ public class Mp2007BenignBrainGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_BENIGN_BRAIN_GROUP_ID, "M7") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 if (MphConstants.NEUROFIBROMATOSIS.equals(i1.getHistology()) && MphConstants.NEUROFIBROMATOSIS.equals(i2.getHistology()) && ((MphConstants.UNCERTAIN.equals(i1.getBehavior())
                         && MphConstants.BENIGN.equals(i2.getBehavior())) || (MphConstants.UNCERTAIN.equals(i2.getBehavior()) && MphConstants.BENIGN.equals(i1.getBehavior())))) {
                     int laterDiagnosedTumor = GroupUtility.compareDxDate(i1, i2);
                     if (-1 == laterDiagnosedTumor) { //If impossible to decide which tumor is diagnosed first
-                        result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        result.setMessage("Unable to apply Rule" + this.getStep() + " of " + this.getGroupId() + ". Known diagnosis date should be provided.");
+                        result = potentialResult(MphUtils.MpResult.SINGLE_PRIMARY, "Known diagnosis date should be provided.");
                     }
                     else if (1 == laterDiagnosedTumor && MphConstants.UNCERTAIN.equals(i1.getBehavior()) && MphConstants.BENIGN.equals(i2.getBehavior()))
-                        result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                        result = TempRuleResult.SINGLE_PRIMARY;
                     else if (2 == laterDiagnosedTumor && MphConstants.UNCERTAIN.equals(i2.getBehavior()) && MphConstants.BENIGN.equals(i1.getBehavior()))
-                        result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                        result = TempRuleResult.SINGLE_PRIMARY;
                 }
                 return result;
             }
@@ -122,14 +121,14 @@ public class Mp2007BenignBrainGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_BENIGN_BRAIN_GROUP_ID, "M8") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                String icd1 = i1.getHistology() + "/" + i1.getBehavior(), icd2 = i2.getHistology() + "/" + i2.getBehavior();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                String icd1 = GroupUtility.getMorphology(i1.getHistology(), i1.getBehavior()), icd2 = GroupUtility.getMorphology(i2.getHistology(), i2.getBehavior());
                 String branch1 = MphConstants.BENIGN_BRAIN_2007_CHART1.get(icd1) != null ? MphConstants.BENIGN_BRAIN_2007_CHART1.get(icd1) : MphConstants.BENIGN_BRAIN_2007_CHART1.get(
                         i1.getHistology());
                 String branch2 = MphConstants.BENIGN_BRAIN_2007_CHART1.get(icd2) != null ? MphConstants.BENIGN_BRAIN_2007_CHART1.get(icd2) : MphConstants.BENIGN_BRAIN_2007_CHART1.get(
                         i2.getHistology());
                 if (branch1 != null && branch2 != null && branch1.equals(branch2))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                    result = TempRuleResult.SINGLE_PRIMARY;
 
                 return result;
             }
@@ -142,14 +141,14 @@ public class Mp2007BenignBrainGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_BENIGN_BRAIN_GROUP_ID, "M9") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                String icd1 = i1.getHistology() + "/" + i1.getBehavior(), icd2 = i2.getHistology() + "/" + i2.getBehavior();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                String icd1 = GroupUtility.getMorphology(i1.getHistology(), i1.getBehavior()), icd2 = GroupUtility.getMorphology(i2.getHistology(), i2.getBehavior());
                 String branch1 = MphConstants.BENIGN_BRAIN_2007_CHART1.get(icd1) != null ? MphConstants.BENIGN_BRAIN_2007_CHART1.get(icd1) : MphConstants.BENIGN_BRAIN_2007_CHART1.get(
                         i1.getHistology());
                 String branch2 = MphConstants.BENIGN_BRAIN_2007_CHART1.get(icd2) != null ? MphConstants.BENIGN_BRAIN_2007_CHART1.get(icd2) : MphConstants.BENIGN_BRAIN_2007_CHART1.get(
                         i2.getHistology());
                 if (branch1 != null && branch2 != null && !branch1.equals(branch2))
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
 
                 return result;
             }
@@ -162,15 +161,15 @@ public class Mp2007BenignBrainGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_BENIGN_BRAIN_GROUP_ID, "M10") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                String icd1 = i1.getHistology() + "/" + i1.getBehavior(), icd2 = i2.getHistology() + "/" + i2.getBehavior();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                String icd1 = GroupUtility.getMorphology(i1.getHistology(), i1.getBehavior()), icd2 = GroupUtility.getMorphology(i2.getHistology(), i2.getBehavior());
                 String branch1 = MphConstants.BENIGN_BRAIN_2007_CHART1.get(icd1) != null ? MphConstants.BENIGN_BRAIN_2007_CHART1.get(icd1) : MphConstants.BENIGN_BRAIN_2007_CHART1.get(
                         i1.getHistology());
                 String branch2 = MphConstants.BENIGN_BRAIN_2007_CHART1.get(icd2) != null ? MphConstants.BENIGN_BRAIN_2007_CHART1.get(icd2) : MphConstants.BENIGN_BRAIN_2007_CHART1.get(
                         i2.getHistology());
                 //This rule is used only when one histology code is listed in chart and the other not, see note for M11
                 if ((branch1 != null && branch2 == null) || (branch2 != null && branch1 == null))
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
                 return result;
             }
         };
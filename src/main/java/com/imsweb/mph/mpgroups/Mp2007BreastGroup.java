@@ -3,23 +3,28 @@
  */
 package com.imsweb.mph.mpgroups;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-
 import com.imsweb.mph.MphComputeOptions;
 import com.imsweb.mph.MphConstants;
 import com.imsweb.mph.MphGroup;
 import com.imsweb.mph.MphInput;
 import com.imsweb.mph.MphRule;
 import com.imsweb.mph.MphUtils;
+import com.imsweb.mph.internal.CodeSet;
+import com.imsweb.mph.internal.PairFeatures;
 import com.imsweb.mph.internal.TempRuleResult;
 
 public class Mp2007BreastGroup extends MphGroup {
 
+    private static final CodeSet _INTRADUCTAL_OR_DUCT = MphConstants.INTRADUCTAL_CARCINOMA.union(MphConstants.DUCT_CARCINOMA);
+
+    private static final CodeSet _LOBULAR = CodeSet.ofHistologies("8520"); //TODO if lobular of KY is correct use the constant in MphConstants
+
     public Mp2007BreastGroup() {
         super(MphConstants.MP_2007_BREAST_GROUP_ID, MphConstants.MP_2007_BREAST_GROUP_NAME, "C500-C509", null, null, "9590-9989,9140", "2-3,6", "2007-9999");
+    }
 
+    @Override
+    protected void initializeRules() {
         // M4- Tumors in sites with ICD-O-3 topography codes that are different at the second (C?xx) and/or third (Cx?x) character are multiple primaries.
         MphRule rule = new MphRulePrimarySiteCode(MphConstants.MP_2007_BREAST_GROUP_ID, "M4");
         _rules.add(rule);
@@ -32,28 +37,28 @@ public class Mp2007BreastGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_BREAST_GROUP_ID, "M6") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 if (MphConstants.MALIGNANT.equals(i1.getBehavior()) && MphConstants.MALIGNANT.equals(i2.getBehavior()) && MphConstants.INFLAMMATORY_CARCINOMA.equals(i1.getHistology())
                         && MphConstants.INFLAMMATORY_CARCINOMA.equals(i2.getHistology()))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                    result = TempRuleResult.SINGLE_PRIMARY;
                 return result;
             }
         };
         rule.setQuestion("Is there inflammatory carcinoma in one or both breasts?");
         rule.setReason("Inflammatory carcinoma in one or both breasts is a single primary.");
+        rule.setGuard(PairFeatures.BOTH_MALIGNANT | PairFeatures.SAME_HISTOLOGY);
         _rules.add(rule);
 
         //M7- Tumors on both sides (right and left breast) are multiple primaries.
         rule = new MphRule(MphConstants.MP_2007_BREAST_GROUP_ID, "M7") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 if (!GroupUtility.validLaterality(i1.getLaterality(), i2.getLaterality())) {
-                    result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
-                    result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known laterality should be provided.");
+                    result = potentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES, "Valid and known laterality should be provided.");
                 }
                 else if (GroupUtility.areOppositeSides(i1.getLaterality(), i2.getLaterality()))
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
 
                 return result;
             }
@@ -71,46 +76,41 @@ public class Mp2007BreastGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_BREAST_GROUP_ID, "M9") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                List<String> intraductalOrDuct = new ArrayList<>(MphConstants.INTRADUCTAL_CARCINOMA);
-                intraductalOrDuct.addAll(MphConstants.DUCT_CARCINOMA);
-                if (GroupUtility.differentCategory(i1.getHistology(), i2.getHistology(), MphConstants.PAGET_DISEASE, intraductalOrDuct))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if (GroupUtility.differentCategory(i1.getHistology(), i2.getHistology(), MphConstants.PAGET_DISEASE, _INTRADUCTAL_OR_DUCT))
+                    result = TempRuleResult.SINGLE_PRIMARY;
                 return result;
             }
         };
         rule.setQuestion("Are the tumors intraductal or duct and Paget Disease?");
         rule.setReason("Tumors that are intraductal or duct and Paget Disease are a single primary.");
         rule.getNotes().add("Use Table 1 and Table 2 to identify intraductal and duct carcinomas.");
+        rule.setGuard(PairFeatures.DIFFERENT_HISTOLOGY);
         _rules.add(rule);
 
         //M10- Tumors that are lobular (8520) and intraductal or duct are a single primary.
         rule = new MphRule(MphConstants.MP_2007_BREAST_GROUP_ID, "M10") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                List<String> lobular = GroupUtility.expandList("8520"); //TODO if lobular of KY is correct use the constant in MphConstants
-                List<String> intraductalOrDuct = new ArrayList<>(MphConstants.INTRADUCTAL_CARCINOMA);
-                intraductalOrDuct.addAll(MphConstants.DUCT_CARCINOMA);
-                if (GroupUtility.differentCategory(i1.getHistology(), i2.getHistology(), lobular, intraductalOrDuct))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if (GroupUtility.differentCategory(i1.getHistology(), i2.getHistology(), _LOBULAR, _INTRADUCTAL_OR_DUCT))
+                    result = TempRuleResult.SINGLE_PRIMARY;
                 return result;
             }
         };
         rule.setQuestion("Are the tumors lobular (8520) and intraductal or duct?");
         rule.setReason("Tumors that are lobular (8520) and intraductal or duct are a single primary.");
         rule.getNotes().add("Use Table 1 and Table 2 to identify intraductal and duct carcinomas.");
+        rule.setGuard(PairFeatures.DIFFERENT_HISTOLOGY);
         _rules.add(rule);
 
         //M11- Multiple intraductal and/or duct carcinomas are a single primary.
         rule = new MphRule(MphConstants.MP_2007_BREAST_GROUP_ID, "M11") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                List<String> intraductalOrDuct = new ArrayList<>(MphConstants.INTRADUCTAL_CARCINOMA);
-                intraductalOrDuct.addAll(MphConstants.DUCT_CARCINOMA);
-                if (intraductalOrDuct.containsAll(Arrays.asList(i1.getHistology(), i2.getHistology())))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if (_INTRADUCTAL_OR_DUCT.contains(i1.getHistology()) && _INTRADUCTAL_OR_DUCT.contains(i2.getHistology()))
+                    result = TempRuleResult.SINGLE_PRIMARY;
                 return result;
             }
         };
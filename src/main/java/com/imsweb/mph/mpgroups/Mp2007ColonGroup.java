@@ -3,31 +3,41 @@
  */
 package com.imsweb.mph.mpgroups;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-
 import com.imsweb.mph.MphComputeOptions;
 import com.imsweb.mph.MphConstants;
 import com.imsweb.mph.MphGroup;
 import com.imsweb.mph.MphInput;
 import com.imsweb.mph.MphRule;
 import com.imsweb.mph.MphUtils;
+import com.imsweb.mph.internal.CodeSet;
+import com.imsweb.mph.internal.PairFeatures;
 import com.imsweb.mph.internal.TempRuleResult;
+import com.imsweb.mph.internal.TumorCategories;
 
 public class Mp2007ColonGroup extends MphGroup {
 
+    private static final long _ADENOCARCINOMA = TumorCategories.of(MphConstants.ADENOCARCINOMA_SPECIFIC, MphConstants.ADENOCARCINOMA_NOS);
+
+    private static final long _POLYP = TumorCategories.of(MphConstants.POLYP);
+
+    private static final long _FAMILLIAL_POLYPOSIS = TumorCategories.of(MphConstants.FAMILLIAL_POLYPOSIS);
+
+    private static final CodeSet _NOS_HISTOLOGIES = CodeSet.ofHistologies("8000,8010,8140,8800");
+
     public Mp2007ColonGroup() {
         super(MphConstants.MP_2007_COLON_GROUP_ID, MphConstants.MP_2007_COLON_GROUP_NAME, "C180-C189", null, null, "9590-9989, 9140", "2-3,6", "2007-9999");
+    }
 
+    @Override
+    protected void initializeRules() {
         // M3 - Adenocarcinoma in adenomatous polyposis coli (familial polyposis) with one or more malignant polyps is a single primary.
         MphRule rule = new MphRule(MphConstants.MP_2007_COLON_GROUP_ID, "M3") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                if (GroupUtility.differentCategory(i1.getHistology(), i2.getHistology(), MphConstants.FAMILLIAL_POLYPOSIS, MphConstants.POLYP) && (MphConstants.MALIGNANT.equals(i1.getBehavior())
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if (GroupUtility.differentCategory(i1, i2, _FAMILLIAL_POLYPOSIS, _POLYP) && (MphConstants.MALIGNANT.equals(i1.getBehavior())
                         || MphConstants.MALIGNANT.equals(i2.getBehavior())))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                    result = TempRuleResult.SINGLE_PRIMARY;
                 return result;
             }
         };
@@ -40,28 +50,28 @@ public class Mp2007ColonGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_COLON_GROUP_ID, "M4") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 if (!i1.getPrimarySite().equals(i2.getPrimarySite()))
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
                 return result;
             }
         };
         rule.setQuestion("Are there tumors in sites withICD-O-3 topography codes that are different at the second (C?xx) , third (Cx?x) and/or fourth (C18?) character?");
         rule.setReason("Tumors in sites with ICD-O-3 topography codes that are different at the second (C?xx), third (Cx?x) and/or fourth (C18?) character are multiple primaries.");
+        rule.setGuard(PairFeatures.DIFFERENT_SITE);
         _rules.add(rule);
 
         //M5- Tumors diagnosed more than one (1) year apart are multiple primaries.
         rule = new MphRule(MphConstants.MP_2007_COLON_GROUP_ID, "M5") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 int diff = GroupUtility.verifyYearsApart(i1, i2, 1);
                 if (-1 == diff) {
-                    result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
-                    result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". There is no enough diagnosis date information.");
+                    result = potentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES, "There is no enough diagnosis date information.");
                 }
                 else if (1 == diff)
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
                 return result;
             }
         };
@@ -77,11 +87,9 @@ public class Mp2007ColonGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_COLON_GROUP_ID, "M7") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                List<String> adenocarcinoma = new ArrayList<>(MphConstants.ADENOCARCINOMA_SPECIFIC);
-                adenocarcinoma.addAll(MphConstants.ADENOCARCINOMA_NOS);
-                if (GroupUtility.differentCategory(i1.getHistology(), i2.getHistology(), adenocarcinoma, MphConstants.POLYP))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if (GroupUtility.differentCategory(i1, i2, _ADENOCARCINOMA, _POLYP))
+                    result = TempRuleResult.SINGLE_PRIMARY;
                 return result;
             }
         };
@@ -93,12 +101,11 @@ public class Mp2007ColonGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_COLON_GROUP_ID, "M8") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 String hist1 = i1.getHistology(), hist2 = i2.getHistology();
-                List<String> nosList = Arrays.asList("8000", "8010", "8140", "8800");
-                if ((nosList.contains(hist1) && MphConstants.NOS_VS_SPECIFIC.containsKey(hist1) && MphConstants.NOS_VS_SPECIFIC.get(hist1).contains(hist2)) || (nosList.contains(hist2)
+                if ((_NOS_HISTOLOGIES.contains(hist1) && MphConstants.NOS_VS_SPECIFIC.containsKey(hist1) && MphConstants.NOS_VS_SPECIFIC.get(hist1).contains(hist2)) || (_NOS_HISTOLOGIES.contains(hist2)
                         && MphConstants.NOS_VS_SPECIFIC.containsKey(hist2) && MphConstants.NOS_VS_SPECIFIC.get(hist2).contains(hist1)))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                    result = TempRuleResult.SINGLE_PRIMARY;
                 return result;
             }
         };
@@ -111,15 +118,16 @@ public class Mp2007ColonGroup extends MphGroup {
                 "- Carcinoma, NOS (8010) and another is a specific carcinoma or\n" +
                 "- Adenocarcinoma, NOS (8140) and another is a specific adenocarcinoma or\n" +
                 "- Sarcoma, NOS (8800) and another is a specific sarcoma");
+        rule.setGuard(PairFeatures.DIFFERENT_HISTOLOGY);
         _rules.add(rule);
 
         //M9- Multiple insitu and/or malignant polyps are a single primary.
         rule = new MphRule(MphConstants.MP_2007_COLON_GROUP_ID, "M9") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                if (MphConstants.POLYP.containsAll(Arrays.asList(i1.getHistology(), i2.getHistology())))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if (GroupUtility.bothInCategory(i1, i2, _POLYP))
+                    result = TempRuleResult.SINGLE_PRIMARY;
                 return result;
             }
         };
@@ -3,35 +3,53 @@
  */
 package com.imsweb.mph.mpgroups;
 
-import java.util.Arrays;
-import java.util.List;
-
 import com.imsweb.mph.MphComputeOptions;
 import com.imsweb.mph.MphConstants;
 import com.imsweb.mph.MphGroup;
 import com.imsweb.mph.MphInput;
 import com.imsweb.mph.MphRule;
 import com.imsweb.mph.MphUtils;
+import com.imsweb.mph.internal.CodeSet;
+import com.imsweb.mph.internal.PairFeatures;
 import com.imsweb.mph.internal.TempRuleResult;
+import com.imsweb.mph.internal.TumorCategories;
 
 public class Mp2007HeadAndNeckGroup extends MphGroup {
 
+    private static final CodeSet[] _PAIRED_SITES = {CodeSet.ofSites("C079"), CodeSet.ofSites("C080,C081"), CodeSet.ofSites("C090,C091,C098,C099"), CodeSet.ofSites("C300"),
+            CodeSet.ofSites("C310,C312"), CodeSet.ofSites("C301")};
+
+    private static final CodeSet _NOS_HISTOLOGIES = CodeSet.ofHistologies("8000,8010,8070,8140,8720,8800");
+
+    private static final long _UPPER_LIP = TumorCategories.of(MphConstants.UPPER_LIP);
+
+    private static final long _LOWER_LIP = TumorCategories.of(MphConstants.LOWER_LIP);
+
+    private static final long _UPPER_GUM = TumorCategories.of(MphConstants.UPPER_GUM);
+
+    private static final long _LOWER_GUM = TumorCategories.of(MphConstants.LOWER_GUM);
+
+    private static final long _NASAL_CAVITY = TumorCategories.of(MphConstants.NASAL_CAVITY);
+
+    private static final long _MIDDLE_EAR = TumorCategories.of(MphConstants.MIDDLE_EAR);
+
     public Mp2007HeadAndNeckGroup() {
         super(MphConstants.MP_2007_HEAD_AND_NECK_GROUP_ID, MphConstants.MP_2007_HEAD_AND_NECK_GROUP_NAME, "C000-C148, C300-C329", null, null, "9590-9989, 9140", "2-3,6", "2007-9999");
+    }
 
+    @Override
+    protected void initializeRules() {
         // M3 - Tumors on the right side and the left side of a paired site are multiple primaries.  
         MphRule rule = new MphRule(MphConstants.MP_2007_HEAD_AND_NECK_GROUP_ID, "M3") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                List<String> pairedSites = Arrays.asList("C079", "C080,C081", "C090,C091,C098,C099", "C300", "C310,C312", "C301");
-                if (GroupUtility.isPairedSites(i1.getPrimarySite(), i2.getPrimarySite(), pairedSites)) {
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if (GroupUtility.isPairedSites(i1.getPrimarySite(), i2.getPrimarySite(), _PAIRED_SITES)) {
                     if (!GroupUtility.validLaterality(i1.getLaterality(), i2.getLaterality())) {
-                        result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
-                        result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known laterality for paired sites of head and neck should be provided.");
+                        result = potentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES, "Valid and known laterality for paired sites of head and neck should be provided.");
                     }
                     else if (GroupUtility.areOppositeSides(i1.getLaterality(), i2.getLaterality()))
-                        result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                        result = TempRuleResult.MULTIPLE_PRIMARIES;
                 }
                 return result;
             }
@@ -44,42 +62,45 @@ public class Mp2007HeadAndNeckGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_HEAD_AND_NECK_GROUP_ID, "M4") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                if (GroupUtility.differentCategory(i1.getPrimarySite(), i2.getPrimarySite(), MphConstants.UPPER_LIP, MphConstants.LOWER_LIP))
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if (GroupUtility.differentCategory(i1, i2, _UPPER_LIP, _LOWER_LIP))
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
                 return result;
             }
         };
         rule.setQuestion("Are there tumors on the upper lip (C000 or C003) and the lower lip (C001 or C004)?");
         rule.setReason("Tumors on the upper lip (C000 or C003) and the lower lip (C001 or C004) are multiple primaries.");
+        rule.setGuard(PairFeatures.DIFFERENT_SITE);
         _rules.add(rule);
 
         //M5- Tumors on the upper gum (C030) and the lower gum (C031) are multiple primaries.
         rule = new MphRule(MphConstants.MP_2007_HEAD_AND_NECK_GROUP_ID, "M5") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                if (GroupUtility.differentCategory(i1.getPrimarySite(), i2.getPrimarySite(), MphConstants.UPPER_GUM, MphConstants.LOWER_GUM))
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if (GroupUtility.differentCategory(i1, i2, _UPPER_GUM, _LOWER_GUM))
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
                 return result;
             }
         };
         rule.setQuestion("Are there tumors on the upper gum (C030) and the lower gum (C031)?");
         rule.setReason("Tumors on the upper gum (C030) and the lower gum (C031) are multiple primaries.");
+        rule.setGuard(PairFeatures.DIFFERENT_SITE);
         _rules.add(rule);
 
         //M6- Tumors in the nasal cavity (C300) and the middle ear (C301) are multiple primaries.
         rule = new MphRule(MphConstants.MP_2007_HEAD_AND_NECK_GROUP_ID, "M6") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                if (GroupUtility.differentCategory(i1.getPrimarySite(), i2.getPrimarySite(), MphConstants.NASAL_CAVITY, MphConstants.MIDDLE_EAR))
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if (GroupUtility.differentCategory(i1, i2, _NASAL_CAVITY, _MIDDLE_EAR))
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
                 return result;
             }
         };
         rule.setQuestion("Are there tumors in the nasal cavity (C300) and the middle ear (C301)?");
         rule.setReason("Tumors in the nasal cavity (C300) and the middle ear (C301) are multiple primaries.");
+        rule.setGuard(PairFeatures.DIFFERENT_SITE);
         _rules.add(rule);
 
         //M7- Tumors in sites with ICD-O-3 topography codes that are different at the second (C?xx) and/or third (Cx?x) character are multiple primaries.
@@ -98,12 +119,11 @@ public class Mp2007HeadAndNeckGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_HEAD_AND_NECK_GROUP_ID, "M10") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 String hist1 = i1.getHistology(), hist2 = i2.getHistology();
-                List<String> nosList = Arrays.asList("8000", "8010", "8140", "8070", "8720", "8800");
-                if ((nosList.contains(hist1) && MphConstants.NOS_VS_SPECIFIC.containsKey(hist1) && MphConstants.NOS_VS_SPECIFIC.get(hist1).contains(hist2)) || (nosList.contains(hist2)
+                if ((_NOS_HISTOLOGIES.contains(hist1) && MphConstants.NOS_VS_SPECIFIC.containsKey(hist1) && MphConstants.NOS_VS_SPECIFIC.get(hist1).contains(hist2)) || (_NOS_HISTOLOGIES.contains(hist2)
                         && MphConstants.NOS_VS_SPECIFIC.containsKey(hist2) && MphConstants.NOS_VS_SPECIFIC.get(hist2).contains(hist1)))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                    result = TempRuleResult.SINGLE_PRIMARY;
 
                 return result;
             }
@@ -121,6 +141,7 @@ public class Mp2007HeadAndNeckGroup extends MphGroup {
                 "- Squamous cell carcinoma, NOS (8070) and another is specific squamous cell carcinoma or\n" +
                 "- Melanoma, NOS (8720) and another is a specific melanoma or\n" +
                 "- Sarcoma, NOS (8800) and another is a specific sarcoma");
+        rule.setGuard(PairFeatures.DIFFERENT_HISTOLOGY);
         _rules.add(rule);
 
         //M11- Tumors with ICD-O-3 histology codes that are different at the first (?xxx), second (x?xx) or third (xx?x) number are multiple primaries.        
@@ -3,35 +3,43 @@
  */
 package com.imsweb.mph.mpgroups;
 
-import java.util.Arrays;
-import java.util.List;
-
 import com.imsweb.mph.MphComputeOptions;
 import com.imsweb.mph.MphConstants;
 import com.imsweb.mph.MphGroup;
 import com.imsweb.mph.MphInput;
 import com.imsweb.mph.MphRule;
 import com.imsweb.mph.MphUtils;
+import com.imsweb.mph.internal.CodeSet;
+import com.imsweb.mph.internal.PairFeatures;
 import com.imsweb.mph.internal.TempRuleResult;
+import com.imsweb.mph.internal.TumorCategories;
 
 public class Mp2007KidneyGroup extends MphGroup {
 
+    private static final CodeSet _NOS_HISTOLOGIES = CodeSet.ofHistologies("8000,8010,8140,8312");
+
+    private static final long _SPECIFIC_RENAL_CELL_HISTOLOGIES = TumorCategories.of(MphConstants.SPECIFIC_RENAL_CELL_HISTOLOGIES);
+
     public Mp2007KidneyGroup() {
         super(MphConstants.MP_2007_KIDNEY_GROUP_ID, MphConstants.MP_2007_KIDNEY_GROUP_NAME, "C649", null, null, "9590-9989, 9140", "2-3,6", "2007-9999");
+    }
 
+    @Override
+    protected void initializeRules() {
         // M3 - Wilms tumors are a single primary. (8960/3)
         MphRule rule = new MphRule(MphConstants.MP_2007_KIDNEY_GROUP_ID, "M3") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 if (MphConstants.MALIGNANT.equals(i1.getBehavior()) && MphConstants.MALIGNANT.equals(i2.getBehavior()) && MphConstants.WILMS.equals(i1.getHistology()) && MphConstants.WILMS.equals(
                         i2.getHistology()))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                    result = TempRuleResult.SINGLE_PRIMARY;
                 return result;
             }
         };
         rule.setQuestion("Is the diagnosisWilms tumor?");
         rule.setReason("Wilms tumors are a single primary.");
+        rule.setGuard(PairFeatures.BOTH_MALIGNANT | PairFeatures.SAME_HISTOLOGY);
         _rules.add(rule);
 
         // M4 - Tumors in sites with ICD-O-3 topography codes that are different at the second (C?xx) and/or third (Cx?x) character are multiple primaries.
@@ -42,13 +50,12 @@ public class Mp2007KidneyGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_KIDNEY_GROUP_ID, "M5") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 if (!GroupUtility.validLaterality(i1.getLaterality(), i2.getLaterality())) {
-                    result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
-                    result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known laterality should be provided.");
+                    result = potentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES, "Valid and known laterality should be provided.");
                 }
                 else if (GroupUtility.areOppositeSides(i1.getLaterality(), i2.getLaterality()))
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
 
                 return result;
             }
@@ -62,14 +69,13 @@ public class Mp2007KidneyGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_KIDNEY_GROUP_ID, "M6") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 int diff = GroupUtility.verifyYearsApart(i1, i2, 3);
                 if (-1 == diff) {
-                    result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
-                    result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". There is no enough diagnosis date information.");
+                    result = potentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES, "There is no enough diagnosis date information.");
                 }
                 else if (1 == diff)
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
 
                 return result;
             }
@@ -86,27 +92,27 @@ public class Mp2007KidneyGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_KIDNEY_GROUP_ID, "M8") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 String hist1 = i1.getHistology(), hist2 = i2.getHistology();
-                if (MphConstants.SPECIFIC_RENAL_CELL_HISTOLOGIES.containsAll(Arrays.asList(hist1, hist2)) && !hist1.equals(hist2))
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                if (GroupUtility.bothInCategory(i1, i2, _SPECIFIC_RENAL_CELL_HISTOLOGIES) && !hist1.equals(hist2))
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
                 return result;
             }
         };
         rule.setQuestion("Is there one tumor with a specific renal cell type and another tumor with a different specific renal cell type?");
         rule.setReason("One tumor with a specific renal cell type and another tumor with a different specific renal cell type are multiple primaries.");
+        rule.setGuard(PairFeatures.DIFFERENT_HISTOLOGY);
         _rules.add(rule);
 
         // M9 -
         rule = new MphRule(MphConstants.MP_2007_KIDNEY_GROUP_ID, "M9") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 String hist1 = i1.getHistology(), hist2 = i2.getHistology();
-                List<String> nosList = Arrays.asList("8000", "8010", "8140", "8312");
-                if ((nosList.contains(hist1) && MphConstants.NOS_VS_SPECIFIC.containsKey(hist1) && MphConstants.NOS_VS_SPECIFIC.get(hist1).contains(hist2)) || (nosList.contains(hist2)
+                if ((_NOS_HISTOLOGIES.contains(hist1) && MphConstants.NOS_VS_SPECIFIC.containsKey(hist1) && MphConstants.NOS_VS_SPECIFIC.get(hist1).contains(hist2)) || (_NOS_HISTOLOGIES.contains(hist2)
                         && MphConstants.NOS_VS_SPECIFIC.containsKey(hist2) && MphConstants.NOS_VS_SPECIFIC.get(hist2).contains(hist1)))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                    result = TempRuleResult.SINGLE_PRIMARY;
 
                 return result;
             }
@@ -122,6 +128,7 @@ public class Mp2007KidneyGroup extends MphGroup {
                 "- Renal cell carcinoma, NOS (8312) and the other is a single renal cell type");
         rule.getNotes().add("The specific histology for in situ tumors may be identified as pattern, architecture, type, subtype, predominantly, with features of, major, or with ____differentiation");
         rule.getNotes().add("The specific histology for invasive tumors may be identified as type, subtype, predominantly, with features of, major, or with ____differentiation.");
+        rule.setGuard(PairFeatures.DIFFERENT_HISTOLOGY);
         _rules.add(rule);
 
         // M10- Tumors with ICD-O-3 histology codes that are different at the first (?xxx), second (x?xx) or third (xx?x) number are multiple primaries.  
@@ -3,47 +3,49 @@
  */
 package com.imsweb.mph.mpgroups;
 
-import java.util.Arrays;
-
 import com.imsweb.mph.MphComputeOptions;
 import com.imsweb.mph.MphConstants;
 import com.imsweb.mph.MphGroup;
 import com.imsweb.mph.MphInput;
 import com.imsweb.mph.MphRule;
 import com.imsweb.mph.MphUtils;
+import com.imsweb.mph.internal.PairFeatures;
 import com.imsweb.mph.internal.TempRuleResult;
 
 public class Mp2007MelanomaGroup extends MphGroup {
 
     public Mp2007MelanomaGroup() {
         super(MphConstants.MP_2007_MELANOMA_GROUP_ID, MphConstants.MP_2007_MELANOMA_GROUP_NAME, "C440-C449", null, "8720-8780", null, "2-3,6", "2007-9999");
+    }
 
+    @Override
+    protected void initializeRules() {
         //M3- Melanomas in sites with ICD-O-3 topography codes that are different at the second (C?xx), third (Cx?x) or fourth (C44?) character are multiple primaries.
         MphRule rule = new MphRule(MphConstants.MP_2007_MELANOMA_GROUP_ID, "M3") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 if (!i1.getPrimarySite().equals(i2.getPrimarySite()))
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
                 return result;
             }
         };
         rule.setQuestion("Are there melanomas in sites withICD-O-3 topography codes that are different at the second (C?xx) , third (Cx?x) and/or fourth (C18?) character?");
         rule.setReason("Melanomas in sites with ICD-O-3 topography codes that are different at the second (C?xx), third (Cx?x) or fourth (C44?) character are multiple primaries.");
+        rule.setGuard(PairFeatures.DIFFERENT_SITE);
         _rules.add(rule);
 
         //M4- Melanomas with different laterality are multiple primaries. 
         rule = new MphRule(MphConstants.MP_2007_MELANOMA_GROUP_ID, "M4") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 // mid-line (5) is considered (look the example)
-                if (!Arrays.asList(MphConstants.RIGHT, MphConstants.LEFT, MphConstants.MID_LINE).containsAll(Arrays.asList(i1.getLaterality(), i2.getLaterality()))) {
-                    result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
-                    result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known laterality should be provided.");
+                if (!isKnownLaterality(i1.getLaterality()) || !isKnownLaterality(i2.getLaterality())) {
+                    result = potentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES, "Valid and known laterality should be provided.");
                 }
                 else if (!i1.getLaterality().equals(i2.getLaterality()))
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
 
                 return result;
             }
@@ -70,14 +72,13 @@ public class Mp2007MelanomaGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_MELANOMA_GROUP_ID, "M7") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 int diff = GroupUtility.verifyDaysApart(i1, i2, 60);
                 if (-1 == diff) {
-                    result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
-                    result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". There is no enough diagnosis date information.");
+                    result = potentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES, "There is no enough diagnosis date information.");
                 }
                 else if (1 == diff)
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
                 return result;
             }
         };
@@ -93,4 +94,8 @@ public class Mp2007MelanomaGroup extends MphGroup {
         rule.getNotes().add("All cases covered by this rule are the same site and histology.");
         _rules.add(rule);
     }
+
+    private static boolean isKnownLaterality(String laterality) {
+        return MphConstants.RIGHT.equals(laterality) || MphConstants.LEFT.equals(laterality) || MphConstants.MID_LINE.equals(laterality);
+    }
 }
@@ -4,31 +4,78 @@
 package com.imsweb.mph.mpgroups;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
+import org.apache.commons.lang3.Range;
+
 import com.imsweb.mph.MphComputeOptions;
 import com.imsweb.mph.MphConstants;
 import com.imsweb.mph.MphGroup;
 import com.imsweb.mph.MphInput;
 import com.imsweb.mph.MphRule;
 import com.imsweb.mph.MphUtils;
+import com.imsweb.mph.internal.CodeSet;
+import com.imsweb.mph.internal.PairFeatures;
 import com.imsweb.mph.internal.TempRuleResult;
+import com.imsweb.mph.internal.TumorCategories;
 
 public class Mp2007OtherSitesGroup extends MphGroup {
 
+    private static final long _FOLLICULAR_AND_PAPILLARY = TumorCategories.of(MphConstants.FOLLICULAR, MphConstants.PAPILLARY);
+
+    private static final CodeSet[] _PAIRED_SITES = {CodeSet.ofSites("C384"), CodeSet.ofSites("C400"), CodeSet.ofSites("C401"), CodeSet.ofSites("C402"), CodeSet.ofSites("C403"),
+            CodeSet.ofSites("C413"), CodeSet.ofSites("C414"), CodeSet.ofSites("C441"), CodeSet.ofSites("C442"), CodeSet.ofSites("C443"), CodeSet.ofSites("C445"),
+            CodeSet.ofSites("C446"), CodeSet.ofSites("C447"), CodeSet.ofSites("C471"), CodeSet.ofSites("C472"), CodeSet.ofSites("C491"), CodeSet.ofSites("C492"),
+            CodeSet.ofSites("C569"), CodeSet.ofSites("C570"), CodeSet.ofSites("C620-C629"), CodeSet.ofSites("C630"), CodeSet.ofSites("C631"), CodeSet.ofSites("C690-C699"),
+            CodeSet.ofSites("C740-C749"), CodeSet.ofSites("C754")};
+
+    private static final CodeSet _FOURTH_CHARACTER_SITES = CodeSet.ofSites("C21,C40,C41,C44,C47,C49");
+
+    private static final long _ADENOCARCINOMA = TumorCategories.of(MphConstants.ADENOCARCINOMA_SPECIFIC, MphConstants.ADENOCARCINOMA_NOS);
+
+    private static final long _ADENOCARCINOMA_NOS = TumorCategories.of(MphConstants.ADENOCARCINOMA_NOS);
+
+    private static final long _RETINO_BLASTOMA = TumorCategories.of(MphConstants.RETINO_BLASTOMA);
+
+    private static final long _POLYP = TumorCategories.of(MphConstants.POLYP);
+
+    private static final long _FAMILIAL_ADENOMATOUS_POLYPOSIS = TumorCategories.of(MphConstants.FAMILIAL_ADENOMATOUS_POLYPOSIS);
+
+    private static final CodeSet _NOS_HISTOLOGIES = CodeSet.ofHistologies("8000,8010,8070,8140,8720,8800");
+
+    private List<Range<Integer>> _histExcRanges;
+
+    private List<Range<Integer>> _yearIncRanges;
+
+    // the groups that take precedence over this one
+    private List<MphGroup> _specificGroups = new ArrayList<>();
+
     //Excludes Head and Neck, Colon, Lung, Melanoma of Skin, Breast, Kidney, Renal Pelvis, Ureter, Bladder, Brain, Lymphoma and Leukemia
     public Mp2007OtherSitesGroup() {
         super(MphConstants.MP_2007_OTHER_SITES_GROUP_ID, MphConstants.MP_2007_OTHER_SITES_GROUP_NAME, null, null, null, "9590-9989", "2-3,6", "2007-9999");
 
+        _histExcRanges = GroupUtility.computeRange(_histExclusions, false);
+        _yearIncRanges = GroupUtility.computeRange(_yearInclusions, false);
+        _specificGroups.add(new Mp2007HeadAndNeckGroup());
+        _specificGroups.add(new Mp2007ColonGroup());
+        _specificGroups.add(new Mp2007LungGroup());
+        _specificGroups.add(new Mp2007MelanomaGroup());
+        _specificGroups.add(new Mp2007BreastGroup());
+        _specificGroups.add(new Mp2007KidneyGroup());
+        _specificGroups.add(new Mp2007UrinaryGroup());
+        _specificGroups.add(new Mp2007BenignBrainGroup());
+        _specificGroups.add(new Mp2007MalignantBrainGroup());
+    }
+
+    @Override
+    protected void initializeRules() {
         //M3- Adenocarcinoma of the prostate is always a single primary. (C619, 8140)
         MphRule rule = new MphRule(MphConstants.MP_2007_OTHER_SITES_GROUP_ID, "M3") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                if (MphConstants.PROSTATE.equals(i1.getPrimarySite()) && MphConstants.PROSTATE.equals(i2.getPrimarySite()) && MphConstants.ADENOCARCINOMA_NOS.contains(i1.getHistology())
-                        && MphConstants.ADENOCARCINOMA_NOS.contains(i2.getHistology()))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if (MphConstants.PROSTATE.equals(i1.getPrimarySite()) && MphConstants.PROSTATE.equals(i2.getPrimarySite()) && GroupUtility.bothInCategory(i1, i2, _ADENOCARCINOMA_NOS))
+                    result = TempRuleResult.SINGLE_PRIMARY;
                 return result;
             }
         };
@@ -37,15 +84,16 @@ public class Mp2007OtherSitesGroup extends MphGroup {
         rule.getNotes().add("Report only one adenocarcinoma of the prostate per patient per lifetime.");
         rule.getNotes().add("95% of prostate malignancies are the common (acinar) adenocarcinoma histology (8140). See Equivalent Terms, Definitions and Tables for more information.");
         rule.getNotes().add("If patient has a previous acinar adenocarcinoma of the prostate in the database and is diagnosed with adenocarcinoma in 2007 it is a single primary.");
+        rule.setGuard(PairFeatures.SAME_SITE);
         _rules.add(rule);
 
         //M4- Retinoblastoma is always a single primary (unilateral or bilateral). (9510, 9511, 9512, 9513)
         rule = new MphRule(MphConstants.MP_2007_OTHER_SITES_GROUP_ID, "M4") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                if (MphConstants.RETINO_BLASTOMA.containsAll(Arrays.asList(i1.getHistology(), i2.getHistology())))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if (GroupUtility.bothInCategory(i1, i2, _RETINO_BLASTOMA))
+                    result = TempRuleResult.SINGLE_PRIMARY;
                 return result;
             }
         };
@@ -57,32 +105,30 @@ public class Mp2007OtherSitesGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_OTHER_SITES_GROUP_ID, "M5") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 if (MphConstants.KAPOSI_SARCOMA.equals(i1.getHistology()) && MphConstants.KAPOSI_SARCOMA.equals(i2.getHistology()))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                    result = TempRuleResult.SINGLE_PRIMARY;
                 return result;
             }
         };
         rule.setQuestion("Is the diagnosis Kaposi sarcoma (any site or sites)?");
         rule.setReason("Kaposi sarcoma (any site or sites) is always a single primary.");
+        rule.setGuard(PairFeatures.SAME_HISTOLOGY);
         _rules.add(rule);
 
         //M6- Follicular and papillary tumors in the thyroid within 60 days of diagnosis are a single primary.
         rule = new MphRule(MphConstants.MP_2007_OTHER_SITES_GROUP_ID, "M6") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                List<String> follicularAndPapillary = new ArrayList<>(MphConstants.FOLLICULAR);
-                follicularAndPapillary.addAll(MphConstants.PAPILLARY);
-                String site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite(), hist1 = i1.getHistology(), hist2 = i2.getHistology();
-                if (MphConstants.THYROID.equals(site1) && MphConstants.THYROID.equals(site2) && follicularAndPapillary.containsAll(Arrays.asList(hist1, hist2))) {
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                String site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite();
+                if (MphConstants.THYROID.equals(site1) && MphConstants.THYROID.equals(site2) && GroupUtility.bothInCategory(i1, i2, _FOLLICULAR_AND_PAPILLARY)) {
                     int diff = GroupUtility.verifyDaysApart(i1, i2, 60);
                     if (-1 == diff) {
-                        result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". There is no enough diagnosis date information.");
+                        result = potentialResult(MphUtils.MpResult.SINGLE_PRIMARY, "There is no enough diagnosis date information.");
                     }
                     else if (0 == diff)
-                        result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                        result = TempRuleResult.SINGLE_PRIMARY;
                 }
                 return result;
             }
@@ -95,16 +141,15 @@ public class Mp2007OtherSitesGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_OTHER_SITES_GROUP_ID, "M7") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                String site1 = i1.getPrimarySite().toUpperCase(), site2 = i2.getPrimarySite().toUpperCase(), hist1 = i1.getHistology(), hist2 = i2.getHistology();
-                if (MphConstants.OVARY.equals(site1) && MphConstants.OVARY.equals(site2) && Integer.parseInt(hist1) <= 8799 && Integer.parseInt(hist2) <= 8799) {
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                String site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite();
+                if (MphConstants.OVARY.equals(site1) && MphConstants.OVARY.equals(site2) && i1.getValidatedTumor().getHistology() <= 8799 && i2.getValidatedTumor().getHistology() <= 8799) {
                     int diff = GroupUtility.verifyDaysApart(i1, i2, 60);
                     if (-1 == diff) {
-                        result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". There is no enough diagnosis date information.");
+                        result = potentialResult(MphUtils.MpResult.SINGLE_PRIMARY, "There is no enough diagnosis date information.");
                     }
                     else if (0 == diff)
-                        result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                        result = TempRuleResult.SINGLE_PRIMARY;
                 }
                 return result;
             }
@@ -117,17 +162,13 @@ public class Mp2007OtherSitesGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_OTHER_SITES_GROUP_ID, "M8") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                List<String> pairedSites = Arrays.asList("C384", "C400", "C401", "C402", "C403", "C413", "C414", "C441", "C442", "C443", "C445", "C446", "C447", "C471", "C472", "C491", "C492", "C569",
-                        "C570", "C620-C629", "C630", "C631", "C690-C699", "C740-C749", "C754");
-
-                if (GroupUtility.isPairedSites(i1.getPrimarySite(), i2.getPrimarySite(), pairedSites)) {
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if (GroupUtility.isPairedSites(i1.getPrimarySite(), i2.getPrimarySite(), _PAIRED_SITES)) {
                     if (!GroupUtility.validLaterality(i1.getLaterality(), i2.getLaterality())) {
-                        result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
-                        result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". Valid and known laterality for paired sites of other-sites should be provided.");
+                        result = potentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES, "Valid and known laterality for paired sites of other-sites should be provided.");
                     }
                     else if (GroupUtility.areOppositeSides(i1.getLaterality(), i2.getLaterality()))
-                        result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                        result = TempRuleResult.MULTIPLE_PRIMARIES;
                 }
 
                 return result;
@@ -142,13 +183,13 @@ public class Mp2007OtherSitesGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_OTHER_SITES_GROUP_ID, "M9") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                String site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite(), s1 = i1.getPrimarySite().substring(0, 3), s2 = i2.getPrimarySite().substring(0, 3);
-                boolean isSiteInRange = (MphConstants.COLON.equals(s1) || MphConstants.RECTOSIGMOID.equals(site1) || MphConstants.RECTUM.equals(site1)) && (MphConstants.COLON.equals(s2)
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                String site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite();
+                boolean isSiteInRange = (site1.startsWith(MphConstants.COLON) || MphConstants.RECTOSIGMOID.equals(site1) || MphConstants.RECTUM.equals(site1)) && (site2.startsWith(MphConstants.COLON)
                         || MphConstants.RECTOSIGMOID.equals(site2) || MphConstants.RECTUM.equals(site2));
                 boolean isOneMalignant = MphConstants.MALIGNANT.equals(i1.getBehavior()) || MphConstants.MALIGNANT.equals(i2.getBehavior());
-                if (isSiteInRange && isOneMalignant && GroupUtility.differentCategory(i1.getHistology(), i2.getHistology(), MphConstants.FAMILIAL_ADENOMATOUS_POLYPOSIS, MphConstants.POLYP))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                if (isSiteInRange && isOneMalignant && GroupUtility.differentCategory(i1, i2, _FAMILIAL_ADENOMATOUS_POLYPOSIS, _POLYP))
+                    result = TempRuleResult.SINGLE_PRIMARY;
 
                 return result;
             }
@@ -161,14 +202,13 @@ public class Mp2007OtherSitesGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_OTHER_SITES_GROUP_ID, "M10") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 int diff = GroupUtility.verifyYearsApart(i1, i2, 1);
                 if (-1 == diff) {
-                    result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
-                    result.setMessage("Unable to apply Rule " + this.getStep() + " of " + this.getGroupId() + ". There is no enough diagnosis date information.");
+                    result = potentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES, "There is no enough diagnosis date information.");
                 }
                 else if (1 == diff)
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
                 return result;
             }
         };
@@ -186,11 +226,10 @@ public class Mp2007OtherSitesGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_OTHER_SITES_GROUP_ID, "M12") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                List<String> list = Arrays.asList("C21", "C40", "C41", "C47", "C49", "C44");
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 //primary sites should be the same at their 2nd and 3rd digit to pass M11, so if site 1 is in the list site 2 also is.
-                if ((list.contains(i1.getPrimarySite().substring(0, 3)) && i1.getPrimarySite().charAt(3) != i2.getPrimarySite().charAt(3)))
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                if (_FOURTH_CHARACTER_SITES.contains(i1.getPrimarySite()) && i1.getValidatedTumor().getPrimarySite() % 10 != i2.getValidatedTumor().getPrimarySite() % 10)
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
                 return result;
             }
         };
@@ -212,13 +251,10 @@ public class Mp2007OtherSitesGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_OTHER_SITES_GROUP_ID, "M13") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                List<String> insituOrMalignant = Arrays.asList(MphConstants.INSITU, MphConstants.MALIGNANT);
-                List<String> adenocarcinoma = new ArrayList<>(MphConstants.ADENOCARCINOMA_SPECIFIC);
-                adenocarcinoma.addAll(MphConstants.ADENOCARCINOMA_NOS);
-                if (insituOrMalignant.containsAll(Arrays.asList(i1.getBehavior(), i2.getBehavior())) && !MphConstants.POLYP.containsAll(Arrays.asList(i1.getHistology(), i2.getHistology()))
-                        && GroupUtility.differentCategory(i1.getHistology(), i2.getHistology(), adenocarcinoma, MphConstants.POLYP))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if ((isInSituOrMalignant(i1.getBehavior()) && isInSituOrMalignant(i2.getBehavior())) && !GroupUtility.bothInCategory(i1, i2, _POLYP)
+                        && GroupUtility.differentCategory(i1, i2, _ADENOCARCINOMA, _POLYP))
+                    result = TempRuleResult.SINGLE_PRIMARY;
                 return result;
             }
         };
@@ -230,10 +266,9 @@ public class Mp2007OtherSitesGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_OTHER_SITES_GROUP_ID, "M14") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                List<String> insituOrMalignant = Arrays.asList(MphConstants.INSITU, MphConstants.MALIGNANT);
-                if (insituOrMalignant.containsAll(Arrays.asList(i1.getBehavior(), i2.getBehavior())) && MphConstants.POLYP.containsAll(Arrays.asList(i1.getHistology(), i2.getHistology())))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if ((isInSituOrMalignant(i1.getBehavior()) && isInSituOrMalignant(i2.getBehavior())) && GroupUtility.bothInCategory(i1, i2, _POLYP))
+                    result = TempRuleResult.SINGLE_PRIMARY;
                 return result;
             }
         };
@@ -250,12 +285,11 @@ public class Mp2007OtherSitesGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2007_OTHER_SITES_GROUP_ID, "M16") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 String hist1 = i1.getHistology(), hist2 = i2.getHistology();
-                List<String> nosList = Arrays.asList("8000", "8010", "8070", "8140", "8720", "8800");
-                if ((nosList.contains(hist1) && MphConstants.NOS_VS_SPECIFIC.containsKey(hist1) && MphConstants.NOS_VS_SPECIFIC.get(hist1).contains(hist2)) || (nosList.contains(hist2)
+                if ((_NOS_HISTOLOGIES.contains(hist1) && MphConstants.NOS_VS_SPECIFIC.containsKey(hist1) && MphConstants.NOS_VS_SPECIFIC.get(hist1).contains(hist2)) || (_NOS_HISTOLOGIES.contains(hist2)
                         && MphConstants.NOS_VS_SPECIFIC.containsKey(hist2) && MphConstants.NOS_VS_SPECIFIC.get(hist2).contains(hist1)))
-                    result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                    result = TempRuleResult.SINGLE_PRIMARY;
                 return result;
             }
         };
@@ -286,24 +320,18 @@ public class Mp2007OtherSitesGroup extends MphGroup {
 
     @Override
     public boolean isApplicable(String primarySite, String histology, String behavior, int year) {
-        if (GroupUtility.isContained(GroupUtility.computeRange(_histExclusions, false), Integer.parseInt(histology)) || !_behavInclusions.contains(behavior) || !GroupUtility.isContained(
-                GroupUtility.computeRange(_yearInclusions, false), year) || !GroupUtility.validateProperties(primarySite, histology, behavior, year))
+        if (!GroupUtility.validateProperties(primarySite, histology, behavior, year) || GroupUtility.isContained(_histExcRanges, Integer.parseInt(histology)) || !_behavInclusions.contains(behavior)
+                || !GroupUtility.isContained(_yearIncRanges, year))
             return false;
 
-        List<MphGroup> specificGroups = new ArrayList<>();
-        specificGroups.add(new Mp2007HeadAndNeckGroup());
-        specificGroups.add(new Mp2007ColonGroup());
-        specificGroups.add(new Mp2007LungGroup());
-        specificGroups.add(new Mp2007MelanomaGroup());
-        specificGroups.add(new Mp2007BreastGroup());
-        specificGroups.add(new Mp2007KidneyGroup());
-        specificGroups.add(new Mp2007UrinaryGroup());
-        specificGroups.add(new Mp2007BenignBrainGroup());
-        specificGroups.add(new Mp2007MalignantBrainGroup());
-        for (MphGroup group : specificGroups) {
+        for (MphGroup group : _specificGroups) {
             if (group.isApplicable(primarySite, histology, behavior, year))
                 return false;
         }
         return true;
     }
+
+    private static boolean isInSituOrMalignant(String behavior) {
+        return MphConstants.INSITU.equals(behavior) || MphConstants.MALIGNANT.equals(behavior);
+    }
 }
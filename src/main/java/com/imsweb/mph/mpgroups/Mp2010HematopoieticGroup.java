@@ -3,10 +3,7 @@
  */
 package com.imsweb.mph.mpgroups;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-
+import com.imsweb.mph.HematoDbUtilsProvider;
 import com.imsweb.mph.MphComputeOptions;
 import com.imsweb.mph.MphConstants;
 import com.imsweb.mph.MphGroup;
@@ -14,17 +11,51 @@ import com.imsweb.mph.MphInput;
 import com.imsweb.mph.MphRule;
 import com.imsweb.mph.MphUtils;
 import com.imsweb.mph.internal.TempRuleResult;
+import com.imsweb.mph.internal.TumorCategories;
 
 public class Mp2010HematopoieticGroup extends MphGroup {
 
+    private static final long _PTLD = TumorCategories.of(MphConstants.PTLD);
+
+    private static final long _PTLD_OTHER_LYMPHOMAS = TumorCategories.of(MphConstants.BCELL, MphConstants.TCELL, MphConstants.HODGKIN_LYMPHOMA, MphConstants.PLASMACYTOMA);
+
+    private static final long _MAST_CELL_SARCOMA = TumorCategories.of(MphConstants.MAST_CELL_SARCOMA);
+
+    private static final long _MAST_CELL_LEUKEMIA = TumorCategories.of(MphConstants.MAST_CELL_LEUKEMIA);
+
+    private static final long _MYELOID_SARCOMA = TumorCategories.of(MphConstants.MYELOID_SARCOMA);
+
+    private static final long _MYELOID_LEUKEMIA = TumorCategories.of(MphConstants.MYELOID_LEUKEMIA);
+
+    private static final long _SARCOMAS = TumorCategories.of(MphConstants.MAST_CELL_SARCOMA, MphConstants.MYELOID_SARCOMA);
+
+    private static final long _LYMPHOMA_NOS_AND_NON_HODGKIN_LYMPHOMA = TumorCategories.of(MphConstants.LYMPHOMA_NOS_AND_NON_HODGKIN_LYMPHOMA);
+
+    private static final long _NON_HODGKIN_LYMPHOMA = TumorCategories.of(MphConstants.NON_HODGKIN_LYMPHOMA);
+
+    private static final long _HODGKIN_LYMPHOMA = TumorCategories.of(MphConstants.HODGKIN_LYMPHOMA);
+
+    private static final long _HEMATOPOIETIC_NOS_HISTOLOGIES = TumorCategories.of(MphConstants.HEMATOPOIETIC_NOS_HISTOLOGIES);
+
+    // the provider used by the rules, if null the provider of the MphUtils instance is used
+    private HematoDbUtilsProvider _provider;
+
     public Mp2010HematopoieticGroup() {
+        this(null);
+    }
+
+    public Mp2010HematopoieticGroup(HematoDbUtilsProvider provider) {
         super(MphConstants.MP_2010_HEMATO_GROUP_ID, MphConstants.MP_2010_HEMATO_GROUP_NAME, "C000-C809", null, "9590-9989", null, "2-3,6", "2010-9999");
+        _provider = provider;
+    }
 
+    @Override
+    protected void initializeRules() {
         // M1 
         MphRule rule = new MphRule(MphConstants.MP_2010_HEMATO_GROUP_ID, "M1") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 //TODO
                 return result;
             }
@@ -36,7 +67,7 @@ public class Mp2010HematopoieticGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2010_HEMATO_GROUP_ID, "M2") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 //TODO
                 return result;
             }
@@ -54,22 +85,20 @@ public class Mp2010HematopoieticGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2010_HEMATO_GROUP_ID, "M3") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                String hist1 = i1.getHistology(), hist2 = i2.getHistology();
-                if ((GroupUtility.differentCategory(hist1, hist2, MphConstants.MAST_CELL_SARCOMA, MphConstants.MAST_CELL_LEUKEMIA) || GroupUtility.differentCategory(hist1, hist2,
-                        MphConstants.MYELOID_SARCOMA, MphConstants.MYELOID_LEUKEMIA)) && MphConstants.MALIGNANT.equals(i1.getBehavior()) && MphConstants.MALIGNANT.equals(i2.getBehavior())) {
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if ((GroupUtility.differentCategory(i1, i2, _MAST_CELL_SARCOMA, _MAST_CELL_LEUKEMIA) || GroupUtility.differentCategory(i1, i2, _MYELOID_SARCOMA, _MYELOID_LEUKEMIA))
+                        && MphConstants.MALIGNANT.equals(i1.getBehavior()) && MphConstants.MALIGNANT.equals(i2.getBehavior())) {
                     int laterDx = GroupUtility.compareDxDate(i1, i2);
                     int simultaneouslyPresent = GroupUtility.verifyDaysApart(i1, i2, 21);
                     if (laterDx == -1 && simultaneouslyPresent == -1) {
-                        result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        result.setMessage("Unable to apply Rule" + this.getStep() + " of " + this.getGroupId() + ". Known diagnosis date should be provided.");
+                        result = potentialResult(MphUtils.MpResult.SINGLE_PRIMARY, "Known diagnosis date should be provided.");
                     }
                     else if (simultaneouslyPresent == 0)
-                        result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                    else if (laterDx == 1 && (MphConstants.MAST_CELL_SARCOMA.contains(hist1) || MphConstants.MYELOID_SARCOMA.contains(hist1)))
-                        result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                    else if (laterDx == 2 && (MphConstants.MAST_CELL_SARCOMA.contains(hist2) || MphConstants.MYELOID_SARCOMA.contains(hist2)))
-                        result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                        result = TempRuleResult.SINGLE_PRIMARY;
+                    else if (laterDx == 1 && GroupUtility.isInCategory(i1, _SARCOMAS))
+                        result = TempRuleResult.SINGLE_PRIMARY;
+                    else if (laterDx == 2 && GroupUtility.isInCategory(i2, _SARCOMAS))
+                        result = TempRuleResult.SINGLE_PRIMARY;
                 }
                 return result;
             }
@@ -92,17 +121,16 @@ public class Mp2010HematopoieticGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2010_HEMATO_GROUP_ID, "M4") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 String hist1 = i1.getHistology(), hist2 = i2.getHistology(), site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite();
-                boolean sameLocation = site1.equals(site2) || (site1.substring(0, 3).equals(site2.substring(0, 3)) && !MphConstants.LYMPH_NODE.equals(site1.substring(0, 3)));
-                if (!hist1.equals(hist2) && MphConstants.LYMPHOMA_NOS_AND_NON_HODGKIN_LYMPHOMA.containsAll(Arrays.asList(hist1, hist2)) && sameLocation) {
+                boolean sameLocation = site1.equals(site2) || (site1.regionMatches(0, site2, 0, 3) && !site1.startsWith(MphConstants.LYMPH_NODE));
+                if (!hist1.equals(hist2) && GroupUtility.bothInCategory(i1, i2, _LYMPHOMA_NOS_AND_NON_HODGKIN_LYMPHOMA) && sameLocation) {
                     int simultaneouslyPresent = GroupUtility.verifyDaysApart(i1, i2, 21);
                     if (simultaneouslyPresent == -1) {
-                        result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        result.setMessage("Unable to apply Rule" + this.getStep() + " of " + this.getGroupId() + ". Known diagnosis date should be provided.");
+                        result = potentialResult(MphUtils.MpResult.SINGLE_PRIMARY, "Known diagnosis date should be provided.");
                     }
                     else if (0 == simultaneouslyPresent)
-                        result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                        result = TempRuleResult.SINGLE_PRIMARY;
                 }
                 return result;
             }
@@ -131,17 +159,16 @@ public class Mp2010HematopoieticGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2010_HEMATO_GROUP_ID, "M5") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                String hist1 = i1.getHistology(), hist2 = i2.getHistology(), site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite();
-                boolean sameLocation = site1.equals(site2) || (site1.substring(0, 3).equals(site2.substring(0, 3)) && !MphConstants.LYMPH_NODE.equals(site1.substring(0, 3)));
-                if (GroupUtility.differentCategory(hist1, hist2, MphConstants.HODGKIN_LYMPHOMA, MphConstants.LYMPHOMA_NOS_AND_NON_HODGKIN_LYMPHOMA) && sameLocation) {
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                String site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite();
+                boolean sameLocation = site1.equals(site2) || (site1.regionMatches(0, site2, 0, 3) && !site1.startsWith(MphConstants.LYMPH_NODE));
+                if (GroupUtility.differentCategory(i1, i2, _HODGKIN_LYMPHOMA, _LYMPHOMA_NOS_AND_NON_HODGKIN_LYMPHOMA) && sameLocation) {
                     int simultaneouslyPresent = GroupUtility.verifyDaysApart(i1, i2, 21);
                     if (simultaneouslyPresent == -1) {
-                        result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        result.setMessage("Unable to apply Rule" + this.getStep() + " of " + this.getGroupId() + ". Known diagnosis date should be provided.");
+                        result = potentialResult(MphUtils.MpResult.SINGLE_PRIMARY, "Known diagnosis date should be provided.");
                     }
                     else if (0 == simultaneouslyPresent)
-                        result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                        result = TempRuleResult.SINGLE_PRIMARY;
                 }
 
                 return result;
@@ -169,11 +196,11 @@ public class Mp2010HematopoieticGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2010_HEMATO_GROUP_ID, "M6") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                String hist1 = i1.getHistology(), hist2 = i2.getHistology(), site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite();
-                boolean differentLocation = (!site1.equals(site2) && MphConstants.LYMPH_NODE.equals(site1.substring(0, 3))) || !site1.substring(0, 3).equals(site2.substring(0, 3));
-                if (GroupUtility.differentCategory(hist1, hist2, MphConstants.HODGKIN_LYMPHOMA, MphConstants.NON_HODGKIN_LYMPHOMA) && differentLocation)
-                    result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                String site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite();
+                boolean differentLocation = (!site1.equals(site2) && site1.startsWith(MphConstants.LYMPH_NODE)) || !site1.regionMatches(0, site2, 0, 3);
+                if (GroupUtility.differentCategory(i1, i2, _HODGKIN_LYMPHOMA, _NON_HODGKIN_LYMPHOMA) && differentLocation)
+                    result = TempRuleResult.MULTIPLE_PRIMARIES;
                 return result;
             }
         };
@@ -191,19 +218,17 @@ public class Mp2010HematopoieticGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2010_HEMATO_GROUP_ID, "M7") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 String hist1 = i1.getHistology(), hist2 = i2.getHistology();
-                String morph1 = hist1 + "/" + i1.getBehavior(), morph2 = hist2 + "/" + i2.getBehavior();
+                String morph1 = GroupUtility.getMorphology(hist1, i1.getBehavior()), morph2 = GroupUtility.getMorphology(hist2, i2.getBehavior());
                 int latestDx = GroupUtility.compareDxDate(i1, i2);
-                int latestYear = latestDx == 1 ? Integer.valueOf(i1.getDateOfDiagnosisYear()) : Integer.valueOf(i2.getDateOfDiagnosisYear());
-                if (!MphConstants.HEMATOPOIETIC_NOS_HISTOLOGIES.containsAll(Arrays.asList(hist1, hist2)) && (MphConstants.HEMATOPOIETIC_NOS_HISTOLOGIES.contains(hist1)
-                        || MphConstants.HEMATOPOIETIC_NOS_HISTOLOGIES.contains(hist2)) && MphUtils.getInstance().getHematoDbUtilsProvider().isSamePrimary(morph1, morph2, latestYear) && latestDx != 0) {
+                int latestYear = latestDx == 1 ? i1.getValidatedTumor().getYear() : i2.getValidatedTumor().getYear();
+                if (GroupUtility.oneInCategory(i1, i2, _HEMATOPOIETIC_NOS_HISTOLOGIES) && getProvider().isSamePrimary(morph1, morph2, latestYear) && latestDx != 0) {
                     if (latestDx == -1) {
-                        result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        result.setMessage("Unable to apply Rule" + this.getStep() + " of " + this.getGroupId() + ". Known diagnosis date should be provided.");
+                        result = potentialResult(MphUtils.MpResult.SINGLE_PRIMARY, "Known diagnosis date should be provided.");
                     }
-                    else if ((latestDx == 1 && MphConstants.HEMATOPOIETIC_NOS_HISTOLOGIES.contains(hist2)) || (latestDx == 2 && MphConstants.HEMATOPOIETIC_NOS_HISTOLOGIES.contains(hist1)))
-                        result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                    else if ((latestDx == 1 && GroupUtility.isInCategory(i2, _HEMATOPOIETIC_NOS_HISTOLOGIES)) || (latestDx == 2 && GroupUtility.isInCategory(i1, _HEMATOPOIETIC_NOS_HISTOLOGIES)))
+                        result = TempRuleResult.SINGLE_PRIMARY;
                 }
                 return result;
             }
@@ -228,7 +253,7 @@ public class Mp2010HematopoieticGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2010_HEMATO_GROUP_ID, "M8") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 //TODO
                 return result;
             }
@@ -247,7 +272,7 @@ public class Mp2010HematopoieticGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2010_HEMATO_GROUP_ID, "M9") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 //TODO
                 return result;
             }
@@ -265,19 +290,18 @@ public class Mp2010HematopoieticGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2010_HEMATO_GROUP_ID, "M10") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                String morph1 = i1.getHistology() + "/" + i1.getBehavior();
-                String morph2 = i2.getHistology() + "/" + i2.getBehavior();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                String morph1 = GroupUtility.getMorphology(i1.getHistology(), i1.getBehavior());
+                String morph2 = GroupUtility.getMorphology(i2.getHistology(), i2.getBehavior());
                 int latestDx = GroupUtility.compareDxDate(i1, i2);
-                int latestYear = latestDx == 1 ? Integer.valueOf(i1.getDateOfDiagnosisYear()) : Integer.valueOf(i2.getDateOfDiagnosisYear());
+                int latestYear = latestDx == 1 ? i1.getValidatedTumor().getYear() : i2.getValidatedTumor().getYear();
                 if (isTransformation(morph1, morph2, latestYear)) {
                     int daysApart = GroupUtility.verifyDaysApart(i1, i2, 21);
                     if (daysApart == -1 || latestDx == -1) {
-                        result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
-                        result.setMessage("Unable to apply Rule" + this.getStep() + " of " + this.getGroupId() + ". Known diagnosis date should be provided.");
+                        result = potentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES, "Known diagnosis date should be provided.");
                     }
                     else if (daysApart == 1 && latestDx > 0 && isChronicToAcuteTransformation(latestDx == 1 ? morph2 : morph1, latestDx == 1 ? morph1 : morph2, latestYear))
-                        result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                        result = TempRuleResult.MULTIPLE_PRIMARIES;
                 }
                 return result;
             }
@@ -296,7 +320,7 @@ public class Mp2010HematopoieticGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2010_HEMATO_GROUP_ID, "M11") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
                 //TODO
                 return result;
             }
@@ -314,19 +338,18 @@ public class Mp2010HematopoieticGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2010_HEMATO_GROUP_ID, "M12") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                String morph1 = i1.getHistology() + "/" + i1.getBehavior();
-                String morph2 = i2.getHistology() + "/" + i2.getBehavior();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                String morph1 = GroupUtility.getMorphology(i1.getHistology(), i1.getBehavior());
+                String morph2 = GroupUtility.getMorphology(i2.getHistology(), i2.getBehavior());
                 int latestDx = GroupUtility.compareDxDate(i1, i2);
-                int latestYear = latestDx == 1 ? Integer.valueOf(i1.getDateOfDiagnosisYear()) : Integer.valueOf(i2.getDateOfDiagnosisYear());
+                int latestYear = latestDx == 1 ? i1.getValidatedTumor().getYear() : i2.getValidatedTumor().getYear();
                 if (isTransformation(morph1, morph2, latestYear)) {
                     if (latestDx == -1) {
-                        result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        result.setMessage("Unable to apply Rule" + this.getStep() + " of " + this.getGroupId() + ". Known diagnosis date should be provided.");
+                        result = potentialResult(MphUtils.MpResult.SINGLE_PRIMARY, "Known diagnosis date should be provided.");
                     }
                     else if (latestDx > 0 && isAcuteToChronicTransformation(latestDx == 1 ? morph2 : morph1, latestDx == 1 ? morph1 : morph2, latestYear) &&
                             !MphConstants.TREATMENT_GIVEN.equals(latestDx == 1 ? i2.getTxStatus() : i1.getTxStatus()))
-                        result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                        result = TempRuleResult.SINGLE_PRIMARY;
                 }
                 return result;
             }
@@ -346,19 +369,18 @@ public class Mp2010HematopoieticGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2010_HEMATO_GROUP_ID, "M13") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                String morph1 = i1.getHistology() + "/" + i1.getBehavior();
-                String morph2 = i2.getHistology() + "/" + i2.getBehavior();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                String morph1 = GroupUtility.getMorphology(i1.getHistology(), i1.getBehavior());
+                String morph2 = GroupUtility.getMorphology(i2.getHistology(), i2.getBehavior());
                 int latestDx = GroupUtility.compareDxDate(i1, i2);
-                int latestYear = latestDx == 1 ? Integer.valueOf(i1.getDateOfDiagnosisYear()) : Integer.valueOf(i2.getDateOfDiagnosisYear());
+                int latestYear = latestDx == 1 ? i1.getValidatedTumor().getYear() : i2.getValidatedTumor().getYear();
                 if (isTransformation(morph1, morph2, latestYear)) {
                     if (latestDx == -1) {
-                        result.setPotentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
-                        result.setMessage("Unable to apply Rule" + this.getStep() + " of " + this.getGroupId() + ". Known diagnosis date should be provided.");
+                        result = potentialResult(MphUtils.MpResult.MULTIPLE_PRIMARIES, "Known diagnosis date should be provided.");
                     }
                     else if (latestDx > 0 && isAcuteToChronicTransformation(latestDx == 1 ? morph2 : morph1, latestDx == 1 ? morph1 : morph2, latestYear) &&
                             MphConstants.TREATMENT_GIVEN.equals(latestDx == 1 ? i2.getTxStatus() : i1.getTxStatus()))
-                        result.setFinalResult(MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                        result = TempRuleResult.MULTIPLE_PRIMARIES;
                 }
                 return result;
             }
@@ -380,19 +402,14 @@ public class Mp2010HematopoieticGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2010_HEMATO_GROUP_ID, "M14") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                List<String> combined = new ArrayList<>(MphConstants.BCELL);
-                combined.addAll(MphConstants.TCELL);
-                combined.addAll(MphConstants.HODGKIN_LYMPHOMA);
-                combined.addAll(MphConstants.PLASMACYTOMA);
-                if (GroupUtility.differentCategory(i1.getHistology(), i2.getHistology(), MphConstants.PTLD, combined)) {
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                if (GroupUtility.differentCategory(i1, i2, _PTLD, _PTLD_OTHER_LYMPHOMAS)) {
                     int daysApart = GroupUtility.verifyDaysApart(i1, i2, 21);
                     if (daysApart == -1) {
-                        result.setPotentialResult(MphUtils.MpResult.SINGLE_PRIMARY);
-                        result.setMessage("Unable to apply Rule" + this.getStep() + " of " + this.getGroupId() + ". Known diagnosis date should be provided.");
+                        result = potentialResult(MphUtils.MpResult.SINGLE_PRIMARY, "Known diagnosis date should be provided.");
                     }
                     else if (daysApart == 0)
-                        result.setFinalResult(MphUtils.MpResult.SINGLE_PRIMARY);
+                        result = TempRuleResult.SINGLE_PRIMARY;
                 }
                 return result;
             }
@@ -411,12 +428,12 @@ public class Mp2010HematopoieticGroup extends MphGroup {
         rule = new MphRule(MphConstants.MP_2010_HEMATO_GROUP_ID, "M15") {
             @Override
             public TempRuleResult apply(MphInput i1, MphInput i2, MphComputeOptions options) {
-                TempRuleResult result = new TempRuleResult();
-                String morph1 = i1.getHistology() + "/" + i1.getBehavior(), morph2 = i2.getHistology() + "/" + i2.getBehavior();
+                TempRuleResult result = TempRuleResult.NO_RESULT;
+                String morph1 = GroupUtility.getMorphology(i1.getHistology(), i1.getBehavior()), morph2 = GroupUtility.getMorphology(i2.getHistology(), i2.getBehavior());
                 int latestDx = GroupUtility.compareDxDate(i1, i2);
-                int latestYear = latestDx == 1 ? Integer.valueOf(i1.getDateOfDiagnosisYear()) : Integer.valueOf(i2.getDateOfDiagnosisYear());
-                result.setFinalResult(
-                        MphUtils.getInstance().getHematoDbUtilsProvider().isSamePrimary(morph1, morph2, latestYear) ? MphUtils.MpResult.SINGLE_PRIMARY : MphUtils.MpResult.MULTIPLE_PRIMARIES);
+                int latestYear = latestDx == 1 ? i1.getValidatedTumor().getYear() : i2.getValidatedTumor().getYear();
+                result = TempRuleResult.finalResult(
+                        getProvider().isSamePrimary(morph1, morph2, latestYear) ? MphUtils.MpResult.SINGLE_PRIMARY : MphUtils.MpResult.MULTIPLE_PRIMARIES);
                 return result;
             }
         };
@@ -427,18 +444,23 @@ public class Mp2010HematopoieticGroup extends MphGroup {
         _rules.add(rule);
     }
 
-    private static boolean isTransformation(String leftCode, String rightCode, int year) {
-        return MphUtils.getInstance().getHematoDbUtilsProvider().isAcuteTransformation(leftCode, rightCode, year) || MphUtils.getInstance().getHematoDbUtilsProvider().isAcuteTransformation(rightCode, leftCode, year) ||
-                MphUtils.getInstance().getHematoDbUtilsProvider().isChronicTransformation(leftCode, rightCode, year) || MphUtils.getInstance().getHematoDbUtilsProvider().isChronicTransformation(rightCode, leftCode, year);
+    private HematoDbUtilsProvider getProvider() {
+        return _provider != null ? _provider : MphUtils.getInstance().getHematoDbUtilsProvider();
+    }
+
+    private boolean isTransformation(String leftCode, String rightCode, int year) {
+        HematoDbUtilsProvider provider = getProvider();
+        return provider.isAcuteTransformation(leftCode, rightCode, year) || provider.isAcuteTransformation(rightCode, leftCode, year) || provider.isChronicTransformation(leftCode, rightCode, year)
+                || provider.isChronicTransformation(rightCode, leftCode, year);
     }
 
-    private static boolean isAcuteToChronicTransformation(String earlierMorph, String latestMorph, int year) {
-        return MphUtils.getInstance().getHematoDbUtilsProvider().isChronicTransformation(earlierMorph, latestMorph, year) || MphUtils.getInstance().getHematoDbUtilsProvider().isAcuteTransformation(latestMorph, earlierMorph,
+    private boolean isAcuteToChronicTransformation(String earlierMorph, String latestMorph, int year) {
+        return getProvider().isChronicTransformation(earlierMorph, latestMorph, year) || getProvider().isAcuteTransformation(latestMorph, earlierMorph,
                 year);
     }
 
-    private static boolean isChronicToAcuteTransformation(String earlierMorph, String latestMorph, int year) {
-        return MphUtils.getInstance().getHematoDbUtilsProvider().isAcuteTransformation(earlierMorph, latestMorph, year) || MphUtils.getInstance().getHematoDbUtilsProvider().isChronicTransformation(latestMorph, earlierMorph,
+    private boolean isChronicToAcuteTransformation(String earlierMorph, String latestMorph, int year) {
+        return getProvider().isAcuteTransformation(earlierMorph, latestMorph, year) || getProvider().isChronicTransformation(latestMorph, earlierMorph,
                 year);
     }
 
@@ -3,9 +3,13 @@
  */
 package com.imsweb.mph;
 
+import java.util.Arrays;
+
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.imsweb.mph.internal.HematoDbTable;
+
 public class DefaultHematoDbUtilsProviderTest {
 
     private DefaultHematoDbUtilsProvider _provider = new DefaultHematoDbUtilsProvider();
@@ -64,4 +68,32 @@ public class DefaultHematoDbUtilsProviderTest {
         Assert.assertFalse(_provider.isChronicTransformation("9675/3", "9671/3", 2010));
         Assert.assertFalse(_provider.isChronicTransformation("9675/3", "9671/3", 2001));
     }
+
+    @Test
+    public void testHematoDbTable() {
+        Assert.assertEquals(95903, HematoDbTable.parseMorphology("9590/3"));
+        Assert.assertEquals(-1, HematoDbTable.parseMorphology("9590/3 "));
+        Assert.assertEquals(-1, HematoDbTable.parseMorphology("9590-3"));
+        Assert.assertEquals(-1, HematoDbTable.parseMorphology("959/3"));
+        Assert.assertEquals(-1, HematoDbTable.parseMorphology("959A/3"));
+        Assert.assertEquals(-1, HematoDbTable.parseMorphology(null));
+
+        HematoDbTable table = new HematoDbTable(Arrays.asList(new String[] {"9737/3", "2010", "9999", "9590/3"}, new String[] {"9737/3", "2001", "2004", "9591/3"},
+                new String[] {"9737/3", "2008", "2009", "9591/3"}, new String[] {"9680/3", "2010", "9999", "9737/3"}));
+        Assert.assertEquals(4, table.size());
+        Assert.assertTrue(table.containsLeft(97373));
+        Assert.assertTrue(table.containsLeft(96803));
+        Assert.assertFalse(table.containsLeft(95903));
+        Assert.assertTrue(table.matches(97373, 95903, 2010));
+        Assert.assertFalse(table.matches(97373, 95903, 2009));
+        Assert.assertFalse(table.matches(95903, 97373, 2010));
+        Assert.assertTrue(table.matches(97373, 95913, 2001));
+        Assert.assertTrue(table.matches(97373, 95913, 2009));
+        Assert.assertFalse(table.matches(97373, 95913, 2005));
+        Assert.assertFalse(table.matches(97373, 95913, 2010));
+
+        Assert.assertTrue(_provider.isSamePrimary("9737/3", "9590/3", 2010));
+        Assert.assertFalse(_provider.isSamePrimary("9737/3", "9590/3 ", 2010));
+        Assert.assertFalse(_provider.isAcuteTransformation("9963/3", "9861/3x", 2010));
+    }
 }
@@ -4,6 +4,7 @@
 package com.imsweb.mph;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -11,6 +12,8 @@ import java.util.List;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.imsweb.mph.internal.CodeSet;
+import com.imsweb.mph.internal.DxDateRange;
 import com.imsweb.mph.mpgroups.GroupUtility;
 
 public class GroupUtilityTest {
@@ -26,6 +29,9 @@ public class GroupUtilityTest {
         Assert.assertFalse(GroupUtility.validateProperties("C189", "ABCD", "1", 2007));
         Assert.assertFalse(GroupUtility.validateProperties("C189", "7999", "1", 2007));
         Assert.assertFalse(GroupUtility.validateProperties("C189", "80003", "1", 2007));
+        Assert.assertFalse(GroupUtility.validateProperties("C189", "08000", "1", 2007));
+        Assert.assertFalse(GroupUtility.validateProperties("C189", "\u0668\u0660\u0660\u0660", "1", 2007));
+        Assert.assertFalse(GroupUtility.validateProperties("C\u0661\u0668\u0669", "8000", "1", 2007));
 
         Assert.assertFalse(GroupUtility.validateProperties("C189", "8000", "A", 2007));
         Assert.assertFalse(GroupUtility.validateProperties("C189", "8000", "8", 2007));
@@ -39,6 +45,34 @@ public class GroupUtilityTest {
         Assert.assertTrue(GroupUtility.validateProperties("C000", "8723", "6", LocalDate.now().getYear()));
     }
 
+    @Test
+    public void testParseProperties() {
+        Assert.assertEquals(189, GroupUtility.parseSite("C189"));
+        Assert.assertEquals(0, GroupUtility.parseSite("C000"));
+        Assert.assertEquals(-1, GroupUtility.parseSite("C809"));
+        Assert.assertEquals(-1, GroupUtility.parseSite("c189"));
+        Assert.assertEquals(-1, GroupUtility.parseSite("C18X"));
+        Assert.assertEquals(-1, GroupUtility.parseSite("C1890"));
+        Assert.assertEquals(-1, GroupUtility.parseSite(null));
+
+        Assert.assertEquals(8000, GroupUtility.parseHistology("8000"));
+        Assert.assertEquals(-1, GroupUtility.parseHistology("08000"));
+        Assert.assertEquals(9999, GroupUtility.parseHistology("9999"));
+        Assert.assertEquals(-1, GroupUtility.parseHistology("7999"));
+        Assert.assertEquals(-1, GroupUtility.parseHistology("80003"));
+        Assert.assertEquals(-1, GroupUtility.parseHistology("800A"));
+        Assert.assertEquals(-1, GroupUtility.parseHistology(""));
+        Assert.assertEquals(-1, GroupUtility.parseHistology(null));
+
+        Assert.assertEquals(6, GroupUtility.parseBehavior("6"));
+        Assert.assertEquals(0, GroupUtility.parseBehavior("0"));
+        Assert.assertEquals(-1, GroupUtility.parseBehavior("5"));
+        Assert.assertEquals(-1, GroupUtility.parseBehavior("03"));
+        Assert.assertEquals(-1, GroupUtility.parseBehavior(null));
+
+        Assert.assertEquals(LocalDate.now().getYear(), GroupUtility.getCurrentYear());
+    }
+
     @Test
     public void testComputeRange() {
         Assert.assertFalse(GroupUtility.isContained(null, 700));
@@ -69,6 +103,18 @@ public class GroupUtilityTest {
         Assert.assertFalse(GroupUtility.isContained(GroupUtility.computeRange(" 8000 - 8523 , 8527 , 8536 , 9000 -  9002  ", false), 9003));
     }
 
+    @Test
+    public void testGetMorphology() {
+        Assert.assertEquals("9590/3", GroupUtility.getMorphology("9590", "3"));
+        Assert.assertSame(GroupUtility.getMorphology("9590", "3"), GroupUtility.getMorphology("9590", "3"));
+
+        // a non-ASCII digit is not cached with the ASCII one
+        Assert.assertEquals("9591/\u0663", GroupUtility.getMorphology("9591", "\u0663"));
+        Assert.assertEquals("9591/3", GroupUtility.getMorphology("9591", "3"));
+        Assert.assertEquals("9591/\u0663", GroupUtility.getMorphology("9591", "\u0663"));
+        Assert.assertEquals("null/3", GroupUtility.getMorphology(null, "3"));
+    }
+
     @Test
     public void testIsSiteContained() {
         Assert.assertTrue(GroupUtility.isSiteContained("C370-C384,C388", "C388"));
@@ -106,6 +152,12 @@ public class GroupUtilityTest {
         Assert.assertFalse(GroupUtility.isPairedSites("C712", "C715", pairedSites));
         Assert.assertFalse(GroupUtility.isPairedSites("C700", "C710", pairedSites));
         Assert.assertFalse(GroupUtility.isPairedSites("C700", "C706", pairedSites));
+
+        CodeSet[] pairedCodeSets = {CodeSet.ofSites("C700-C702,C705"), CodeSet.ofSites("C710,C712"), CodeSet.ofSites("C715")};
+        Assert.assertTrue(GroupUtility.isPairedSites("C700", "C705", pairedCodeSets));
+        Assert.assertTrue(GroupUtility.isPairedSites("C712", "C710", pairedCodeSets));
+        Assert.assertFalse(GroupUtility.isPairedSites("C712", "C715", pairedCodeSets));
+        Assert.assertFalse(GroupUtility.isPairedSites("C700", "C706", pairedCodeSets));
     }
 
     @Test
@@ -138,6 +190,100 @@ public class GroupUtilityTest {
         Assert.assertTrue(GroupUtility.differentCategory("8000", "8010", Collections.singletonList("8000"), GroupUtility.expandList("8001-8750")));
         Assert.assertTrue(GroupUtility.differentCategory("8225", "9010", GroupUtility.expandList("8001-8750"), GroupUtility.expandList("9001-9750")));
         Assert.assertTrue(GroupUtility.differentCategory("9001", "8750", GroupUtility.expandList("8001-8750"), GroupUtility.expandList("9001-9750")));
+        Assert.assertTrue(GroupUtility.differentCategory("C700", "C730", CodeSet.ofSites("C700,C719,C725"), CodeSet.ofSites("C730,C740")));
+        Assert.assertFalse(GroupUtility.differentCategory("C700", "C725", CodeSet.ofSites("C700,C719,C725"), CodeSet.ofSites("C730,C740")));
+        Assert.assertTrue(GroupUtility.differentCategory("9001", "8750", CodeSet.ofHistologies("8001-8750"), CodeSet.ofHistologies("9001-9750")));
+        Assert.assertFalse(GroupUtility.differentCategory("8000", "8010", CodeSet.ofHistologies(""), CodeSet.ofHistologies("8001-8750")));
+    }
+
+    @Test
+    public void testCodeSet() {
+        CodeSet hists = CodeSet.ofHistologies("8000-8005,8010, 8140");
+        Assert.assertEquals(8, hists.size());
+        Assert.assertTrue(hists.contains("8000"));
+        Assert.assertTrue(hists.contains("8005"));
+        Assert.assertTrue(hists.contains("8140"));
+        Assert.assertTrue(hists.contains(8010));
+        Assert.assertFalse(hists.contains("8006"));
+        Assert.assertFalse(hists.contains("814"));
+        Assert.assertFalse(hists.contains("81400"));
+        Assert.assertFalse(hists.contains("814A"));
+        Assert.assertFalse(hists.contains((String)null));
+        Assert.assertFalse(hists.contains(7999));
+        Assert.assertFalse(hists.contains(9999));
+        Assert.assertEquals("8000,8001,8002,8003,8004,8005,8010,8140", hists.toString());
+        Assert.assertEquals(GroupUtility.expandList("8000-8005,8010,8140").size(), hists.getValues().length);
+
+        CodeSet sites = CodeSet.ofSites("C18,C209,C370-C383");
+        Assert.assertEquals(25, sites.size());
+        Assert.assertTrue(sites.contains("C180"));
+        Assert.assertTrue(sites.contains("C189"));
+        Assert.assertTrue(sites.contains("C209"));
+        Assert.assertTrue(sites.contains("C379"));
+        Assert.assertFalse(sites.contains("C190"));
+        Assert.assertFalse(sites.contains("C18"));
+        Assert.assertFalse(sites.contains("D180"));
+        Assert.assertFalse(sites.contains("c180"));
+
+        CodeSet union = CodeSet.ofHistologies("8000,8010").union(CodeSet.ofHistologies("9990"));
+        Assert.assertEquals("8000,8010,9990", union.toString());
+        Assert.assertEquals("8010", union.intersection(CodeSet.ofHistologies("8005-8015")).toString());
+        Assert.assertTrue(CodeSet.ofHistologies(null).isEmpty());
+        Assert.assertSame(union, union.union(CodeSet.ofHistologies("")));
+
+        try {
+            sites.union(hists);
+            Assert.fail("Sites and histologies should not be combined");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        for (String hist : GroupUtility.expandList("8000-9999"))
+            Assert.assertEquals(MphConstants.ADENOCARCINOMA_NOS.contains(Integer.parseInt(hist)), MphConstants.ADENOCARCINOMA_NOS.contains(hist));
+    }
+
+    @Test
+    public void testDxDateRange() {
+        DxDateRange date = new DxDateRange("2016", "02", "29");
+        Assert.assertEquals(2016, date.getYear());
+        Assert.assertEquals(2, date.getMonth());
+        Assert.assertEquals(29, date.getDay());
+        Assert.assertEquals(LocalDate.of(2016, 2, 29).toEpochDay(), date.getMinEpochDay());
+        Assert.assertEquals(LocalDate.of(2016, 2, 29).toEpochDay(), date.getMaxEpochDay());
+
+        date = new DxDateRange("2015", "2", "29");
+        Assert.assertEquals(2, date.getMonth());
+        Assert.assertFalse(date.isDayKnown());
+        Assert.assertEquals(LocalDate.of(2015, 2, 1).toEpochDay(), date.getMinEpochDay());
+        Assert.assertEquals(LocalDate.of(2015, 2, 28).toEpochDay(), date.getMaxEpochDay());
+
+        date = new DxDateRange("2015", "13", "10");
+        Assert.assertFalse(date.isMonthKnown());
+        Assert.assertFalse(date.isDayKnown());
+        Assert.assertEquals(LocalDate.of(2015, 1, 1).toEpochDay(), date.getMinEpochDay());
+        Assert.assertEquals(LocalDate.of(2015, 12, 31).toEpochDay(), date.getMaxEpochDay());
+
+        date = new DxDateRange(null, "99999999999", "A");
+        Assert.assertEquals(DxDateRange.UNKNOWN_YEAR, date.getYear());
+        Assert.assertEquals(DxDateRange.UNKNOWN, date.getMonth());
+        Assert.assertEquals(DxDateRange.UNKNOWN, date.getDay());
+
+        for (LocalDate day = LocalDate.of(1899, 1, 1); day.getYear() < 2101; day = day.plusDays(1))
+            Assert.assertEquals(day.toEpochDay(), new DxDateRange(String.valueOf(day.getYear()), String.valueOf(day.getMonthValue()), String.valueOf(day.getDayOfMonth())).getMinEpochDay());
+
+        LocalDate start = LocalDate.of(2010, 3, 31);
+        for (LocalDate end = LocalDate.of(2000, 1, 1); end.getYear() < 2020; end = end.plusDays(3))
+            Assert.assertEquals(ChronoUnit.YEARS.between(start, end), DxDateRange.yearsBetween(new DxDateRange("2010", "3", "31"),
+                    new DxDateRange(String.valueOf(end.getYear()), String.valueOf(end.getMonthValue()), String.valueOf(end.getDayOfMonth()))));
+
+        // the parsed date is reset when the input changes
+        MphInput input = new MphInput();
+        input.setDateOfDiagnosisYear("2015");
+        Assert.assertEquals(2015, input.getDxDateRange().getYear());
+        Assert.assertSame(input.getDxDateRange(), input.getDxDateRange());
+        input.setDateOfDiagnosisMonth("5");
+        Assert.assertEquals(5, input.getDxDateRange().getMonth());
     }
 
     @Test
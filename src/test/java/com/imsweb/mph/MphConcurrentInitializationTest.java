@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import au.com.bytecode.opencsv.CSVReader;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MphConcurrentInitializationTest {
+
+    private static final int _NUM_THREADS = 16;
+
+    private static final int _NUM_ROUNDS = 5;
+
+    @Test
+    public void testConcurrentFirstUse() throws Exception {
+        String expected = new Worker().call();
+
+        // each round uses a new class loader so the classes (and their lookups) are really initialized by the concurrent threads
+        URL[] urls = {getLocation(MphUtils.class), getLocation(MphConcurrentInitializationTest.class), getLocation(StringUtils.class), getLocation(CSVReader.class),
+                new URL(Thread.currentThread().getContextClassLoader().getResource("Hematopoietic2001HistologyGroups.csv"), ".")};
+        for (int round = 0; round < _NUM_ROUNDS; round++) {
+            try (URLClassLoader loader = new URLClassLoader(urls, ClassLoader.getSystemClassLoader().getParent())) {
+                Class<?> workerClass = loader.loadClass(Worker.class.getName());
+                Assert.assertNotSame(Worker.class, workerClass);
+
+                CountDownLatch start = new CountDownLatch(1);
+                ExecutorService executor = Executors.newFixedThreadPool(_NUM_THREADS, r -> {
+                    Thread thread = new Thread(r);
+                    thread.setContextClassLoader(loader);
+                    return thread;
+                });
+                try {
+                    List<Future<String>> results = new ArrayList<>();
+                    for (int i = 0; i < _NUM_THREADS; i++) {
+                        @SuppressWarnings("unchecked")
+                        Callable<String> worker = (Callable<String>)workerClass.getDeclaredConstructor().newInstance();
+                        results.add(executor.submit(() -> {
+                            start.await();
+                            return worker.call();
+                        }));
+                    }
+                    start.countDown();
+                    for (Future<String> result : results)
+                        Assert.assertEquals(expected, result.get());
+                }
+                finally {
+                    executor.shutdownNow();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testParallelStreamFirstUse() throws Exception {
+        String expected = callWithTimeout(new ParallelWorker(), Thread.currentThread().getContextClassLoader());
+
+        // the lookups are initialized by the common pool threads of a parallel stream, which is also the pool the resources used to be read by
+        URL[] urls = {getLocation(MphUtils.class), getLocation(MphConcurrentInitializationTest.class), getLocation(StringUtils.class), getLocation(CSVReader.class),
+                new URL(Thread.currentThread().getContextClassLoader().getResource("Hematopoietic2001HistologyGroups.csv"), ".")};
+        for (int round = 0; round < _NUM_ROUNDS; round++) {
+            try (URLClassLoader loader = new URLClassLoader(urls, ClassLoader.getSystemClassLoader().getParent())) {
+                @SuppressWarnings("unchecked")
+                Callable<String> worker = (Callable<String>)loader.loadClass(ParallelWorker.class.getName()).getDeclaredConstructor().newInstance();
+                Assert.assertEquals(expected, callWithTimeout(worker, loader));
+            }
+        }
+    }
+
+    // calls the worker in a new thread using the given context class loader, fails if it doesn't complete in time
+    private static String callWithTimeout(Callable<String> worker, ClassLoader loader) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r);
+            thread.setContextClassLoader(loader);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            return executor.submit(worker).get(1, TimeUnit.MINUTES);
+        }
+        catch (TimeoutException e) {
+            Assert.fail("The initialization through a parallel stream is deadlocked");
+            return null;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static URL getLocation(Class<?> clazz) {
+        return clazz.getProtectionDomain().getCodeSource().getLocation();
+    }
+
+    /**
+     * Gets the instance and computes Hematopoietic pairs of the three sets of rules; the results are returned as a single string.
+     */
+    public static class Worker implements Callable<String> {
+
+        @Override
+        public String call() {
+            MphUtils utils = MphUtils.getInstance();
+            StringBuilder buf = new StringBuilder();
+            for (int year : new int[] {1999, 2004, 2012}) {
+                for (int hist1 = 9590; hist1 <= 9989; hist1 += 13) {
+                    for (int hist2 = 9591; hist2 <= 9989; hist2 += 29) {
+                        MphInput i1 = new MphInput(), i2 = new MphInput();
+                        i1.setPrimarySite("C421");
+                        i1.setHistologyIcdO3(String.valueOf(hist1));
+                        i1.setBehaviorIcdO3("3");
+                        i1.setDateOfDiagnosisYear(String.valueOf(year));
+                        i2.setPrimarySite("C421");
+                        i2.setHistologyIcdO3(String.valueOf(hist2));
+                        i2.setBehaviorIcdO3("3");
+                        i2.setDateOfDiagnosisYear(String.valueOf(year + 1));
+                        buf.append(utils.computePrimaries(i1, i2).getResult().ordinal());
+                    }
+                }
+                buf.append('|');
+            }
+            return buf.toString();
+        }
+    }
+
+    /**
+     * Gets the instance and computes 2010+ Hematopoietic pairs through a parallel stream; the results are returned as a single string.
+     */
+    public static class ParallelWorker implements Callable<String> {
+
+        @Override
+        public String call() {
+            MphUtils utils = MphUtils.getInstance();
+            return IntStream.rangeClosed(9590, 9989).parallel().mapToObj(hist -> {
+                MphInput i1 = new MphInput(), i2 = new MphInput();
+                i1.setPrimarySite("C421");
+                i1.setHistologyIcdO3(String.valueOf(hist));
+                i1.setBehaviorIcdO3("3");
+                i1.setDateOfDiagnosisYear("2012");
+                i2.setPrimarySite("C421");
+                i2.setHistologyIcdO3("9861");
+                i2.setBehaviorIcdO3("3");
+                i2.setDateOfDiagnosisYear("2013");
+                return String.valueOf(utils.computePrimaries(i1, i2).getResult().ordinal());
+            }).collect(Collectors.joining());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MphNaaccrFileProcessorTest {
+
+    @Rule
+    public TemporaryFolder _folder = new TemporaryFolder();
+
+    private MphUtils _utils = MphUtils.getInstance();
+
+    @BeforeClass
+    public static void setUp() {
+        MphUtils.initialize(new DefaultHematoDbUtilsProvider());
+    }
+
+    @Test
+    public void testProcess() throws IOException {
+        // site, histology, behavior, year, month, day, laterality
+        Map<String, List<String[]>> patients = new LinkedHashMap<>();
+        patients.put("00000001", Arrays.asList(new String[] {"C509", "8500", "3", "2015", "01", "15", "1"}, new String[] {"C509", "8520", "3", "2016", null, null, "2"}));
+        patients.put("00000002", Arrays.asList(new String[] {"C180", "8140", "3", "2010", "06", "99", "0"}, new String[] {"C187", "8140", "3", "2012", "11", "03", "0"},
+                new String[] {"C619", "8140", "3", "2012", "11", null, "0"}));
+        patients.put("00000003", Collections.singletonList(new String[] {"C349", "8070", "3", "2009", null, null, "1"}));
+        // same patient ID as the first one, but not contiguous
+        patients.put("00000001 ", Arrays.asList(new String[] {"C443", "8720", "2", "201X", "05", "01", "9"}, new String[] {"C443", "8720", "3", "2014", "05", "01", "9"}));
+
+        StringBuilder buf = new StringBuilder();
+        int count = 0;
+        for (Map.Entry<String, List<String[]>> entry : patients.entrySet())
+            for (String[] values : entry.getValue())
+                buf.append(createRecord(entry.getKey().trim(), values, null)).append(count++ % 2 == 0 ? "\r\n" : "\n");
+        File file = _folder.newFile("naaccr.txd");
+        Files.write(file.toPath(), buf.toString().getBytes(StandardCharsets.US_ASCII));
+
+        // use a small window so records overlap the windows
+        for (int windowSize : new int[] {5000, 1 << 20}) {
+            MphNaaccrFileProcessor processor = new MphNaaccrFileProcessor(_utils);
+            processor.setWindowSize(windowSize);
+            List<String> ids = new ArrayList<>();
+            List<MphPatientOutput> outputs = new ArrayList<>();
+            MphNaaccrFileProcessor.Statistics stats = processor.process(file.toPath(), new MphComputeOptions(), null, (id, output) -> {
+                ids.add(id);
+                outputs.add(output);
+            });
+
+            Assert.assertEquals(Arrays.asList("00000001", "00000002", "00000003", "00000001"), ids);
+            Assert.assertEquals(8, stats.getRecordCount());
+            Assert.assertEquals(4, stats.getPatientCount());
+            Assert.assertEquals(1 + 3 + 0 + 1, stats.getPairCount());
+            Assert.assertTrue(stats.getRecordsPerSecond() > 0);
+
+            int patientIdx = 0;
+            for (List<String[]> expectedValues : patients.values()) {
+                MphPatientOutput output = outputs.get(patientIdx++);
+                Assert.assertEquals(expectedValues.size(), output.getTumorCount());
+                List<MphInput> expectedTumors = new ArrayList<>();
+                for (int i = 0; i < expectedValues.size(); i++) {
+                    String[] values = expectedValues.get(i);
+                    MphInput actual = output.getTumors().get(i);
+                    Assert.assertEquals(values[0], actual.getPrimarySite());
+                    Assert.assertEquals(values[1], actual.getHistology());
+                    Assert.assertEquals(values[2], actual.getBehavior());
+                    Assert.assertEquals(values[3], actual.getDateOfDiagnosisYear());
+                    Assert.assertEquals(values[4], actual.getDateOfDiagnosisMonth());
+                    Assert.assertEquals(values[5], actual.getDateOfDiagnosisDay());
+                    Assert.assertEquals(values[6], actual.getLaterality());
+                    Assert.assertNull(actual.getTxStatus());
+                    expectedTumors.add(createInput(values));
+                }
+                MphPatientOutput expectedOutput = _utils.computePrimaries(expectedTumors, new MphComputeOptions());
+                for (int i = 0; i < expectedTumors.size(); i++) {
+                    for (int j = i + 1; j < expectedTumors.size(); j++) {
+                        Assert.assertEquals(expectedOutput.getOutput(i, j).getResult(), output.getOutput(i, j).getResult());
+                        Assert.assertEquals(expectedOutput.getOutput(i, j).getStep(), output.getOutput(i, j).getStep());
+                    }
+                }
+            }
+        }
+
+        // the codes are shared between the records
+        List<MphPatientOutput> outputs = new ArrayList<>();
+        new MphNaaccrFileProcessor(_utils).process(file.toPath(), new MphComputeOptions(), null, (id, output) -> outputs.add(output));
+        Assert.assertSame(outputs.get(0).getTumors().get(0).getPrimarySite(), outputs.get(0).getTumors().get(1).getPrimarySite());
+        Assert.assertSame(outputs.get(1).getTumors().get(1).getDateOfDiagnosisYear(), outputs.get(1).getTumors().get(2).getDateOfDiagnosisYear());
+    }
+
+    @Test
+    public void testProcessShortRecords() throws IOException {
+        // the record stops in the middle of the histology ICD-O-2, the blank records (empty, short or padded to the full length) are ignored
+        String record = createRecord("00000001", new String[] {"C509", "8500", "3", "1999", "01", "15", "1"}, "8500").substring(0, 547);
+        File file = _folder.newFile("short.txd");
+        Files.write(file.toPath(), Arrays.asList(record, "", "  ", StringUtils.repeat(' ', 3339), " \t "), StandardCharsets.US_ASCII);
+
+        List<MphPatientOutput> outputs = new ArrayList<>();
+        MphNaaccrFileProcessor.Statistics stats = new MphNaaccrFileProcessor(_utils).process(file.toPath(), new MphComputeOptions(), null, (id, output) -> outputs.add(output));
+        Assert.assertEquals(1, stats.getRecordCount());
+        Assert.assertEquals(1, stats.getPatientCount());
+        Assert.assertEquals(1, outputs.size());
+        Assert.assertEquals(1, outputs.get(0).getTumors().size());
+        MphInput input = outputs.get(0).getTumors().get(0);
+        Assert.assertEquals("C509", input.getPrimarySite());
+        Assert.assertEquals("1", input.getLaterality());
+        Assert.assertEquals("1999", input.getDateOfDiagnosisYear());
+        // the partial ICD-O-2 code is kept as-is (and ignored since it's not valid), the ICD-O-3 code is missing
+        Assert.assertFalse(input.getValidatedTumor().isHistologyIcdO2());
+        Assert.assertNull(input.getHistology());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidColumn() {
+        new MphNaaccrFileProcessor(_utils).setPrimarySiteColumn(0);
+    }
+
+    private static MphInput createInput(String[] values) {
+        MphInput input = new MphInput();
+        input.setPrimarySite(values[0]);
+        input.setHistologyIcdO3(values[1]);
+        input.setBehaviorIcdO3(values[2]);
+        input.setDateOfDiagnosisYear(values[3]);
+        input.setDateOfDiagnosisMonth(values[4]);
+        input.setDateOfDiagnosisDay(values[5]);
+        input.setLaterality(values[6]);
+        return input;
+    }
+
+    private static String createRecord(String patientIdNumber, String[] values, String histologyIcdO2) {
+        char[] record = new char[3339];
+        Arrays.fill(record, ' ');
+        write(record, 42, patientIdNumber);
+        write(record, 530, values[3]);
+        write(record, 534, values[4]);
+        write(record, 536, values[5]);
+        write(record, 540, values[0]);
+        write(record, 544, values[6]);
+        write(record, 545, histologyIcdO2);
+        write(record, 550, values[1]);
+        write(record, 554, values[2]);
+        return new String(record);
+    }
+
+    private static void write(char[] record, int column, String value) {
+        if (value != null)
+            value.getChars(0, value.length(), record, column - 1);
+    }
+}
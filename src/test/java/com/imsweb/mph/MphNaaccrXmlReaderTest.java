@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.imsweb.mph.MphUtils.MpResult;
+
+public class MphNaaccrXmlReaderTest {
+
+    private static final String _XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<NaaccrData baseDictionaryUri=\"http://naaccr.org/naaccrxml/naaccr-dictionary-160.xml\" recordType=\"I\" xmlns=\"http://naaccr.org/naaccrxml\">\n"
+            + "  <Item naaccrId=\"registryId\">0000001234</Item>\n"
+            + "  <Patient>\n"
+            + "    <Item naaccrId=\"patientIdNumber\">00000001</Item>\n"
+            + "    <Item naaccrId=\"sex\">2</Item>\n"
+            + "    <Tumor>\n"
+            + "      <Item naaccrId=\"primarySite\">C509</Item>\n"
+            + "      <Item naaccrId=\"laterality\">1</Item>\n"
+            + "      <Item naaccrId=\"histologicTypeIcdO3\">8500</Item>\n"
+            + "      <Item naaccrId=\"behaviorCodeIcdO3\">3</Item>\n"
+            + "      <Item naaccrId=\"dateOfDiagnosis\">20150115</Item>\n"
+            + "      <Item naaccrId=\"rxSummTreatmentStatus\">1</Item>\n"
+            + "      <Item naaccrId=\"sequenceNumberCentral\">01</Item>\n"
+            + "    </Tumor>\n"
+            + "    <Tumor>\n"
+            + "      <Item naaccrId=\"primarySite\">C509</Item>\n"
+            + "      <Item naaccrId=\"laterality\">2</Item>\n"
+            + "      <Item naaccrId=\"histologicTypeIcdO3\">8500</Item>\n"
+            + "      <Item naaccrId=\"behaviorCodeIcdO3\">3</Item>\n"
+            + "      <Item naaccrId=\"dateOfDiagnosis\">2016</Item>\n"
+            + "    </Tumor>\n"
+            + "  </Patient>\n"
+            + "  <Patient>\n"
+            + "    <Item naaccrId=\"patientIdNumber\">00000002</Item>\n"
+            + "    <Tumor>\n"
+            + "      <Item naaccrId=\"primarySite\">C180</Item>\n"
+            + "      <Item naaccrId=\"histologicTypeIcdO3\">8140</Item>\n"
+            + "      <Item naaccrId=\"behaviorCodeIcdO3\">3</Item>\n"
+            + "      <Item naaccrId=\"histologyIcdO2\">8140</Item>\n"
+            + "      <Item naaccrId=\"behaviorIcdO2\">2</Item>\n"
+            + "      <Item naaccrId=\"dateOfDiagnosis\">199906</Item>\n"
+            + "    </Tumor>\n"
+            + "  </Patient>\n"
+            + "  <Patient/>\n"
+            + "</NaaccrData>\n";
+
+    private MphUtils _utils = MphUtils.getInstance();
+
+    @BeforeClass
+    public static void setUp() {
+        MphUtils.initialize(new DefaultHematoDbUtilsProvider());
+    }
+
+    @Test
+    public void testReadPatient() throws IOException {
+        try (MphNaaccrXmlReader reader = new MphNaaccrXmlReader(new ByteArrayInputStream(_XML.getBytes(StandardCharsets.UTF_8)))) {
+            MphNaaccrXmlReader.Patient patient = reader.readPatient();
+            Assert.assertEquals("00000001", patient.getPatientIdNumber());
+            Assert.assertEquals(2, patient.getTumors().size());
+            MphInput tumor = patient.getTumors().get(0);
+            Assert.assertEquals("C509", tumor.getPrimarySite());
+            Assert.assertEquals("1", tumor.getLaterality());
+            Assert.assertEquals("8500", tumor.getHistology());
+            Assert.assertEquals("3", tumor.getBehavior());
+            Assert.assertEquals("2015", tumor.getDateOfDiagnosisYear());
+            Assert.assertEquals("01", tumor.getDateOfDiagnosisMonth());
+            Assert.assertEquals("15", tumor.getDateOfDiagnosisDay());
+            Assert.assertEquals("1", tumor.getTxStatus());
+            tumor = patient.getTumors().get(1);
+            Assert.assertEquals("2", tumor.getLaterality());
+            Assert.assertEquals("2016", tumor.getDateOfDiagnosisYear());
+            Assert.assertNull(tumor.getDateOfDiagnosisMonth());
+            Assert.assertNull(tumor.getDateOfDiagnosisDay());
+            Assert.assertNull(tumor.getTxStatus());
+            Assert.assertEquals(MpResult.MULTIPLE_PRIMARIES, _utils.computePrimaries(patient.getTumors(), null).getOutput(0, 1).getResult());
+
+            patient = reader.readPatient();
+            Assert.assertEquals("00000002", patient.getPatientIdNumber());
+            Assert.assertEquals(1, patient.getTumors().size());
+            tumor = patient.getTumors().get(0);
+            Assert.assertEquals("1999", tumor.getDateOfDiagnosisYear());
+            Assert.assertEquals("06", tumor.getDateOfDiagnosisMonth());
+            // ICD-O-2 is used before 2001
+            Assert.assertEquals("2", tumor.getBehavior());
+            Assert.assertEquals(1, _utils.consolidatePrimaries(patient.getTumors(), null).getNumPrimaries());
+
+            patient = reader.readPatient();
+            Assert.assertNull(patient.getPatientIdNumber());
+            Assert.assertTrue(patient.getTumors().isEmpty());
+
+            Assert.assertNull(reader.readPatient());
+            Assert.assertNull(reader.readPatient());
+        }
+    }
+
+    @Test
+    public void testPatients() throws IOException {
+        try (MphNaaccrXmlReader reader = new MphNaaccrXmlReader(new StringReader(_XML))) {
+            List<MphPatientOutput> outputs = _utils.computePrimaries(reader.patients().map(MphNaaccrXmlReader.Patient::getTumors), null, null).collect(Collectors.toList());
+            Assert.assertEquals(3, outputs.size());
+            Assert.assertEquals(1, outputs.get(0).getPairCount());
+            Assert.assertEquals(0, outputs.get(1).getPairCount());
+        }
+    }
+
+    @Test
+    public void testInvalidXml() throws IOException {
+        String xml = _XML.substring(0, _XML.indexOf("</Patient>") + 10) + "<Patient><Tumor></Patient>";
+        try (MphNaaccrXmlReader reader = new MphNaaccrXmlReader(new StringReader(xml))) {
+            Assert.assertEquals("00000001", reader.readPatient().getPatientIdNumber());
+            try {
+                reader.readPatient();
+                Assert.fail("Should have failed");
+            }
+            catch (IOException e) {
+                // expected
+            }
+        }
+        try (MphNaaccrXmlReader reader = new MphNaaccrXmlReader(new StringReader(xml))) {
+            reader.patients().count();
+            Assert.fail("Should have failed");
+        }
+        catch (UncheckedIOException e) {
+            // expected
+        }
+    }
+}
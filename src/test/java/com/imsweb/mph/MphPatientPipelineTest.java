@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2017 Information Management Services, Inc.
+ */
+package com.imsweb.mph;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class MphPatientPipelineTest {
+
+    private MphUtils _utils = MphUtils.getInstance();
+
+    @BeforeClass
+    public static void setUp() {
+        MphUtils.initialize(new DefaultHematoDbUtilsProvider());
+    }
+
+    @Test
+    public void testProcess() {
+        List<List<MphInput>> patients = createPatients(300);
+        List<MphPatientPrimaries> expected = new ArrayList<>();
+        for (List<MphInput> tumors : patients)
+            expected.add(_utils.consolidatePrimaries(tumors, null));
+
+        for (boolean ordered : new boolean[] {true, false}) {
+            MphPatientPipeline pipeline = new MphPatientPipeline(_utils);
+            pipeline.setOrdered(ordered);
+            pipeline.setParallelism(4);
+            pipeline.setMaxInFlight(8);
+
+            // the source can't be read more than "max in flight" patients ahead of the consumer
+            AtomicInteger numRead = new AtomicInteger();
+            Iterator<List<MphInput>> source = patients.iterator();
+            Iterator<List<MphInput>> countingSource = new Iterator<List<MphInput>>() {
+                @Override
+                public boolean hasNext() {
+                    return source.hasNext();
+                }
+
+                @Override
+                public List<MphInput> next() {
+                    numRead.incrementAndGet();
+                    return source.next();
+                }
+            };
+            List<MphPatientPrimaries> results = new ArrayList<>();
+            long count = pipeline.process(countingSource, primaries -> {
+                Assert.assertTrue(numRead.get() - results.size() <= 8);
+                results.add(primaries);
+            });
+            Assert.assertEquals(patients.size(), count);
+            Assert.assertEquals(patients.size(), results.size());
+
+            // the tumors are the same objects as the source ones, they identify the patients in unordered mode
+            Map<MphInput, MphPatientPrimaries> resultsByFirstTumor = new IdentityHashMap<>();
+            for (int i = 0; i < results.size(); i++) {
+                if (ordered)
+                    Assert.assertSame(patients.get(i).get(0), results.get(i).getTumors().get(0));
+                resultsByFirstTumor.put(results.get(i).getTumors().get(0), results.get(i));
+            }
+            for (int i = 0; i < patients.size(); i++) {
+                MphPatientPrimaries result = resultsByFirstTumor.get(patients.get(i).get(0));
+                Assert.assertEquals(expected.get(i).getPrimaries(), result.getPrimaries());
+                Assert.assertEquals(expected.get(i).getNumComputedPairs(), result.getNumComputedPairs());
+            }
+        }
+
+        // streams are supported too
+        Assert.assertEquals(patients.size(), new MphPatientPipeline(_utils).process(patients.stream(), primaries -> { }));
+    }
+
+    @Test
+    public void testProcessFailure() {
+        List<List<MphInput>> patients = createPatients(50);
+        patients.set(20, null);
+        MphPatientPipeline pipeline = new MphPatientPipeline(_utils);
+        pipeline.setParallelism(2);
+        try {
+            pipeline.process(patients.iterator(), primaries -> { });
+            Assert.fail("Should have failed");
+        }
+        catch (NullPointerException e) {
+            // expected
+        }
+
+        List<MphPatientPrimaries> results = new ArrayList<>();
+        try {
+            pipeline.process(createPatients(50).iterator(), primaries -> {
+                if (results.size() == 10)
+                    throw new IllegalStateException("Consumer failure");
+                results.add(primaries);
+            });
+            Assert.fail("Should have failed");
+        }
+        catch (IllegalStateException e) {
+            Assert.assertEquals(10, results.size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxInFlight() {
+        new MphPatientPipeline(_utils).setMaxInFlight(0);
+    }
+
+    private static List<List<MphInput>> createPatients(int numPatients) {
+        String[] sites = {"C502", "C509", "C180", "C341", "C349", "C421", "C187"};
+        String[] histologies = {"8500", "8520", "8140", "8046", "9590", "9823", "8140"};
+        List<List<MphInput>> patients = new ArrayList<>();
+        for (int p = 0; p < numPatients; p++) {
+            List<MphInput> tumors = new ArrayList<>();
+            // a few patients are much bigger than the others
+            int numTumors = p % 37 == 0 ? 40 : 1 + p % 5;
+            for (int i = 0; i < numTumors; i++) {
+                MphInput input = new MphInput();
+                input.setPrimarySite(sites[(p + i) % sites.length]);
+                input.setHistologyIcdO3(histologies[(p + i / 2) % histologies.length]);
+                input.setBehaviorIcdO3("3");
+                input.setLaterality(i % 2 == 0 ? "1" : "2");
+                input.setDateOfDiagnosisYear(String.valueOf(2008 + (p + i) % 5));
+                tumors.add(input);
+            }
+            patients.add(tumors);
+        }
+        return patients;
+    }
+}
@@ -3,12 +3,44 @@
  */
 package com.imsweb.mph;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
-
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.sun.management.ThreadMXBean;
+
+import au.com.bytecode.opencsv.CSVReader;
+
+import com.imsweb.mph.internal.CodeSet;
+import com.imsweb.mph.internal.PairFeatures;
+import com.imsweb.mph.internal.TempRuleResult;
+import com.imsweb.mph.internal.TumorCategories;
+import com.imsweb.mph.internal.ValidatedTumor;
 import com.imsweb.mph.mpgroups.Mp1998HematopoieticGroup;
 import com.imsweb.mph.mpgroups.Mp2001HematopoieticGroup;
 import com.imsweb.mph.mpgroups.Mp2004BenignBrainGroup;
@@ -1725,6 +1757,114 @@ public class MphUtilsTest {
         Assert.assertEquals(MphUtils.MpResult.SINGLE_PRIMARY, output.getResult());
     }
 
+    @Test
+    public void testStartupReport() {
+        // the rules of a group are created the first time they are needed, and only once
+        MphGroup group = new Mp2007KidneyGroup();
+        int numRecorded = countComponents(MphUtils.getStartupReport(), "Rules of 2007 Kidney");
+        Assert.assertFalse(group.getRules().isEmpty());
+        Assert.assertEquals(numRecorded + 1, countComponents(MphUtils.getStartupReport(), "Rules of 2007 Kidney"));
+        Assert.assertFalse(group.getRules().isEmpty());
+        Assert.assertEquals(numRecorded + 1, countComponents(MphUtils.getStartupReport(), "Rules of 2007 Kidney"));
+
+        MphInput i1 = new MphInput(), i2 = new MphInput();
+        i1.setPrimarySite("C421");
+        i1.setHistologyIcdO3("9870");
+        i1.setBehaviorIcdO3("3");
+        i1.setDateOfDiagnosisYear("2016");
+        i2.setPrimarySite("C421");
+        i2.setHistologyIcdO3("9590");
+        i2.setBehaviorIcdO3("3");
+        i2.setDateOfDiagnosisYear("2016");
+        Assert.assertEquals(MphUtils.MpResult.SINGLE_PRIMARY, _utils.computePrimaries(i1, i2).getResult());
+
+        MphStartupReport report = MphUtils.getStartupReport();
+        for (String name : Arrays.asList("MphConstants", "Cancer groups", "Cancer group index", "Rules of 2010 Hematopoietic", "Hematopoietic 2010 tables",
+                "Resource Hematopoietic2010SamePrimaryPairs.csv", "Resource Hematopoietic2010TransformToPairs.csv", "Resource Hematopoietic2010TransformFromPairs.csv")) {
+            MphStartupReport.Component component = report.getComponent(name);
+            Assert.assertNotNull(name, component);
+            Assert.assertTrue(component.getElapsedNanos() > 0);
+            Assert.assertTrue(component.getAllocatedBytes() != 0);
+        }
+        Assert.assertNull(report.getComponent("Unknown component"));
+        Assert.assertTrue(report.toString().contains("Hematopoietic 2010 tables"));
+
+        // a containing component is initialized by the same thread as its contained components, and includes their memory
+        MphStartupReport.Component tables = report.getComponent("Hematopoietic 2010 tables");
+        long resourcesBytes = 0;
+        for (String name : Arrays.asList("Hematopoietic2010SamePrimaryPairs.csv", "Hematopoietic2010TransformToPairs.csv", "Hematopoietic2010TransformFromPairs.csv")) {
+            MphStartupReport.Component resource = report.getComponent("Resource " + name);
+            Assert.assertEquals(tables.getThreadName(), resource.getThreadName());
+            resourcesBytes += resource.getAllocatedBytes();
+        }
+        if (tables.getAllocatedBytes() != -1)
+            Assert.assertTrue(tables.getAllocatedBytes() >= resourcesBytes);
+
+        // the report only contains the components of the current instance
+        MphUtils.initialize(new DefaultHematoDbUtilsProvider());
+        MphUtils.initialize(new DefaultHematoDbUtilsProvider());
+        report = MphUtils.getStartupReport();
+        Assert.assertEquals(1, countComponents(report, "Cancer groups"));
+        Assert.assertEquals(1, countComponents(report, "Cancer group index"));
+        Assert.assertNotNull(report.getComponent("MphConstants"));
+        numRecorded = countComponents(report, "Rules of 2010 Hematopoietic");
+        Assert.assertEquals(MphUtils.MpResult.SINGLE_PRIMARY, MphUtils.getInstance().computePrimaries(i1, i2).getResult());
+        Assert.assertEquals(numRecorded + 1, countComponents(MphUtils.getStartupReport(), "Rules of 2010 Hematopoietic"));
+    }
+
+    private static int countComponents(MphStartupReport report, String name) {
+        int count = 0;
+        for (MphStartupReport.Component component : report.getComponents())
+            if (component.getName().equals(name))
+                count++;
+        return count;
+    }
+
+    @Test
+    public void testHematopoieticLookupTables() throws IOException {
+        // the compiled tables must give the same answers as the rows of the CSV files
+        List<String[]> pairs1998 = readCsv("Hematopoietic1998HistologyPairs.csv"), groups2001 = readCsv("Hematopoietic2001HistologyGroups.csv");
+        List<String[]> groupPairs2001 = readCsv("Hematopoietic2001HistologyGroupPairs.csv");
+        for (int first = 9580; first <= 9999; first++) {
+            String firstHist = String.valueOf(first);
+            String firstGroup = null;
+            for (String[] row : groups2001)
+                if (firstGroup == null && firstHist.compareTo(row[1]) >= 0 && firstHist.compareTo(row[2]) <= 0)
+                    firstGroup = row[0];
+            Assert.assertEquals(firstGroup == null ? -1 : Integer.parseInt(firstGroup), Mp2001HematopoieticGroup.getHistologyGroup(first));
+
+            List<Integer> same1998 = new ArrayList<>(), same2001 = new ArrayList<>();
+            for (int second = 9580; second <= 9999; second++) {
+                String secondHist = String.valueOf(second);
+                boolean expected1998 = false;
+                for (String[] row : pairs1998)
+                    expected1998 |= firstHist.compareTo(row[0]) >= 0 && firstHist.compareTo(row[1]) <= 0 && secondHist.compareTo(row[2]) >= 0 && secondHist.compareTo(row[3]) <= 0;
+                Assert.assertEquals(firstHist + "/" + secondHist, expected1998, Mp1998HematopoieticGroup.isSamePrimary(first, second));
+                if (expected1998)
+                    same1998.add(second);
+
+                String secondGroup = null;
+                for (String[] row : groups2001)
+                    if (secondGroup == null && secondHist.compareTo(row[1]) >= 0 && secondHist.compareTo(row[2]) <= 0)
+                        secondGroup = row[0];
+                boolean expected2001 = false;
+                for (String[] row : groupPairs2001)
+                    expected2001 |= firstGroup != null && secondGroup != null && firstGroup.equals(row[0]) && secondGroup.equals(row[1]);
+                Assert.assertEquals(firstHist + "/" + secondHist, expected2001, Mp2001HematopoieticGroup.isSamePrimary(first, second));
+                if (expected2001)
+                    same2001.add(second);
+            }
+            Assert.assertArrayEquals(same1998.stream().mapToInt(Integer::intValue).toArray(), Mp1998HematopoieticGroup.getSamePrimaryHistologies(first));
+            Assert.assertArrayEquals(same2001.stream().mapToInt(Integer::intValue).toArray(), Mp2001HematopoieticGroup.getSamePrimaryHistologies(first));
+        }
+    }
+
+    private static List<String[]> readCsv(String resource) throws IOException {
+        try (Reader reader = new InputStreamReader(Thread.currentThread().getContextClassLoader().getResourceAsStream(resource), StandardCharsets.US_ASCII)) {
+            return new CSVReader(reader, ',', '\"', 1).readAll();
+        }
+    }
+
     @Test
     public void test2010Hematopoietic() {
         MphInput i1 = new MphInput(), i2 = new MphInput();
@@ -2448,4 +2588,848 @@ public class MphUtilsTest {
         Assert.assertEquals(MphUtils.MpResult.MULTIPLE_PRIMARIES, output.getResult());
     }
 
+    @Test
+    public void testFindCancerGroupMatchesGroupScan() {
+        for (int year : new int[] {1990, 2001, 2006, 2007, 2010, LocalDate.now().getYear()})
+            for (String beh : new String[] {"0", "1", "2", "3", "6"})
+                for (int site = 0; site <= 999; site += 11)
+                    for (int hist = 8000; hist <= 9999; hist += 17) {
+                        String siteStr = String.format("C%03d", site), histStr = String.valueOf(hist);
+                        MphGroup expected = null;
+                        for (MphGroup group : _utils.getAllGroups())
+                            if (group.isApplicable(siteStr, histStr, beh, year)) {
+                                expected = group;
+                                break;
+                            }
+                        Assert.assertSame(expected, _utils.findCancerGroup(siteStr, histStr, beh, year));
+                        Assert.assertSame(expected, _utils.findCancerGroup(site, hist, Integer.parseInt(beh), year));
+                    }
+        Assert.assertNull(_utils.findCancerGroup(809, 8000, 3, 2010));
+        Assert.assertNull(_utils.findCancerGroup(500, 8000, 5, 2010));
+        Assert.assertNull(_utils.findCancerGroup(500, 7999, 3, 2010));
+    }
+
+    @Test
+    public void testFindCancerGroupsInColumns() {
+        Random random = new Random(1234);
+        int size = 10000;
+        int[] sites = new int[size], hists = new int[size], behaviors = new int[size], years = new int[size];
+        for (int i = 0; i < size; i++) {
+            // mostly valid values, with some invalid ones of each property
+            sites[i] = random.nextInt(1010) - 5;
+            hists[i] = 7990 + random.nextInt(2020);
+            behaviors[i] = random.nextInt(9) - 1;
+            years[i] = random.nextInt(10) == 0 ? random.nextInt(10000) - 1 : 1985 + random.nextInt(LocalDate.now().getYear() - 1983);
+        }
+        sites[0] = 809;
+
+        byte[] groupIndexes = new byte[size];
+        _utils.findCancerGroups(new MphTumorColumns(sites, hists, behaviors, new int[size], years, null, null), groupIndexes);
+        List<MphGroup> groups = _utils.getAllGroups();
+        for (int i = 0; i < size; i++) {
+            MphGroup expected = _utils.findCancerGroup(sites[i], hists[i], behaviors[i], years[i]);
+            Assert.assertSame(expected, groupIndexes[i] == -1 ? null : groups.get(groupIndexes[i]));
+        }
+        Assert.assertEquals(-1, groupIndexes[0]);
+
+        // the latest valid year can be provided once for many tumors
+        Assert.assertNotNull(_utils.findCancerGroup(509, 8500, 3, 2015, 2015));
+        Assert.assertNull(_utils.findCancerGroup(509, 8500, 3, 2016, 2015));
+        Assert.assertSame(_utils.findCancerGroup(509, 8500, 3, 2015), _utils.findCancerGroup(509, 8500, 3, 2015, LocalDate.now().getYear()));
+    }
+
+    @Test
+    public void test2010HematopoieticProviderInjection() {
+        HematoDbUtilsProvider provider = new HematoDbUtilsProvider() {
+            @Override
+            public boolean isSamePrimary(String leftCode, String rightCode, int year) {
+                return true;
+            }
+
+            @Override
+            public boolean isAcuteTransformation(String leftCode, String rightCode, int year) {
+                return false;
+            }
+
+            @Override
+            public boolean isChronicTransformation(String leftCode, String rightCode, int year) {
+                return false;
+            }
+        };
+        MphInput i1 = createInput("C421", "9950", "3", "0", "2011", "01", "01");
+        MphInput i2 = createInput("C421", "9961", "3", "0", "2013", "01", "01");
+        List<MphRule> rules = new Mp2010HematopoieticGroup(provider).getRules();
+        MphRule lastRule = rules.get(rules.size() - 1);
+        Assert.assertEquals("M15", lastRule.getStep());
+        Assert.assertEquals(MphUtils.MpResult.SINGLE_PRIMARY, lastRule.apply(i1, i2, new MphComputeOptions()).getFinalResult());
+
+        // the default provider considers those two diseases as separate primaries
+        rules = _utils.findCancerGroup("C421", "9950", "3", 2013).getRules();
+        lastRule = rules.get(rules.size() - 1);
+        Assert.assertEquals(MphUtils.MpResult.MULTIPLE_PRIMARIES, lastRule.apply(i1, i2, new MphComputeOptions()).getFinalResult());
+    }
+
+    @Test
+    public void testComputePrimariesForPatient() {
+        List<MphInput> tumors = new ArrayList<>();
+        String[] sites = {"C502", "C509", "C180", "C187", "C440", "C441", "C341", "C349", "C649", "C670"};
+        String[] histologies = {"8500", "8520", "8140", "8210", "8720", "8743", "8046", "8041", "8310", "8120"};
+        for (int i = 0; i < 100; i++)
+            tumors.add(createInput(sites[i % sites.length], histologies[(i / 3) % histologies.length], i % 7 == 0 ? "2" : "3", i % 2 == 0 ? "1" : "2", String.valueOf(2007 + i % 9),
+                    String.valueOf(1 + i % 12), String.valueOf(1 + i % 28)));
+
+        MphPatientOutput sequential = _utils.computePrimaries(tumors, null);
+        Assert.assertEquals(100, sequential.getTumorCount());
+        Assert.assertEquals(4950, sequential.getPairCount());
+        for (int i = 0; i < tumors.size(); i++)
+            for (int j = i + 1; j < tumors.size(); j++) {
+                MphOutput expected = _utils.computePrimaries(tumors.get(i), tumors.get(j));
+                assertSameOutput(expected, sequential.getOutput(i, j));
+                Assert.assertSame(sequential.getOutput(i, j), sequential.getOutput(j, i));
+            }
+
+        for (int numThreads : new int[] {1, 2, 8}) {
+            ForkJoinPool pool = new ForkJoinPool(numThreads);
+            try {
+                MphPatientOutput parallel = _utils.computePrimaries(tumors, null, pool);
+                for (int i = 0; i < tumors.size(); i++)
+                    for (int j = i + 1; j < tumors.size(); j++)
+                        assertSameOutput(sequential.getOutput(i, j), parallel.getOutput(i, j));
+            }
+            finally {
+                pool.shutdown();
+            }
+        }
+
+        // stream of patients
+        List<MphPatientOutput> outputs = _utils.computePrimaries(Stream.of(tumors.subList(0, 2), tumors.subList(0, 1), tumors), null, null).collect(Collectors.toList());
+        Assert.assertEquals(3, outputs.size());
+        Assert.assertEquals(1, outputs.get(0).getPairCount());
+        assertSameOutput(sequential.getOutput(0, 1), outputs.get(0).getOutput(0, 1));
+        Assert.assertEquals(0, outputs.get(1).getPairCount());
+        assertSameOutput(sequential.getOutput(42, 97), outputs.get(2).getOutput(97, 42));
+
+        Assert.assertEquals(0, _utils.computePrimaries(new ArrayList<>(), null).getPairCount());
+        Assert.assertEquals(1, _utils.computePrimaries(Arrays.asList(tumors.get(0), tumors.get(1)), null).getPairCount());
+    }
+
+    @Test
+    public void testConsolidatePrimaries() {
+        // two breast tumors on the same side, one colon tumor and one breast tumor on the other side
+        List<MphInput> tumors = new ArrayList<>();
+        tumors.add(createInput("C502", "8500", "3", "1", "2015", "01", "10"));
+        tumors.add(createInput("C180", "8140", "3", "0", "2015", "02", "10"));
+        tumors.add(createInput("C504", "8500", "3", "1", "2015", "03", "10"));
+        tumors.add(createInput("C502", "8500", "3", "2", "2015", "04", "10"));
+        MphPatientPrimaries primaries = _utils.consolidatePrimaries(tumors, null);
+        Assert.assertEquals(3, primaries.getNumPrimaries());
+        Assert.assertEquals(Arrays.asList(Arrays.asList(0, 2), Arrays.asList(1), Arrays.asList(3)), primaries.getPrimaries());
+        Assert.assertEquals(0, primaries.getPrimaryIndex(2));
+        Assert.assertEquals(2, primaries.getPrimaryIndex(3));
+        Assert.assertEquals(1, primaries.getLinks().size());
+        MphPatientPrimaries.Link link = primaries.getLinks().get(0);
+        Assert.assertEquals(0, link.getTumorIdx1());
+        Assert.assertEquals(2, link.getTumorIdx2());
+        Assert.assertEquals(MphConstants.MP_2007_BREAST_GROUP_ID, link.getRule().getGroupId());
+        Assert.assertEquals(link.getOutput().getStep(), link.getRule().getStep());
+        Assert.assertTrue(primaries.getQuestionablePairs().isEmpty());
+
+        // a questionable pair identifies its tumors
+        tumors.add(createInput("C502", "8500", "3", "1", "2015", "05", "10"));
+        tumors.get(4).setHistologyIcdO3("850");
+        primaries = _utils.consolidatePrimaries(tumors, null);
+        Assert.assertEquals(4, primaries.getNumPrimaries());
+        Assert.assertFalse(primaries.getQuestionablePairs().isEmpty());
+        for (MphPatientPrimaries.ComputedPair pair : primaries.getQuestionablePairs()) {
+            Assert.assertEquals(4, pair.getTumorIdx2());
+            Assert.assertEquals(MphUtils.MpResult.QUESTIONABLE, pair.getOutput().getResult());
+        }
+
+        // a patient with many tumors of the same primary doesn't need all the pairs
+        tumors.clear();
+        for (int i = 0; i < 60; i++)
+            tumors.add(createInput("C502", "8500", "3", "1", "2015", "01", "10"));
+        primaries = _utils.consolidatePrimaries(tumors, null);
+        Assert.assertEquals(1, primaries.getNumPrimaries());
+        Assert.assertEquals(59, primaries.getLinks().size());
+        Assert.assertEquals(59, primaries.getNumComputedPairs());
+
+        // the result must be consistent with the pairs
+        tumors.clear();
+        String[] sites = {"C502", "C180", "C341", "C349", "C440", "C187"};
+        for (int i = 0; i < 60; i++)
+            tumors.add(createInput(sites[i % sites.length], i % 4 == 0 ? "8140" : "8500", "3", i % 3 == 0 ? "1" : "2", String.valueOf(2007 + i % 5), "01", "10"));
+        primaries = _utils.consolidatePrimaries(tumors, null);
+        MphPatientOutput allPairs = _utils.computePrimaries(tumors, null);
+        for (MphPatientPrimaries.Link l : primaries.getLinks())
+            Assert.assertEquals(MphUtils.MpResult.SINGLE_PRIMARY, allPairs.getOutput(l.getTumorIdx1(), l.getTumorIdx2()).getResult());
+        for (MphPatientPrimaries.ComputedPair p : primaries.getQuestionablePairs())
+            Assert.assertEquals(MphUtils.MpResult.QUESTIONABLE, allPairs.getOutput(p.getTumorIdx1(), p.getTumorIdx2()).getResult());
+        for (int i = 0; i < tumors.size(); i++)
+            for (int j = i + 1; j < tumors.size(); j++)
+                if (MphUtils.MpResult.SINGLE_PRIMARY.equals(allPairs.getOutput(i, j).getResult()))
+                    Assert.assertEquals(primaries.getPrimaryIndex(i), primaries.getPrimaryIndex(j));
+        Assert.assertTrue(primaries.getNumComputedPairs() < allPairs.getPairCount());
+    }
+
+    @Test
+    public void testPairCache() {
+        List<MphInput> tumors = new ArrayList<>();
+        String[] sites = {"C502", "C509", "C180", "C341", "C349", "C445", "C421"};
+        String[] histologies = {"8500", "8520", "8140", "8046", "9590", "9823", "9861"};
+        String[] lateralities = {"1", "2", "4", "5", "0", "9", null};
+        String[] months = {"1", "01", "02", "13", null, "99", "0"};
+        String[] days = {"10", "31", null, "99", "5", "010", "29"};
+        for (int i = 0; i < 140; i++) {
+            MphInput input = createInput(sites[i % sites.length], histologies[(i / 2) % histologies.length], i % 9 == 0 ? "2" : "3", lateralities[(i / 3) % lateralities.length],
+                    i % 23 == 0 ? "20XX" : String.valueOf(2008 + i % 4), months[(i / 5) % months.length], days[(i / 7) % days.length]);
+            input.setTxStatus(i % 4 == 0 ? "1" : (i % 4 == 1 ? "0" : null));
+            tumors.add(input);
+        }
+
+        MphComputeOptions options = new MphComputeOptions();
+        MphPairCache cache = new MphPairCache(100000);
+        options.setPairCache(cache);
+        MphPatientOutput expected = _utils.computePrimaries(tumors, null);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int run = 0; run < 2; run++) {
+                MphPatientOutput cached = _utils.computePrimaries(tumors, options, pool);
+                for (int i = 0; i < tumors.size(); i++)
+                    for (int j = i + 1; j < tumors.size(); j++)
+                        assertSameOutput(expected.getOutput(i, j), cached.getOutput(i, j));
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+        Assert.assertEquals(2 * expected.getPairCount(), cache.getHitCount() + cache.getMissCount());
+        Assert.assertTrue(cache.getMissCount() < expected.getPairCount());
+        Assert.assertTrue(cache.size() > 0 && cache.size() <= cache.getMissCount());
+        Assert.assertEquals(0, cache.getEvictionCount());
+
+        // the order of the tumors matters, and the returned outputs can be modified without changing the cache
+        MphInput i1 = createInput("C502", "8500", "3", "1", "2015", "1", "10"), i2 = createInput("C502", "8520", "3", "1", "2015", "01", "010");
+        MphOutput output = _utils.computePrimaries(i1, i2, options);
+        output.getAppliedRules().clear();
+        assertSameOutput(_utils.computePrimaries(i1, i2), _utils.computePrimaries(i1, i2, options));
+        assertSameOutput(_utils.computePrimaries(i2, i1), _utils.computePrimaries(i2, i1, options));
+
+        // small cache
+        cache = new MphPairCache(10);
+        options.setPairCache(cache);
+        for (int i = 1; i < tumors.size(); i++)
+            assertSameOutput(_utils.computePrimaries(tumors.get(i - 1), tumors.get(i)), _utils.computePrimaries(tumors.get(i - 1), tumors.get(i), options));
+        Assert.assertTrue(cache.size() <= 10);
+        Assert.assertTrue(cache.getEvictionCount() > 0);
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testMetricsListener() {
+        List<MphInput> tumors = new ArrayList<>();
+        String[] sites = {"C502", "C509", "C180", "C341", "C349", "C421", "C809"};
+        String[] histologies = {"8500", "8520", "8140", "8046", "9590", "9823", "9861"};
+        for (int i = 0; i < 30; i++)
+            tumors.add(createInput(sites[i % sites.length], histologies[(i / 2) % histologies.length], "3", i % 2 == 0 ? "1" : "2", String.valueOf(2008 + i % 4), "1", "1"));
+        MphPatientOutput expected = _utils.computePrimaries(tumors, null);
+
+        MphRuleMetrics metrics = new MphRuleMetrics();
+        Assert.assertNull(_utils.getMetricsListener());
+        _utils.setMetricsListener(metrics);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Assert.assertSame(metrics, _utils.getMetricsListener());
+            _utils.computePrimaries(tumors, null, pool);
+        }
+        finally {
+            _utils.setMetricsListener(null);
+            pool.shutdown();
+        }
+        // pairs computed without listener are not counted
+        _utils.computePrimaries(tumors, null);
+
+        // the counts must match the outputs of the pairs
+        Map<String, long[]> expectedCounts = new HashMap<>();
+        for (int i = 0; i < tumors.size(); i++)
+            for (int j = i + 1; j < tumors.size(); j++) {
+                MphOutput output = expected.getOutput(i, j);
+                expectedCounts.computeIfAbsent(output.getGroupId() + "/" + output.getStep(), k -> new long[3])[output.getResult().ordinal()]++;
+            }
+        MphRuleMetrics.Snapshot snapshot = metrics.getSnapshot();
+        Assert.assertEquals(expected.getPairCount(), snapshot.getTotalCount());
+        Assert.assertEquals(expectedCounts.size(), snapshot.getStepCounts().size());
+        for (MphRuleMetrics.StepCounts counts : snapshot.getStepCounts()) {
+            long[] values = expectedCounts.get(counts.getGroupId() + "/" + counts.getStep());
+            Assert.assertNotNull(values);
+            Assert.assertEquals(values[0], counts.getSinglePrimaryCount());
+            Assert.assertEquals(values[1], counts.getMultiplePrimariesCount());
+            Assert.assertEquals(values[2], counts.getQuestionableCount());
+            Assert.assertSame(counts, snapshot.getStepCounts(counts.getGroupId(), counts.getStep()));
+        }
+        for (int i = 1; i < snapshot.getStepCounts().size(); i++)
+            Assert.assertTrue(snapshot.getStepCounts().get(i - 1).getTotal() >= snapshot.getStepCounts().get(i).getTotal());
+        // C809 is not a valid site, those pairs are decided without any group
+        Assert.assertTrue(snapshot.getStepCounts(null, null).getQuestionableCount() > 0);
+
+        long numLatencies = 0;
+        for (MphRuleMetrics.LatencyHistogram latency : snapshot.getLatencies()) {
+            numLatencies += latency.getCount();
+            Assert.assertTrue(latency.getPercentileNanos(0.5) <= latency.getPercentileNanos(0.99));
+            Assert.assertTrue(latency.getPercentileNanos(1) <= latency.getMaxNanos());
+            Assert.assertTrue(latency.getMeanNanos() <= latency.getMaxNanos());
+        }
+        Assert.assertEquals(expected.getPairCount(), numLatencies);
+        Assert.assertNotNull(snapshot.getLatency(MphConstants.MP_2007_BREAST_GROUP_ID));
+
+        metrics.reset();
+        Assert.assertEquals(0, metrics.getSnapshot().getTotalCount());
+
+        // the pairs are counted under their group and step even if the options don't request the trace
+        MphComputeOptions noTrace = new MphComputeOptions();
+        noTrace.setTraceMode(MphComputeOptions.MpTraceMode.NONE);
+        noTrace.setPairCache(new MphPairCache(100));
+        _utils.computePrimaries(tumors, noTrace);
+        _utils.setMetricsListener(metrics);
+        try {
+            _utils.computePrimaries(tumors, noTrace);
+        }
+        finally {
+            _utils.setMetricsListener(null);
+        }
+        Assert.assertEquals(expectedCounts.size(), metrics.getSnapshot().getStepCounts().size());
+        for (MphRuleMetrics.StepCounts counts : metrics.getSnapshot().getStepCounts())
+            Assert.assertNotNull(expectedCounts.get(counts.getGroupId() + "/" + counts.getStep()));
+        Assert.assertNull(_utils.computePrimaries(tumors.get(0), tumors.get(1), noTrace).getStep());
+    }
+
+    @Test
+    public void testValidatedTumor() {
+        MphInput input = createInput("C509", "8500", "3", "1", "1999", "1", "1");
+        input.setHistologyIcdO2("8520");
+        input.setBehaviorIcdO2("2");
+        ValidatedTumor tumor = input.getValidatedTumor();
+        Assert.assertSame(tumor, input.getValidatedTumor());
+        Assert.assertEquals(509, tumor.getPrimarySite());
+        Assert.assertEquals(8520, tumor.getHistology());
+        Assert.assertEquals(2, tumor.getBehavior());
+        Assert.assertEquals(1999, tumor.getYear());
+        Assert.assertEquals(1, tumor.getLaterality());
+        Assert.assertTrue(tumor.isHistologyIcdO2() && tumor.isBehaviorIcdO2());
+        Assert.assertTrue(tumor.hasValidProperties());
+        Assert.assertEquals("8520", input.getHistology());
+        Assert.assertEquals("2", input.getBehavior());
+
+        // changing any property creates a new validated tumor
+        input.setDateOfDiagnosisYear("2001");
+        Assert.assertNotSame(tumor, input.getValidatedTumor());
+        Assert.assertEquals(8500, input.getValidatedTumor().getHistology());
+        Assert.assertEquals("3", input.getBehavior());
+        Assert.assertFalse(input.getValidatedTumor().isHistologyIcdO2());
+
+        // an invalid ICD-O-2 code is ignored
+        input.setDateOfDiagnosisYear("1999");
+        input.setBehaviorIcdO2("9");
+        Assert.assertEquals("3", input.getBehavior());
+        Assert.assertEquals("8520", input.getHistology());
+
+        input.setPrimarySite("C809");
+        Assert.assertEquals(-1, input.getValidatedTumor().getPrimarySite());
+        Assert.assertFalse(input.getValidatedTumor().hasValidProperties());
+        input.setDateOfDiagnosisYear("abcd");
+        input.setLaterality(null);
+        Assert.assertEquals(-1, input.getValidatedTumor().getYear());
+        Assert.assertEquals(-1, input.getValidatedTumor().getLaterality());
+        Assert.assertEquals("8500", input.getHistology());
+        // only ASCII digits are valid lateralities, like for the other codes
+        input.setLaterality("\u0661");
+        Assert.assertEquals(-1, input.getValidatedTumor().getLaterality());
+
+        // a zero-padded histology is not valid (the rules compare the codes, so it can't be treated as the same histology)
+        input = createInput("C341", "08140", "3", null, "2012", "01", "15");
+        Assert.assertEquals(-1, input.getValidatedTumor().getHistology());
+        Assert.assertFalse(input.getValidatedTumor().hasValidProperties());
+        MphOutput output = _utils.computePrimaries(createInput("C341", "8140", "2", "0", "2012", "06", "99"), input, null);
+        Assert.assertEquals(MphUtils.MpResult.QUESTIONABLE, output.getResult());
+        Assert.assertTrue(output.getReason().startsWith("Unable to identify cancer group for second set of parameters."));
+        input.setHistologyIcdO3("8140");
+        Assert.assertEquals(8140, input.getValidatedTumor().getHistology());
+    }
+
+    @Test
+    public void testComputePrimariesAsync() throws Exception {
+        List<MphInput> tumors = new ArrayList<>();
+        String[] sites = {"C502", "C509", "C180", "C341", "C349", "C421", "C809"};
+        String[] histologies = {"8500", "8520", "8140", "8046", "9590", "9823", "9861"};
+        for (int i = 0; i < 40; i++)
+            tumors.add(createInput(sites[i % sites.length], histologies[(i / 2) % histologies.length], "3", i % 2 == 0 ? "1" : "2", String.valueOf(2008 + i % 4), "1", "1"));
+        MphPatientOutput expected = _utils.computePrimaries(tumors, null);
+
+        // default executor
+        Assert.assertNotNull(_utils.getAsyncExecutor());
+        MphAsyncCall<MphOutput> pairCall = _utils.computePrimariesAsync(tumors.get(0), tumors.get(1), null);
+        assertSameOutput(expected.getOutput(0, 1), pairCall.get(10, TimeUnit.SECONDS));
+        Assert.assertTrue(pairCall.getQueueNanos() >= 0);
+        Assert.assertTrue(pairCall.getComputeNanos() >= 0);
+        MphAsyncCall<MphPatientOutput> patientCall = _utils.computePrimariesAsync(tumors, null);
+        MphPatientOutput output = patientCall.get(10, TimeUnit.SECONDS);
+        for (int i = 0; i < tumors.size(); i++)
+            for (int j = i + 1; j < tumors.size(); j++)
+                assertSameOutput(expected.getOutput(i, j), output.getOutput(i, j));
+
+        // custom executor, a call waiting in the queue is never computed once cancelled
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            _utils.setAsyncExecutor(executor);
+            Assert.assertSame(executor, _utils.getAsyncExecutor());
+            executor.submit(() -> {
+                latch.await();
+                return null;
+            });
+            MphAsyncCall<MphPatientOutput> cancelledCall = _utils.computePrimariesAsync(tumors, null);
+            MphAsyncCall<MphOutput> otherCall = _utils.computePrimariesAsync(tumors.get(0), tumors.get(1), null);
+            Assert.assertTrue(cancelledCall.cancel(false));
+            Assert.assertTrue(cancelledCall.isCancelled());
+            latch.countDown();
+            assertSameOutput(expected.getOutput(0, 1), otherCall.get(10, TimeUnit.SECONDS));
+            Assert.assertEquals(-1, cancelledCall.getQueueNanos());
+            Assert.assertEquals(-1, cancelledCall.getComputeNanos());
+        }
+        finally {
+            _utils.setAsyncExecutor(null);
+            executor.shutdown();
+        }
+        Assert.assertNotSame(executor, _utils.getAsyncExecutor());
+
+        // exceptions are reported by the call
+        try {
+            _utils.computePrimariesAsync(null, tumors.get(0), null).get(10, TimeUnit.SECONDS);
+            Assert.fail("Should have failed");
+        }
+        catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof NullPointerException);
+        }
+    }
+
+    @Test
+    public void testTraceMode() {
+        // a breast pair decided by M7 (both sides) and a lung pair which is questionable because of the missing laterality
+        MphInput i1 = new MphInput(), i2 = new MphInput(), i3 = new MphInput(), i4 = new MphInput();
+        i1.setPrimarySite("C509");
+        i1.setHistologyIcdO3("8500");
+        i1.setBehaviorIcdO3("3");
+        i1.setDateOfDiagnosisYear("2010");
+        i1.setLaterality("1");
+        i2.setPrimarySite("C509");
+        i2.setHistologyIcdO3("8500");
+        i2.setBehaviorIcdO3("3");
+        i2.setDateOfDiagnosisYear("2011");
+        i2.setLaterality("2");
+        i3.setPrimarySite("C340");
+        i3.setHistologyIcdO3("8140");
+        i3.setBehaviorIcdO3("3");
+        i3.setDateOfDiagnosisYear("2010");
+        i4.setPrimarySite("C341");
+        i4.setHistologyIcdO3("8140");
+        i4.setBehaviorIcdO3("3");
+        i4.setDateOfDiagnosisYear("2010");
+
+        MphComputeOptions noTrace = new MphComputeOptions();
+        noTrace.setTraceMode(MphComputeOptions.MpTraceMode.NONE);
+        for (MphInput[] pair : Arrays.asList(new MphInput[] {i1, i2}, new MphInput[] {i3, i4})) {
+            MphOutput full = _utils.computePrimaries(pair[0], pair[1]), none = _utils.computePrimaries(pair[0], pair[1], noTrace);
+            Assert.assertNotNull(full.getGroupId());
+            Assert.assertNotNull(full.getStep());
+            Assert.assertNotNull(full.getReason());
+            Assert.assertFalse(full.getAppliedRules().isEmpty());
+            Assert.assertEquals(full.getStep(), full.getAppliedRules().get(full.getAppliedRules().size() - 1).getStep());
+            Assert.assertEquals(full.getResult(), none.getResult());
+            Assert.assertNull(none.getGroupId());
+            Assert.assertNull(none.getStep());
+            Assert.assertNull(none.getReason());
+            Assert.assertTrue(none.getAppliedRules().isEmpty());
+        }
+        MphOutput output = _utils.computePrimaries(i1, i2);
+        Assert.assertEquals(MphUtils.MpResult.MULTIPLE_PRIMARIES, output.getResult());
+        Assert.assertEquals("M7", output.getStep());
+        Assert.assertEquals(MphConstants.MP_2007_BREAST_GROUP_ID, output.getGroupId());
+        Assert.assertEquals("Tumors on both sides (right and left breast) are multiple primaries.", output.getReason());
+        output = _utils.computePrimaries(i3, i4);
+        Assert.assertEquals(MphUtils.MpResult.QUESTIONABLE, output.getResult());
+        Assert.assertTrue(output.getReason().startsWith("Unable to apply Rule"));
+
+        // the values set explicitly replace the trace, the applied rules can be modified
+        output = _utils.computePrimaries(i1, i2);
+        output.setReason(null);
+        output.setStep("X");
+        Assert.assertNull(output.getReason());
+        Assert.assertEquals("X", output.getStep());
+        Assert.assertEquals(MphConstants.MP_2007_BREAST_GROUP_ID, output.getGroupId());
+        output.getAppliedRules().clear();
+        Assert.assertTrue(output.getAppliedRules().isEmpty());
+
+        // a pair computed without trace is not returned from the cache when the trace is requested
+        MphPairCache cache = new MphPairCache(100);
+        noTrace.setPairCache(cache);
+        MphComputeOptions fullTrace = new MphComputeOptions();
+        fullTrace.setPairCache(cache);
+        Assert.assertNull(_utils.computePrimaries(i1, i2, noTrace).getStep());
+        Assert.assertEquals("M7", _utils.computePrimaries(i1, i2, fullTrace).getStep());
+        Assert.assertEquals("M7", _utils.computePrimaries(i1, i2, fullTrace).getStep());
+        Assert.assertNull(_utils.computePrimaries(i1, i2, noTrace).getStep());
+        Assert.assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void testRuleGuards() {
+        // a rule can only be skipped for a pair if it doesn't return any result for that pair, whatever the group of the pair is
+        String[] sites = {"C000", "C019", "C030", "C031", "C062", "C079", "C081", "C090", "C180", "C184", "C187", "C199", "C209", "C300", "C301", "C341", "C349", "C440", "C443",
+                "C504", "C509", "C619", "C649", "C659", "C669", "C670", "C679", "C680", "C692", "C710"};
+        String[] lateralities = {"1", "2", "4", "9", null};
+        String[] years = {"2007", "2009", "2015"};
+        MphComputeOptions strictOptions = new MphComputeOptions(), lenientOptions = new MphComputeOptions();
+        lenientOptions.setHistologyMatchingMode(MphComputeOptions.MpHistologyMatching.LENIENT);
+        Random random = new Random(17);
+        int numSkipped = 0;
+        for (int hist = 8000; hist <= 9999; hist++) {
+            for (int k = 0; k < 20; k++) {
+                String site1 = sites[random.nextInt(sites.length)], site2 = random.nextBoolean() ? site1 : sites[random.nextInt(sites.length)];
+                int type = random.nextInt(4);
+                String hist1 = String.valueOf(hist), hist2 = type <= 1 ? hist1 : String.valueOf(type == 2 ? hist / 10 * 10 + random.nextInt(10) : 8000 + random.nextInt(2000));
+                String beh1 = random.nextBoolean() ? "3" : "2", beh2 = random.nextBoolean() ? beh1 : (random.nextBoolean() ? "3" : "2");
+                MphInput i1 = createInput(site1, hist1, beh1, lateralities[random.nextInt(lateralities.length)], years[random.nextInt(years.length)], "1", "15");
+                MphInput i2 = createInput(site2, hist2, beh2, lateralities[random.nextInt(lateralities.length)], years[random.nextInt(years.length)], "6", "15");
+                if (!i1.getValidatedTumor().hasValidProperties() || !i2.getValidatedTumor().hasValidProperties())
+                    continue;
+                int features = PairFeatures.compute(i1.getValidatedTumor(), i2.getValidatedTumor());
+                for (MphGroup group : _utils.getAllGroups()) {
+                    for (MphRule rule : group.getRules()) {
+                        if ((features & rule.getGuard()) != rule.getGuard()) {
+                            numSkipped++;
+                            String pair = group.getId() + " " + rule.getStep() + ": " + site1 + "/" + hist1 + "/" + beh1 + " vs " + site2 + "/" + hist2 + "/" + beh2;
+                            Assert.assertSame(pair, TempRuleResult.NO_RESULT, rule.apply(i1, i2, strictOptions));
+                            Assert.assertSame(pair, TempRuleResult.NO_RESULT, rule.apply(i1, i2, lenientOptions));
+                        }
+                    }
+                }
+            }
+        }
+        Assert.assertTrue(numSkipped > 0);
+    }
+
+    @Test
+    public void testRuleGuardsWithOddCodes() {
+        // the output of a pair must be the one of the rules applied in order without skipping any of them, including for codes that are not in their usual format
+        String[] sites = {"C341", "C349", "C509", "C504", "C180", "C187", "C649", "C619", "c341", "C0341", "C34", " C341", "C\u0663\u0664\u0661"};
+        String[] histologies = {"8140", "8141", "8046", "8041", "8500", "8520", "8000", "8010", "9590", "08140", "008140", "814", "8140 ", "\u0668\u0661\u0664\u0660"};
+        String[] behaviors = {"2", "3", "03", " 3", "\u0663"}, lateralities = {"0", "1", "2", "9", null};
+        String[] years = {"2007", "2012", "2015", "02012"}, months = {"01", "06", "99", null}, days = {"15", "99", null};
+        MphComputeOptions strictOptions = new MphComputeOptions(), lenientOptions = new MphComputeOptions();
+        lenientOptions.setHistologyMatchingMode(MphComputeOptions.MpHistologyMatching.LENIENT);
+
+        Random random = new Random(2017);
+        int numCompared = 0;
+        for (int i = 0; i < 20000; i++) {
+            MphInput i1 = createInput(sites[random.nextInt(sites.length)], histologies[random.nextInt(histologies.length)], behaviors[random.nextInt(behaviors.length)],
+                    lateralities[random.nextInt(lateralities.length)], years[random.nextInt(years.length)], months[random.nextInt(months.length)], days[random.nextInt(days.length)]);
+            MphInput i2 = createInput(random.nextBoolean() ? i1.getPrimarySite() : sites[random.nextInt(sites.length)], histologies[random.nextInt(histologies.length)],
+                    behaviors[random.nextInt(behaviors.length)], lateralities[random.nextInt(lateralities.length)], years[random.nextInt(years.length)],
+                    months[random.nextInt(months.length)], days[random.nextInt(days.length)]);
+            for (MphComputeOptions options : Arrays.asList(strictOptions, lenientOptions)) {
+                MphOutput output = _utils.computePrimaries(i1, i2, options);
+                if (!i1.getValidatedTumor().hasValidProperties() || !i2.getValidatedTumor().hasValidProperties()) {
+                    Assert.assertEquals(MphUtils.MpResult.QUESTIONABLE, output.getResult());
+                    continue;
+                }
+                Assert.assertEquals(computeFeaturesFromCodes(i1, i2), PairFeatures.compute(i1.getValidatedTumor(), i2.getValidatedTumor()));
+                int year = Math.max(i1.getValidatedTumor().getYear(), i2.getValidatedTumor().getYear());
+                MphGroup group = _utils.findCancerGroup(i1.getPrimarySite(), i1.getHistology(), i1.getBehavior(), year);
+                if (group == null || group != _utils.findCancerGroup(i2.getPrimarySite(), i2.getHistology(), i2.getBehavior(), year))
+                    continue;
+                String pair = i1.getPrimarySite() + "/" + i1.getHistology() + "/" + i1.getBehavior() + " vs " + i2.getPrimarySite() + "/" + i2.getHistology() + "/" + i2.getBehavior();
+                Assert.assertEquals(pair, applyRulesInOrder(group, i1, i2, options), output.getResult() + " " + output.getStep());
+                numCompared++;
+            }
+        }
+        Assert.assertTrue(numCompared > 0);
+    }
+
+    @Test
+    public void testRulesDontAllocate() {
+        ThreadMXBean bean = (ThreadMXBean)ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+
+        // pairs of tumors of every group, with unknown dates and lateralities so the rules return all kinds of results
+        String[] sites = {"C001", "C019", "C081", "C180", "C199", "C209", "C341", "C349", "C384", "C440", "C442", "C500", "C504", "C509", "C569", "C619", "C649", "C659", "C670",
+                "C679", "C700", "C710", "C711", "C725", "C739", "C774", "C421"};
+        String[] histologies = {"8000", "8010", "8070", "8120", "8140", "8210", "8220", "8260", "8310", "8500", "8520", "8522", "8720", "8721", "8800", "9380", "9390", "9440", "9540",
+                "9560", "9590", "9680", "9823", "9861", "9975"};
+        String[] behaviors = {"0", "1", "2", "3"};
+        String[] lateralities = {"0", "1", "2", "4", "9"};
+        String[] years = {"1999", "2003", "2005", "2008", "2008", "2012"};
+        String[] months = {"1", "6", "99"};
+        List<MphInput> tumors = new ArrayList<>();
+        for (int i = 0; i < 2000; i++)
+            tumors.add(createInput(sites[(i * 7) % sites.length], histologies[(i * 11) % histologies.length], behaviors[(i * 13) % behaviors.length],
+                    lateralities[(i * 3) % lateralities.length], years[(i * 5) % years.length], months[i % months.length], "15"));
+        List<MphInput[]> pairs = new ArrayList<>();
+        List<MphGroup> pairGroups = new ArrayList<>();
+        for (int i = 0; i < tumors.size(); i++) {
+            MphInput i1 = tumors.get(i), i2 = tumors.get((i * 31 + 17) % tumors.size());
+            int year = Math.max(Integer.parseInt(i1.getDateOfDiagnosisYear()), Integer.parseInt(i2.getDateOfDiagnosisYear()));
+            MphGroup group = _utils.findCancerGroup(i1.getPrimarySite(), i1.getHistology(), i1.getBehavior(), year);
+            if (group != null && group.equals(_utils.findCancerGroup(i2.getPrimarySite(), i2.getHistology(), i2.getBehavior(), year))) {
+                pairs.add(new MphInput[] {i1, i2});
+                pairGroups.add(group);
+            }
+        }
+        Assert.assertTrue(pairs.size() > 100);
+        MphInput[][] pairArray = pairs.toArray(new MphInput[pairs.size()][]);
+        MphGroup[] groupArray = pairGroups.toArray(new MphGroup[pairGroups.size()]);
+        MphComputeOptions options = new MphComputeOptions();
+
+        // the first evaluations create the cached values (dates, results with a message, etc...)
+        int numRounds = 20;
+        for (int round = 0; round < numRounds; round++)
+            applyAllRules(pairArray, groupArray, options);
+
+        long threadId = Thread.currentThread().getId();
+        long baseline = bean.getThreadAllocatedBytes(threadId);
+        baseline = bean.getThreadAllocatedBytes(threadId) - baseline;
+        long start = bean.getThreadAllocatedBytes(threadId);
+        int numResults = 0;
+        for (int round = 0; round < numRounds; round++)
+            numResults += applyAllRules(pairArray, groupArray, options);
+        long allocated = bean.getThreadAllocatedBytes(threadId) - start - baseline;
+        Assert.assertTrue(numResults > 0);
+        Assert.assertEquals("Allocated " + allocated + " bytes for " + (pairArray.length * numRounds) + " pairs", 0, allocated / (pairArray.length * numRounds));
+    }
+
+    @Test
+    public void testColumnarBatch() {
+        int[] sites = {509, 340, 341, 180, 187, 649, 445, 421, 710, 619}, histologies = {8500, 8140, 8070, 8720, 9680, 9732, 8000, 9590, 9440, 8120};
+        int[] behaviors = {3, 2, 0, 1}, years = {-1, 1999, 2003, 2006, 2008, 2012, 2015}, months = {-1, 1, 6, 12, 99}, days = {-1, 1, 15, 99};
+
+        Random random = new Random(4321);
+        int size = 5000;
+        int[][] values = new int[2 * MphTumorColumns.NUM_COLUMNS][size];
+        for (int i = 0; i < size; i++) {
+            for (int t = 0; t < 2; t++) {
+                int offset = t * MphTumorColumns.NUM_COLUMNS;
+                values[offset][i] = sites[random.nextInt(sites.length)];
+                values[offset + 1][i] = histologies[random.nextInt(histologies.length)];
+                values[offset + 2][i] = behaviors[random.nextInt(behaviors.length)];
+                values[offset + 3][i] = random.nextInt(6) - 1;
+                values[offset + 4][i] = years[random.nextInt(years.length)];
+                values[offset + 5][i] = months[random.nextInt(months.length)];
+                values[offset + 6][i] = days[random.nextInt(days.length)];
+            }
+        }
+
+        MphTumorColumns arrays1 = new MphTumorColumns(values[0], values[1], values[2], values[3], values[4], values[5], values[6]);
+        MphTumorColumns arrays2 = new MphTumorColumns(values[7], values[8], values[9], values[10], values[11], values[12], values[13]);
+        ByteBuffer buffer1 = ByteBuffer.allocateDirect(size * 4 * MphTumorColumns.NUM_COLUMNS), buffer2 = ByteBuffer.allocateDirect(size * 4 * MphTumorColumns.NUM_COLUMNS);
+        for (int c = 0; c < MphTumorColumns.NUM_COLUMNS; c++) {
+            for (int i = 0; i < size; i++) {
+                buffer1.putInt(values[c][i]);
+                buffer2.putInt(values[c + MphTumorColumns.NUM_COLUMNS][i]);
+            }
+        }
+        buffer1.flip();
+        buffer2.flip();
+        MphTumorColumns buffers1 = MphTumorColumns.wrap(buffer1, size), buffers2 = MphTumorColumns.wrap(buffer2, size);
+
+        byte[] results = new byte[size], bufferResults = new byte[size];
+        short[] rules = new short[size], bufferRules = new short[size];
+        _utils.computePrimaries(arrays1, arrays2, null, results, rules);
+        _utils.computePrimaries(buffers1, buffers2, null, bufferResults, bufferRules);
+        Assert.assertArrayEquals(results, bufferResults);
+        Assert.assertArrayEquals(rules, bufferRules);
+
+        int numDecided = 0;
+        for (int i = 0; i < size; i++) {
+            MphInput input1 = createInput(code(values[0][i], "C", 3), code(values[1][i], "", 4), code(values[2][i], "", 1), code(values[3][i], "", 1),
+                    code(values[4][i], "", 4), code(values[5][i], "", 2), code(values[6][i], "", 2));
+            MphInput input2 = createInput(code(values[7][i], "C", 3), code(values[8][i], "", 4), code(values[9][i], "", 1), code(values[10][i], "", 1),
+                    code(values[11][i], "", 4), code(values[12][i], "", 2), code(values[13][i], "", 2));
+            MphOutput output = _utils.computePrimaries(input1, input2);
+            Assert.assertEquals(output.getResult() == null ? -1 : output.getResult().ordinal(), results[i]);
+            MphRule rule = _utils.getDecidingRule(rules[i]);
+            if (output.getStep() == null)
+                Assert.assertNull(rule);
+            else {
+                Assert.assertEquals(output.getStep(), rule.getStep());
+                Assert.assertEquals(output.getGroupId(), rule.getGroupId());
+                numDecided++;
+            }
+        }
+        Assert.assertTrue(numDecided > 0);
+
+        // a range only writes its own pairs
+        byte[] rangeResults = new byte[size];
+        Arrays.fill(rangeResults, (byte)-2);
+        _utils.computePrimaries(arrays1, arrays2, null, rangeResults, null, 100, 200);
+        for (int i = 0; i < size; i++)
+            Assert.assertEquals(i >= 100 && i < 200 ? results[i] : -2, rangeResults[i]);
+
+        try {
+            _utils.computePrimaries(arrays1, MphTumorColumns.wrap(buffer2, size - 1), null, results, rules);
+            Assert.fail("Columns of different sizes should be rejected");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testColumnarBatchIgnoresTreatment() {
+        // an acute neoplasm (9867) reverting to a chronic one (9875), the acute one being treated
+        MphInput input1 = createInput("C001", "9867", "3", null, "2010", null, null), input2 = createInput("C772", "9875", "3", null, "2015", null, null);
+        input1.setTxStatus(MphConstants.TREATMENT_GIVEN);
+        MphOutput output = _utils.computePrimaries(input1, input2);
+        Assert.assertEquals(MphUtils.MpResult.MULTIPLE_PRIMARIES, output.getResult());
+        Assert.assertEquals("M13", output.getStep());
+
+        // the columns have no treatment status, so the same pair is computed as if the acute neoplasm was not treated
+        MphTumorColumns tumors1 = new MphTumorColumns(new int[] {1}, new int[] {9867}, new int[] {3}, new int[] {-1}, new int[] {2010}, null, null);
+        MphTumorColumns tumors2 = new MphTumorColumns(new int[] {772}, new int[] {9875}, new int[] {3}, new int[] {-1}, new int[] {2015}, null, null);
+        byte[] results = new byte[1];
+        short[] rules = new short[1];
+        _utils.computePrimaries(tumors1, tumors2, null, results, rules);
+        Assert.assertEquals(MphUtils.MpResult.SINGLE_PRIMARY.ordinal(), results[0]);
+        Assert.assertEquals("M12", _utils.getDecidingRule(rules[0]).getStep());
+    }
+
+    @Test
+    public void testTumorCategories() throws IllegalAccessException {
+        List<String> sites = new ArrayList<>(Arrays.asList(null, "", "C", "C50", "C5091", "c509", "D509"));
+        for (int site = 0; site <= 999; site++)
+            sites.add(String.format("C%03d", site));
+        List<String> histologies = new ArrayList<>(Arrays.asList(null, "", "814", "08140", "81400", "814A", "7999"));
+        for (int hist = 8000; hist <= 9999; hist++)
+            histologies.add(String.valueOf(hist));
+
+        // every category of MphConstants must give the same answer as its code set
+        for (Field field : MphConstants.class.getFields()) {
+            if (field.getType() != CodeSet.class)
+                continue;
+            CodeSet set = (CodeSet)field.get(null);
+            long category = TumorCategories.of(set);
+            for (String site : sites)
+                Assert.assertEquals(field.getName() + " " + site, set.contains(site), (TumorCategories.compute(site, null) & category) != 0);
+            for (String hist : histologies)
+                Assert.assertEquals(field.getName() + " " + hist, set.contains(hist), (TumorCategories.compute(null, hist) & category) != 0);
+        }
+
+        Assert.assertEquals(TumorCategories.compute("C619", null) | TumorCategories.compute(null, "8140"), TumorCategories.compute("C619", "8140"));
+        Assert.assertEquals(TumorCategories.compute("C619", "8140"), new ValidatedTumor("C619", "8140", "3", null, null, "0", "2010").getCategories());
+    }
+
+    @Test
+    public void testComputePrimariesForNewTumor() {
+        String[] sites = {"C509", "C504", "C340", "C341", "C180", "C187", "C649", "C445", "C421", "C710", "C619", "C809", null};
+        String[] histologies = {"8500", "8140", "8070", "8720", "9680", "9732", "8000", "9590", "9440", "8120", "814"};
+        String[] behaviors = {"3", "2", "0", "1", null}, years = {"1999", "2003", "2006", "2008", "2012", "2015", null}, months = {"01", "06", "12", null};
+
+        Random random = new Random(2468);
+        MphComputeOptions options = new MphComputeOptions();
+        for (int patient = 0; patient < 500; patient++) {
+            List<MphInput> tumors = new ArrayList<>();
+            for (int i = 0; i < 1 + random.nextInt(8); i++)
+                tumors.add(createInput(sites[random.nextInt(sites.length)], histologies[random.nextInt(histologies.length)], behaviors[random.nextInt(behaviors.length)],
+                        String.valueOf(random.nextInt(5)), years[random.nextInt(years.length)], months[random.nextInt(months.length)], null));
+            MphInput newTumor = tumors.remove(0);
+
+            // each output must be the same as the one of the pair computed on its own
+            List<MphOutput> outputs = _utils.computePrimariesForNewTumor(newTumor, tumors, patient % 2 == 0 ? options : null);
+            Assert.assertEquals(tumors.size(), outputs.size());
+            for (int i = 0; i < tumors.size(); i++) {
+                MphOutput expected = _utils.computePrimaries(newTumor, tumors.get(i), options);
+                Assert.assertEquals(expected.getResult(), outputs.get(i).getResult());
+                assertSameOutput(expected, outputs.get(i));
+            }
+        }
+
+        Assert.assertTrue(_utils.computePrimariesForNewTumor(createInput("C509", "8500", "3", "1", "2015", null, null), new ArrayList<>(), null).isEmpty());
+    }
+
+    // computes the pair features by comparing the codes (the way the rules used to compare them)
+    private static int computeFeaturesFromCodes(MphInput i1, MphInput i2) {
+        String site1 = i1.getPrimarySite(), site2 = i2.getPrimarySite(), hist1 = i1.getHistology(), hist2 = i2.getHistology(), beh1 = i1.getBehavior(), beh2 = i2.getBehavior();
+        int features = site1.equals(site2) ? PairFeatures.SAME_SITE : PairFeatures.DIFFERENT_SITE;
+        if (!site1.regionMatches(1, site2, 1, 2))
+            features |= PairFeatures.DIFFERENT_SITE_PREFIX;
+        features |= hist1.equals(hist2) ? PairFeatures.SAME_HISTOLOGY : PairFeatures.DIFFERENT_HISTOLOGY;
+        if (!hist1.regionMatches(0, hist2, 0, 3))
+            features |= PairFeatures.DIFFERENT_HISTOLOGY_PREFIX;
+        if (MphConstants.MALIGNANT.equals(beh1) && MphConstants.MALIGNANT.equals(beh2))
+            features |= PairFeatures.BOTH_MALIGNANT;
+        else if ((MphConstants.INSITU.equals(beh1) && MphConstants.MALIGNANT.equals(beh2)) || (MphConstants.MALIGNANT.equals(beh1) && MphConstants.INSITU.equals(beh2)))
+            features |= PairFeatures.INSITU_AND_MALIGNANT;
+        return features;
+    }
+
+    // applies all the rules of the group in order, returns the result and the deciding step the same way computePrimaries reports them
+    private static String applyRulesInOrder(MphGroup group, MphInput i1, MphInput i2, MphComputeOptions options) {
+        TempRuleResult potentialResult = null;
+        String potentialStep = null;
+        for (MphRule rule : group.getRules()) {
+            TempRuleResult result = rule.apply(i1, i2, options);
+            if (result.getPotentialResult() != null) {
+                if (potentialResult == null) {
+                    potentialResult = result;
+                    potentialStep = rule.getStep();
+                }
+                else if (!result.getPotentialResult().equals(potentialResult.getPotentialResult()))
+                    return MphUtils.MpResult.QUESTIONABLE + " " + potentialStep;
+            }
+            else if (result.getFinalResult() != null) {
+                if (potentialResult == null || potentialResult.getPotentialResult().equals(result.getFinalResult()))
+                    return result.getFinalResult() + " " + rule.getStep();
+                return MphUtils.MpResult.QUESTIONABLE + " " + potentialStep;
+            }
+        }
+        return null + " " + null;
+    }
+
+    private static String code(int value, String prefix, int numDigits) {
+        return value == -1 ? null : prefix + StringUtils.leftPad(String.valueOf(value), numDigits, '0');
+    }
+
+    // applies every rule of the group to each pair, returns the number of rules that returned a result
+    private static int applyAllRules(MphInput[][] pairs, MphGroup[] groups, MphComputeOptions options) {
+        int numResults = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            List<MphRule> rules = groups[i].getRules();
+            for (int j = 0; j < rules.size(); j++) {
+                TempRuleResult result = rules.get(j).apply(pairs[i][0], pairs[i][1], options);
+                if (result != TempRuleResult.NO_RESULT)
+                    numResults++;
+            }
+        }
+        return numResults;
+    }
+
+    private static MphInput createInput(String site, String hist, String beh, String laterality, String year, String month, String day) {
+        MphInput input = new MphInput();
+        input.setPrimarySite(site);
+        input.setHistologyIcdO3(hist);
+        input.setBehaviorIcdO3(beh);
+        input.setLaterality(laterality);
+        input.setDateOfDiagnosisYear(year);
+        input.setDateOfDiagnosisMonth(month);
+        input.setDateOfDiagnosisDay(day);
+        return input;
+    }
+
+    private static void assertSameOutput(MphOutput expected, MphOutput actual) {
+        Assert.assertEquals(expected.getResult(), actual.getResult());
+        Assert.assertEquals(expected.getReason(), actual.getReason());
+        Assert.assertEquals(expected.getGroupId(), actual.getGroupId());
+        Assert.assertEquals(expected.getStep(), actual.getStep());
+        Assert.assertEquals(expected.getAppliedRules(), actual.getAppliedRules());
+    }
+
 }